@@ -125,6 +125,15 @@ public class GraderRunner {
         return cc;
     }
 
+    /**
+     * Only the methods declared on TableBenchmark are timed and graded.
+     *
+     * @return JMH include pattern matching the graded methods of `benchClass`
+     */
+    static String gradedMethods(Class<? extends TableBenchmark> benchClass) {
+        return benchClass.getSimpleName() + "\\.test(RowTable|ColumnTable|IndexedTable)$";
+    }
+
     /**
      * @return Results checking for relative timings
      * @throws RunnerException
@@ -138,11 +147,11 @@ public class GraderRunner {
         // Comment out one or more of these if you want to focus on testing a specific benchmark
         // locally!
         Options opt = new OptionsBuilder()
-                .include(ColumnSumNarrowBench.class.getSimpleName())
-                .include(ColumnSumWideBench.class.getSimpleName())
-                .include(PredicatedAllColumnsSumBench.class.getSimpleName())
-                .include(PredicatedColumnSumBench.class.getSimpleName())
-                .include(PredicatedUpdateBench.class.getSimpleName())
+                .include(gradedMethods(ColumnSumNarrowBench.class))
+                .include(gradedMethods(ColumnSumWideBench.class))
+                .include(gradedMethods(PredicatedAllColumnsSumBench.class))
+                .include(gradedMethods(PredicatedColumnSumBench.class))
+                .include(gradedMethods(PredicatedUpdateBench.class))
                 .verbosity(VerboseMode.NORMAL)
                 .warmupIterations(1)
                 .warmupTime(TimeValue.seconds(1))
@@ -0,0 +1,66 @@
+package memstore.benchmarks;
+
+import memstore.GraderConstants;
+import memstore.data.ClusteredLoader;
+import memstore.data.DataLoader;
+import memstore.table.ColumnTable;
+import memstore.table.CompressedColumnTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scans over a table clustered on col0, either fully sorted (runLength 0) or
+ * in runs of equal values. The compressed table stores col0 as runs or deltas
+ * and aggregates over runs instead of rows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class ClusteredColumnBench {
+    @Param({"0", "1000"})
+    int runLength;
+
+    DataLoader dl;
+    ColumnTable ct;
+    CompressedColumnTable zt;
+    int t1;
+
+    @Setup
+    public void prepare() throws IOException {
+        dl = new ClusteredLoader(
+                GraderConstants.getSeed(),
+                1_000_000,
+                4,
+                0,
+                runLength
+        );
+        t1 = 500;
+
+        ct = new ColumnTable();
+        zt = new CompressedColumnTable();
+        ct.load(dl);
+        zt.load(dl);
+    }
+
+    @Benchmark
+    public long testColumnSumColumnTable() {
+        return ct.columnSum();
+    }
+
+    @Benchmark
+    public long testColumnSumCompressedColumnTable() {
+        return zt.columnSum();
+    }
+
+    @Benchmark
+    public long testPredicatedAllColumnsSumColumnTable() {
+        return ct.predicatedAllColumnsSum(t1);
+    }
+
+    @Benchmark
+    public long testPredicatedAllColumnsSumCompressedColumnTable() {
+        return zt.predicatedAllColumnsSum(t1);
+    }
+}
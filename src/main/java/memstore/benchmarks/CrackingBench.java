@@ -0,0 +1,82 @@
+package memstore.benchmarks;
+
+import memstore.GraderConstants;
+import memstore.data.DataLoader;
+import memstore.data.RandomizedLoader;
+import memstore.table.ArrayColumnTable;
+import memstore.table.CrackedColumnTable;
+import memstore.table.Table;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Convergence of database cracking: each invocation runs the first `queries`
+ * queries of a fixed random sequence, alternating predicatedAllColumnsSum and
+ * predicatedUpdate, against freshly loaded tables. The thresholds select at
+ * most SPAN of the 1024 values, so that every query is selective enough to
+ * be answered through the cracker column. Dividing the time by
+ * `queries` gives the average query cost after that many queries, which stays
+ * flat for the ArrayColumnTable scans and falls for the CrackedColumnTable as
+ * its pieces shrink.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class CrackingBench {
+    // thresholds fall within this distance of the ends of the value range
+    public static final int SPAN = 64;
+
+    @Param({"1", "16", "256", "4096"})
+    int queries;
+
+    DataLoader dl;
+    int[] thresholds;
+    ArrayColumnTable at;
+    CrackedColumnTable qt;
+
+    @Setup(Level.Trial)
+    public void prepare() {
+        dl = new RandomizedLoader(
+                GraderConstants.getSeed(),
+                1_000_000,
+                10
+        );
+        Random random = new Random(GraderConstants.getSeed());
+        thresholds = new int[queries];
+        for (int i = 0; i < queries; i++) {
+            thresholds[i] = random.nextInt(SPAN);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void reload() throws IOException {
+        at = new ArrayColumnTable();
+        qt = new CrackedColumnTable();
+        at.load(dl);
+        qt.load(dl);
+    }
+
+    private long testTable(Table t) {
+        long result = 0;
+        for (int i = 0; i < queries; i += 2) {
+            result += t.predicatedAllColumnsSum(1023 - thresholds[i]);
+            if (i + 1 < queries) {
+                result += t.predicatedUpdate(thresholds[i + 1]);
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public long testArrayColumnTable() {
+        return testTable(at);
+    }
+
+    @Benchmark
+    public long testCrackedColumnTable() {
+        return testTable(qt);
+    }
+}
@@ -0,0 +1,166 @@
+package memstore.benchmarks;
+
+import memstore.GraderConstants;
+import memstore.data.DataLoader;
+import memstore.data.RandomizedLoader;
+import memstore.table.ArrayColumnTable;
+import memstore.table.ClusteredRowTable;
+import memstore.table.ColumnGroupTable;
+import memstore.table.ColumnTable;
+import memstore.table.CompressedColumnTable;
+import memstore.table.CrackedColumnTable;
+import memstore.table.DeferredUpdateTable;
+import memstore.table.IndexedRowTable;
+import memstore.table.KdTreeTable;
+import memstore.table.OffHeapColumnTable;
+import memstore.table.PaxTable;
+import memstore.table.ProjectedTable;
+import memstore.table.RowTable;
+import memstore.table.SegmentedTable;
+import memstore.table.Table;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The queries of the graded benches (ColumnSumNarrowBench, ColumnSumWideBench,
+ * PredicatedAllColumnsSumBench, PredicatedColumnSumBench, PredicatedUpdateBench
+ * and UpdatesBench), on the same data and with the same thresholds, against
+ * one table at a time. The graded benches only load the graded tables, so
+ * that their setup fits in the grader's heap; other engines are compared
+ * here, e.g. with -p query=ColumnSumWide -p table=RowTable,ArrayColumnTable;
+ * ColumnSumNarrowBench and ColumnSumWideBench record such results for
+ * ArrayColumnTable.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class EngineBench {
+    @Param({"RowTable", "ColumnTable", "IndexedRowTable", "IndexedArtTable", "OffHeapColumnTable",
+            "ArrayColumnTable", "PaxTable", "CompressedColumnTable", "ColumnGroupTable",
+            "SegmentedTable", "ClusteredRowTable", "ProjectedTable", "CrackedColumnTable",
+            "KdTreeTable", "DeferredUpdateTable"})
+    String table;
+
+    @Param({"ColumnSumNarrow", "ColumnSumWide", "PredicatedAllColumnsSum", "PredicatedColumnSum",
+            "PredicatedUpdate", "Updates"})
+    String query;
+
+    Table t;
+    int t1, t2;
+
+    int numUpdates;
+    int[] rowIds;
+    int[] colIds;
+    int[] values;
+
+    /**
+     * HELPER METHOD
+     * Returns the table named `name`; indexed tables index `indexColumn`.
+     */
+    static Table createTable(String name, int indexColumn) {
+        switch (name) {
+            case "RowTable": return new RowTable();
+            case "ColumnTable": return new ColumnTable();
+            case "IndexedRowTable": return new IndexedRowTable(indexColumn);
+            case "IndexedArtTable": return new IndexedRowTable(indexColumn, IndexedRowTable.IndexType.ART);
+            case "OffHeapColumnTable": return new OffHeapColumnTable();
+            case "ArrayColumnTable": return new ArrayColumnTable();
+            case "PaxTable": return new PaxTable();
+            case "CompressedColumnTable": return new CompressedColumnTable();
+            case "ColumnGroupTable": return new ColumnGroupTable();
+            case "SegmentedTable": return new SegmentedTable();
+            case "ClusteredRowTable": return new ClusteredRowTable();
+            case "ProjectedTable": return new ProjectedTable();
+            case "CrackedColumnTable": return new CrackedColumnTable();
+            case "KdTreeTable": return new KdTreeTable();
+            case "DeferredUpdateTable": return new DeferredUpdateTable();
+            default: throw new IllegalArgumentException("unknown table " + name);
+        }
+    }
+
+    @Setup
+    public void prepare() throws IOException {
+        int numRows;
+        int numCols;
+        int indexColumn = 0;
+        switch (query) {
+            case "ColumnSumNarrow":
+                numRows = 1_000_000;
+                numCols = 3;
+                break;
+            case "ColumnSumWide":
+                numRows = 1_000_000;
+                numCols = 20;
+                break;
+            case "PredicatedAllColumnsSum":
+                numRows = 100_000;
+                numCols = 100;
+                t1 = 50;
+                break;
+            case "PredicatedColumnSum":
+                numRows = 1_000_000;
+                numCols = 4;
+                indexColumn = 2;
+                t1 = 500;
+                t2 = 10;
+                break;
+            case "PredicatedUpdate":
+                numRows = 1_000_000;
+                numCols = 4;
+                t1 = 10;
+                break;
+            case "Updates":
+                numRows = 10_000;
+                numCols = 100;
+                indexColumn = 1;
+                numUpdates = 100_000;
+                rowIds = new int[numUpdates];
+                colIds = new int[numUpdates];
+                values = new int[numUpdates];
+                Random random = new Random(GraderConstants.getSeed());
+                for (int i = 0; i < numUpdates; i++) {
+                    rowIds[i] = random.nextInt(numRows);
+                    colIds[i] = random.nextInt(numCols);
+                    values[i] = random.nextInt(1024);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("unknown query " + query);
+        }
+        DataLoader dl = new RandomizedLoader(
+                GraderConstants.getSeed(),
+                numRows,
+                numCols
+        );
+        t = createTable(table, indexColumn);
+        t.load(dl);
+    }
+
+    @Benchmark
+    public long testQuery() {
+        switch (query) {
+            case "ColumnSumNarrow":
+            case "ColumnSumWide":
+                return t.columnSum();
+            case "PredicatedAllColumnsSum":
+                return t.predicatedAllColumnsSum(t1);
+            case "PredicatedColumnSum":
+                return t.predicatedColumnSum(t1, t2);
+            case "PredicatedUpdate":
+                return t.predicatedUpdate(t1);
+            default:
+                long result = 0L;
+                for (int i = 0; i < numUpdates; i++) {
+                    t.putIntField(rowIds[i], colIds[i], values[i]);
+                    if (i % 1000 == 0) {
+                        result += t.predicatedAllColumnsSum(50);
+                        result += t.predicatedColumnSum(50, 950);
+                    }
+                }
+                return result;
+        }
+    }
+}
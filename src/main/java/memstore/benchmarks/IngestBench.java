@@ -0,0 +1,98 @@
+package memstore.benchmarks;
+
+import memstore.GraderConstants;
+import memstore.data.DataLoader;
+import memstore.data.RandomizedLoader;
+import memstore.table.SegmentedTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Continuous ingest into a SegmentedTable.
+ *
+ * testAppend measures insertRow throughput into an empty table, reported per row.
+ * The scan benchmarks run on a 1M-row table after deleting `deletedFraction`
+ * of its rows at random, either leaving them as tombstones (compact = false)
+ * or letting full segments compact in the background as they would in use.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class IngestBench {
+    public static final int APPEND_ROWS = 1_000_000;
+    public static final int SCAN_ROWS = 1_000_000;
+
+    @State(Scope.Thread)
+    public static class AppendState {
+        int[][] rows;
+
+        @Setup
+        public void prepare() {
+            Random random = new Random(GraderConstants.getSeed());
+            rows = new int[APPEND_ROWS][5];
+            for (int[] row : rows) {
+                for (int colId = 0; colId < row.length; colId++) {
+                    row[colId] = random.nextInt(1024);
+                }
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ScanState {
+        @Param({"0", "0.01", "0.1", "0.5", "0.9"})
+        double deletedFraction;
+
+        @Param({"false", "true"})
+        boolean compact;
+
+        SegmentedTable st;
+        int t1;
+
+        @Setup
+        public void prepare() throws IOException {
+            DataLoader dl = new RandomizedLoader(
+                    GraderConstants.getSeed(),
+                    SCAN_ROWS,
+                    5
+            );
+            t1 = 500;
+
+            st = new SegmentedTable(0, SegmentedTable.DEFAULT_SEGMENT_SHIFT,
+                    compact ? SegmentedTable.DEFAULT_COMPACT_FRACTION : 1.0);
+            st.load(dl);
+            Random random = new Random(GraderConstants.getSeed());
+            for (int rowId = 0; rowId < SCAN_ROWS; rowId++) {
+                if (random.nextDouble() < deletedFraction) {
+                    st.deleteRow(rowId);
+                }
+            }
+            st.awaitCompaction();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(APPEND_ROWS)
+    public long testAppend(AppendState state) throws IOException {
+        SegmentedTable st = new SegmentedTable(5, SegmentedTable.DEFAULT_SEGMENT_SHIFT,
+                SegmentedTable.DEFAULT_COMPACT_FRACTION);
+        for (int[] row : state.rows) {
+            st.insertRow(row);
+        }
+        return st.getNumRows();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long testColumnSum(ScanState state) {
+        return state.st.columnSum();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long testPredicatedAllColumnsSum(ScanState state) {
+        return state.st.predicatedAllColumnsSum(state.t1);
+    }
+}
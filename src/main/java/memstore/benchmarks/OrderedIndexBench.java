@@ -0,0 +1,210 @@
+package memstore.benchmarks;
+
+import memstore.GraderConstants;
+import memstore.table.AdaptiveRadixTree;
+import memstore.table.BPlusTree;
+import memstore.table.SortedIntIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point lookups, seeks, range scans and updates on a boxed TreeMap, walked
+ * with the higherKey / get calls the indexed tables used to make, and on a
+ * SortedIntIndex and an AdaptiveRadixTree walked with reused cursors. All
+ * three map `numKeys` even keys to a one-element array; the probes are random
+ * keys over twice that range. The same keys are also bulk loaded into a
+ * BPlusTree as a column whose row i holds key 2i, so key k is the entry
+ * (k, k / 2); its updates toggle the entry with that row id.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class OrderedIndexBench {
+    // keys per range scan
+    public static final int SPAN = 64;
+
+    @Param({"1024", "65536"})
+    int numKeys;
+
+    TreeMap<Integer, int[]> treeMap;
+    SortedIntIndex<int[]> index;
+    SortedIntIndex.Cursor<int[]> cursor;
+    AdaptiveRadixTree<int[]> art;
+    AdaptiveRadixTree.Cursor<int[]> artCursor;
+    BPlusTree tree;
+    BPlusTree.Cursor treeCursor;
+    int[] probes;
+    int next;
+
+    @Setup
+    public void prepare() {
+        treeMap = new TreeMap<>();
+        index = new SortedIntIndex<>();
+        cursor = index.cursor();
+        art = new AdaptiveRadixTree<>();
+        artCursor = art.cursor();
+        for (int key = 0; key < 2 * numKeys; key += 2) {
+            int[] value = {key};
+            treeMap.put(key, value);
+            index.put(key, value);
+            art.put(key, value);
+        }
+        int[] keys = new int[numKeys];
+        for (int i = 0; i < numKeys; i++) {
+            keys[i] = 2 * i;
+        }
+        tree = new BPlusTree(keys);
+        treeCursor = tree.cursor();
+        Random random = new Random(GraderConstants.getSeed());
+        probes = new int[1 << 16];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = random.nextInt(2 * numKeys);
+        }
+    }
+
+    private int probe() {
+        next = (next + 1) & (probes.length - 1);
+        return probes[next];
+    }
+
+    @Benchmark
+    public int testLookupTreeMap() {
+        int[] value = treeMap.get(probe());
+        return value == null ? -1 : value[0];
+    }
+
+    @Benchmark
+    public int testLookupSortedIntIndex() {
+        int[] value = index.get(probe());
+        return value == null ? -1 : value[0];
+    }
+
+    @Benchmark
+    public int testLookupAdaptiveRadixTree() {
+        int[] value = art.get(probe());
+        return value == null ? -1 : value[0];
+    }
+
+    @Benchmark
+    public int testSeekTreeMap() {
+        Integer key = treeMap.higherKey(probe());
+        return key == null ? -1 : treeMap.get(key)[0];
+    }
+
+    @Benchmark
+    public int testSeekSortedIntIndex() {
+        cursor.seekAbove(probe());
+        return cursor.hasNext() ? cursor.next()[0] : -1;
+    }
+
+    @Benchmark
+    public int testSeekAdaptiveRadixTree() {
+        artCursor.seekAbove(probe());
+        return artCursor.hasNext() ? artCursor.next()[0] : -1;
+    }
+
+    @Benchmark
+    public int testSeekBPlusTree() {
+        treeCursor.seekAbove(probe());
+        while (treeCursor.next()) {
+            if (treeCursor.from() < treeCursor.to()) {
+                return treeCursor.keys()[treeCursor.from()];
+            }
+        }
+        return -1;
+    }
+
+    @Benchmark
+    public long testRangeScanTreeMap() {
+        int threshold = probe();
+        long sum = 0;
+        Integer k = treeMap.higherKey(threshold);
+        while (k != null && k <= threshold + 2 * SPAN) {
+            sum += treeMap.get(k)[0];
+            k = treeMap.higherKey(k);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long testRangeScanSortedIntIndex() {
+        int threshold = probe();
+        long sum = 0;
+        for (int[] value : cursor.seekAbove(threshold)) {
+            if (cursor.key() > threshold + 2 * SPAN) {
+                break;
+            }
+            sum += value[0];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long testRangeScanAdaptiveRadixTree() {
+        int threshold = probe();
+        long sum = 0;
+        for (int[] value : artCursor.seekAbove(threshold)) {
+            if (artCursor.key() > threshold + 2 * SPAN) {
+                break;
+            }
+            sum += value[0];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long testRangeScanBPlusTree() {
+        int threshold = probe();
+        long sum = 0;
+        treeCursor.seekAbove(threshold);
+        while (treeCursor.next()) {
+            int[] keys = treeCursor.keys();
+            for (int i = treeCursor.from(); i < treeCursor.to(); i++) {
+                if (keys[i] > threshold + 2 * SPAN) {
+                    return sum;
+                }
+                sum += keys[i];
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int testUpdateTreeMap() {
+        int key = probe();
+        if (treeMap.remove(key) == null) {
+            treeMap.put(key, new int[]{key});
+        }
+        return treeMap.size();
+    }
+
+    @Benchmark
+    public int testUpdateSortedIntIndex() {
+        int key = probe();
+        if (index.remove(key) == null) {
+            index.put(key, new int[]{key});
+        }
+        return index.size();
+    }
+
+    @Benchmark
+    public int testUpdateAdaptiveRadixTree() {
+        int key = probe();
+        if (art.remove(key) == null) {
+            art.put(key, new int[]{key});
+        }
+        return art.size();
+    }
+
+    @Benchmark
+    public long testUpdateBPlusTree() {
+        int key = probe();
+        if (!tree.remove(key, key >>> 1)) {
+            tree.insert(key, key >>> 1);
+        }
+        return tree.size();
+    }
+}
@@ -0,0 +1,75 @@
+package memstore.benchmarks;
+
+import memstore.GraderConstants;
+import memstore.data.DataLoader;
+import memstore.data.RandomizedLoader;
+import memstore.table.ColumnTable;
+import memstore.table.MappedTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup cost of getting a queryable table: rebuilding a ColumnTable from its
+ * DataLoader, versus reopening a MappedTable whose file was written earlier.
+ * Uses the cell counts of the narrow (15M) and wide (27.5M) custom workloads.
+ *
+ * Reopening only reads the header and maps the columns, so it is independent
+ * of the table size; the first scan after reopening pays for paging in col0.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class StartupBench {
+    @Param({"5", "100"})
+    int numCols;
+
+    DataLoader dl;
+    File file;
+
+    @Setup(Level.Trial)
+    public void prepare() throws IOException {
+        int numCells = numCols == 5 ? 15_000_000 : 27_500_000;
+        dl = new RandomizedLoader(
+                GraderConstants.getSeed(),
+                numCells / numCols,
+                numCols
+        );
+        file = File.createTempFile("memstore", ".tbl");
+        file.deleteOnExit();
+        try (MappedTable mt = new MappedTable(file)) {
+            mt.load(dl);
+            mt.force();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanup() {
+        file.delete();
+    }
+
+    @Benchmark
+    public long testLoadColumnTable() throws IOException {
+        ColumnTable ct = new ColumnTable();
+        ct.load(dl);
+        return ct.getIntField(0, 0);
+    }
+
+    @Benchmark
+    public long testReopenMappedTable() throws IOException {
+        try (MappedTable mt = new MappedTable(file)) {
+            mt.open();
+            return mt.getIntField(0, 0);
+        }
+    }
+
+    @Benchmark
+    public long testReopenMappedTableAndScan() throws IOException {
+        try (MappedTable mt = new MappedTable(file)) {
+            mt.open();
+            return mt.columnSum();
+        }
+    }
+}
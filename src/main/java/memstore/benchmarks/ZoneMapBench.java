@@ -0,0 +1,87 @@
+package memstore.benchmarks;
+
+import memstore.GraderConstants;
+import memstore.data.ClusteredLoader;
+import memstore.data.DataLoader;
+import memstore.data.RandomizedLoader;
+import memstore.table.ColumnTable;
+import memstore.table.IndexedRowTable;
+import memstore.table.RowTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scans with zone maps on uniform data, where almost no block can be skipped,
+ * and on data sorted on col0, where a predicate on col0 skips or fully
+ * matches all blocks but the one holding the threshold. IndexedRowTable is
+ * indexed on col1, so its col0 queries take the zone-mapped fallback path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class ZoneMapBench {
+    @Param({"uniform", "clustered"})
+    String data;
+
+    DataLoader dl;
+    RowTable rt;
+    ColumnTable ct;
+    IndexedRowTable it;
+    int t1;
+
+    @Setup
+    public void prepare() throws IOException {
+        int numRows = 1_000_000;
+        int numCols = 10;
+        if (data.equals("clustered")) {
+            dl = new ClusteredLoader(GraderConstants.getSeed(), numRows, numCols, 0, 0);
+        } else {
+            dl = new RandomizedLoader(GraderConstants.getSeed(), numRows, numCols);
+        }
+        t1 = 900;
+
+        rt = new RowTable();
+        ct = new ColumnTable();
+        it = new IndexedRowTable(1);
+        rt.load(dl);
+        ct.load(dl);
+        it.load(dl);
+    }
+
+    @Benchmark
+    public long testColumnSumRowTable() {
+        return rt.columnSum();
+    }
+
+    @Benchmark
+    public long testColumnSumColumnTable() {
+        return ct.columnSum();
+    }
+
+    @Benchmark
+    public long testPredicatedAllColumnsSumRowTable() {
+        return rt.predicatedAllColumnsSum(t1);
+    }
+
+    @Benchmark
+    public long testPredicatedAllColumnsSumColumnTable() {
+        return ct.predicatedAllColumnsSum(t1);
+    }
+
+    @Benchmark
+    public long testPredicatedAllColumnsSumIndexedTable() {
+        return it.predicatedAllColumnsSum(t1);
+    }
+
+    @Benchmark
+    public long testPredicatedUpdateRowTable() {
+        return rt.predicatedUpdate(1024 - t1);
+    }
+
+    @Benchmark
+    public long testPredicatedUpdateColumnTable() {
+        return ct.predicatedUpdate(1024 - t1);
+    }
+}
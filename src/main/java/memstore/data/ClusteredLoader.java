@@ -0,0 +1,59 @@
+package memstore.data;
+
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates the same kind of random rows as RandomizedLoader, but clustered on
+ * column `clusterCol`: rows come in runs of `runLength` rows that share the
+ * same clusterCol value. A runLength of 0 sorts the whole table on clusterCol.
+ */
+public class ClusteredLoader implements DataLoader {
+    private int seed;
+    private int numRows;
+    private int numCols;
+    private int clusterCol;
+    private int runLength;
+
+    public ClusteredLoader(int seed, int numRows, int numCols, int clusterCol, int runLength) {
+        this.numCols = numCols;
+        this.numRows = numRows;
+        this.seed = seed;
+        this.clusterCol = clusterCol;
+        this.runLength = runLength;
+    }
+
+    @Override
+    public int getNumCols() {
+        return numCols;
+    }
+
+    public List<ByteBuffer> getRows() throws IOException {
+        Random random = new Random(seed);
+
+        ArrayList<ByteBuffer> rowBytes = new ArrayList<>();
+        int clusterVal = 0;
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            if (runLength > 0 && rowId % runLength == 0) {
+                clusterVal = random.nextInt(1024);
+            }
+            ByteBuffer curRowBuffer = ByteBuffer.allocate(ByteFormat.FIELD_LEN*numCols);
+            for (int i = 0; i < numCols; i++) {
+                int val = random.nextInt(1024);
+                curRowBuffer.putInt(runLength > 0 && i == clusterCol ? clusterVal : val);
+            }
+            curRowBuffer.rewind();
+            rowBytes.add(curRowBuffer);
+        }
+        if (runLength <= 0) {
+            int offset = ByteFormat.FIELD_LEN * clusterCol;
+            Collections.sort(rowBytes, (a, b) -> Integer.compare(a.getInt(offset), b.getInt(offset)));
+        }
+        return rowBytes;
+    }
+}
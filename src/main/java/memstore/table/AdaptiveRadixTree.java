@@ -0,0 +1,608 @@
+package memstore.table;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An ordered map from int keys to values, stored as an adaptive radix tree
+ * (Leis et al., ICDE 2013) over the four bytes of each key.
+ *
+ * Keys are compared as unsigned big-endian bytes after flipping the sign bit,
+ * so the byte order of the tree is the numeric order of the keys. Each inner
+ * node branches on one byte and comes in four sizes, grown and shrunk as its
+ * children come and go:
+ *   Node4 / Node16  sorted arrays of up to 4 / 16 key bytes and children;
+ *   Node48          a 256-entry byte index into up to 48 children;
+ *   Node256         a child array indexed by the byte itself.
+ * Subtrees holding a single key are stored as just its leaf (lazy expansion).
+ * With 4-byte keys a lookup visits at most four inner nodes, and does no key
+ * comparisons until the leaf, so it needs fewer cache misses than a binary
+ * search or a comparison tree of the same size.
+ *
+ * Ranges are read through a Cursor, as with SortedIntIndex: it keeps the path
+ * to the current leaf and steps to the next leaf in key order.
+ */
+public class AdaptiveRadixTree<V> implements OrderedIntIndex<V> {
+    private static final int DEPTH = 4;
+
+    private static final class Leaf {
+        final int key;
+        Object value;
+
+        Leaf(int key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private abstract static class Node {
+        int count;
+
+        /**
+         * Returns the child under byte b, or null.
+         */
+        abstract Object child(int b);
+
+        /**
+         * Replaces the existing child under byte b.
+         */
+        abstract void set(int b, Object child);
+
+        /**
+         * Adds a child under byte b, which must be absent. Returns this node, or
+         * the larger node that replaces it.
+         */
+        abstract Node add(int b, Object child);
+
+        /**
+         * Removes the child under byte b, which must be present. Returns this
+         * node, or the smaller node that replaces it.
+         */
+        abstract Node remove(int b);
+
+        /**
+         * Returns the first position >= pos that holds a child, or -1. Children
+         * are in byte order by position, and position 0 is the first.
+         */
+        abstract int next(int pos);
+
+        /**
+         * Returns the first position whose child is under a byte > b.
+         */
+        abstract int after(int b);
+
+        /**
+         * Returns the child at position pos, which must hold one.
+         */
+        abstract Object childAt(int pos);
+    }
+
+    /**
+     * Node4 and Node16: up to `capacity` children, sorted by byte.
+     */
+    private static final class SmallNode extends Node {
+        final byte[] keys;
+        final Object[] children;
+
+        SmallNode(int capacity) {
+            this.keys = new byte[capacity];
+            this.children = new Object[capacity];
+        }
+
+        @Override
+        Object child(int b) {
+            for (int i = 0; i < count; i++) {
+                if ((keys[i] & 0xff) == b) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        @Override
+        void set(int b, Object child) {
+            for (int i = 0; i < count; i++) {
+                if ((keys[i] & 0xff) == b) {
+                    children[i] = child;
+                    return;
+                }
+            }
+        }
+
+        @Override
+        Node add(int b, Object child) {
+            if (count == keys.length) {
+                Node grown = keys.length == 4 ? new SmallNode(16) : new Node48();
+                for (int i = 0; i < count; i++) {
+                    grown.add(keys[i] & 0xff, children[i]);
+                }
+                return grown.add(b, child);
+            }
+            int pos = count;
+            while (pos > 0 && (keys[pos - 1] & 0xff) > b) {
+                keys[pos] = keys[pos - 1];
+                children[pos] = children[pos - 1];
+                pos--;
+            }
+            keys[pos] = (byte) b;
+            children[pos] = child;
+            count++;
+            return this;
+        }
+
+        @Override
+        Node remove(int b) {
+            int pos = 0;
+            while ((keys[pos] & 0xff) != b) {
+                pos++;
+            }
+            System.arraycopy(keys, pos + 1, keys, pos, count - pos - 1);
+            System.arraycopy(children, pos + 1, children, pos, count - pos - 1);
+            children[--count] = null;
+            if (keys.length == 16 && count <= 3) {
+                SmallNode shrunk = new SmallNode(4);
+                System.arraycopy(keys, 0, shrunk.keys, 0, count);
+                System.arraycopy(children, 0, shrunk.children, 0, count);
+                shrunk.count = count;
+                return shrunk;
+            }
+            return this;
+        }
+
+        @Override
+        int next(int pos) {
+            return pos < count ? pos : -1;
+        }
+
+        @Override
+        int after(int b) {
+            int pos = 0;
+            while (pos < count && (keys[pos] & 0xff) <= b) {
+                pos++;
+            }
+            return pos;
+        }
+
+        @Override
+        Object childAt(int pos) {
+            return children[pos];
+        }
+    }
+
+    private static final class Node48 extends Node {
+        // index[b] is 1 + the slot of the child under byte b, or 0
+        final byte[] index = new byte[256];
+        final Object[] children = new Object[48];
+
+        @Override
+        Object child(int b) {
+            int slot = index[b];
+            return slot == 0 ? null : children[slot - 1];
+        }
+
+        @Override
+        void set(int b, Object child) {
+            children[index[b] - 1] = child;
+        }
+
+        @Override
+        Node add(int b, Object child) {
+            if (count == 48) {
+                Node256 grown = new Node256();
+                for (int c = 0; c < 256; c++) {
+                    if (index[c] != 0) {
+                        grown.add(c, children[index[c] - 1]);
+                    }
+                }
+                return grown.add(b, child);
+            }
+            int slot = 0;
+            while (children[slot] != null) {
+                slot++;
+            }
+            children[slot] = child;
+            index[b] = (byte) (slot + 1);
+            count++;
+            return this;
+        }
+
+        @Override
+        Node remove(int b) {
+            children[index[b] - 1] = null;
+            index[b] = 0;
+            count--;
+            if (count <= 12) {
+                SmallNode shrunk = new SmallNode(16);
+                for (int c = 0; c < 256; c++) {
+                    if (index[c] != 0) {
+                        shrunk.add(c, children[index[c] - 1]);
+                    }
+                }
+                return shrunk;
+            }
+            return this;
+        }
+
+        @Override
+        int next(int b) {
+            while (b < 256 && index[b] == 0) {
+                b++;
+            }
+            return b < 256 ? b : -1;
+        }
+
+        @Override
+        int after(int b) {
+            return b + 1;
+        }
+
+        @Override
+        Object childAt(int b) {
+            return children[index[b] - 1];
+        }
+    }
+
+    private static final class Node256 extends Node {
+        final Object[] children = new Object[256];
+
+        @Override
+        Object child(int b) {
+            return children[b];
+        }
+
+        @Override
+        void set(int b, Object child) {
+            children[b] = child;
+        }
+
+        @Override
+        Node add(int b, Object child) {
+            children[b] = child;
+            count++;
+            return this;
+        }
+
+        @Override
+        Node remove(int b) {
+            children[b] = null;
+            count--;
+            if (count <= 37) {
+                Node48 shrunk = new Node48();
+                for (int c = 0; c < 256; c++) {
+                    if (children[c] != null) {
+                        shrunk.add(c, children[c]);
+                    }
+                }
+                return shrunk;
+            }
+            return this;
+        }
+
+        @Override
+        int next(int b) {
+            while (b < 256 && children[b] == null) {
+                b++;
+            }
+            return b < 256 ? b : -1;
+        }
+
+        @Override
+        int after(int b) {
+            return b + 1;
+        }
+
+        @Override
+        Object childAt(int b) {
+            return children[b];
+        }
+    }
+
+    // null, a Leaf or a Node
+    private Object root;
+    private int size;
+    // the inner nodes and bytes of the last descent, for remove
+    private final Node[] path = new Node[DEPTH];
+    private final int[] pathByte = new int[DEPTH];
+
+    /**
+     * Returns byte `depth` of `key` (0 is the most significant), in tree order.
+     */
+    private static int byteAt(int key, int depth) {
+        return ((key ^ Integer.MIN_VALUE) >>> (24 - 8 * depth)) & 0xff;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the value of `key`, or null if it is absent.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        Object node = root;
+        for (int depth = 0; node instanceof Node; depth++) {
+            node = ((Node) node).child(byteAt(key, depth));
+        }
+        if (node != null && ((Leaf) node).key == key) {
+            return (V) ((Leaf) node).value;
+        }
+        return null;
+    }
+
+    /**
+     * Maps `key` to `value`, replacing any previous value.
+     */
+    @Override
+    public void put(int key, V value) {
+        Node parent = null;
+        int parentByte = 0;
+        Object node = root;
+        int depth = 0;
+        while (node instanceof Node) {
+            Node inner = (Node) node;
+            int b = byteAt(key, depth);
+            Object child = inner.child(b);
+            if (child == null) {
+                replace(parent, parentByte, inner, inner.add(b, new Leaf(key, value)));
+                size++;
+                return;
+            }
+            parent = inner;
+            parentByte = b;
+            node = child;
+            depth++;
+        }
+        Leaf leaf = (Leaf) node;
+        if (leaf != null && leaf.key == key) {
+            leaf.value = value;
+            return;
+        }
+        Object added = new Leaf(key, value);
+        if (leaf != null) {
+            // expand the leaf into a chain of Node4s down to the first byte
+            // where the two keys differ
+            int d = depth;
+            while (byteAt(leaf.key, d) == byteAt(key, d)) {
+                d++;
+            }
+            Node split = new SmallNode(4).add(byteAt(leaf.key, d), leaf).add(byteAt(key, d), added);
+            while (--d >= depth) {
+                split = new SmallNode(4).add(byteAt(key, d), split);
+            }
+            added = split;
+        }
+        replace(parent, parentByte, leaf, added);
+        size++;
+    }
+
+    /** HELPER METHOD
+     * Puts `updated` where `old` was, under byte b of `parent` (or at the root).
+     */
+    private void replace(Node parent, int b, Object old, Object updated) {
+        if (updated == old) {
+            return;
+        }
+        if (parent == null) {
+            root = updated;
+        } else {
+            parent.set(b, updated);
+        }
+    }
+
+    /**
+     * Removes `key`. Returns its value, or null if it was absent.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        Object node = root;
+        int depth = 0;
+        while (node instanceof Node) {
+            path[depth] = (Node) node;
+            pathByte[depth] = byteAt(key, depth);
+            node = path[depth].child(pathByte[depth]);
+            depth++;
+        }
+        if (node == null || ((Leaf) node).key != key) {
+            return null;
+        }
+        size--;
+        if (depth == 0) {
+            root = null;
+            return (V) ((Leaf) node).value;
+        }
+        // remove the leaf, then replace each node on the path that is left
+        // empty by nothing, and each one left with a single leaf by that leaf
+        int level = depth - 1;
+        Node updated = path[level].remove(pathByte[level]);
+        while (true) {
+            Object collapsed = updated;
+            if (updated.count == 0) {
+                collapsed = null;
+            } else if (updated.count == 1 && updated.childAt(updated.next(0)) instanceof Leaf) {
+                collapsed = updated.childAt(updated.next(0));
+            }
+            if (level == 0) {
+                root = collapsed;
+                break;
+            }
+            Node parent = path[level - 1];
+            int b = pathByte[level - 1];
+            level--;
+            if (collapsed == null) {
+                updated = parent.remove(b);
+            } else if (collapsed instanceof Leaf) {
+                parent.set(b, collapsed);
+                updated = parent;
+            } else {
+                parent.set(b, collapsed);
+                break;
+            }
+        }
+        return (V) ((Leaf) node).value;
+    }
+
+    @Override
+    public Cursor<V> cursor() {
+        return new Cursor<>(this);
+    }
+
+    /**
+     * A reusable iterator over the entries of a key range, in ascending key
+     * order. Each seek positions it on a new range; iterator() rewinds it to
+     * the start of the range, so a range can be walked more than once.
+     *
+     * The tree must not be modified while a range is being walked, except
+     * through the values themselves.
+     */
+    public static final class Cursor<V> implements OrderedIntIndex.Cursor<V> {
+        private final AdaptiveRadixTree<V> tree;
+        // the range: keys > `above` (if `bounded`) and < `limit`
+        private boolean bounded;
+        private int above;
+        private long limit;
+        // the inner nodes on the path to the next leaf, and the next position
+        // to visit in each
+        private final Node[] stack = new Node[DEPTH];
+        private final int[] nextPos = new int[DEPTH];
+        private int depth;
+        private Leaf nextLeaf;
+        private Leaf leaf;
+
+        private Cursor(AdaptiveRadixTree<V> tree) {
+            this.tree = tree;
+        }
+
+        /**
+         * Positions the cursor on every key.
+         */
+        @Override
+        public Cursor<V> seekAll() {
+            return range(false, 0, Long.MAX_VALUE);
+        }
+
+        /**
+         * Positions the cursor on the keys > `key`.
+         */
+        @Override
+        public Cursor<V> seekAbove(int key) {
+            return range(true, key, Long.MAX_VALUE);
+        }
+
+        /**
+         * Positions the cursor on the keys < `key`.
+         */
+        @Override
+        public Cursor<V> seekBelow(int key) {
+            return range(false, 0, key);
+        }
+
+        private Cursor<V> range(boolean bounded, int above, long limit) {
+            this.bounded = bounded;
+            this.above = above;
+            this.limit = limit;
+            rewind();
+            return this;
+        }
+
+        /** HELPER METHOD
+         * Descends along the lower bound of the range, leaving on the stack the
+         * positions still to visit, and finds the first leaf in the range.
+         */
+        private void rewind() {
+            this.depth = -1;
+            this.nextLeaf = null;
+            Object node = tree.root;
+            if (node instanceof Leaf) {
+                Leaf only = (Leaf) node;
+                setNext(!bounded || only.key > above ? only : null);
+                return;
+            }
+            if (node == null) {
+                return;
+            }
+            if (!bounded) {
+                depth = 0;
+                stack[0] = (Node) node;
+                nextPos[0] = 0;
+                setNext(advance());
+                return;
+            }
+            while (node instanceof Node) {
+                int b = byteAt(above, depth + 1);
+                depth++;
+                stack[depth] = (Node) node;
+                nextPos[depth] = stack[depth].after(b);
+                node = stack[depth].child(b);
+            }
+            if (node != null && ((Leaf) node).key > above) {
+                setNext((Leaf) node);
+            } else {
+                setNext(advance());
+            }
+        }
+
+        /** HELPER METHOD
+         * Returns the next leaf in key order after the positions on the stack.
+         */
+        private Leaf advance() {
+            while (depth >= 0) {
+                Node node = stack[depth];
+                int pos = node.next(nextPos[depth]);
+                if (pos < 0) {
+                    depth--;
+                    continue;
+                }
+                nextPos[depth] = pos + 1;
+                Object child = node.childAt(pos);
+                if (child instanceof Leaf) {
+                    return (Leaf) child;
+                }
+                depth++;
+                stack[depth] = (Node) child;
+                nextPos[depth] = 0;
+            }
+            return null;
+        }
+
+        private void setNext(Leaf candidate) {
+            this.nextLeaf = candidate != null && candidate.key < limit ? candidate : null;
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            rewind();
+            return this;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextLeaf != null;
+        }
+
+        /**
+         * Returns the value of the next entry; key() then returns its key.
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (nextLeaf == null) {
+                throw new NoSuchElementException();
+            }
+            leaf = nextLeaf;
+            setNext(advance());
+            return (V) leaf.value;
+        }
+
+        /**
+         * Returns the key of the entry last returned by next().
+         */
+        @Override
+        public int key() {
+            return leaf.key;
+        }
+    }
+}
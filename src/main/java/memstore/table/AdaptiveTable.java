@@ -0,0 +1,398 @@
+package memstore.table;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import memstore.data.ByteFormat;
+import memstore.data.DataLoader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * AdaptiveTable, which picks its storage layout from the observed query mix.
+ *
+ * Every `checkInterval` queries it estimates, from the queries seen in that
+ * window, how many bytes per row each layout would have read:
+ *   ROW      (one-group ColumnGroupTable): every query reads whole rows;
+ *   COLUMN   (ArrayColumnTable): narrow queries read only their columns, but
+ *                                predicatedAllColumnsSum pays a mask pass per column;
+ *   GROUPED  (ColumnGroupTable): the columns read by narrow queries form one group.
+ * If another layout would have been clearly cheaper, the table reorganizes.
+ *
+ * Reorganizing builds the new layout on a background thread, reading straight
+ * from the current one while queries keep running on it. Field writes made
+ * meanwhile are applied in place and logged; once the new layout is built, the
+ * next call replays the log onto it and switches over. Since a replayed write
+ * just sets the field again, it does not matter whether the builder read the
+ * field before or after it. predicatedUpdate is not idempotent, so it waits for
+ * the build to finish first.
+ */
+public class AdaptiveTable implements Table {
+    public enum Layout { ROW, COLUMN, GROUPED }
+
+    public static final int DEFAULT_CHECK_INTERVAL = 16;
+    // only switch if the new layout is estimated to read at most this fraction of the current one
+    private static final double SWITCH_FACTOR = 0.75;
+
+    // shared by all tables, so that creating tables does not leave idle threads behind
+    private static final ExecutorService REORGANIZER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "adaptive-table-reorganizer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    int numCols;
+    int numRows;
+    private final int checkInterval;
+    private Table current;
+    private Layout layout;
+    private int[] hotColumns;
+
+    // query mix observed in the current window
+    private int numQueries;
+    private int numNarrowQueries;
+    private int numWideQueries;
+    private long narrowColumnsRead;
+    private boolean[] narrowColumns;
+
+    // in-flight reorganization
+    private Future<Table> pending;
+    private Layout pendingLayout;
+    private int[] pendingHotColumns;
+    // (rowId, colId, field) of every putIntField since the build started
+    private IntArrayList writeLog;
+
+    public AdaptiveTable() {
+        this(DEFAULT_CHECK_INTERVAL);
+    }
+
+    /**
+     * @param checkInterval number of queries between layout decisions.
+     */
+    public AdaptiveTable(int checkInterval) {
+        this.checkInterval = checkInterval;
+    }
+
+    /**
+     * Loads data into the table through passed-in data loader, starting in the
+     * row-major layout. Is not timed.
+     *
+     * @param loader Loader to load data from.
+     * @throws IOException
+     */
+    @Override
+    public void load(DataLoader loader) throws IOException {
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+            writeLog = null;
+        }
+        ColumnGroupTable rowTable = new ColumnGroupTable(new int[0][]);
+        rowTable.load(loader);
+        this.current = rowTable;
+        this.layout = Layout.ROW;
+        this.numCols = rowTable.numCols;
+        this.numRows = rowTable.numRows;
+        this.hotColumns = new int[0];
+        this.narrowColumns = new boolean[numCols];
+        resetWindow();
+    }
+
+    /**
+     * Returns the layout queries are currently answered from.
+     */
+    public Layout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Blocks until an in-flight reorganization, if any, has finished and been
+     * switched to. An interrupt does not cut the wait short, since callers
+     * rely on the builder no longer reading the table; the thread's interrupt
+     * flag is restored before returning.
+     */
+    public void awaitReorganization() {
+        if (pending == null) {
+            return;
+        }
+        boolean interrupted = false;
+        while (!pending.isDone()) {
+            try {
+                pending.get();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            } catch (ExecutionException e) {
+                // rethrown by finishReorganization
+            }
+        }
+        try {
+            finishReorganization();
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Returns the int field at row `rowId` and column `colId`.
+     */
+    @Override
+    public int getIntField(int rowId, int colId) {
+        return current.getIntField(rowId, colId);
+    }
+
+    /**
+     * Inserts the passed-in int field at row `rowId` and column `colId`.
+     */
+    @Override
+    public void putIntField(int rowId, int colId, int field) {
+        finishReorganization();
+        current.putIntField(rowId, colId, field);
+        if (writeLog != null) {
+            writeLog.add(rowId);
+            writeLog.add(colId);
+            writeLog.add(field);
+        }
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) FROM table;
+     *
+     *  Returns the sum of all elements in the first column of the table.
+     */
+    @Override
+    public long columnSum() {
+        observeNarrow(0);
+        return current.columnSum();
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) FROM table WHERE col1 > threshold1 AND col2 < threshold2;
+     *
+     *  Returns the sum of all elements in the first column of the table,
+     *  subject to the passed-in predicates.
+     */
+    @Override
+    public long predicatedColumnSum(int threshold1, int threshold2) {
+        observeNarrow(0, 1, 2);
+        return current.predicatedColumnSum(threshold1, threshold2);
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) + SUM(col1) + ... + SUM(coln) FROM table WHERE col0 > threshold;
+     *
+     *  Returns the sum of all elements in the rows which pass the predicate.
+     */
+    @Override
+    public long predicatedAllColumnsSum(int threshold) {
+        numWideQueries++;
+        observe();
+        return current.predicatedAllColumnsSum(threshold);
+    }
+
+    /**
+     * Implements the query
+     *   UPDATE(col3 = col3 + col2) WHERE col0 < threshold;
+     *
+     *   Returns the number of rows updated.
+     */
+    @Override
+    public int predicatedUpdate(int threshold) {
+        observeNarrow(0, 2, 3);
+        // the builder may be reading col3; let it finish before adding col2 to it
+        awaitReorganization();
+        return current.predicatedUpdate(threshold);
+    }
+
+    private void observeNarrow(int... colIds) {
+        numNarrowQueries++;
+        for (int colId : colIds) {
+            if (colId < numCols) {
+                narrowColumnsRead++;
+                narrowColumns[colId] = true;
+            }
+        }
+        observe();
+    }
+
+    /**
+     * HELPER METHOD
+     * Switches to a finished reorganization, and at the end of each window,
+     * decides whether to start a new one.
+     */
+    private void observe() {
+        finishReorganization();
+        if (++numQueries < checkInterval) {
+            return;
+        }
+        if (pending == null) {
+            int[] hot = hotColumnsOfWindow();
+            Layout best = Layout.ROW;
+            double bestCost = estimateCost(Layout.ROW, hot.length);
+            for (Layout candidate : new Layout[]{Layout.COLUMN, Layout.GROUPED}) {
+                double cost = estimateCost(candidate, hot.length);
+                if (cost < bestCost) {
+                    best = candidate;
+                    bestCost = cost;
+                }
+            }
+            boolean sameLayout = best == layout
+                    && (best != Layout.GROUPED || Arrays.equals(hot, hotColumns));
+            if (!sameLayout && bestCost < SWITCH_FACTOR * estimateCost(layout, hotColumns.length)) {
+                startReorganization(best, hot);
+            }
+        }
+        resetWindow();
+    }
+
+    private int[] hotColumnsOfWindow() {
+        IntArrayList hot = new IntArrayList();
+        for (int colId = 0; colId < numCols; colId++) {
+            if (narrowColumns[colId]) {
+                hot.add(colId);
+            }
+        }
+        return hot.toIntArray();
+    }
+
+    /**
+     * HELPER METHOD
+     * Estimates the bytes per row read by this window's queries under `candidate`,
+     * whose hot group (if GROUPED) has `groupWidth` columns.
+     */
+    private double estimateCost(Layout candidate, int groupWidth) {
+        double rowBytes = ByteFormat.FIELD_LEN * numCols;
+        switch (candidate) {
+            case ROW:
+                return (numNarrowQueries + numWideQueries) * rowBytes;
+            case COLUMN:
+                return ByteFormat.FIELD_LEN * narrowColumnsRead + numWideQueries * 2 * rowBytes;
+            default:
+                return numNarrowQueries * ByteFormat.FIELD_LEN * Math.max(1, groupWidth)
+                        + numWideQueries * rowBytes;
+        }
+    }
+
+    private void resetWindow() {
+        numQueries = 0;
+        numNarrowQueries = 0;
+        numWideQueries = 0;
+        narrowColumnsRead = 0;
+        Arrays.fill(narrowColumns, false);
+    }
+
+    /**
+     * HELPER METHOD
+     * Builds `target` from the current layout in the background.
+     */
+    private void startReorganization(Layout target, int[] hot) {
+        TableLoader loader = new TableLoader(current, numRows, numCols);
+        pendingLayout = target;
+        pendingHotColumns = hot;
+        writeLog = new IntArrayList();
+        pending = REORGANIZER.submit(() -> {
+            Table table = newTable(target, hot);
+            table.load(loader);
+            return table;
+        });
+    }
+
+    private static Table newTable(Layout layout, int[] hot) {
+        switch (layout) {
+            case ROW:
+                return new ColumnGroupTable(new int[0][]);
+            case COLUMN:
+                return new ArrayColumnTable();
+            default:
+                return new ColumnGroupTable(new int[][]{hot});
+        }
+    }
+
+    /**
+     * HELPER METHOD
+     * If the background build is done, replays the writes logged since it
+     * started onto the new layout and switches to it. If the build failed, the
+     * table keeps its current layout and the failure is rethrown.
+     */
+    private void finishReorganization() {
+        if (pending == null || !pending.isDone()) {
+            return;
+        }
+        Future<Table> done = pending;
+        IntArrayList log = writeLog;
+        pending = null;
+        writeLog = null;
+        Table next;
+        try {
+            next = done.get();
+        } catch (InterruptedException e) {
+            // cannot block, the build is done; keep the flag for the caller
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("reorganization to " + pendingLayout + " failed", cause);
+        }
+        for (int i = 0; i < log.size(); i += 3) {
+            next.putIntField(log.getInt(i), log.getInt(i + 1), log.getInt(i + 2));
+        }
+        current = next;
+        layout = pendingLayout;
+        hotColumns = pendingHotColumns;
+    }
+
+    /**
+     * DataLoader over the rows of another table; row buffers are created on demand.
+     */
+    private static class TableLoader implements DataLoader {
+        private final Table source;
+        private final int numRows;
+        private final int numCols;
+
+        TableLoader(Table source, int numRows, int numCols) {
+            this.source = source;
+            this.numRows = numRows;
+            this.numCols = numCols;
+        }
+
+        @Override
+        public int getNumCols() {
+            return numCols;
+        }
+
+        @Override
+        public List<ByteBuffer> getRows() {
+            return new AbstractList<ByteBuffer>() {
+                @Override
+                public ByteBuffer get(int rowId) {
+                    ByteBuffer row = ByteBuffer.allocate(ByteFormat.FIELD_LEN * numCols);
+                    for (int colId = 0; colId < numCols; colId++) {
+                        row.putInt(ByteFormat.FIELD_LEN * colId, source.getIntField(rowId, colId));
+                    }
+                    return row;
+                }
+
+                @Override
+                public int size() {
+                    return numRows;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package memstore.table;
+
+/**
+ * An aggregate over a table's fields that is kept up to date as the table is
+ * written to, instead of being recomputed by a scan (see MaterializedTable).
+ *
+ * A view is built once from the whole table, then told about every write to
+ * a column it watches, with the value the write replaced.
+ */
+public interface AggregateView {
+    /**
+     * Computes the view from scratch over rows [0, numRows) of `table`.
+     */
+    void build(Table table, int numRows, int numCols);
+
+    /**
+     * Returns whether writes to column `colId` can change the view.
+     */
+    boolean watches(int colId);
+
+    /**
+     * Applies a write of `newValue` over `oldValue` at row `rowId` and
+     * column `colId`, which the view watches.
+     */
+    void update(int rowId, int colId, int oldValue, int newValue);
+
+    long sizeInBytes();
+}
@@ -0,0 +1,143 @@
+package memstore.table;
+
+import memstore.data.ByteFormat;
+import memstore.data.DataLoader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * ArrayColumnTable, which stores data in column-major format with one
+ * primitive int[] per column.
+ *
+ * Every query is written as a simple counted loop over whole arrays without
+ * data-dependent branches, so that C2 can unroll and vectorize it.
+ */
+public class ArrayColumnTable implements Table {
+    int numCols;
+    int numRows;
+    private int[][] columns;
+    // scratch selection mask reused by predicatedAllColumnsSum: -1 if selected, 0 otherwise
+    private int[] mask;
+
+    public ArrayColumnTable() { }
+
+    /**
+     * Loads data into the table through passed-in data loader. Is not timed.
+     *
+     * @param loader Loader to load data from.
+     * @throws IOException
+     */
+    @Override
+    public void load(DataLoader loader) throws IOException {
+        this.numCols = loader.getNumCols();
+        List<ByteBuffer> rows = loader.getRows();
+        numRows = rows.size();
+        this.columns = new int[numCols][numRows];
+        this.mask = new int[numRows];
+
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            ByteBuffer curRow = rows.get(rowId);
+            for (int colId = 0; colId < numCols; colId++) {
+                this.columns[colId][rowId] = curRow.getInt(ByteFormat.FIELD_LEN * colId);
+            }
+        }
+    }
+
+    /**
+     * Returns the int field at row `rowId` and column `colId`.
+     */
+    @Override
+    public int getIntField(int rowId, int colId) {
+        return columns[colId][rowId];
+    }
+
+    /**
+     * Inserts the passed-in int field at row `rowId` and column `colId`.
+     */
+    @Override
+    public void putIntField(int rowId, int colId, int field) {
+        columns[colId][rowId] = field;
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) FROM table;
+     *
+     *  Returns the sum of all elements in the first column of the table.
+     */
+    @Override
+    public long columnSum() {
+        int[] col0 = columns[0];
+        long sum = 0;
+        for (int i = 0; i < col0.length; i++) {
+            sum += col0[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) FROM table WHERE col1 > threshold1 AND col2 < threshold2;
+     *
+     *  Returns the sum of all elements in the first column of the table,
+     *  subject to the passed-in predicates.
+     */
+    @Override
+    public long predicatedColumnSum(int threshold1, int threshold2) {
+        int[] col0 = columns[0];
+        int[] col1 = columns[1];
+        int[] col2 = columns[2];
+        long sum = 0;
+        for (int i = 0; i < col0.length; i++) {
+            sum += (col1[i] > threshold1 & col2[i] < threshold2) ? col0[i] : 0;
+        }
+        return sum;
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) + SUM(col1) + ... + SUM(coln) FROM table WHERE col0 > threshold;
+     *
+     *  Returns the sum of all elements in the rows which pass the predicate.
+     *
+     *  Evaluates the predicate once into a mask, then adds up each column
+     *  under the mask.
+     */
+    @Override
+    public long predicatedAllColumnsSum(int threshold) {
+        int[] col0 = columns[0];
+        for (int i = 0; i < col0.length; i++) {
+            mask[i] = col0[i] > threshold ? -1 : 0;
+        }
+        long sum = 0;
+        for (int colId = 0; colId < numCols; colId++) {
+            int[] col = columns[colId];
+            for (int i = 0; i < col.length; i++) {
+                sum += col[i] & mask[i];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Implements the query
+     *   UPDATE(col3 = col3 + col2) WHERE col0 < threshold;
+     *
+     *   Returns the number of rows updated.
+     */
+    @Override
+    public int predicatedUpdate(int threshold) {
+        int[] col0 = columns[0];
+        int[] col2 = columns[2];
+        int[] col3 = columns[3];
+        int updatedRows = 0;
+        for (int i = 0; i < col0.length; i++) {
+            int selected = col0[i] < threshold ? -1 : 0;
+            col3[i] += col2[i] & selected;
+            updatedRows -= selected;
+        }
+        return updatedRows;
+    }
+}
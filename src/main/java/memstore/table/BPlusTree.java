@@ -0,0 +1,452 @@
+package memstore.table;
+
+import java.util.Arrays;
+
+/**
+ * A B+-tree over (key, row id) entries, ordered by key and then by row id,
+ * so a key may have any number of rows.
+ *
+ * Nodes keep their entries in primitive arrays: a leaf holds LEAF_SIZE keys
+ * and row ids (two 512-byte arrays, eight cache lines each), an inner node
+ * FANOUT children and the first entry of each child but the first. Leaves are
+ * linked, so a range scan does one descent and then walks the leaves, handing
+ * out each leaf's row ids in place.
+ *
+ * The tree is bulk-loaded from a whole column at once: the entries are sorted
+ * as packed longs and the leaves filled to FILL_FRACTION, leaving room for
+ * inserts, before the inner levels are built bottom-up. Removing entries never
+ * merges nodes; a leaf emptied by removals stays linked until the tree is
+ * rebuilt.
+ *
+ * Reads do not modify the tree, so any number of threads may scan it at once
+ * through their own cursors, as long as no thread is writing.
+ */
+public class BPlusTree {
+    // entries per leaf
+    static final int LEAF_SIZE = 128;
+    // children per inner node
+    static final int FANOUT = 64;
+    // fraction of each node filled by bulk loading
+    static final double FILL_FRACTION = 0.875;
+
+    private static final class Leaf {
+        final int[] keys = new int[LEAF_SIZE];
+        final int[] rowIds = new int[LEAF_SIZE];
+        int size;
+        Leaf next;
+    }
+
+    private static final class Inner {
+        // keys[i], rowIds[i] is the first entry under children[i + 1]
+        final int[] keys = new int[FANOUT - 1];
+        final int[] rowIds = new int[FANOUT - 1];
+        final Object[] children = new Object[FANOUT];
+        // number of children
+        int size;
+    }
+
+    // a Leaf if height is 0, an Inner otherwise
+    private Object root;
+    private int height;
+    private long size;
+    private final Leaf first;
+
+    // the inner nodes and child positions of the last descent, for splits
+    private Inner[] path = new Inner[4];
+    private int[] pathChild = new int[4];
+
+    /**
+     * Creates an empty tree.
+     */
+    public BPlusTree() {
+        this.first = new Leaf();
+        this.root = first;
+    }
+
+    /**
+     * Bulk-loads a tree holding the entry (values[rowId], rowId) for every row.
+     */
+    public BPlusTree(int[] values) {
+        long[] entries = new long[values.length];
+        for (int rowId = 0; rowId < values.length; rowId++) {
+            entries[rowId] = ((long) values[rowId] << 32) | rowId;
+        }
+        Arrays.sort(entries);
+
+        int perLeaf = Math.max(1, (int) (LEAF_SIZE * FILL_FRACTION));
+        int numLeaves = Math.max(1, (entries.length + perLeaf - 1) / perLeaf);
+        Object[] level = new Object[numLeaves];
+        int[] firstKeys = new int[numLeaves];
+        int[] firstRowIds = new int[numLeaves];
+        Leaf prev = null;
+        for (int l = 0; l < numLeaves; l++) {
+            Leaf leaf = new Leaf();
+            int from = l * perLeaf;
+            leaf.size = Math.min(perLeaf, entries.length - from);
+            for (int i = 0; i < leaf.size; i++) {
+                leaf.keys[i] = (int) (entries[from + i] >> 32);
+                leaf.rowIds[i] = (int) entries[from + i];
+            }
+            if (leaf.size > 0) {
+                firstKeys[l] = leaf.keys[0];
+                firstRowIds[l] = leaf.rowIds[0];
+            }
+            if (prev != null) {
+                prev.next = leaf;
+            }
+            prev = leaf;
+            level[l] = leaf;
+        }
+        this.first = (Leaf) level[0];
+        this.size = entries.length;
+
+        int perInner = Math.max(2, (int) (FANOUT * FILL_FRACTION));
+        while (level.length > 1) {
+            int numInner = (level.length + perInner - 1) / perInner;
+            Object[] parents = new Object[numInner];
+            for (int p = 0; p < numInner; p++) {
+                Inner inner = new Inner();
+                int from = p * perInner;
+                inner.size = Math.min(perInner, level.length - from);
+                System.arraycopy(level, from, inner.children, 0, inner.size);
+                System.arraycopy(firstKeys, from + 1, inner.keys, 0, inner.size - 1);
+                System.arraycopy(firstRowIds, from + 1, inner.rowIds, 0, inner.size - 1);
+                parents[p] = inner;
+                // the first entry under this node is that of its first child
+                firstKeys[p] = firstKeys[from];
+                firstRowIds[p] = firstRowIds[from];
+            }
+            level = parents;
+            height++;
+        }
+        this.root = level[0];
+    }
+
+    /**
+     * Returns the number of entries.
+     */
+    public long size() {
+        return size;
+    }
+
+    private static int compare(int key1, int rowId1, int key2, int rowId2) {
+        return key1 != key2 ? Integer.compare(key1, key2) : Integer.compare(rowId1, rowId2);
+    }
+
+    /**
+     * Returns the first position in [0, n) whose entry is > (key, rowId).
+     */
+    private static int upperBound(int[] keys, int[] rowIds, int n, int key, int rowId) {
+        int from = 0;
+        int to = n;
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (compare(keys[mid], rowIds[mid], key, rowId) <= 0) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Returns the first position in [from, to) whose key is > `key`.
+     */
+    private static int upperBound(int[] keys, int from, int to, int key) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (keys[mid] <= key) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Returns the first position in [from, to) whose key is >= `key`.
+     */
+    private static int lowerBound(int[] keys, int from, int to, long key) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (keys[mid] < key) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    /** HELPER METHOD
+     * Descends to the leaf where (key, rowId) belongs, recording the path.
+     */
+    private Leaf descend(int key, int rowId) {
+        if (path.length < height) {
+            path = new Inner[2 * height];
+            pathChild = new int[2 * height];
+        }
+        Object node = root;
+        for (int level = 0; level < height; level++) {
+            Inner inner = (Inner) node;
+            int child = upperBound(inner.keys, inner.rowIds, inner.size - 1, key, rowId);
+            path[level] = inner;
+            pathChild[level] = child;
+            node = inner.children[child];
+        }
+        return (Leaf) node;
+    }
+
+    /**
+     * Adds the entry (key, rowId).
+     */
+    public void insert(int key, int rowId) {
+        Leaf leaf = descend(key, rowId);
+        int pos = upperBound(leaf.keys, leaf.rowIds, leaf.size, key, rowId);
+        size++;
+        if (leaf.size < LEAF_SIZE) {
+            insertAt(leaf, pos, key, rowId);
+            return;
+        }
+
+        // split the leaf in halves, then insert into the half it belongs to
+        Leaf right = new Leaf();
+        int half = LEAF_SIZE / 2;
+        System.arraycopy(leaf.keys, half, right.keys, 0, LEAF_SIZE - half);
+        System.arraycopy(leaf.rowIds, half, right.rowIds, 0, LEAF_SIZE - half);
+        right.size = LEAF_SIZE - half;
+        leaf.size = half;
+        right.next = leaf.next;
+        leaf.next = right;
+        if (pos <= half) {
+            insertAt(leaf, pos, key, rowId);
+        } else {
+            insertAt(right, pos - half, key, rowId);
+        }
+
+        // add the new node to its parent, splitting full parents up the path
+        Object child = right;
+        int sepKey = right.keys[0];
+        int sepRowId = right.rowIds[0];
+        for (int level = height - 1; level >= 0; level--) {
+            Inner inner = path[level];
+            int at = pathChild[level] + 1;
+            if (inner.size < FANOUT) {
+                insertChild(inner, at, sepKey, sepRowId, child);
+                return;
+            }
+            Inner sibling = new Inner();
+            int mid = FANOUT / 2;
+            // the separator in front of children[mid] moves up to the parent
+            int upKey = inner.keys[mid - 1];
+            int upRowId = inner.rowIds[mid - 1];
+            System.arraycopy(inner.children, mid, sibling.children, 0, FANOUT - mid);
+            System.arraycopy(inner.keys, mid, sibling.keys, 0, FANOUT - mid - 1);
+            System.arraycopy(inner.rowIds, mid, sibling.rowIds, 0, FANOUT - mid - 1);
+            Arrays.fill(inner.children, mid, FANOUT, null);
+            sibling.size = FANOUT - mid;
+            inner.size = mid;
+            if (at <= mid) {
+                insertChild(inner, at, sepKey, sepRowId, child);
+            } else {
+                insertChild(sibling, at - mid, sepKey, sepRowId, child);
+            }
+            child = sibling;
+            sepKey = upKey;
+            sepRowId = upRowId;
+        }
+        Inner newRoot = new Inner();
+        newRoot.children[0] = root;
+        newRoot.children[1] = child;
+        newRoot.keys[0] = sepKey;
+        newRoot.rowIds[0] = sepRowId;
+        newRoot.size = 2;
+        root = newRoot;
+        height++;
+    }
+
+    private static void insertAt(Leaf leaf, int pos, int key, int rowId) {
+        System.arraycopy(leaf.keys, pos, leaf.keys, pos + 1, leaf.size - pos);
+        System.arraycopy(leaf.rowIds, pos, leaf.rowIds, pos + 1, leaf.size - pos);
+        leaf.keys[pos] = key;
+        leaf.rowIds[pos] = rowId;
+        leaf.size++;
+    }
+
+    /** HELPER METHOD
+     * Inserts `child` at position `at` (>= 1) of a non-full inner node, with
+     * (key, rowId) as its first entry.
+     */
+    private static void insertChild(Inner inner, int at, int key, int rowId, Object child) {
+        System.arraycopy(inner.children, at, inner.children, at + 1, inner.size - at);
+        System.arraycopy(inner.keys, at - 1, inner.keys, at, inner.size - at);
+        System.arraycopy(inner.rowIds, at - 1, inner.rowIds, at, inner.size - at);
+        inner.children[at] = child;
+        inner.keys[at - 1] = key;
+        inner.rowIds[at - 1] = rowId;
+        inner.size++;
+    }
+
+    /**
+     * Removes the entry (key, rowId). Returns whether it was present.
+     */
+    public boolean remove(int key, int rowId) {
+        Leaf leaf = descend(key, rowId);
+        int pos = upperBound(leaf.keys, leaf.rowIds, leaf.size, key, rowId) - 1;
+        if (pos < 0 || leaf.keys[pos] != key || leaf.rowIds[pos] != rowId) {
+            return false;
+        }
+        System.arraycopy(leaf.keys, pos + 1, leaf.keys, pos, leaf.size - pos - 1);
+        System.arraycopy(leaf.rowIds, pos + 1, leaf.rowIds, pos, leaf.size - pos - 1);
+        leaf.size--;
+        size--;
+        return true;
+    }
+
+    /**
+     * Returns a new cursor over the tree. Each reading thread needs its own.
+     */
+    public Cursor cursor() {
+        return new Cursor(this);
+    }
+
+    /**
+     * Returns the size of the nodes in bytes, not counting object headers.
+     */
+    public long sizeInBytes() {
+        long leaves = 0;
+        for (Leaf leaf = first; leaf != null; leaf = leaf.next) {
+            leaves++;
+        }
+        return leaves * (8L * LEAF_SIZE + 12) + countInner(root, height) * (8L * (FANOUT - 1) + 4L * FANOUT + 4);
+    }
+
+    private static long countInner(Object node, int height) {
+        if (height == 0) {
+            return 0;
+        }
+        Inner inner = (Inner) node;
+        long count = 1;
+        for (int i = 0; i < inner.size; i++) {
+            count += countInner(inner.children[i], height - 1);
+        }
+        return count;
+    }
+
+    /**
+     * A reusable scan over the entries of a key range, in ascending order. A
+     * seek positions it on a range; each next() then moves it to the next run
+     * of entries within one leaf, exposed in place as
+     * rowIds()[from(), to()) and keys()[from(), to()). A run may be empty.
+     *
+     * The tree must not be modified while a range is being scanned.
+     */
+    public static final class Cursor {
+        private final BPlusTree tree;
+        private Leaf leaf;
+        private int pos;
+        // keys must be below this bound
+        private long limit;
+        private Leaf current;
+        private int from;
+        private int to;
+
+        private Cursor(BPlusTree tree) {
+            this.tree = tree;
+        }
+
+        /**
+         * Positions the cursor on every entry.
+         */
+        public Cursor seekAll() {
+            return range(tree.first, 0, Long.MAX_VALUE);
+        }
+
+        /**
+         * Positions the cursor on the entries whose key is > `key`.
+         */
+        public Cursor seekAbove(int key) {
+            Object node = tree.root;
+            for (int level = 0; level < tree.height; level++) {
+                Inner inner = (Inner) node;
+                node = inner.children[upperBound(inner.keys, 0, inner.size - 1, key)];
+            }
+            Leaf start = (Leaf) node;
+            return range(start, upperBound(start.keys, 0, start.size, key), Long.MAX_VALUE);
+        }
+
+        /**
+         * Positions the cursor on the entries whose key is < `key`.
+         */
+        public Cursor seekBelow(int key) {
+            return range(tree.first, 0, key);
+        }
+
+        private Cursor range(Leaf leaf, int pos, long limit) {
+            this.leaf = leaf;
+            this.pos = pos;
+            this.limit = limit;
+            this.current = null;
+            return this;
+        }
+
+        /**
+         * Moves to the next run of entries. Returns false once the range is
+         * exhausted.
+         */
+        public boolean next() {
+            Leaf l = this.leaf;
+            if (l == null) {
+                return false;
+            }
+            int end = l.size;
+            if (end > pos && l.keys[end - 1] >= limit) {
+                end = lowerBound(l.keys, pos, end, limit);
+                this.leaf = null;
+            } else {
+                this.leaf = l.next;
+            }
+            this.current = l;
+            this.from = Math.min(pos, end);
+            this.to = end;
+            this.pos = 0;
+            return true;
+        }
+
+        public int[] keys() {
+            return current.keys;
+        }
+
+        public int[] rowIds() {
+            return current.rowIds;
+        }
+
+        public int from() {
+            return from;
+        }
+
+        public int to() {
+            return to;
+        }
+
+        /**
+         * Returns the number of entries left in the range, or, if that is at
+         * least `max`, any number >= `max`: counting stops at the first leaf
+         * that reaches it. Does not move the cursor.
+         */
+        public long count(long max) {
+            long count = 0;
+            int p = this.pos;
+            for (Leaf l = this.leaf; l != null && count < max; l = l.next, p = 0) {
+                int end = l.size;
+                if (end > p && l.keys[end - 1] >= limit) {
+                    return count + lowerBound(l.keys, p, end, limit) - p;
+                }
+                count += Math.max(0, end - p);
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package memstore.table;
+
+import java.util.Arrays;
+
+/**
+ * A bit-sliced index over an int column: the column's frame-of-reference
+ * codes (value - base) are split into `width` bitmaps, where slice i holds
+ * bit i of every row's code.
+ *
+ * A range predicate is evaluated 64 rows at a time by walking the slices from
+ * the most significant bit down, with a few ANDs/ORs per slice, so it costs
+ * width word operations per 64 rows regardless of how many distinct values the
+ * column has. A write flips only the slice bits where the old and new codes differ.
+ */
+class BitSlicedIndex {
+    final int numRows;
+    private long base;
+    private int width;
+    // slices[i][row >>> 6] holds bit i of the codes of rows 64*(row >>> 6) ...
+    private long[][] slices;
+    // mask of the rows that exist in the last word
+    private final long lastWordMask;
+
+    BitSlicedIndex(int[] values) {
+        this.numRows = values.length;
+        this.lastWordMask = (numRows & 63) == 0 ? -1L : (1L << numRows) - 1;
+        build(values, 0);
+    }
+
+    /**
+     * HELPER METHOD
+     * Rebuilds the slices for `values`, with `headroom` extra bits above the
+     * width their range needs.
+     */
+    private void build(int[] values, int headroom) {
+        long min = Integer.MAX_VALUE;
+        long max = Integer.MIN_VALUE;
+        for (int v : values) {
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+        }
+        if (numRows == 0) {
+            min = max = 0;
+        }
+        this.width = Math.min(32, PackedColumn.bitsFor(max - min) + headroom);
+        this.base = width == 32 ? Integer.MIN_VALUE : min;
+        this.slices = new long[width][(numRows + 63) >>> 6];
+        for (int row = 0; row < numRows; row++) {
+            long code = values[row] - base;
+            for (int i = 0; i < width; i++) {
+                slices[i][row >>> 6] |= ((code >>> i) & 1L) << row;
+            }
+        }
+    }
+
+    /**
+     * Returns the value of `row`.
+     */
+    int get(int row) {
+        long code = 0;
+        for (int i = 0; i < width; i++) {
+            code |= ((slices[i][row >>> 6] >>> row) & 1L) << i;
+        }
+        return (int) (base + code);
+    }
+
+    /**
+     * Sets the value of `row`, flipping only the slice bits that change. A
+     * value outside the current code range rebuilds the slices, with one bit
+     * of headroom so that repeated growth does not rebuild every time.
+     */
+    void set(int row, int value) {
+        long code = value - base;
+        if (code < 0 || code >= (1L << width)) {
+            int[] values = new int[numRows];
+            for (int r = 0; r < numRows; r++) {
+                values[r] = get(r);
+            }
+            values[row] = value;
+            build(values, 1);
+            return;
+        }
+        long diff = (get(row) - base) ^ code;
+        while (diff != 0) {
+            int i = Long.numberOfTrailingZeros(diff);
+            diff &= diff - 1;
+            slices[i][row >>> 6] ^= 1L << row;
+        }
+    }
+
+    /**
+     * Marks in `sel` the rows whose value is > threshold. If `intersect` is set,
+     * ANDs them into `sel` instead.
+     */
+    void selectAbove(int threshold, long[] sel, boolean intersect) {
+        long c = (long) threshold - base;
+        if (c < 0) {
+            fill(-1L, sel, intersect);
+        } else if (c >= (1L << width) - 1) {
+            fill(0L, sel, intersect);
+        } else {
+            for (int w = 0; w < sel.length; w++) {
+                long gt = 0;
+                long eq = -1L;
+                for (int i = width - 1; i >= 0; i--) {
+                    long s = slices[i][w];
+                    if (((c >>> i) & 1L) != 0) {
+                        eq &= s;
+                    } else {
+                        gt |= eq & s;
+                        eq &= ~s;
+                    }
+                }
+                store(w, gt, sel, intersect);
+            }
+        }
+    }
+
+    /**
+     * Marks in `sel` the rows whose value is < threshold. If `intersect` is set,
+     * ANDs them into `sel` instead.
+     */
+    void selectBelow(int threshold, long[] sel, boolean intersect) {
+        long c = (long) threshold - base;
+        if (c <= 0) {
+            fill(0L, sel, intersect);
+        } else if (c >= (1L << width)) {
+            fill(-1L, sel, intersect);
+        } else {
+            for (int w = 0; w < sel.length; w++) {
+                long lt = 0;
+                long eq = -1L;
+                for (int i = width - 1; i >= 0; i--) {
+                    long s = slices[i][w];
+                    if (((c >>> i) & 1L) != 0) {
+                        lt |= eq & ~s;
+                        eq &= s;
+                    } else {
+                        eq &= ~s;
+                    }
+                }
+                store(w, lt, sel, intersect);
+            }
+        }
+    }
+
+    private void store(int w, long bits, long[] sel, boolean intersect) {
+        if (w == sel.length - 1) {
+            bits &= lastWordMask;
+        }
+        sel[w] = intersect ? sel[w] & bits : bits;
+    }
+
+    private void fill(long bits, long[] sel, boolean intersect) {
+        if (intersect && bits == -1L) {
+            return;
+        }
+        Arrays.fill(sel, bits);
+        if (sel.length > 0) {
+            sel[sel.length - 1] &= lastWordMask;
+        }
+    }
+
+    /**
+     * Returns the size of the slices in bytes.
+     */
+    long sizeInBytes() {
+        return 8L * width * ((numRows + 63) >>> 6);
+    }
+}
@@ -0,0 +1,80 @@
+package memstore.table;
+
+/**
+ * Helpers for row bitmaps stored as long[], one bit per row.
+ */
+final class Bits {
+    private Bits() { }
+
+    /**
+     * Sets the bits of rows [from, to).
+     */
+    static void setRange(long[] bits, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (first == last) {
+            bits[first] |= firstMask & lastMask;
+            return;
+        }
+        bits[first] |= firstMask;
+        for (int i = first + 1; i < last; i++) {
+            bits[i] = -1L;
+        }
+        bits[last] |= lastMask;
+    }
+
+    /**
+     * Clears the bits of rows [from, to).
+     */
+    static void clearRange(long[] bits, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (first == last) {
+            bits[first] &= ~(firstMask & lastMask);
+            return;
+        }
+        bits[first] &= ~firstMask;
+        for (int i = first + 1; i < last; i++) {
+            bits[i] = 0L;
+        }
+        bits[last] &= ~lastMask;
+    }
+
+    /**
+     * Returns the number of set bits among rows [from, to).
+     */
+    static int count(long[] bits, int from, int to) {
+        if (from >= to) {
+            return 0;
+        }
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (first == last) {
+            return Long.bitCount(bits[first] & firstMask & lastMask);
+        }
+        int count = Long.bitCount(bits[first] & firstMask);
+        for (int i = first + 1; i < last; i++) {
+            count += Long.bitCount(bits[i]);
+        }
+        return count + Long.bitCount(bits[last] & lastMask);
+    }
+
+    /**
+     * Returns whether the bit of `row` is set.
+     */
+    static boolean get(long[] bits, int row) {
+        return (bits[row >>> 6] & (1L << row)) != 0;
+    }
+}
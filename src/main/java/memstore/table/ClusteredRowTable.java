@@ -0,0 +1,284 @@
+package memstore.table;
+
+import memstore.data.ByteFormat;
+import memstore.data.DataLoader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ClusteredRowTable, which stores data in row-major format with the rows
+ * physically sorted on column `clusterColumn`. That is, data is laid out like
+ *   row p(1) | row p(2) | ... | row p(n),
+ * where key(p(1)) <= key(p(2)) <= ... <= key(p(n)).
+ *
+ * Row ids stay the ones rows were loaded with: a logical-to-physical map
+ * translates them, so getIntField / putIntField behave as in RowTable. A range
+ * predicate on the cluster column is a binary search followed by one
+ * contiguous scan.
+ */
+public class ClusteredRowTable implements Table {
+    int numCols;
+    int numRows;
+    private final int clusterColumn;
+    private int[] rows;
+    // copy of the cluster column in physical order, for binary searches
+    private int[] keys;
+    // logical row id -> physical position, and back
+    private int[] physOf;
+    private int[] logOf;
+
+    public ClusteredRowTable() {
+        this(0);
+    }
+
+    public ClusteredRowTable(int clusterColumn) {
+        this.clusterColumn = clusterColumn;
+    }
+
+    /**
+     * Loads data into the table through passed-in data loader, sorting the
+     * rows on the cluster column. Is not timed.
+     *
+     * @param loader Loader to load data from.
+     * @throws IOException
+     */
+    @Override
+    public void load(DataLoader loader) throws IOException {
+        this.numCols = loader.getNumCols();
+        List<ByteBuffer> rows = loader.getRows();
+        numRows = rows.size();
+        int[] loaded = new int[numRows * numCols];
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            ByteBuffer curRow = rows.get(rowId);
+            for (int colId = 0; colId < numCols; colId++) {
+                loaded[rowId * numCols + colId] = curRow.getInt(ByteFormat.FIELD_LEN * colId);
+            }
+        }
+        this.logOf = new int[numRows];
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            logOf[rowId] = rowId;
+        }
+        this.rows = loaded;
+        recluster();
+    }
+
+    /**
+     * HELPER METHOD
+     * Sorts the rows on the cluster column, keeping equal keys in their current
+     * physical order, and rebuilds the row-id maps and the key copy.
+     */
+    private void recluster() {
+        long[] order = new long[numRows];
+        for (int pos = 0; pos < numRows; pos++) {
+            order[pos] = ((long) rows[pos * numCols + clusterColumn] << 32) | pos;
+        }
+        Arrays.sort(order);
+
+        int[] sorted = new int[numRows * numCols];
+        int[] sortedLogOf = new int[numRows];
+        this.keys = new int[numRows];
+        this.physOf = new int[numRows];
+        for (int pos = 0; pos < numRows; pos++) {
+            int from = (int) order[pos];
+            System.arraycopy(rows, from * numCols, sorted, pos * numCols, numCols);
+            keys[pos] = (int) (order[pos] >> 32);
+            sortedLogOf[pos] = logOf[from];
+            physOf[logOf[from]] = pos;
+        }
+        this.rows = sorted;
+        this.logOf = sortedLogOf;
+    }
+
+    /**
+     * HELPER METHOD
+     * Returns the first physical position in [from, to) whose key is > `key`.
+     */
+    private int upperBound(int key, int from, int to) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (keys[mid] <= key) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * HELPER METHOD
+     * Returns the first physical position in [from, to) whose key is >= `key`.
+     */
+    private int lowerBound(int key, int from, int to) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (keys[mid] < key) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Returns the int field at row `rowId` and column `colId`.
+     */
+    @Override
+    public int getIntField(int rowId, int colId) {
+        return rows[physOf[rowId] * numCols + colId];
+    }
+
+    /**
+     * Inserts the passed-in int field at row `rowId` and column `colId`.
+     * Changing the cluster column moves the row to its new sorted position.
+     */
+    @Override
+    public void putIntField(int rowId, int colId, int field) {
+        int pos = physOf[rowId];
+        if (colId == clusterColumn && keys[pos] != field) {
+            relocate(pos, field);
+        } else {
+            rows[pos * numCols + colId] = field;
+        }
+    }
+
+    /**
+     * HELPER METHOD
+     * Gives the row at physical position `pos` the key `key` and moves it to
+     * where that key sorts.
+     *
+     * Rather than shifting every row in between, the row's slot is treated as
+     * a hole that hops over whole runs of equal keys: the run's far-end row
+     * moves into the hole and the hole moves to where that row was. This costs
+     * one row copy per distinct key passed instead of one per row.
+     */
+    private void relocate(int pos, int key) {
+        int[] moved = Arrays.copyOfRange(rows, pos * numCols, (pos + 1) * numCols);
+        int rowId = logOf[pos];
+        int hole = pos;
+        if (key > keys[pos]) {
+            while (hole + 1 < numRows && keys[hole + 1] < key) {
+                int end = upperBound(keys[hole + 1], hole + 1, numRows) - 1;
+                moveRow(end, hole);
+                hole = end;
+            }
+        } else {
+            while (hole > 0 && keys[hole - 1] > key) {
+                int start = lowerBound(keys[hole - 1], 0, hole);
+                moveRow(start, hole);
+                hole = start;
+            }
+        }
+        moved[clusterColumn] = key;
+        System.arraycopy(moved, 0, rows, hole * numCols, numCols);
+        keys[hole] = key;
+        logOf[hole] = rowId;
+        physOf[rowId] = hole;
+    }
+
+    private void moveRow(int from, int to) {
+        System.arraycopy(rows, from * numCols, rows, to * numCols, numCols);
+        keys[to] = keys[from];
+        logOf[to] = logOf[from];
+        physOf[logOf[to]] = to;
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) FROM table;
+     *
+     *  Returns the sum of all elements in the first column of the table.
+     */
+    @Override
+    public long columnSum() {
+        long sum = 0;
+        for (int i = 0; i < rows.length; i += numCols) {
+            sum += rows[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) FROM table WHERE col1 > threshold1 AND col2 < threshold2;
+     *
+     *  Returns the sum of all elements in the first column of the table,
+     *  subject to the passed-in predicates.
+     *
+     *  If col1 or col2 is the cluster column, only scans the rows in its range.
+     */
+    @Override
+    public long predicatedColumnSum(int threshold1, int threshold2) {
+        int from = 0;
+        int to = numRows;
+        if (clusterColumn == 1) {
+            from = upperBound(threshold1, 0, numRows);
+        } else if (clusterColumn == 2) {
+            to = lowerBound(threshold2, 0, numRows);
+        }
+        long sum = 0;
+        for (int base = from * numCols; base < to * numCols; base += numCols) {
+            if (rows[base + 1] > threshold1 && rows[base + 2] < threshold2) {
+                sum += rows[base];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) + SUM(col1) + ... + SUM(coln) FROM table WHERE col0 > threshold;
+     *
+     *  Returns the sum of all elements in the rows which pass the predicate.
+     *
+     *  If col0 is the cluster column, the matching rows are one contiguous
+     *  range, summed in a single pass.
+     */
+    @Override
+    public long predicatedAllColumnsSum(int threshold) {
+        long runningSum = 0;
+        if (clusterColumn == 0) {
+            for (int i = upperBound(threshold, 0, numRows) * numCols; i < rows.length; i++) {
+                runningSum += rows[i];
+            }
+            return runningSum;
+        }
+        for (int base = 0; base < rows.length; base += numCols) {
+            if (rows[base] > threshold) {
+                for (int i = base; i < base + numCols; i++) {
+                    runningSum += rows[i];
+                }
+            }
+        }
+        return runningSum;
+    }
+
+    /**
+     * Implements the query
+     *   UPDATE(col3 = col3 + col2) WHERE col0 < threshold;
+     *
+     *   Returns the number of rows updated.
+     *
+     *   If col0 is the cluster column, only the rows in its range are visited.
+     *   If col3 is, the table is re-sorted once after the update.
+     */
+    @Override
+    public int predicatedUpdate(int threshold) {
+        int to = clusterColumn == 0 ? lowerBound(threshold, 0, numRows) : numRows;
+        int updatedRows = 0;
+        for (int base = 0; base < to * numCols; base += numCols) {
+            if (rows[base] < threshold) {
+                updatedRows += 1;
+                rows[base + 3] += rows[base + 2];
+            }
+        }
+        if (clusterColumn == 3 && updatedRows > 0) {
+            recluster();
+        }
+        return updatedRows;
+    }
+}
@@ -0,0 +1,237 @@
+package memstore.table;
+
+import memstore.data.ByteFormat;
+import memstore.data.DataLoader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ColumnGroupTable, which partitions the columns vertically into groups and
+ * stores each group in row-major format. With groups {0, 1, 2, 3} and the rest,
+ * data is laid out like
+ *   [row 1 | ... | row n of cols 0-3] | [row 1 | ... | row n of cols 4-m].
+ *
+ * Queries only touch the groups holding the columns they need.
+ */
+public class ColumnGroupTable implements Table {
+    /**
+     * Default grouping derived from the Table queries: predicatedColumnSum reads
+     * cols 0-2, predicatedUpdate reads cols 0, 2 and 3, and columnSum reads col0.
+     */
+    private static final int[][] DEFAULT_GROUPS = {{0, 1, 2, 3}};
+
+    int numCols;
+    int numRows;
+    private final int[][] groupSpec;
+    private int[][] groups;
+    private int[] groupWidth;
+    private int[] colGroup;
+    private int[] colPos;
+
+    public ColumnGroupTable() {
+        this(DEFAULT_GROUPS);
+    }
+
+    /**
+     * @param groupSpec column ids of each group; columns that are not listed
+     *                  are stored together in one trailing group.
+     */
+    public ColumnGroupTable(int[][] groupSpec) {
+        this.groupSpec = groupSpec;
+    }
+
+    /**
+     * HELPER METHOD
+     * Resolves the group spec against the loaded number of columns, ignoring
+     * column ids past the end and adding a group for the remaining columns.
+     */
+    private void layoutGroups() {
+        colGroup = new int[numCols];
+        colPos = new int[numCols];
+        Arrays.fill(colGroup, -1);
+        int numGroups = 0;
+        groupWidth = new int[groupSpec.length + 1];
+        for (int[] spec : groupSpec) {
+            for (int colId : spec) {
+                if (colId < numCols && colGroup[colId] == -1) {
+                    colGroup[colId] = numGroups;
+                    colPos[colId] = groupWidth[numGroups]++;
+                }
+            }
+            if (groupWidth[numGroups] > 0) {
+                numGroups++;
+            }
+        }
+        for (int colId = 0; colId < numCols; colId++) {
+            if (colGroup[colId] == -1) {
+                colGroup[colId] = numGroups;
+                colPos[colId] = groupWidth[numGroups]++;
+            }
+        }
+        if (groupWidth[numGroups] > 0) {
+            numGroups++;
+        }
+        groupWidth = Arrays.copyOf(groupWidth, numGroups);
+    }
+
+    /**
+     * Loads data into the table through passed-in data loader. Is not timed.
+     *
+     * @param loader Loader to load data from.
+     * @throws IOException
+     */
+    @Override
+    public void load(DataLoader loader) throws IOException {
+        this.numCols = loader.getNumCols();
+        List<ByteBuffer> rows = loader.getRows();
+        numRows = rows.size();
+        layoutGroups();
+        this.groups = new int[groupWidth.length][];
+        for (int g = 0; g < groups.length; g++) {
+            groups[g] = new int[numRows * groupWidth[g]];
+        }
+
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            ByteBuffer curRow = rows.get(rowId);
+            for (int colId = 0; colId < numCols; colId++) {
+                putIntField(rowId, colId, curRow.getInt(ByteFormat.FIELD_LEN * colId));
+            }
+        }
+    }
+
+    /**
+     * Returns the number of column groups, including the trailing group.
+     */
+    public int getNumGroups() {
+        return groups.length;
+    }
+
+    /**
+     * Returns the int field at row `rowId` and column `colId`.
+     */
+    @Override
+    public int getIntField(int rowId, int colId) {
+        int g = colGroup[colId];
+        return groups[g][rowId * groupWidth[g] + colPos[colId]];
+    }
+
+    /**
+     * Inserts the passed-in int field at row `rowId` and column `colId`.
+     */
+    @Override
+    public void putIntField(int rowId, int colId, int field) {
+        int g = colGroup[colId];
+        groups[g][rowId * groupWidth[g] + colPos[colId]] = field;
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) FROM table;
+     *
+     *  Returns the sum of all elements in the first column of the table.
+     */
+    @Override
+    public long columnSum() {
+        int[] group = groups[colGroup[0]];
+        int width = groupWidth[colGroup[0]];
+        long sum = 0;
+        for (int i = colPos[0]; i < group.length; i += width) {
+            sum += group[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) FROM table WHERE col1 > threshold1 AND col2 < threshold2;
+     *
+     *  Returns the sum of all elements in the first column of the table,
+     *  subject to the passed-in predicates.
+     */
+    @Override
+    public long predicatedColumnSum(int threshold1, int threshold2) {
+        long sum = 0;
+        int g = colGroup[0];
+        if (colGroup[1] == g && colGroup[2] == g) {
+            int[] group = groups[g];
+            int width = groupWidth[g];
+            int pos0 = colPos[0];
+            int pos1 = colPos[1];
+            int pos2 = colPos[2];
+            for (int base = 0; base < group.length; base += width) {
+                if (group[base + pos1] > threshold1 && group[base + pos2] < threshold2) {
+                    sum += group[base + pos0];
+                }
+            }
+            return sum;
+        }
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            if (getIntField(rowId, 1) > threshold1 && getIntField(rowId, 2) < threshold2) {
+                sum += getIntField(rowId, 0);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) + SUM(col1) + ... + SUM(coln) FROM table WHERE col0 > threshold;
+     *
+     *  Returns the sum of all elements in the rows which pass the predicate.
+     */
+    @Override
+    public long predicatedAllColumnsSum(int threshold) {
+        int[] group0 = groups[colGroup[0]];
+        int width0 = groupWidth[colGroup[0]];
+        int pos0 = colPos[0];
+        long runningSum = 0;
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            if (group0[rowId * width0 + pos0] > threshold) {
+                for (int g = 0; g < groups.length; g++) {
+                    int[] group = groups[g];
+                    int base = rowId * groupWidth[g];
+                    for (int i = base; i < base + groupWidth[g]; i++) {
+                        runningSum += group[i];
+                    }
+                }
+            }
+        }
+        return runningSum;
+    }
+
+    /**
+     * Implements the query
+     *   UPDATE(col3 = col3 + col2) WHERE col0 < threshold;
+     *
+     *   Returns the number of rows updated.
+     */
+    @Override
+    public int predicatedUpdate(int threshold) {
+        int updatedRows = 0;
+        int g = colGroup[0];
+        if (colGroup[2] == g && colGroup[3] == g) {
+            int[] group = groups[g];
+            int width = groupWidth[g];
+            int pos0 = colPos[0];
+            int pos2 = colPos[2];
+            int pos3 = colPos[3];
+            for (int base = 0; base < group.length; base += width) {
+                if (group[base + pos0] < threshold) {
+                    updatedRows += 1;
+                    group[base + pos3] += group[base + pos2];
+                }
+            }
+            return updatedRows;
+        }
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            if (getIntField(rowId, 0) < threshold) {
+                updatedRows += 1;
+                putIntField(rowId, 3, getIntField(rowId, 3) + getIntField(rowId, 2));
+            }
+        }
+        return updatedRows;
+    }
+}
@@ -0,0 +1,48 @@
+package memstore.table;
+
+/**
+ * The sum of one column.
+ */
+public class ColumnSumView implements AggregateView {
+    private final int colId;
+    private long sum;
+
+    public ColumnSumView(int colId) {
+        this.colId = colId;
+    }
+
+    @Override
+    public void build(Table table, int numRows, int numCols) {
+        sum = 0;
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            sum += table.getIntField(rowId, colId);
+        }
+    }
+
+    @Override
+    public boolean watches(int colId) {
+        return colId == this.colId;
+    }
+
+    @Override
+    public void update(int rowId, int colId, int oldValue, int newValue) {
+        sum += (long) newValue - oldValue;
+    }
+
+    /**
+     * Adds `delta` to the sum, for owners that apply a bulk write themselves
+     * and know its total.
+     */
+    public void add(long delta) {
+        sum += delta;
+    }
+
+    public long sum() {
+        return sum;
+    }
+
+    @Override
+    public long sizeInBytes() {
+        return 8;
+    }
+}
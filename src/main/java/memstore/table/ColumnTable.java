@@ -11,11 +11,16 @@ import java.util.List;
  * ColumnTable, which stores data in column-major format.
  * That is, data is laid out like
  *   col 1 | col 2 | ... | col m.
+ *
+ * A ZoneMap keeps the min, max and sum of each column per block of rows, so
+ * scans skip blocks that cannot match and add up blocks that match entirely
+ * without reading them.
  */
 public class ColumnTable implements Table {
     int numCols;
     int numRows;
     ByteBuffer columns;
+    ZoneMap zoneMap;
 
     public ColumnTable() { }
 
@@ -38,6 +43,8 @@ public class ColumnTable implements Table {
                 this.columns.putInt(offset, curRow.getInt(ByteFormat.FIELD_LEN*colId));
             }
         }
+        this.zoneMap = new ZoneMap(numRows, numCols);
+        zoneMap.build(this);
     }
 
     /**
@@ -55,7 +62,9 @@ public class ColumnTable implements Table {
     @Override
     public void putIntField(int rowId, int colId, int field) {
         int offset = ByteFormat.FIELD_LEN * ((colId * numRows) + rowId);
+        int oldValue = columns.getInt(offset);
         columns.putInt(offset, field);
+        zoneMap.update(rowId, colId, oldValue, field);
     }
 
     /**
@@ -66,12 +75,7 @@ public class ColumnTable implements Table {
      */
     @Override
     public long columnSum() {
-        // TODO: Implement this!
-        long sum = 0;
-        for (int rowId = 0; rowId<numRows; rowId++){
-            sum+=this.columns.getInt(ByteFormat.FIELD_LEN*rowId);
-        }
-        return sum;
+        return zoneMap.columnSum(0);
     }
 
     /**
@@ -83,14 +87,22 @@ public class ColumnTable implements Table {
      */
     @Override
     public long predicatedColumnSum(int threshold1, int threshold2) {
-        // TODO: Implement this!
         long sum = 0;
-        for (int rowId = 0; rowId<numRows; rowId++){
-            int col1_val = getIntField(rowId, 1);
-            if (col1_val > threshold1){
-                int col2_val = getIntField(rowId,2);
-                if (col2_val<threshold2){
-                    sum+=getIntField(rowId, 0);
+        for (int block = 0; block < zoneMap.numBlocks; block++) {
+            if (zoneMap.max(1, block) <= threshold1 || zoneMap.min(2, block) >= threshold2) {
+                continue;
+            }
+            if (zoneMap.min(1, block) > threshold1 && zoneMap.max(2, block) < threshold2) {
+                sum += zoneMap.sum(0, block);
+                continue;
+            }
+            for (int rowId = zoneMap.blockStart(block); rowId<zoneMap.blockEnd(block); rowId++){
+                int col1_val = getIntField(rowId, 1);
+                if (col1_val > threshold1){
+                    int col2_val = getIntField(rowId,2);
+                    if (col2_val<threshold2){
+                        sum+=getIntField(rowId, 0);
+                    }
                 }
             }
         }
@@ -105,12 +117,20 @@ public class ColumnTable implements Table {
      */
     @Override
     public long predicatedAllColumnsSum(int threshold) {
-        // TODO: Implement this!
         long runningSum = 0;
-        for (int rowId = 0; rowId<numRows; rowId++){
-            if (getIntField(rowId,0)> threshold){
-                for (int colId = 0; colId<numCols; colId++){
-                    runningSum+=getIntField(rowId, colId);
+        for (int block = 0; block < zoneMap.numBlocks; block++) {
+            if (zoneMap.max(0, block) <= threshold) {
+                continue;
+            }
+            if (zoneMap.min(0, block) > threshold) {
+                runningSum += zoneMap.rowSum(block);
+                continue;
+            }
+            for (int rowId = zoneMap.blockStart(block); rowId<zoneMap.blockEnd(block); rowId++){
+                if (getIntField(rowId,0)> threshold){
+                    for (int colId = 0; colId<numCols; colId++){
+                        runningSum+=getIntField(rowId, colId);
+                    }
                 }
             }
         }
@@ -125,14 +145,29 @@ public class ColumnTable implements Table {
      */
     @Override
     public int predicatedUpdate(int threshold) {
-        // TODO: Implement this!
         int updatedRows = 0;
-        for (int rowId = 0; rowId<numRows; rowId++) {
-            if (this.columns.getInt(ByteFormat.FIELD_LEN * rowId) < threshold) {
-                updatedRows += 1;
-                int col3_val = this.columns.getInt(ByteFormat.FIELD_LEN * (3*numRows + rowId));
-                int col2_val = this.columns.getInt(ByteFormat.FIELD_LEN * (2*numRows + rowId));
-                this.columns.putInt(ByteFormat.FIELD_LEN * (3*numRows + rowId), col3_val + col2_val);
+        for (int block = 0; block < zoneMap.numBlocks; block++) {
+            if (zoneMap.min(0, block) >= threshold) {
+                continue;
+            }
+            // widen col3's block metadata by the rows that changed
+            int col3_min = Integer.MAX_VALUE;
+            int col3_max = Integer.MIN_VALUE;
+            long col3_delta = 0;
+            for (int rowId = zoneMap.blockStart(block); rowId<zoneMap.blockEnd(block); rowId++) {
+                if (this.columns.getInt(ByteFormat.FIELD_LEN * rowId) < threshold) {
+                    updatedRows += 1;
+                    int col2_val = this.columns.getInt(ByteFormat.FIELD_LEN * (2*numRows + rowId));
+                    int old_col3 = this.columns.getInt(ByteFormat.FIELD_LEN * (3*numRows + rowId));
+                    int col3_val = old_col3 + col2_val;
+                    this.columns.putInt(ByteFormat.FIELD_LEN * (3*numRows + rowId), col3_val);
+                    col3_min = Math.min(col3_min, col3_val);
+                    col3_max = Math.max(col3_max, col3_val);
+                    col3_delta += (long) col3_val - old_col3;
+                }
+            }
+            if (col3_min <= col3_max) {
+                zoneMap.widen(3, block, col3_min, col3_max, col3_delta);
             }
         }
         return updatedRows;
@@ -0,0 +1,161 @@
+package memstore.table;
+
+import memstore.data.ByteFormat;
+import memstore.data.DataLoader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * CompressedColumnTable, which stores data in column-major format with each
+ * column compressed into whichever EncodedColumn is smallest: bit-packed
+ * frame-of-reference or dictionary codes (PackedColumn), runs (RunLengthColumn)
+ * for clustered columns, or deltas (DeltaColumn) for sorted ones.
+ *
+ * Predicates are evaluated on the encoded data into a row selection bitmap;
+ * only the summed values are decoded.
+ */
+public class CompressedColumnTable implements Table {
+    int numCols;
+    int numRows;
+    private EncodedColumn[] columns;
+    // scratch selection bitmap, one bit per row
+    private long[] sel;
+
+    public CompressedColumnTable() { }
+
+    /**
+     * Loads data into the table through passed-in data loader. Is not timed.
+     *
+     * @param loader Loader to load data from.
+     * @throws IOException
+     */
+    @Override
+    public void load(DataLoader loader) throws IOException {
+        this.numCols = loader.getNumCols();
+        List<ByteBuffer> rows = loader.getRows();
+        numRows = rows.size();
+        this.columns = new EncodedColumn[numCols];
+        this.sel = new long[(numRows + 63) >>> 6];
+
+        int[] values = new int[numRows];
+        for (int colId = 0; colId < numCols; colId++) {
+            for (int rowId = 0; rowId < numRows; rowId++) {
+                values[rowId] = rows.get(rowId).getInt(ByteFormat.FIELD_LEN * colId);
+            }
+            columns[colId] = EncodedColumn.encode(values);
+        }
+    }
+
+    /**
+     * Returns the total size of the encoded columns in bytes.
+     */
+    public long sizeInBytes() {
+        long size = 0;
+        for (EncodedColumn col : columns) {
+            size += col.sizeInBytes();
+        }
+        return size;
+    }
+
+    /**
+     * Returns the int field at row `rowId` and column `colId`.
+     */
+    @Override
+    public int getIntField(int rowId, int colId) {
+        return columns[colId].get(rowId);
+    }
+
+    /**
+     * Inserts the passed-in int field at row `rowId` and column `colId`.
+     * Values the column's encoding cannot absorb re-encode the column as packed
+     * codes, with one bit of headroom so repeated growth does not re-encode every time.
+     */
+    @Override
+    public void putIntField(int rowId, int colId, int field) {
+        if (!columns[colId].set(rowId, field)) {
+            int[] values = columns[colId].decode();
+            values[rowId] = field;
+            columns[colId] = EncodedColumn.reencode(values, 1);
+        }
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) FROM table;
+     *
+     *  Returns the sum of all elements in the first column of the table.
+     */
+    @Override
+    public long columnSum() {
+        return columns[0].sum();
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) FROM table WHERE col1 > threshold1 AND col2 < threshold2;
+     *
+     *  Returns the sum of all elements in the first column of the table,
+     *  subject to the passed-in predicates.
+     */
+    @Override
+    public long predicatedColumnSum(int threshold1, int threshold2) {
+        columns[1].selectAbove(threshold1, sel, false);
+        columns[2].selectBelow(threshold2, sel, true);
+        return columns[0].sumSelected(sel);
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) + SUM(col1) + ... + SUM(coln) FROM table WHERE col0 > threshold;
+     *
+     *  Returns the sum of all elements in the rows which pass the predicate.
+     */
+    @Override
+    public long predicatedAllColumnsSum(int threshold) {
+        columns[0].selectAbove(threshold, sel, false);
+        long runningSum = 0;
+        for (int colId = 0; colId < numCols; colId++) {
+            runningSum += columns[colId].sumSelected(sel);
+        }
+        return runningSum;
+    }
+
+    /**
+     * Implements the query
+     *   UPDATE(col3 = col3 + col2) WHERE col0 < threshold;
+     *
+     *   Returns the number of rows updated.
+     *
+     *   If a new col3 value overflows its encoding, the rest of the update is
+     *   applied to the decoded column, which is re-encoded once at the end.
+     */
+    @Override
+    public int predicatedUpdate(int threshold) {
+        EncodedColumn col2 = columns[2];
+        EncodedColumn col3 = columns[3];
+        columns[0].selectBelow(threshold, sel, false);
+
+        int updatedRows = 0;
+        int[] decoded = null;
+        for (int i = 0; i < sel.length; i++) {
+            long bits = sel[i];
+            while (bits != 0) {
+                int rowId = (i << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                updatedRows += 1;
+                if (decoded != null) {
+                    decoded[rowId] += col2.get(rowId);
+                } else if (!col3.set(rowId, col3.get(rowId) + col2.get(rowId))) {
+                    decoded = col3.decode();
+                    decoded[rowId] += col2.get(rowId);
+                }
+            }
+        }
+        if (decoded != null) {
+            columns[3] = EncodedColumn.reencode(decoded, 1);
+        }
+        return updatedRows;
+    }
+}
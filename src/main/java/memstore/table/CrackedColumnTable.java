@@ -0,0 +1,410 @@
+package memstore.table;
+
+import memstore.data.ByteFormat;
+import memstore.data.DataLoader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * CrackedColumnTable, which stores data in column-major format like
+ * ArrayColumnTable and indexes col0 adaptively by database cracking.
+ *
+ * The cracker column is a copy of col0 together with the row id of each
+ * value. Nothing is sorted at load time: every threshold that
+ * predicatedAllColumnsSum or predicatedUpdate asks for partitions, in place,
+ * the one piece of the cracker column that holds it, and records the
+ * resulting boundary in the cracker index. Piece j of the column holds the
+ * values v with crackKeys[j - 1] <= v < crackKeys[j] at the positions
+ * [crackPositions[j - 1], crackPositions[j]). The more thresholds a workload
+ * has seen, the smaller the pieces left to partition, until a repeated
+ * threshold costs only a binary search.
+ *
+ * Writes to col0 that keep a value inside its piece are applied to the
+ * cracker column right away. The others are queued as pending updates and
+ * merged lazily: a query merges only the pending rows whose old and new
+ * values fall on different sides of its threshold, rippling each one across
+ * the pieces in between with one swap per crossed boundary.
+ */
+public class CrackedColumnTable implements Table {
+    // largest fraction of the rows gathered through the cracker column; past
+    // it, the random accesses cost more than a sequential scan of all columns
+    static final double GATHER_FRACTION = 0.0625;
+
+    int numCols;
+    int numRows;
+    private int[][] columns;
+    // sum of each column, so a dense predicate can be answered from its complement
+    private long[] totals;
+    // scratch selection mask for the scan fallback: -1 if selected, 0 otherwise
+    private int[] mask;
+
+    // cracker column: col0 values and their row ids, partitioned by the cracks
+    private int[] crackValues;
+    private int[] crackRowIds;
+    // position of each row id in the cracker column
+    private int[] positionOf;
+
+    // cracker index: sorted boundary values and the position each piece ends at
+    private int[] crackKeys;
+    private int[] crackPositions;
+    private int numCracks;
+
+    // rows whose col0 value changed piece since it was last merged
+    private int[] pendingRows;
+    private int numPending;
+    private boolean[] isPending;
+
+    public CrackedColumnTable() { }
+
+    /**
+     * Loads data into the table through passed-in data loader. Is not timed.
+     *
+     * @param loader Loader to load data from.
+     * @throws IOException
+     */
+    @Override
+    public void load(DataLoader loader) throws IOException {
+        this.numCols = loader.getNumCols();
+        List<ByteBuffer> rows = loader.getRows();
+        numRows = rows.size();
+        this.columns = new int[numCols][numRows];
+        this.totals = new long[numCols];
+        this.mask = new int[numRows];
+
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            ByteBuffer curRow = rows.get(rowId);
+            for (int colId = 0; colId < numCols; colId++) {
+                int field = curRow.getInt(ByteFormat.FIELD_LEN * colId);
+                this.columns[colId][rowId] = field;
+                this.totals[colId] += field;
+            }
+        }
+
+        this.crackValues = columns[0].clone();
+        this.crackRowIds = new int[numRows];
+        this.positionOf = new int[numRows];
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            crackRowIds[rowId] = rowId;
+            positionOf[rowId] = rowId;
+        }
+        this.crackKeys = new int[16];
+        this.crackPositions = new int[16];
+        this.numCracks = 0;
+        this.pendingRows = new int[16];
+        this.numPending = 0;
+        this.isPending = new boolean[numRows];
+    }
+
+    /**
+     * HELPER METHOD
+     * Returns the index of the piece that holds `value`, which is the number
+     * of crack keys no greater than it.
+     */
+    private int pieceOf(int value) {
+        int lo = 0;
+        int hi = numCracks;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (crackKeys[mid] <= value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * HELPER METHOD
+     * Swaps the cracker column entries at positions `i` and `j`.
+     */
+    private void swap(int i, int j) {
+        int value = crackValues[i];
+        crackValues[i] = crackValues[j];
+        crackValues[j] = value;
+        int rowId = crackRowIds[i];
+        crackRowIds[i] = crackRowIds[j];
+        crackRowIds[j] = rowId;
+        positionOf[crackRowIds[i]] = i;
+        positionOf[rowId] = j;
+    }
+
+    /**
+     * HELPER METHOD
+     * Moves the cracker column entry of `rowId` into the piece of `field` and
+     * sets its value. Each crossed boundary costs one swap with the entry at
+     * the near edge of the next piece, and shifts that boundary by one.
+     */
+    private void ripple(int rowId, int field) {
+        int position = positionOf[rowId];
+        int from = pieceOf(crackValues[position]);
+        int to = pieceOf(field);
+        for (int j = from; j < to; j++) {
+            int last = --crackPositions[j];
+            swap(position, last);
+            position = last;
+        }
+        for (int j = from - 1; j >= to; j--) {
+            int first = crackPositions[j]++;
+            swap(position, first);
+            position = first;
+        }
+        crackValues[position] = field;
+    }
+
+    /**
+     * HELPER METHOD
+     * Merges the pending updates that move a row across `key`, and keeps the
+     * others queued. The rows left behind lie on the correct side of `key`
+     * even under their old cracker values.
+     */
+    private void mergePending(int key) {
+        int[] col0 = columns[0];
+        int kept = 0;
+        for (int i = 0; i < numPending; i++) {
+            int rowId = pendingRows[i];
+            int field = col0[rowId];
+            if ((crackValues[positionOf[rowId]] < key) != (field < key)) {
+                ripple(rowId, field);
+                isPending[rowId] = false;
+            } else {
+                pendingRows[kept++] = rowId;
+            }
+        }
+        numPending = kept;
+    }
+
+    /**
+     * HELPER METHOD
+     * Returns the position in the cracker column before which exactly the
+     * rows with col0 < `key` lie, partitioning the piece that holds `key` if
+     * it has not been cracked on yet.
+     */
+    private int crack(int key) {
+        mergePending(key);
+        int piece = pieceOf(key);
+        if (piece > 0 && crackKeys[piece - 1] == key) {
+            return crackPositions[piece - 1];
+        }
+        int start = piece == 0 ? 0 : crackPositions[piece - 1];
+        int end = piece == numCracks ? numRows : crackPositions[piece];
+
+        // crack in two: values < key to the front, the rest to the back
+        int[] values = crackValues;
+        int[] rowIds = crackRowIds;
+        int i = start;
+        int j = end - 1;
+        while (i <= j) {
+            if (values[i] < key) {
+                i++;
+            } else if (values[j] >= key) {
+                j--;
+            } else {
+                int value = values[i];
+                values[i] = values[j];
+                values[j] = value;
+                int rowId = rowIds[i];
+                rowIds[i] = rowIds[j];
+                rowIds[j] = rowId;
+                i++;
+                j--;
+            }
+        }
+        for (int k = start; k < end; k++) {
+            positionOf[rowIds[k]] = k;
+        }
+
+        if (numCracks == crackKeys.length) {
+            crackKeys = Arrays.copyOf(crackKeys, 2 * numCracks);
+            crackPositions = Arrays.copyOf(crackPositions, 2 * numCracks);
+        }
+        System.arraycopy(crackKeys, piece, crackKeys, piece + 1, numCracks - piece);
+        System.arraycopy(crackPositions, piece, crackPositions, piece + 1, numCracks - piece);
+        crackKeys[piece] = key;
+        crackPositions[piece] = i;
+        numCracks++;
+        return i;
+    }
+
+    /**
+     * HELPER METHOD
+     * Returns the sum of all columns over the rows at cracker column
+     * positions [from, to).
+     */
+    private long sumRange(int from, int to) {
+        int[] rowIds = crackRowIds;
+        long sum = 0;
+        for (int colId = 0; colId < numCols; colId++) {
+            int[] col = columns[colId];
+            for (int i = from; i < to; i++) {
+                sum += col[rowIds[i]];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the int field at row `rowId` and column `colId`.
+     */
+    @Override
+    public int getIntField(int rowId, int colId) {
+        return columns[colId][rowId];
+    }
+
+    /**
+     * Inserts the passed-in int field at row `rowId` and column `colId`.
+     */
+    @Override
+    public void putIntField(int rowId, int colId, int field) {
+        totals[colId] += (long) field - columns[colId][rowId];
+        columns[colId][rowId] = field;
+        if (colId != 0 || isPending[rowId]) {
+            return;
+        }
+        int position = positionOf[rowId];
+        if (pieceOf(crackValues[position]) == pieceOf(field)) {
+            crackValues[position] = field;
+            return;
+        }
+        if (numPending == pendingRows.length) {
+            pendingRows = Arrays.copyOf(pendingRows, 2 * numPending);
+        }
+        pendingRows[numPending++] = rowId;
+        isPending[rowId] = true;
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) FROM table;
+     *
+     *  Returns the sum of all elements in the first column of the table.
+     */
+    @Override
+    public long columnSum() {
+        return totals[0];
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) FROM table WHERE col1 > threshold1 AND col2 < threshold2;
+     *
+     *  Returns the sum of all elements in the first column of the table,
+     *  subject to the passed-in predicates.
+     */
+    @Override
+    public long predicatedColumnSum(int threshold1, int threshold2) {
+        int[] col0 = columns[0];
+        int[] col1 = columns[1];
+        int[] col2 = columns[2];
+        long sum = 0;
+        for (int i = 0; i < col0.length; i++) {
+            sum += (col1[i] > threshold1 & col2[i] < threshold2) ? col0[i] : 0;
+        }
+        return sum;
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) + SUM(col1) + ... + SUM(coln) FROM table WHERE col0 > threshold;
+     *
+     *  Returns the sum of all elements in the rows which pass the predicate.
+     *
+     *  Cracks on threshold + 1, then adds up whichever side of the crack is
+     *  smaller, subtracting it from the column totals if that is the side
+     *  that fails the predicate. If even the smaller side is too large to
+     *  gather, scans all columns under a mask as ArrayColumnTable does.
+     */
+    @Override
+    public long predicatedAllColumnsSum(int threshold) {
+        if (threshold == Integer.MAX_VALUE) {
+            return 0;
+        }
+        int position = crack(threshold + 1);
+        if (Math.min(position, numRows - position) > numRows * GATHER_FRACTION) {
+            return scanAllColumnsSum(threshold);
+        }
+        if (numRows - position <= position) {
+            return sumRange(position, numRows);
+        }
+        long sum = 0;
+        for (int colId = 0; colId < numCols; colId++) {
+            sum += totals[colId];
+        }
+        return sum - sumRange(0, position);
+    }
+
+    /**
+     * HELPER METHOD
+     * Returns the sum of all columns over the rows with col0 > `threshold`,
+     * by a full scan under a mask.
+     */
+    private long scanAllColumnsSum(int threshold) {
+        int[] col0 = columns[0];
+        for (int i = 0; i < col0.length; i++) {
+            mask[i] = col0[i] > threshold ? -1 : 0;
+        }
+        long sum = 0;
+        for (int colId = 0; colId < numCols; colId++) {
+            int[] col = columns[colId];
+            for (int i = 0; i < col.length; i++) {
+                sum += col[i] & mask[i];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Implements the query
+     *   UPDATE(col3 = col3 + col2) WHERE col0 < threshold;
+     *
+     *   Returns the number of rows updated.
+     *
+     *   Cracks on threshold, then updates the rows in front of the crack, or
+     *   all rows under a mask if there are too many of them to gather.
+     */
+    @Override
+    public int predicatedUpdate(int threshold) {
+        int position = crack(threshold);
+        if (position > numRows * GATHER_FRACTION) {
+            return scanUpdate(threshold);
+        }
+        int[] rowIds = crackRowIds;
+        int[] col2 = columns[2];
+        int[] col3 = columns[3];
+        long added = 0;
+        for (int i = 0; i < position; i++) {
+            int rowId = rowIds[i];
+            int old = col3[rowId];
+            col3[rowId] = old + col2[rowId];
+            // col3 wraps, so the total moves by what it actually changed
+            added += (long) col3[rowId] - old;
+        }
+        totals[3] += added;
+        return position;
+    }
+
+    /**
+     * HELPER METHOD
+     * Applies col3 += col2 to the rows with col0 < `threshold` by a full scan,
+     * and returns their number.
+     */
+    private int scanUpdate(int threshold) {
+        int[] col0 = columns[0];
+        int[] col2 = columns[2];
+        int[] col3 = columns[3];
+        int updatedRows = 0;
+        long added = 0;
+        for (int i = 0; i < col0.length; i++) {
+            int selected = col0[i] < threshold ? -1 : 0;
+            int old = col3[i];
+            col3[i] = old + (col2[i] & selected);
+            added += (long) col3[i] - old;
+            updatedRows -= selected;
+        }
+        totals[3] += added;
+        return updatedRows;
+    }
+}
@@ -7,84 +7,85 @@ import memstore.data.DataLoader;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.util.HashSet;
 import java.util.List;
 //import java.util.Map;
-import java.util.TreeMap;
 
 /**
  * Custom table implementation to adapt to provided query mix.
+ *
+ * col0 has an ordered index (see SortedIntIndex) for its range queries, walked
+ * with a reused cursor so that queries allocate nothing; col1 and col2 have bit-sliced
+ * indexes, so predicatedColumnSum is evaluated with word-wise bitmap operations.
+ *
+ * When col0's values span a small enough range, a FenwickTree over that range
+ * keeps the row count and the sum of the per-row totals of each value, so
+ * predicatedAllColumnsSum is answered in O(log range) without a row visit. A
+ * write that takes col0 outside the range rebuilds the tree over a wider one,
+ * or drops it in favour of the index walk once the range gets too wide.
+ *
+ * Likewise, when the grid of (col1, col2) value pairs is small next to the
+ * table, a FenwickGrid over it keeps the col0 sum of each pair, and
+ * predicatedColumnSum is answered in O(log^2 range) instead of through the
+ * bit-sliced indexes.
  */
 public class CustomTable implements Table {
+    // col0 gets a FenwickTree when its values span at most this many values per row
+    static final double DEFAULT_MAX_DOMAIN_FRACTION = 1.0;
+    // col1 and col2 get a FenwickGrid when its cells (longs) number at most
+    // this fraction of the table's fields (ints)
+    static final double DEFAULT_MAX_GRID_FRACTION = 0.25;
+
     int numCols;
     int numRows;
-    private TreeMap<Integer, IntArrayList> indexCol0;
-    private TreeMap<Integer, IntArrayList> indexCol1;
-    private TreeMap<Integer, IntArrayList> indexCol2;
-
-    private long sumCol0 = 0;
-
-    private ByteBuffer allColsSum;
-    public static int LONG_FIELD_LEN  = 8;
+    private final double maxDomainFraction;
+    private final double maxGridFraction;
+    private SortedIntIndex<IntArrayList> indexCol0;
+    private SortedIntIndex.Cursor<IntArrayList> keysCol0;
+    private BitSlicedIndex indexCol1;
+    private BitSlicedIndex indexCol2;
+    // scratch selection bitmap for predicatedColumnSum, one bit per row
+    private long[] sel;
+    // row count and row sum total per col0 value, or null if the range is too wide
+    private FenwickTree aggregates;
+    // col0 sum per (col1, col2) pair, or null if the grid would be too large
+    private FenwickGrid grid;
+
+    // sum of col0 and sum of each row, maintained on every write
+    private ColumnSumView sumCol0;
+    private RowSumView allColsSum;
     
     private ByteBuffer rows;
     private ByteBuffer col0;
 
     public CustomTable() {
+        this(DEFAULT_MAX_DOMAIN_FRACTION, DEFAULT_MAX_GRID_FRACTION);
     }
 
     /**
-     * HELPER METHOD
-     * Adds an int value (row id) to the treemap with key k.
-     *
-     * @param val is the row id to be added corresponding to col0 value
-     * @param k   is the col0 value which serves as the key for this index
+     * @param maxDomainFraction values per row col0 may span to get a
+     *                          FenwickTree; 0 always walks the col0 index.
+     * @param maxGridFraction   FenwickGrid cells per table field col1 and
+     *                          col2 may take; 0 never builds a grid.
      */
-    public void addValIndex0(int val, int k) {
-        IntArrayList correspond_rows;
-        if (!this.indexCol0.containsKey(k)) {
-            correspond_rows = new IntArrayList();
-        } else {
-            correspond_rows = this.indexCol0.get(k);
-        }
-        correspond_rows.add(val);
-        this.indexCol0.put(k, correspond_rows);
+    CustomTable(double maxDomainFraction, double maxGridFraction) {
+        this.maxDomainFraction = maxDomainFraction;
+        this.maxGridFraction = maxGridFraction;
     }
 
     /**
      * HELPER METHOD
-     * Adds an int value (row id) to the treemap with key k.
+     * Adds an int value (row id) to the index with key k.
      *
      * @param val is the row id to be added corresponding to col0 value
      * @param k   is the col0 value which serves as the key for this index
      */
-    public void addValIndex1(int val, int k) {
-        IntArrayList correspond_rows;
-        if (!this.indexCol1.containsKey(k)) {
-            correspond_rows = new IntArrayList();
-        } else {
-            correspond_rows = this.indexCol1.get(k);
-        }
-        correspond_rows.add(val);
-        this.indexCol1.put(k, correspond_rows);
-    }
-
-    /**
-     * HELPER METHOD
-     * Adds an int value (row id) to the treemap with key k.
-     *
-     * @param val is the row id to be added corresponding to col0 value
-     * @param k   is the col0 value which serves as the key for this index
-     */
-    public void addValIndex2(int val, int k) {
-        IntArrayList correspond_rows;
-        if (!this.indexCol2.containsKey(k)) {
+    public void addValIndex0(int val, int k) {
+        IntArrayList correspond_rows = this.indexCol0.get(k);
+        if (correspond_rows == null) {
             correspond_rows = new IntArrayList();
-        } else {
-            correspond_rows = this.indexCol2.get(k);
+            this.indexCol0.put(k, correspond_rows);
         }
         correspond_rows.add(val);
-        this.indexCol2.put(k, correspond_rows);
     }
 
 
@@ -97,9 +98,8 @@ public class CustomTable implements Table {
     @Override
     public void load(DataLoader loader) throws IOException {
         // TODO: Implement this!
-        this.indexCol0 = new TreeMap<>();
-        this.indexCol1 = new TreeMap<>();
-        this.indexCol2 = new TreeMap<>();
+        this.indexCol0 = new SortedIntIndex<>();
+        this.keysCol0 = this.indexCol0.cursor();
 
         this.numCols = loader.getNumCols();
         List<ByteBuffer> rows = loader.getRows();
@@ -107,15 +107,15 @@ public class CustomTable implements Table {
 
         this.rows = ByteBuffer.allocate(ByteFormat.FIELD_LEN * numRows * numCols);
         this.col0 = ByteBuffer.allocate(ByteFormat.FIELD_LEN * numRows);
-        this.allColsSum = ByteBuffer.allocate(LONG_FIELD_LEN * numRows);
+        this.sel = new long[(numRows + 63) >>> 6];
+        int[] col1_values = new int[numRows];
+        int[] col2_values = new int[numRows];
 
         for (int rowId = 0; rowId < numRows; rowId++) {
             ByteBuffer curRow = rows.get(rowId);
-            long running_sum = 0;
             for (int colId = 0; colId < numCols; colId++) {
                 int offset = ByteFormat.FIELD_LEN * ((rowId * numCols) + colId);
                 int col_value = curRow.getInt(ByteFormat.FIELD_LEN * colId);
-                running_sum+=col_value;
 
                 // put the value in the table
                 this.rows.putInt(offset, col_value);
@@ -124,16 +124,77 @@ public class CustomTable implements Table {
                 if (colId == 0) {
                     this.col0.putInt(ByteFormat.FIELD_LEN * rowId, col_value);
                     addValIndex0(rowId, col_value);
-                    this.sumCol0+=col_value;
 
                 } else if (colId == 1) {
-                    addValIndex1(rowId, col_value);
+                    col1_values[rowId] = col_value;
 
                 } else if(colId==2){
-                    addValIndex2(rowId, col_value);
+                    col2_values[rowId] = col_value;
                 }
             }
-            this.allColsSum.putLong(LONG_FIELD_LEN*rowId, running_sum);
+        }
+        this.sumCol0 = new ColumnSumView(0);
+        this.sumCol0.build(this, numRows, numCols);
+        this.allColsSum = new RowSumView();
+        this.allColsSum.build(this, numRows, numCols);
+        this.indexCol1 = new BitSlicedIndex(col1_values);
+        this.indexCol2 = new BitSlicedIndex(col2_values);
+        this.aggregates = null;
+        buildAggregates(false);
+        this.grid = null;
+        buildGrid(false);
+    }
+
+    /**
+     * HELPER METHOD
+     * Rebuilds the FenwickTree over the range of col0's values, or leaves
+     * none if that range is wider than maxDomainFraction of the row count.
+     * With `grow`, the range is widened as in FenwickTree.build.
+     */
+    private void buildAggregates(boolean grow) {
+        int[] values = new int[numRows];
+        long[] weights = new long[numRows];
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            values[rowId] = this.col0.getInt(ByteFormat.FIELD_LEN * rowId);
+            weights[rowId] = this.allColsSum.get(rowId);
+        }
+        this.aggregates = FenwickTree.build(values, weights, grow ? this.aggregates : null, maxDomainFraction);
+    }
+
+    /**
+     * HELPER METHOD
+     * Rebuilds the FenwickGrid over the ranges of col1's and col2's values,
+     * or leaves none if it would take more than maxGridFraction of the
+     * table's fields. `grow` widens the ranges as in FenwickTree.build.
+     */
+    private void buildGrid(boolean grow) {
+        int[] values1 = new int[numRows];
+        int[] values2 = new int[numRows];
+        int[] weights = new int[numRows];
+        long lo1 = Integer.MAX_VALUE, hi1 = Integer.MIN_VALUE;
+        long lo2 = Integer.MAX_VALUE, hi2 = Integer.MIN_VALUE;
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            values1[rowId] = getIntField(rowId, 1);
+            values2[rowId] = getIntField(rowId, 2);
+            weights[rowId] = this.col0.getInt(ByteFormat.FIELD_LEN * rowId);
+            lo1 = Math.min(lo1, values1[rowId]);
+            hi1 = Math.max(hi1, values1[rowId]);
+            lo2 = Math.min(lo2, values2[rowId]);
+            hi2 = Math.max(hi2, values2[rowId]);
+        }
+        if (grow && this.grid != null) {
+            long slack1 = (hi1 - lo1 + 1) / 2;
+            long slack2 = (hi2 - lo2 + 1) / 2;
+            lo1 = lo1 < this.grid.lo1 ? Math.max(Integer.MIN_VALUE, lo1 - slack1) : lo1;
+            hi1 = hi1 > this.grid.hi1 ? Math.min(Integer.MAX_VALUE, hi1 + slack1) : hi1;
+            lo2 = lo2 < this.grid.lo2 ? Math.max(Integer.MIN_VALUE, lo2 - slack2) : lo2;
+            hi2 = hi2 > this.grid.hi2 ? Math.min(Integer.MAX_VALUE, hi2 + slack2) : hi2;
+        }
+        this.grid = null;
+        // (double) so that ranges spanning the int domain cannot overflow
+        double cells = (double) (hi1 - lo1 + 2) * (hi2 - lo2 + 2);
+        if (numRows > 0 && numCols > 2 && cells <= maxGridFraction * numRows * numCols) {
+            this.grid = new FenwickGrid(values1, values2, weights, (int) lo1, (int) hi1, (int) lo2, (int) hi2);
         }
     }
 
@@ -161,16 +222,19 @@ public class CustomTable implements Table {
          * else {}
          *
          * update the table
-         * make sure to update the running allColsSum in the buffer for this row
+         * make sure to update the row's sum in allColsSum
          */
         int row_offset = ByteFormat.FIELD_LEN * rowId * numCols;
+        boolean rebuild_grid = false;
 
         if (colId == 0) {
             int col0_original_val = this.getIntField(rowId, 0);
             // remove rowId from old value's IntArrayList in index
             IntArrayList old_row_list = this.indexCol0.get(col0_original_val);
             old_row_list.rem(rowId);
-            this.indexCol0.put(col0_original_val, old_row_list);
+            if (old_row_list.isEmpty()) {
+                this.indexCol0.remove(col0_original_val);
+            }
 
             // add rowId to new value's IntArrayList in index
             this.addValIndex0(rowId, field);
@@ -179,37 +243,54 @@ public class CustomTable implements Table {
             this.col0.putInt(ByteFormat.FIELD_LEN*rowId, field);
 
             // update the pre computed sum
-            this.sumCol0-=col0_original_val;
-            this.sumCol0+=field;
+            this.sumCol0.update(rowId, 0, col0_original_val, field);
 
 
         } else if (colId == 1) {
-            // 1
-            int col1_original_val = this.getIntField(rowId, 1);
-            // remove rowId from old value's IntArrayList in index
-            IntArrayList old_row_list = this.indexCol1.get(col1_original_val);
-            old_row_list.rem(rowId);
-            this.indexCol1.put(col1_original_val, old_row_list);
-
-            // add rowId to new value's IntArrayList in index
-            this.addValIndex1(rowId, field);
+            // flips only the bit slices that differ from the old value
+            this.indexCol1.set(rowId, field);
 
         } else if (colId==2){
-            // 1
-            int col2_original_val = this.getIntField(rowId, 2);
-            // remove rowId from old value's IntArrayList in index
-            IntArrayList old_row_list = this.indexCol2.get(col2_original_val);
-            old_row_list.rem(rowId);
-            this.indexCol2.put(col2_original_val, old_row_list);
-
-            // add rowId to new value's IntArrayList in index
-            this.addValIndex2(rowId, field);
+            this.indexCol2.set(rowId, field);
+        }
+        if (this.grid != null && colId <= 2) {
+            int col0_value = this.getIntField(rowId, 0);
+            int col1_value = this.getIntField(rowId, 1);
+            int col2_value = this.getIntField(rowId, 2);
+            if (colId == 0) {
+                this.grid.add(col1_value, col2_value, (long) field - col0_value);
+            } else {
+                int new1 = colId == 1 ? field : col1_value;
+                int new2 = colId == 2 ? field : col2_value;
+                if (this.grid.covers(new1, new2)) {
+                    this.grid.add(col1_value, col2_value, -col0_value);
+                    this.grid.add(new1, new2, col0_value);
+                } else {
+                    // rebuilt once the row holds the new value
+                    rebuild_grid = true;
+                }
+            }
         }
         int old_value = this.rows.getInt(row_offset +ByteFormat.FIELD_LEN*colId);
         this.rows.putInt(row_offset +ByteFormat.FIELD_LEN*colId,field);
 
-        long old_allColsSum = this.allColsSum.getLong(LONG_FIELD_LEN*rowId);
-        this.allColsSum.putLong(LONG_FIELD_LEN*rowId, old_allColsSum - old_value + field);
+        long old_allColsSum = this.allColsSum.get(rowId);
+        this.allColsSum.update(rowId, colId, old_value, field);
+
+        if (this.aggregates != null) {
+            if (colId != 0) {
+                // the row keeps its col0 value, only its total changes
+                this.aggregates.add(this.col0.getInt(ByteFormat.FIELD_LEN * rowId), 0, (long) field - old_value);
+            } else if (this.aggregates.covers(field)) {
+                this.aggregates.add(old_value, -1, -old_allColsSum);
+                this.aggregates.add(field, 1, old_allColsSum - old_value + field);
+            } else {
+                buildAggregates(true);
+            }
+        }
+        if (rebuild_grid) {
+            buildGrid(true);
+        }
     }
 
 
@@ -222,7 +303,7 @@ public class CustomTable implements Table {
     @Override
     public long columnSum() {
         // TODO: Implement this!
-        return this.sumCol0;
+        return this.sumCol0.sum();
 
     }
 
@@ -236,54 +317,24 @@ public class CustomTable implements Table {
     @Override
     public long predicatedColumnSum(int threshold1, int threshold2) {
         // TODO: Implement this!
+        if (this.grid != null) {
+            return this.grid.quadrantSum(threshold1, threshold2);
+        }
         /**
-         * Set together all rows that satisfy col1> threshold1
-         * Set together all rows that satisfy col2< threshold2
-         * iterate over the smaller of the 2 sets by checking for presence in the larger one O(1)
-         *      sum col0 entries into running sum
+         * AND the bitmap of rows with col1 > threshold1 into that of rows
+         * with col2 < threshold2, then sum col0 over the set bits
          */
         long running_sum = 0;
-
-        // get rows for first col
-        if (this.indexCol1.higherKey(threshold1) == null || this.indexCol2.lowerKey(threshold2)==null){
-            return running_sum;
-        }
-        int k = this.indexCol1.higherKey(threshold1);
-
-        HashSet<Integer> col1_satisfied = new HashSet<>();
-
-        while (this.indexCol1.containsKey(k)) {
-            IntArrayList row_list = this.indexCol1.get(k);
-            col1_satisfied.addAll(row_list);
-
-            if (this.indexCol1.higherKey(k) == null) {
-                break;
-            }
-            k = this.indexCol1.higherKey(k);
-        }
-         // get rows for second col
-        k = this.indexCol2.lowerKey(threshold2);
-
-        HashSet<Integer> col2_satisfied = new HashSet<>();
-
-        while (this.indexCol2.containsKey(k)) {
-            IntArrayList row_list = this.indexCol2.get(k);
-            col2_satisfied.addAll(row_list);
-
-            if (this.indexCol2.lowerKey(k) == null) {
-                break;
+        this.indexCol1.selectAbove(threshold1, this.sel, false);
+        this.indexCol2.selectBelow(threshold2, this.sel, true);
+        for (int w = 0; w < this.sel.length; w++) {
+            long bits = this.sel[w];
+            while (bits != 0) {
+                int rowId = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                running_sum += this.col0.getInt(ByteFormat.FIELD_LEN * rowId);
             }
-            k = this.indexCol2.lowerKey(k);
-        }
-        // only contain the intersection of rows
-        col1_satisfied.retainAll(col2_satisfied);
-
-        // calculate the sum
-        for (Integer rowId : col1_satisfied){
-            running_sum+=this.col0.getInt(ByteFormat.FIELD_LEN *rowId);
         }
-
-
         return running_sum;
     }
 
@@ -296,22 +347,15 @@ public class CustomTable implements Table {
     @Override
     public long predicatedAllColumnsSum(int threshold) {
         // TODO: Implement this!
-        long runningSum = 0;
-
-        if (this.indexCol0.higherKey(threshold) == null){
-            return runningSum;
+        if (this.aggregates != null) {
+            return this.aggregates.weightAbove(threshold);
         }
-        int k = this.indexCol0.higherKey(threshold);
+        long runningSum = 0;
 
-        while (this.indexCol0.containsKey(k)) {
-            IntArrayList row_list = this.indexCol0.get(k);
-            for (int rowId : row_list) {
-                    runningSum += this.allColsSum.getLong(LONG_FIELD_LEN*rowId);
+        for (IntArrayList row_list : this.keysCol0.seekAbove(threshold)) {
+            for (int i = 0; i < row_list.size(); i++) {
+                runningSum += this.allColsSum.get(row_list.getInt(i));
             }
-            if (this.indexCol0.higherKey(k) == null){
-                break;
-            }
-            k = this.indexCol0.higherKey(k);
         }
         return runningSum;
     }
@@ -325,23 +369,35 @@ public class CustomTable implements Table {
     @Override
     public int predicatedUpdate(int threshold) {
         // TODO: Implement this!
-        int updatedRows = 0;
-
-        if (this.indexCol0.lowerKey(threshold) == null) {
-            return updatedRows;
+        /**
+         * the row count comes from the FenwickTree when there is one; the
+         * per-value totals change by the col2 sum of the value's rows, so the
+         * tree takes one add per value instead of one per row
+         */
+        if (this.aggregates != null && this.aggregates.countBelow(threshold) == 0) {
+            return 0;
         }
-        int k = this.indexCol0.lowerKey(threshold);
+        int updatedRows = 0;
 
-        while (this.indexCol0.containsKey(k)) {
-            IntArrayList row_list = this.indexCol0.get(k);
-            for (int rowId : row_list) {
-                updatedRows += 1;
-                putIntField(rowId,3, getIntField(rowId,3) + getIntField(rowId,2));
+        for (IntArrayList row_list : this.keysCol0.seekBelow(threshold)) {
+            long added = 0;
+            for (int i = 0; i < row_list.size(); i++) {
+                int rowId = row_list.getInt(i);
+                int row_offset = ByteFormat.FIELD_LEN * rowId * numCols;
+                int col2_value = this.rows.getInt(row_offset + ByteFormat.FIELD_LEN * 2);
+                int col3_offset = row_offset + ByteFormat.FIELD_LEN * 3;
+                int old_col3 = this.rows.getInt(col3_offset);
+                int new_col3 = old_col3 + col2_value;
+                // col3 wraps like any int field, so the sums change by what it actually moved
+                long delta = (long) new_col3 - old_col3;
+                this.rows.putInt(col3_offset, new_col3);
+                this.allColsSum.add(rowId, delta);
+                added += delta;
             }
-            if (this.indexCol0.lowerKey(k) == null) {
-                break;
+            updatedRows += row_list.size();
+            if (this.aggregates != null) {
+                this.aggregates.add(this.keysCol0.key(), 0, added);
             }
-            k = this.indexCol0.lowerKey(k);
         }
         return updatedRows;
     }
@@ -0,0 +1,405 @@
+package memstore.table;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import memstore.data.ByteFormat;
+import memstore.data.DataLoader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * DeferredUpdateTable, which stores data in column-major format like
+ * ArrayColumnTable but defers predicatedUpdate through an update log.
+ *
+ * predicatedUpdate only counts the rows with col0 < threshold, through a
+ * FenwickTree of row counts per col0 value (or a scan of col0 if its values
+ * span too wide a range), and adds the threshold to the log. The stored col3
+ * lags behind: the value of a row's col3 is its stored col3 plus col2 times
+ * the number of logged thresholds above its col0. Since the deltas depend
+ * only on the row's current col0 and col2, the log is kept as a sorted
+ * multiset of thresholds, and
+ *   getIntField on col3 adds the row's pending delta without writing it back;
+ *   putIntField on col0, col2 or col3 rebases the stored col3 so that the
+ *     row's value, pending deltas included, stays what it was before the
+ *     write (or becomes the written value, for col3);
+ *   predicatedAllColumnsSum, which scans col3, first folds the whole log
+ *     into the stored col3 in one pass, whatever its length.
+ * columnSum and predicatedColumnSum never read col3 and leave the log alone.
+ *
+ * Once compactEntries thresholds are pending, they are handed to a
+ * background thread that folds them into a copy of the stored col3, while
+ * the table keeps answering with them still counted as pending. Rows written
+ * in the meantime are recorded, and the next call after the fold finishes
+ * fixes them up and swaps the copy in.
+ */
+public class DeferredUpdateTable implements Table {
+    // pending thresholds handed to a background compaction at once
+    static final int DEFAULT_COMPACT_ENTRIES = 16;
+    // pending thresholds at which the log is folded on the calling thread
+    static final int DEFAULT_MAX_LOG_ENTRIES = 64;
+    // col0 gets a FenwickTree of row counts when its values span at most this
+    // many values per row; 0 always counts with a scan
+    static final double DEFAULT_MAX_DOMAIN_FRACTION = 1.0;
+
+    // shared by all tables, so that creating tables does not leave idle threads behind
+    private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "deferred-update-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final int compactEntries;
+    private final int maxLogEntries;
+    private final double maxDomainFraction;
+
+    int numCols;
+    int numRows;
+    // columns[3] holds col3 without the pending deltas
+    private int[][] columns;
+    // scratch selection mask reused by predicatedAllColumnsSum: -1 if selected, 0 otherwise
+    private int[] mask;
+    // row count per col0 value, or null if the range is too wide
+    private FenwickTree counts;
+
+    // pending thresholds, sorted
+    private int[] log;
+    private int logSize;
+    // thresholds being folded in the background, sorted, or null
+    private int[] compacting;
+    private Future<int[]> compaction;
+    // rows whose col0, col2 or col3 were written during the compaction
+    private IntArrayList dirtyRows;
+
+    public DeferredUpdateTable() {
+        this(DEFAULT_COMPACT_ENTRIES, DEFAULT_MAX_LOG_ENTRIES, DEFAULT_MAX_DOMAIN_FRACTION);
+    }
+
+    /**
+     * @param compactEntries    pending thresholds handed to a background compaction at once.
+     * @param maxLogEntries     pending thresholds at which the log is folded on the calling thread.
+     * @param maxDomainFraction col0 values per row up to which predicatedUpdate counts
+     *                          rows with a FenwickTree; 0 always counts with a scan.
+     */
+    DeferredUpdateTable(int compactEntries, int maxLogEntries, double maxDomainFraction) {
+        this.compactEntries = compactEntries;
+        this.maxLogEntries = maxLogEntries;
+        this.maxDomainFraction = maxDomainFraction;
+    }
+
+    /**
+     * Loads data into the table through passed-in data loader. Is not timed.
+     *
+     * @param loader Loader to load data from.
+     * @throws IOException
+     */
+    @Override
+    public void load(DataLoader loader) throws IOException {
+        if (compaction != null) {
+            compaction.cancel(true);
+            compaction = null;
+            compacting = null;
+        }
+        this.numCols = loader.getNumCols();
+        List<ByteBuffer> rows = loader.getRows();
+        numRows = rows.size();
+        this.columns = new int[numCols][numRows];
+        this.mask = new int[numRows];
+
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            ByteBuffer curRow = rows.get(rowId);
+            for (int colId = 0; colId < numCols; colId++) {
+                this.columns[colId][rowId] = curRow.getInt(ByteFormat.FIELD_LEN * colId);
+            }
+        }
+        this.log = new int[maxLogEntries];
+        this.logSize = 0;
+        this.dirtyRows = new IntArrayList();
+        this.counts = FenwickTree.build(columns[0], new long[numRows], null, maxDomainFraction);
+    }
+
+    /**
+     * HELPER METHOD
+     * Returns the number of the first `size` thresholds of the sorted array
+     * `thresholds` that are above `value`.
+     */
+    private static int countAbove(int[] thresholds, int size, int value) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (thresholds[mid] <= value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return size - lo;
+    }
+
+    /**
+     * HELPER METHOD
+     * Returns how much the pending thresholds, logged or being compacted,
+     * have yet to add to the stored col3 of `rowId`.
+     */
+    private int pendingDelta(int rowId) {
+        int col0 = columns[0][rowId];
+        int pending = countAbove(log, logSize, col0);
+        if (compacting != null) {
+            pending += countAbove(compacting, compacting.length, col0);
+        }
+        return columns[2][rowId] * pending;
+    }
+
+    /**
+     * HELPER METHOD
+     * Folds the first `size` thresholds of the sorted array `thresholds` into
+     * the stored col3 in a single pass, adding col2 once per threshold above
+     * each row's col0. Over a bounded range [lo, hi] of col0 values, the
+     * multiplier of each value is looked up in a table built in one sweep;
+     * values outside it (or every value, if lo > hi) are binary searched.
+     */
+    private static void apply(int[] col0, int[] col2, int[] col3, int[] thresholds, int size, int lo, int hi) {
+        if (size == 0) {
+            return;
+        }
+        int[] multipliers = new int[lo <= hi ? hi - lo + 1 : 0];
+        int next = 0;
+        for (int v = 0; v < multipliers.length; v++) {
+            while (next < size && thresholds[next] <= lo + v) {
+                next++;
+            }
+            multipliers[v] = size - next;
+        }
+        for (int i = 0; i < col0.length; i++) {
+            int offset = col0[i] - lo;
+            int multiplier = offset >= 0 && offset < multipliers.length
+                    ? multipliers[offset]
+                    : countAbove(thresholds, size, col0[i]);
+            col3[i] += col2[i] * multiplier;
+        }
+    }
+
+    /**
+     * HELPER METHOD
+     * Folds the first `size` thresholds of `thresholds` into the stored col3.
+     */
+    private void apply(int[] thresholds, int size) {
+        int lo = counts == null ? 0 : counts.lo;
+        int hi = counts == null ? -1 : counts.hi;
+        apply(columns[0], columns[2], columns[3], thresholds, size, lo, hi);
+    }
+
+    /**
+     * HELPER METHOD
+     * Hands the logged thresholds to a background compaction, which folds
+     * them into a copy of the stored col3.
+     */
+    private void startCompaction() {
+        int[] thresholds = Arrays.copyOf(log, logSize);
+        int[] col0 = columns[0];
+        int[] col2 = columns[2];
+        int[] col3 = columns[3];
+        int lo = counts == null ? 0 : counts.lo;
+        int hi = counts == null ? -1 : counts.hi;
+        compacting = thresholds;
+        logSize = 0;
+        dirtyRows.clear();
+        compaction = COMPACTOR.submit(() -> {
+            int[] next = col3.clone();
+            apply(col0, col2, next, thresholds, thresholds.length, lo, hi);
+            return next;
+        });
+    }
+
+    /**
+     * HELPER METHOD
+     * Swaps in the result of the background compaction once it is done, or
+     * right away waiting for it if `wait` is set. The rows written while it
+     * ran are folded again from their current values. If the compaction
+     * failed, its thresholds are folded on the calling thread instead.
+     */
+    private void finishCompaction(boolean wait) {
+        if (compaction == null || (!wait && !compaction.isDone())) {
+            return;
+        }
+        int[] next;
+        try {
+            next = compaction.get();
+        } catch (InterruptedException | ExecutionException e) {
+            next = null;
+        }
+        int[] col0 = columns[0];
+        int[] col2 = columns[2];
+        if (next == null) {
+            apply(compacting, compacting.length);
+        } else {
+            for (int i = 0; i < dirtyRows.size(); i++) {
+                int rowId = dirtyRows.getInt(i);
+                next[rowId] = columns[3][rowId] + col2[rowId] * countAbove(compacting, compacting.length, col0[rowId]);
+            }
+            columns[3] = next;
+        }
+        compacting = null;
+        compaction = null;
+        dirtyRows.clear();
+    }
+
+    /**
+     * HELPER METHOD
+     * Folds every pending threshold into the stored col3, waiting for a
+     * background compaction first.
+     */
+    private void fold() {
+        finishCompaction(true);
+        apply(log, logSize);
+        logSize = 0;
+    }
+
+    /**
+     * Returns the int field at row `rowId` and column `colId`.
+     */
+    @Override
+    public int getIntField(int rowId, int colId) {
+        if (colId == 3) {
+            return columns[3][rowId] + pendingDelta(rowId);
+        }
+        return columns[colId][rowId];
+    }
+
+    /**
+     * Inserts the passed-in int field at row `rowId` and column `colId`.
+     */
+    @Override
+    public void putIntField(int rowId, int colId, int field) {
+        finishCompaction(false);
+        if (colId != 0 && colId != 2 && colId != 3) {
+            columns[colId][rowId] = field;
+            return;
+        }
+        // keep col3 (pending deltas included) fixed across the write, or set it
+        int col3 = colId == 3 ? field : getIntField(rowId, 3);
+        if (colId == 0 && counts != null) {
+            if (counts.covers(field)) {
+                counts.add(columns[0][rowId], -1, 0);
+                counts.add(field, 1, 0);
+                columns[0][rowId] = field;
+            } else {
+                columns[0][rowId] = field;
+                counts = FenwickTree.build(columns[0], new long[numRows], counts, maxDomainFraction);
+            }
+        } else if (colId != 3) {
+            columns[colId][rowId] = field;
+        }
+        columns[3][rowId] = col3 - pendingDelta(rowId);
+        if (compaction != null) {
+            dirtyRows.add(rowId);
+        }
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) FROM table;
+     *
+     *  Returns the sum of all elements in the first column of the table.
+     */
+    @Override
+    public long columnSum() {
+        finishCompaction(false);
+        int[] col0 = columns[0];
+        long sum = 0;
+        for (int i = 0; i < col0.length; i++) {
+            sum += col0[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) FROM table WHERE col1 > threshold1 AND col2 < threshold2;
+     *
+     *  Returns the sum of all elements in the first column of the table,
+     *  subject to the passed-in predicates.
+     */
+    @Override
+    public long predicatedColumnSum(int threshold1, int threshold2) {
+        finishCompaction(false);
+        int[] col0 = columns[0];
+        int[] col1 = columns[1];
+        int[] col2 = columns[2];
+        long sum = 0;
+        for (int i = 0; i < col0.length; i++) {
+            sum += (col1[i] > threshold1 & col2[i] < threshold2) ? col0[i] : 0;
+        }
+        return sum;
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) + SUM(col1) + ... + SUM(coln) FROM table WHERE col0 > threshold;
+     *
+     *  Returns the sum of all elements in the rows which pass the predicate.
+     *
+     *  Folds the pending updates into col3 first, then adds up each column
+     *  under a mask as ArrayColumnTable does.
+     */
+    @Override
+    public long predicatedAllColumnsSum(int threshold) {
+        fold();
+        int[] col0 = columns[0];
+        for (int i = 0; i < col0.length; i++) {
+            mask[i] = col0[i] > threshold ? -1 : 0;
+        }
+        long sum = 0;
+        for (int colId = 0; colId < numCols; colId++) {
+            int[] col = columns[colId];
+            for (int i = 0; i < col.length; i++) {
+                sum += col[i] & mask[i];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Implements the query
+     *   UPDATE(col3 = col3 + col2) WHERE col0 < threshold;
+     *
+     *   Returns the number of rows updated.
+     *
+     *   Counts the rows now and logs the update for later.
+     */
+    @Override
+    public int predicatedUpdate(int threshold) {
+        finishCompaction(false);
+        int updatedRows;
+        if (counts != null) {
+            updatedRows = counts.countBelow(threshold);
+        } else {
+            int[] col0 = columns[0];
+            updatedRows = 0;
+            for (int i = 0; i < col0.length; i++) {
+                updatedRows += col0[i] < threshold ? 1 : 0;
+            }
+        }
+        if (updatedRows == 0) {
+            return 0;
+        }
+
+        if (logSize == maxLogEntries) {
+            fold();
+        }
+        int at = logSize - countAbove(log, logSize, threshold);
+        System.arraycopy(log, at, log, at + 1, logSize - at);
+        log[at] = threshold;
+        logSize++;
+        if (logSize >= compactEntries && compaction == null) {
+            startCompaction();
+        }
+        return updatedRows;
+    }
+}
@@ -0,0 +1,197 @@
+package memstore.table;
+
+import java.util.Arrays;
+
+/**
+ * A sorted (non-decreasing) column of ints stored as blocks of BLOCK_LEN rows:
+ * each block keeps its first value, followed by packed deltas between
+ * consecutive rows.
+ *
+ * Because the column is sorted, predicates reduce to finding one boundary row
+ * with a binary search over the block bases plus a scan of a single block.
+ */
+class DeltaColumn implements EncodedColumn {
+    static final int BLOCK_LEN = 128;
+
+    final int numRows;
+    final int[] bases;
+    // delta to the previous row; 0 at the first row of each block
+    final PackedColumn deltas;
+    private final int[] scratch = new int[BLOCK_LEN];
+
+    private DeltaColumn(int numRows, int[] bases, PackedColumn deltas) {
+        this.numRows = numRows;
+        this.bases = bases;
+        this.deltas = deltas;
+    }
+
+    static boolean isSorted(int[] values) {
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] < values[i - 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the size the column would take, or Long.MAX_VALUE if `values` is not sorted.
+     */
+    static long estimateSizeInBytes(int[] values) {
+        if (!isSorted(values)) {
+            return Long.MAX_VALUE;
+        }
+        long maxDelta = 0;
+        for (int i = 1; i < values.length; i++) {
+            maxDelta = Math.max(maxDelta, (long) values[i] - values[i - 1]);
+        }
+        int width = PackedColumn.bitsFor(maxDelta);
+        int perWord = 64 / width;
+        int numBlocks = (values.length + BLOCK_LEN - 1) / BLOCK_LEN;
+        return 4L * numBlocks + 8L * ((values.length + perWord - 1) / perWord);
+    }
+
+    static DeltaColumn encode(int[] values) {
+        int numRows = values.length;
+        int[] bases = new int[(numRows + BLOCK_LEN - 1) / BLOCK_LEN];
+        int[] deltas = new int[numRows];
+        for (int row = 0; row < numRows; row++) {
+            if (row % BLOCK_LEN == 0) {
+                bases[row / BLOCK_LEN] = values[row];
+            } else {
+                deltas[row] = values[row] - values[row - 1];
+            }
+        }
+        return new DeltaColumn(numRows, bases, PackedColumn.encode(deltas));
+    }
+
+    /**
+     * HELPER METHOD
+     * Decodes block `block` into `out` and returns its number of rows.
+     */
+    private int decodeBlock(int block, int[] out) {
+        int from = block * BLOCK_LEN;
+        int len = Math.min(BLOCK_LEN, numRows - from);
+        deltas.decodeRange(from, from + len, out);
+        out[0] = bases[block];
+        for (int i = 1; i < len; i++) {
+            out[i] += out[i - 1];
+        }
+        return len;
+    }
+
+    @Override
+    public int get(int row) {
+        int block = row / BLOCK_LEN;
+        int value = bases[block];
+        for (int i = block * BLOCK_LEN + 1; i <= row; i++) {
+            value += deltas.get(i);
+        }
+        return value;
+    }
+
+    /**
+     * Only writes that do not change the value can be absorbed; anything else
+     * would shift the deltas and possibly break the sort order.
+     */
+    @Override
+    public boolean set(int row, int value) {
+        return get(row) == value;
+    }
+
+    @Override
+    public int[] decode() {
+        int[] values = new int[numRows];
+        for (int block = 0; block < bases.length; block++) {
+            int len = decodeBlock(block, scratch);
+            System.arraycopy(scratch, 0, values, block * BLOCK_LEN, len);
+        }
+        return values;
+    }
+
+    @Override
+    public long sum() {
+        long sum = 0;
+        for (int block = 0; block < bases.length; block++) {
+            int len = decodeBlock(block, scratch);
+            for (int i = 0; i < len; i++) {
+                sum += scratch[i];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * HELPER METHOD
+     * Returns the first row whose value is > threshold (strict), or >= threshold
+     * otherwise; numRows if there is none.
+     */
+    private int firstRowAbove(int threshold, boolean strict) {
+        // last block whose base does not pass the bound; the boundary lies inside it
+        int lo = 0;
+        int hi = bases.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            boolean passes = strict ? bases[mid] > threshold : bases[mid] >= threshold;
+            if (passes) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        if (lo == 0) {
+            return 0;
+        }
+        int block = lo - 1;
+        int len = decodeBlock(block, scratch);
+        for (int i = 0; i < len; i++) {
+            if (strict ? scratch[i] > threshold : scratch[i] >= threshold) {
+                return block * BLOCK_LEN + i;
+            }
+        }
+        return Math.min(numRows, lo * BLOCK_LEN);
+    }
+
+    private void selectRows(int from, int to, long[] sel, boolean intersect) {
+        if (intersect) {
+            Bits.clearRange(sel, 0, from);
+            Bits.clearRange(sel, to, numRows);
+        } else {
+            Arrays.fill(sel, 0L);
+            Bits.setRange(sel, from, to);
+        }
+    }
+
+    @Override
+    public void selectAbove(int threshold, long[] sel, boolean intersect) {
+        selectRows(firstRowAbove(threshold, true), numRows, sel, intersect);
+    }
+
+    @Override
+    public void selectBelow(int threshold, long[] sel, boolean intersect) {
+        selectRows(0, firstRowAbove(threshold, false), sel, intersect);
+    }
+
+    @Override
+    public long sumSelected(long[] sel) {
+        long sum = 0;
+        for (int block = 0; block < bases.length; block++) {
+            int from = block * BLOCK_LEN;
+            if (Bits.count(sel, from, Math.min(numRows, from + BLOCK_LEN)) == 0) {
+                continue;
+            }
+            int len = decodeBlock(block, scratch);
+            for (int i = 0; i < len; i++) {
+                if (Bits.get(sel, from + i)) {
+                    sum += scratch[i];
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    public long sizeInBytes() {
+        return 4L * bases.length + deltas.sizeInBytes();
+    }
+}
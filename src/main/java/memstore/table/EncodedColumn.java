@@ -0,0 +1,64 @@
+package memstore.table;
+
+/**
+ * A compressed, read-optimized column of ints. Predicates are evaluated into
+ * row selection bitmaps (see Bits) so they can be combined across columns.
+ */
+interface EncodedColumn {
+    int get(int row);
+
+    /**
+     * Overwrites the value at `row` if the encoding can absorb it in place.
+     *
+     * @return false if the column must be re-encoded to hold the value.
+     */
+    boolean set(int row, int value);
+
+    int[] decode();
+
+    long sum();
+
+    /**
+     * Marks in `sel` the rows whose value is > threshold. If `intersect` is set,
+     * only clears the bits of rows that do not match instead.
+     */
+    void selectAbove(int threshold, long[] sel, boolean intersect);
+
+    /**
+     * Marks in `sel` the rows whose value is < threshold. If `intersect` is set,
+     * only clears the bits of rows that do not match instead.
+     */
+    void selectBelow(int threshold, long[] sel, boolean intersect);
+
+    /**
+     * Returns the sum of the values of rows selected in `sel`.
+     */
+    long sumSelected(long[] sel);
+
+    long sizeInBytes();
+
+    /**
+     * Encodes `values` with whichever of run-length, delta or packed encoding
+     * takes the least space.
+     */
+    static EncodedColumn encode(int[] values) {
+        PackedColumn packed = PackedColumn.encode(values);
+        long packedSize = packed.sizeInBytes();
+        long runSize = RunLengthColumn.sizeInBytes(RunLengthColumn.countRuns(values));
+        long deltaSize = DeltaColumn.estimateSizeInBytes(values);
+        if (runSize < packedSize && runSize <= deltaSize) {
+            return RunLengthColumn.encode(values);
+        } else if (deltaSize < packedSize) {
+            return DeltaColumn.encode(values);
+        }
+        return packed;
+    }
+
+    /**
+     * Re-encodes a column that could not absorb a write. Columns being written
+     * to are always re-encoded as a PackedColumn with `headroom` spare bits.
+     */
+    static EncodedColumn reencode(int[] values, int headroom) {
+        return PackedColumn.encode(values, headroom);
+    }
+}
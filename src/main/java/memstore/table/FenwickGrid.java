@@ -0,0 +1,115 @@
+package memstore.table;
+
+/**
+ * A two-dimensional Fenwick tree over the grid of value pairs
+ * [lo1, hi1] x [lo2, hi2] of two columns, keeping for each cell the sum of a
+ * per-row weight over the rows whose pair falls in it.
+ *
+ * Cell sums are laid out as a FenwickTree along each dimension, so the
+ * weight of all pairs below a corner is the sum of at most
+ * log2(width1 + 1) * log2(width2 + 1) slots, and a change at one pair touches
+ * as many. The grid takes (width1 + 1) * (width2 + 1) longs whatever the row
+ * count, so the owner should only build it over narrow ranges.
+ */
+class FenwickGrid {
+    final int lo1;
+    final int hi1;
+    final int lo2;
+    final int hi2;
+    private final int size1;
+    private final int size2;
+    // slot (i, j) at i * (size2 + 1) + j, with row and column 0 unused
+    private final long[] sums;
+
+    /**
+     * Builds the grid over rows holding the pair (values1[rowId],
+     * values2[rowId]) with weight weights[rowId]. Every pair must lie in the
+     * grid.
+     */
+    FenwickGrid(int[] values1, int[] values2, int[] weights, int lo1, int hi1, int lo2, int hi2) {
+        this.lo1 = lo1;
+        this.hi1 = hi1;
+        this.lo2 = lo2;
+        this.hi2 = hi2;
+        this.size1 = hi1 - lo1 + 1;
+        this.size2 = hi2 - lo2 + 1;
+        int stride = size2 + 1;
+        this.sums = new long[(size1 + 1) * stride];
+        for (int rowId = 0; rowId < values1.length; rowId++) {
+            sums[(values1[rowId] - lo1 + 1) * stride + values2[rowId] - lo2 + 1] += weights[rowId];
+        }
+        // push each slot's partial sum up the slots that cover it, one dimension at a time
+        for (int i = 1; i <= size1; i++) {
+            for (int j = 1; j <= size2; j++) {
+                int up = j + (j & -j);
+                if (up <= size2) {
+                    sums[i * stride + up] += sums[i * stride + j];
+                }
+            }
+        }
+        for (int i = 1; i <= size1; i++) {
+            int up = i + (i & -i);
+            if (up <= size1) {
+                for (int j = 1; j <= size2; j++) {
+                    sums[up * stride + j] += sums[i * stride + j];
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether the pair (value1, value2) lies in the grid.
+     */
+    boolean covers(int value1, int value2) {
+        return value1 >= lo1 && value1 <= hi1 && value2 >= lo2 && value2 <= hi2;
+    }
+
+    /**
+     * Adds `weight` to the pair (value1, value2), which must lie in the grid.
+     */
+    void add(int value1, int value2, long weight) {
+        int stride = size2 + 1;
+        for (int i = value1 - lo1 + 1; i <= size1; i += i & -i) {
+            for (int j = value2 - lo2 + 1; j <= size2; j += j & -j) {
+                sums[i * stride + j] += weight;
+            }
+        }
+    }
+
+    /**
+     * HELPER METHOD
+     * Returns the number of values below `value` in a range starting at
+     * `lo` of `size` values.
+     */
+    private static int slotsBelow(int value, int lo, int size) {
+        if (value <= lo) {
+            return 0;
+        }
+        return (int) Math.min((long) value - lo, size);
+    }
+
+    /**
+     * HELPER METHOD
+     * Returns the weight of the pairs in the first `slots1` values of the
+     * first dimension and the first `slots2` of the second.
+     */
+    private long prefix(int slots1, int slots2) {
+        int stride = size2 + 1;
+        long sum = 0;
+        for (int i = slots1; i > 0; i -= i & -i) {
+            for (int j = slots2; j > 0; j -= j & -j) {
+                sum += sums[i * stride + j];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the weight of the pairs with value1 > t1 and value2 < t2.
+     */
+    long quadrantSum(int t1, int t2) {
+        int below2 = slotsBelow(t2, lo2, size2);
+        int atMost1 = t1 == Integer.MAX_VALUE ? size1 : slotsBelow(t1 + 1, lo1, size1);
+        return prefix(size1, below2) - prefix(atMost1, below2);
+    }
+}
@@ -0,0 +1,146 @@
+package memstore.table;
+
+/**
+ * A Fenwick (binary indexed) tree over the integer values [lo, hi] of a
+ * column, keeping for each value the number of rows that hold it and the sum
+ * of a per-row weight over those rows.
+ *
+ * Slot i of each array covers the (i & -i) values ending at lo + i - 1, so
+ * the count or weight of all values below a threshold is the sum of at most
+ * log2(hi - lo + 2) slots, and a change at one value touches as many.
+ */
+class FenwickTree {
+    final int lo;
+    final int hi;
+    private final int size;
+    private final int[] counts;
+    private final long[] weights;
+    private int totalCount;
+    private long totalWeight;
+
+    /**
+     * Builds the tree over rows holding values[rowId] with weight
+     * weights[rowId]. Every value must lie in [lo, hi].
+     */
+    FenwickTree(int[] values, long[] weights, int lo, int hi) {
+        this.lo = lo;
+        this.hi = hi;
+        this.size = hi - lo + 1;
+        this.counts = new int[size + 1];
+        this.weights = new long[size + 1];
+        for (int rowId = 0; rowId < values.length; rowId++) {
+            int slot = values[rowId] - lo + 1;
+            counts[slot]++;
+            this.weights[slot] += weights[rowId];
+            totalCount++;
+            totalWeight += weights[rowId];
+        }
+        // push each slot's partial sum up to the slot that covers it
+        for (int i = 1; i <= size; i++) {
+            int j = i + (i & -i);
+            if (j <= size) {
+                counts[j] += counts[i];
+                this.weights[j] += this.weights[i];
+            }
+        }
+    }
+
+    /**
+     * Builds a tree over the range of `values`, or returns null if that range
+     * spans more than `maxDomainFraction` values per row. If `previous` is
+     * given, the range is also widened by half its width on each side where
+     * the values left the previous one, so that a column drifting outwards
+     * does not rebuild on every write.
+     */
+    static FenwickTree build(int[] values, long[] weights, FenwickTree previous, double maxDomainFraction) {
+        long lo = Integer.MAX_VALUE;
+        long hi = Integer.MIN_VALUE;
+        for (int value : values) {
+            lo = Math.min(lo, value);
+            hi = Math.max(hi, value);
+        }
+        if (previous != null) {
+            long slack = (hi - lo + 1) / 2;
+            if (lo < previous.lo) {
+                lo = Math.max(Integer.MIN_VALUE, lo - slack);
+            }
+            if (hi > previous.hi) {
+                hi = Math.min(Integer.MAX_VALUE, hi + slack);
+            }
+        }
+        if (values.length == 0 || hi - lo + 1 > maxDomainFraction * values.length) {
+            return null;
+        }
+        return new FenwickTree(values, weights, (int) lo, (int) hi);
+    }
+
+    /**
+     * Returns whether `value` lies in the tree's value range.
+     */
+    boolean covers(int value) {
+        return value >= lo && value <= hi;
+    }
+
+    /**
+     * Adds `count` rows and `weight` to `value`, which must lie in [lo, hi].
+     */
+    void add(int value, int count, long weight) {
+        totalCount += count;
+        totalWeight += weight;
+        for (int i = value - lo + 1; i <= size; i += i & -i) {
+            counts[i] += count;
+            weights[i] += weight;
+        }
+    }
+
+    /**
+     * HELPER METHOD
+     * Returns the number of values below `value` within the range, which is
+     * the prefix of slots that holds them.
+     */
+    private int slotsBelow(int value) {
+        if (value <= lo) {
+            return 0;
+        }
+        return (int) Math.min((long) value - lo, size);
+    }
+
+    /**
+     * Returns the number of rows with a value below `value`.
+     */
+    int countBelow(int value) {
+        int count = 0;
+        for (int i = slotsBelow(value); i > 0; i -= i & -i) {
+            count += counts[i];
+        }
+        return count;
+    }
+
+    /**
+     * Returns the weight of the rows with a value below `value`.
+     */
+    long weightBelow(int value) {
+        long weight = 0;
+        for (int i = slotsBelow(value); i > 0; i -= i & -i) {
+            weight += weights[i];
+        }
+        return weight;
+    }
+
+    /**
+     * Returns the weight of the rows with a value above `value`.
+     */
+    long weightAbove(int value) {
+        if (value == Integer.MAX_VALUE) {
+            return 0;
+        }
+        return totalWeight - weightBelow(value + 1);
+    }
+
+    /**
+     * Returns the number of rows in the tree.
+     */
+    int count() {
+        return totalCount;
+    }
+}
@@ -0,0 +1,51 @@
+package memstore.table;
+
+import java.util.function.IntPredicate;
+
+/**
+ * The number of rows whose value in one column passes a filter.
+ */
+public class FilteredCountView implements AggregateView {
+    private final int colId;
+    private final IntPredicate filter;
+    private int count;
+
+    public FilteredCountView(int colId, IntPredicate filter) {
+        this.colId = colId;
+        this.filter = filter;
+    }
+
+    @Override
+    public void build(Table table, int numRows, int numCols) {
+        count = 0;
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            if (filter.test(table.getIntField(rowId, colId))) {
+                count++;
+            }
+        }
+    }
+
+    @Override
+    public boolean watches(int colId) {
+        return colId == this.colId;
+    }
+
+    @Override
+    public void update(int rowId, int colId, int oldValue, int newValue) {
+        if (filter.test(oldValue)) {
+            count--;
+        }
+        if (filter.test(newValue)) {
+            count++;
+        }
+    }
+
+    public int count() {
+        return count;
+    }
+
+    @Override
+    public long sizeInBytes() {
+        return 4;
+    }
+}
@@ -6,43 +6,414 @@ import memstore.data.DataLoader;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
-import java.util.TreeMap;
 
 /**
  * IndexedRowTable, which stores data in row-major format.
  * That is, data is laid out like
  *   row 1 | row 2 | ... | row n.
  *
- * Also has a tree index on column `indexColumn`, which points
- * to all row indices with the given value.
+ * Also has an ordered index on column `indexColumn`, of one of four types:
+ *   SORTED        (SortedIntIndex): each value's row ids are held as a compressed
+ *                 bitmap (see RoaringBitmap). A range of keys that holds enough
+ *                 rows is resolved by a union of their bitmaps, so its rows are
+ *                 visited in row order; a narrower one is visited key by key.
+ *   ART           (AdaptiveRadixTree): the same bitmaps, under a radix tree
+ *                 whose lookups make putIntField on the index column cheaper
+ *                 when the column has many distinct values.
+ *   VALUE_DOMAIN  (ValueDomainIndex): when the column's values span a range no
+ *                 wider than maxDomainFraction of the row count, a
+ *                 counting-sorted array of row ids grouped by value, whose ranges
+ *                 are read sequentially in place. A write that takes the column
+ *                 outside the range rebuilds the index over a wider one, or as a
+ *                 B+-tree once the range grows too wide.
+ *   BPLUS_TREE    (BPlusTree): for wide value domains, a B+-tree over
+ *                 (value, row id) entries, whose ranges are read leaf by leaf.
+ * With the latter two, a range holding at least UNION_FRACTION of the rows is
+ * marked in a bitmap of the matching rows first, so that it too is visited in
+ * row order.
+ *
+ * Whatever the type, queries read the matching rows in batches:
+ * openAbove/openBelow position the table on a range of the index, and each
+ * nextBatch call exposes the next run of row ids as batch[batchFrom, batchTo).
+ *
+ * Queries the index cannot answer fall back to scans that use a ZoneMap
+ * (per-block min, max and sum of each column) to skip blocks that cannot
+ * match and add up blocks that match entirely.
  */
 public class IndexedRowTable implements Table {
+    public enum IndexType { SORTED, ART, VALUE_DOMAIN, BPLUS_TREE }
+
+    // a key range is unioned before its rows are visited once it holds at
+    // least this fraction of the table; sparser unions cost more to decode
+    // than the row order saves
+    static final double UNION_FRACTION = 1.0 / 64;
+    // the index column gets a ValueDomainIndex when its values span at most
+    // this many values per row, unless given to the constructor
+    static final double DEFAULT_MAX_DOMAIN_FRACTION = 1.0;
+    // words of the selection bitmap decoded per batch
+    private static final int SELECTED_BATCH_WORDS = 1024;
 
     int numCols;
     int numRows;
-    private TreeMap<Integer, IntArrayList> index;
+    // a SortedIntIndex or an AdaptiveRadixTree of each value's rows
+    private OrderedIntIndex<RoaringBitmap> index;
+    // reused by every query to walk a range of the index
+    private OrderedIntIndex.Cursor<RoaringBitmap> keys;
+    // set instead of `index` when the index column's values span a small range
+    private ValueDomainIndex domainIndex;
+    // set instead of the two above for a B+-tree, with the cursor reused by every query
+    private BPlusTree tree;
+    private BPlusTree.Cursor treeCursor;
     private ByteBuffer rows;
     private int indexColumn;
+    private final IndexType indexType;
+    private final double maxDomainFraction;
+    private ZoneMap zoneMap;
+    // scratch row ids of the bitmap being visited, filled by decode
+    private int[] rowIds = new int[0];
+
+    // the range being read by nextBatch: the bitmaps in `postings`, the values
+    // [nextValue, lastValue] of domainIndex, the range of treeCursor, or the
+    // rows set in `selected` from word nextWord on (nextWord < 0 when unused)
+    private Iterator<RoaringBitmap> postings;
+    private long nextValue;
+    private long lastValue;
+    // whether the overflow list of nextValue is the next batch, not its segment
+    private boolean overflowNext;
+    private long[] selected;
+    private int nextWord = -1;
+    // the current batch of row ids, batch[batchFrom, batchTo)
+    private int[] batch;
+    private int batchFrom;
+    private int batchTo;
 
     public IndexedRowTable(int indexColumn) {
+        this(indexColumn, IndexType.VALUE_DOMAIN);
+    }
+
+    /**
+     * @param indexType the index to keep on `indexColumn`. VALUE_DOMAIN falls
+     *                  back to BPLUS_TREE while the column's range is too wide.
+     */
+    public IndexedRowTable(int indexColumn, IndexType indexType) {
+        this(indexColumn, indexType, DEFAULT_MAX_DOMAIN_FRACTION);
+    }
+
+    /**
+     * @param maxDomainFraction values per row up to which VALUE_DOMAIN keeps a
+     *                          ValueDomainIndex; 0 always uses the B+-tree.
+     */
+    IndexedRowTable(int indexColumn, IndexType indexType, double maxDomainFraction) {
         this.indexColumn = indexColumn;
+        this.indexType = indexType;
+        this.maxDomainFraction = maxDomainFraction;
     }
 
     /** HELPER METHOD
-     * Adds an int value (row id) to the treemap with key k.
+     * Adds an int value (row id) to the index with key k.
      * @param val is the row id to be added corresponding to col0 value
      * @param k is the col0 value which serves as the key for this index
      */
     public void addVal(int val, int k) {
-        IntArrayList correspond_rows;
-        if (!this.index.containsKey(k)) {
-            correspond_rows = new IntArrayList();
-        } else {
-            correspond_rows = this.index.get(k);
+        RoaringBitmap correspond_rows = this.index.get(k);
+        if (correspond_rows == null) {
+            correspond_rows = new RoaringBitmap();
+            this.index.put(k, correspond_rows);
         }
         correspond_rows.add(val);
-        this.index.put(k, correspond_rows);
+    }
+
+    /** HELPER METHOD
+     * Returns the bitmaps to visit for the rows in `postings`: their union if
+     * they hold at least UNION_FRACTION of the rows, so that those rows are
+     * read in row order, otherwise the bitmaps themselves.
+     */
+    private Iterable<RoaringBitmap> rowsOf(Iterable<RoaringBitmap> postings) {
+        long count = 0;
+        for (RoaringBitmap correspond_rows : postings) {
+            count += correspond_rows.cardinality();
+        }
+        if (count >= UNION_FRACTION * numRows) {
+            return Collections.singletonList(RoaringBitmap.or(postings));
+        }
+        return postings;
+    }
+
+    /** HELPER METHOD
+     * Writes the ids in `rows` to the scratch array `rowIds`, in ascending
+     * order, and returns their count.
+     */
+    private int decode(RoaringBitmap rows) {
+        int count = rows.cardinality();
+        reserve(count);
+        return rows.toArray(this.rowIds, 0);
+    }
+
+    /** HELPER METHOD
+     * Grows the scratch array `rowIds` to hold at least `count` ids.
+     */
+    private void reserve(int count) {
+        if (this.rowIds.length < count) {
+            this.rowIds = new int[Math.max(count, Math.min(numRows, 2 * this.rowIds.length))];
+        }
+    }
+
+    /** HELPER METHOD
+     * Positions nextBatch on the rows whose index column is > `threshold`.
+     */
+    private void openAbove(int threshold) {
+        this.nextWord = -1;
+        if (this.index != null) {
+            this.postings = rowsOf(this.keys.seekAbove(threshold)).iterator();
+            return;
+        }
+        if (this.tree != null) {
+            this.treeCursor.seekAbove(threshold);
+        } else {
+            openValues((long) threshold + 1, this.domainIndex.hi);
+        }
+        selectIfDense();
+    }
+
+    /** HELPER METHOD
+     * Positions nextBatch on the rows whose index column is < `threshold`.
+     */
+    private void openBelow(int threshold) {
+        this.nextWord = -1;
+        if (this.index != null) {
+            this.postings = rowsOf(this.keys.seekBelow(threshold)).iterator();
+            return;
+        }
+        if (this.tree != null) {
+            this.treeCursor.seekBelow(threshold);
+        } else {
+            openValues(this.domainIndex.lo, (long) threshold - 1);
+        }
+        selectIfDense();
+    }
+
+    /** HELPER METHOD
+     * Positions nextBatch on the values [from, to] of domainIndex.
+     */
+    private void openValues(long from, long to) {
+        this.nextValue = Math.max(from, this.domainIndex.lo);
+        this.lastValue = Math.min(to, this.domainIndex.hi);
+        this.overflowNext = false;
+    }
+
+    /** HELPER METHOD
+     * If the open range of domainIndex or of the tree holds at least
+     * UNION_FRACTION of the rows, marks its rows in the bitmap `selected` and
+     * switches nextBatch to them, so that they are read in row order.
+     */
+    private void selectIfDense() {
+        long minRows = (long) Math.ceil(UNION_FRACTION * numRows);
+        long count;
+        if (this.tree != null) {
+            count = this.treeCursor.count(minRows);
+        } else {
+            count = nextValue > lastValue ? 0 : this.domainIndex.countRange((int) nextValue, (int) lastValue);
+        }
+        if (count < minRows) {
+            return;
+        }
+        if (this.selected == null) {
+            this.selected = new long[(numRows + 63) >>> 6];
+        } else {
+            Arrays.fill(this.selected, 0L);
+        }
+        while (nextBatch()) {
+            for (int i = this.batchFrom; i < this.batchTo; i++) {
+                this.selected[this.batch[i] >>> 6] |= 1L << this.batch[i];
+            }
+        }
+        this.nextWord = 0;
+    }
+
+    /** HELPER METHOD
+     * Moves to the next batch of rows of the open range, which may be empty.
+     * Returns false once the range is exhausted.
+     */
+    private boolean nextBatch() {
+        if (this.nextWord >= 0) {
+            return nextSelected();
+        }
+        if (this.tree != null) {
+            return nextLeaf();
+        }
+        return this.domainIndex != null ? nextValue() : nextPosting();
+    }
+
+    /** HELPER METHOD
+     * Exposes the next run of treeCursor, in place, as the next batch.
+     */
+    private boolean nextLeaf() {
+        if (!this.treeCursor.next()) {
+            return false;
+        }
+        this.batch = this.treeCursor.rowIds();
+        this.batchFrom = this.treeCursor.from();
+        this.batchTo = this.treeCursor.to();
+        return true;
+    }
+
+    /** HELPER METHOD
+     * Decodes the next bitmap of `postings` into the scratch array `rowIds`
+     * as the next batch.
+     */
+    private boolean nextPosting() {
+        if (!this.postings.hasNext()) {
+            return false;
+        }
+        this.batchTo = decode(this.postings.next());
+        this.batch = this.rowIds;
+        this.batchFrom = 0;
+        return true;
+    }
+
+    /** HELPER METHOD
+     * Exposes the segment or the overflow list of the next value of
+     * domainIndex, in place, as the next batch.
+     */
+    private boolean nextValue() {
+        while (this.nextValue <= this.lastValue) {
+            int value = (int) this.nextValue;
+            if (!this.overflowNext) {
+                this.overflowNext = true;
+                this.batch = this.domainIndex.rowIds();
+                this.batchFrom = this.domainIndex.start(value);
+                this.batchTo = this.batchFrom + this.domainIndex.count(value);
+                return true;
+            }
+            this.overflowNext = false;
+            this.nextValue++;
+            IntArrayList overflow = this.domainIndex.overflow(value);
+            if (overflow != null && !overflow.isEmpty()) {
+                this.batch = overflow.elements();
+                this.batchFrom = 0;
+                this.batchTo = overflow.size();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** HELPER METHOD
+     * Decodes the next SELECTED_BATCH_WORDS words of `selected` into the
+     * scratch array `rowIds` as the next batch.
+     */
+    private boolean nextSelected() {
+        if (this.nextWord >= this.selected.length) {
+            return false;
+        }
+        reserve(Math.min(numRows, 64 * SELECTED_BATCH_WORDS));
+        int end = Math.min(this.selected.length, this.nextWord + SELECTED_BATCH_WORDS);
+        int count = 0;
+        for (int w = this.nextWord; w < end; w++) {
+            long word = this.selected[w];
+            while (word != 0) {
+                this.rowIds[count++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        this.nextWord = end;
+        this.batch = this.rowIds;
+        this.batchFrom = 0;
+        this.batchTo = count;
+        return true;
+    }
+
+    /** HELPER METHOD
+     * Returns the rows of the open range as a bitmap.
+     */
+    private RoaringBitmap collectBatches() {
+        RoaringBitmap result = new RoaringBitmap();
+        while (nextBatch()) {
+            for (int i = this.batchFrom; i < this.batchTo; i++) {
+                result.add(this.batch[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the ids of the rows whose index column is > `threshold`.
+     */
+    RoaringBitmap rowsAbove(int threshold) {
+        if (this.index != null) {
+            return RoaringBitmap.or(this.index.cursor().seekAbove(threshold));
+        }
+        openAbove(threshold);
+        return collectBatches();
+    }
+
+    /**
+     * Returns the ids of the rows whose index column is < `threshold`.
+     */
+    RoaringBitmap rowsBelow(int threshold) {
+        if (this.index != null) {
+            return RoaringBitmap.or(this.index.cursor().seekBelow(threshold));
+        }
+        openBelow(threshold);
+        return collectBatches();
+    }
+
+    /** HELPER METHOD
+     * Builds the index of type indexType over the index column as stored in
+     * `rows`; for VALUE_DOMAIN, a B+-tree if the values span too wide a
+     * range. The tree is bulk-loaded from the sorted column. `grow` widens the range past the current
+     * values, by half its width on each side that has left the previous
+     * domainIndex, so that a column that keeps growing is rebuilt only a
+     * logarithmic number of times.
+     */
+    private void buildIndex(boolean grow) {
+        int[] values = new int[numRows];
+        long lo = Integer.MAX_VALUE;
+        long hi = Integer.MIN_VALUE;
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            values[rowId] = getIntField(rowId, this.indexColumn);
+            lo = Math.min(lo, values[rowId]);
+            hi = Math.max(hi, values[rowId]);
+        }
+        if (grow && this.domainIndex != null) {
+            long slack = (hi - lo + 1) / 2;
+            if (lo < this.domainIndex.lo) {
+                lo = Math.max(Integer.MIN_VALUE, lo - slack);
+            }
+            if (hi > this.domainIndex.hi) {
+                hi = Math.min(Integer.MAX_VALUE, hi + slack);
+            }
+        }
+        this.index = null;
+        this.keys = null;
+        this.domainIndex = null;
+        this.tree = null;
+        this.treeCursor = null;
+        if (this.indexType == IndexType.VALUE_DOMAIN && numRows > 0 && hi - lo + 1 <= maxDomainFraction * numRows) {
+            this.domainIndex = new ValueDomainIndex(values, (int) lo, (int) hi);
+            return;
+        }
+        if (this.indexType == IndexType.VALUE_DOMAIN || this.indexType == IndexType.BPLUS_TREE) {
+            this.tree = new BPlusTree(values);
+            this.treeCursor = this.tree.cursor();
+            return;
+        }
+        if (this.indexType == IndexType.ART) {
+            this.index = new AdaptiveRadixTree<>();
+        } else {
+            this.index = new SortedIntIndex<>();
+        }
+        this.keys = this.index.cursor();
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            addVal(rowId, values[rowId]);
+        }
+        for (RoaringBitmap correspond_rows : this.keys.seekAll()) {
+            correspond_rows.runOptimize();
+        }
     }
 
     /**
@@ -54,7 +425,6 @@ public class IndexedRowTable implements Table {
     @Override
     public void load(DataLoader loader) throws IOException {
         // TODO: Implement this!
-        this.index = new TreeMap<Integer, IntArrayList>();
         this.numCols = loader.getNumCols();
         List<ByteBuffer> rows = loader.getRows();
         numRows = rows.size();
@@ -66,11 +436,13 @@ public class IndexedRowTable implements Table {
                 int offset = ByteFormat.FIELD_LEN * ((rowId * numCols) + colId);
                 int col_value = curRow.getInt(ByteFormat.FIELD_LEN * colId);
                 this.rows.putInt(offset, col_value);
-                if(colId==this.indexColumn){
-                    addVal(rowId, col_value);
-                }
             }
         }
+        this.domainIndex = null;
+        this.selected = null;
+        buildIndex(false);
+        this.zoneMap = new ZoneMap(numRows, numCols);
+        zoneMap.build(this);
     }
 
     /**
@@ -90,20 +462,40 @@ public class IndexedRowTable implements Table {
     public void putIntField(int rowId, int colId, int field) {
         // TODO: Implement this!
 
-        if(colId==this.indexColumn) {
-            // remove rowId from old value's IntArrayList in index
+        boolean rebuild = false;
+        if (colId == this.indexColumn && this.tree != null) {
+            int old_value = getIntField(rowId, colId);
+            this.tree.remove(old_value, rowId);
+            this.tree.insert(field, rowId);
+        } else if (colId == this.indexColumn && this.domainIndex != null) {
+            // move rowId to the new value's segment, or rebuild the index once the
+            // value leaves its range or the overflow lists grow too long
+            if (this.domainIndex.covers(field)) {
+                this.domainIndex.set(rowId, getIntField(rowId, colId), field);
+                rebuild = this.domainIndex.needsRebuild();
+            } else {
+                rebuild = true;
+            }
+        } else if(colId==this.indexColumn) {
+            // remove rowId from old value's bitmap in index, dropping the key once empty
             int old_value = getIntField(rowId, colId);
-            IntArrayList old_row_list = this.index.get(old_value);
-            old_row_list.rem(rowId);
-            this.index.put(old_value, old_row_list);
+            RoaringBitmap old_rows = this.index.get(old_value);
+            old_rows.remove(rowId);
+            if (old_rows.isEmpty()) {
+                this.index.remove(old_value);
+            }
 
-            // add rowId to new value's IntArrayList in index
+            // add rowId to new value's bitmap in index
             addVal(rowId, field);
         }
         // finally add the value to the table
         int offset = ByteFormat.FIELD_LEN * ((rowId * numCols) + colId);
+        int old_field = this.rows.getInt(offset);
         this.rows.putInt(offset, field);
-
+        zoneMap.update(rowId, colId, old_field, field);
+        if (rebuild) {
+            buildIndex(!this.domainIndex.covers(field));
+        }
     }
 
     /**
@@ -114,13 +506,7 @@ public class IndexedRowTable implements Table {
      */
     @Override
     public long columnSum() {
-        // TODO: Implement this!
-        long required_sum = 0;
-        for (int rowId = 0; rowId < numRows; rowId++) {
-            int offset = ByteFormat.FIELD_LEN*rowId*numCols;
-            required_sum+=(long)this.rows.getInt(offset);
-        }
-        return required_sum;
+        return zoneMap.columnSum(0);
     }
 
     /**
@@ -144,52 +530,47 @@ public class IndexedRowTable implements Table {
         long required_sum = 0;
 
         if (this.indexColumn == 1){ // col1 is the indexed col
-            if (this.index.higherKey(threshold1) == null){
-                return required_sum;
-            }
-            int k = this.index.higherKey(threshold1);
-
-            while(this.index.containsKey(k)){
-                IntArrayList row_list = this.index.get(k);
-                for(int rowId : row_list){
-                    int col2_value = getIntField(rowId, 2);
-                    if (col2_value < threshold2){
-                        required_sum+=getIntField(rowId, 0);
+            openAbove(threshold1);
+            while (nextBatch()) {
+                int[] batch = this.batch;
+                int end = this.batchTo;
+                for (int i = this.batchFrom; i < end; i++) {
+                    int rowId = batch[i];
+                    if (getIntField(rowId, 2) < threshold2) {
+                        required_sum += getIntField(rowId, 0);
                     }
                 }
-                if (this.index.higherKey(k) == null){
-                    break;
-                }
-                k = this.index.higherKey(k);
             }
 
         }else if (this.indexColumn ==2){ // col2 is the indexed column
-            if (this.index.lowerKey(threshold2) == null){
-                return required_sum;
-            }
-            int k = this.index.lowerKey(threshold2);
-
-            while(this.index.containsKey(k)){
-                IntArrayList row_list = this.index.get(k);
-                for(int rowId : row_list){
-                    int col1_value = getIntField(rowId, 1);
-                    if (col1_value > threshold1){
-                        required_sum+=getIntField(rowId, 0);
+            openBelow(threshold2);
+            while (nextBatch()) {
+                int[] batch = this.batch;
+                int end = this.batchTo;
+                for (int i = this.batchFrom; i < end; i++) {
+                    int rowId = batch[i];
+                    if (getIntField(rowId, 1) > threshold1) {
+                        required_sum += getIntField(rowId, 0);
                     }
                 }
-                if (this.index.lowerKey(k) == null){
-                    break;
-                }
-                k = this.index.lowerKey(k);
             }
 
         }else{ // function same as that for rowTable.java
-            for (int rowId = 0; rowId < numRows; rowId++) {
-                int col1_val = getIntField(rowId, 1);
-                if (col1_val > threshold1) {
-                    int col2_val = getIntField(rowId,2);
-                    if (col2_val < threshold2) {
-                        required_sum += getIntField(rowId, 0);
+            for (int block = 0; block < zoneMap.numBlocks; block++) {
+                if (zoneMap.max(1, block) <= threshold1 || zoneMap.min(2, block) >= threshold2) {
+                    continue;
+                }
+                if (zoneMap.min(1, block) > threshold1 && zoneMap.max(2, block) < threshold2) {
+                    required_sum += zoneMap.sum(0, block);
+                    continue;
+                }
+                for (int rowId = zoneMap.blockStart(block); rowId < zoneMap.blockEnd(block); rowId++) {
+                    int col1_val = getIntField(rowId, 1);
+                    if (col1_val > threshold1) {
+                        int col2_val = getIntField(rowId,2);
+                        if (col2_val < threshold2) {
+                            required_sum += getIntField(rowId, 0);
+                        }
                     }
                 }
             }
@@ -209,31 +590,33 @@ public class IndexedRowTable implements Table {
         long runningSum = 0;
 
         if (this.indexColumn == 0) { // col0 is the indexed col
-            if (this.index.higherKey(threshold) == null){
-                return runningSum;
-            }
-            int k = this.index.higherKey(threshold);
-
-            while (this.index.containsKey(k)) {
-                IntArrayList row_list = this.index.get(k);
-                for (int rowId : row_list) {
+            openAbove(threshold);
+            while (nextBatch()) {
+                int[] batch = this.batch;
+                int end = this.batchTo;
+                for (int i = this.batchFrom; i < end; i++) {
+                    int rowId = batch[i];
                     for (int colId = 0; colId < numCols; colId++) {
-                        int col_value = getIntField(rowId, colId);
-                        runningSum += col_value;
+                        runningSum += getIntField(rowId, colId);
                     }
                 }
-                if (this.index.higherKey(k) == null){
-                    break;
-                }
-                k = this.index.higherKey(k);
             }
 
         } else{ // same method as for rowTable.java
-            for (int rowId = 0; rowId < numRows; rowId++){
-                int col0_val = getIntField(rowId, 0);
-                if (col0_val > threshold){
-                    for (int colId = 0; colId < numCols; colId++){
-                        runningSum += getIntField(rowId, colId);
+            for (int block = 0; block < zoneMap.numBlocks; block++) {
+                if (zoneMap.max(0, block) <= threshold) {
+                    continue;
+                }
+                if (zoneMap.min(0, block) > threshold) {
+                    runningSum += zoneMap.rowSum(block);
+                    continue;
+                }
+                for (int rowId = zoneMap.blockStart(block); rowId < zoneMap.blockEnd(block); rowId++){
+                    int col0_val = getIntField(rowId, 0);
+                    if (col0_val > threshold){
+                        for (int colId = 0; colId < numCols; colId++){
+                            runningSum += getIntField(rowId, colId);
+                        }
                     }
                 }
             }
@@ -253,46 +636,61 @@ public class IndexedRowTable implements Table {
         int updatedRows = 0;
 
         if (this.indexColumn == 0){
-            if (this.index.lowerKey(threshold) == null){
-                return  updatedRows;
-            }
-            int k = this.index.lowerKey(threshold);
-
-            while (this.index.containsKey(k)) {
-                IntArrayList row_list = this.index.get(k);
-                for (int rowId : row_list) {
+            openBelow(threshold);
+            while (nextBatch()) {
+                int[] batch = this.batch;
+                int end = this.batchTo;
+                for (int i = this.batchFrom; i < end; i++) {
+                    int rowId = batch[i];
                     updatedRows+=1;
                     int col3_value = getIntField(rowId, 3);
                     int col2_value = getIntField(rowId, 2);
                     putIntField(rowId, 3, col2_value + col3_value);
                 }
-                if (this.index.lowerKey(k) == null){
-                    break;
-                }
-                k = this.index.lowerKey(k);
             }
         }else if (this.indexColumn == 3){
-            for (int rowId = 0; rowId < numRows; rowId++) {
+            for (int block = 0; block < zoneMap.numBlocks; block++) {
+                if (zoneMap.min(0, block) >= threshold) {
+                    continue;
+                }
+                for (int rowId = zoneMap.blockStart(block); rowId < zoneMap.blockEnd(block); rowId++) {
 
-                int col0_val = getIntField(rowId, 0);
+                    int col0_val = getIntField(rowId, 0);
 
-                if (col0_val < threshold) {
-                    updatedRows += 1;
+                    if (col0_val < threshold) {
+                        updatedRows += 1;
 
-                    int col3_val = getIntField(rowId, 3);
-                    int col2_val = getIntField(rowId, 2);
+                        int col3_val = getIntField(rowId, 3);
+                        int col2_val = getIntField(rowId, 2);
 
-                    putIntField(rowId, 3, col3_val + col2_val);
+                        putIntField(rowId, 3, col3_val + col2_val);
+                    }
                 }
             }
         }else  {
-            for (int rowId = 0; rowId < numRows; rowId++) {
-                int col0_val = getIntField(rowId, 0);
-                if (col0_val < threshold) {
-                    updatedRows += 1;
-                    int col3_val = getIntField(rowId, 3);
-                    int col2_val = getIntField(rowId, 2);
-                    putIntField(rowId, 3, col3_val + col2_val);
+            for (int block = 0; block < zoneMap.numBlocks; block++) {
+                if (zoneMap.min(0, block) >= threshold) {
+                    continue;
+                }
+                // widen col3's block metadata by the rows that changed
+                int col3_min = Integer.MAX_VALUE;
+                int col3_max = Integer.MIN_VALUE;
+                long col3_delta = 0;
+                for (int rowId = zoneMap.blockStart(block); rowId < zoneMap.blockEnd(block); rowId++) {
+                    int col0_val = getIntField(rowId, 0);
+                    if (col0_val < threshold) {
+                        updatedRows += 1;
+                        int col2_val = getIntField(rowId, 2);
+                        int old_col3 = getIntField(rowId, 3);
+                        int col3_val = old_col3 + col2_val;
+                        this.rows.putInt(ByteFormat.FIELD_LEN * ((rowId * numCols) + 3), col3_val);
+                        col3_min = Math.min(col3_min, col3_val);
+                        col3_max = Math.max(col3_max, col3_val);
+                        col3_delta += (long) col3_val - old_col3;
+                    }
+                }
+                if (col3_min <= col3_max) {
+                    zoneMap.widen(3, block, col3_min, col3_max, col3_delta);
                 }
             }
         }
@@ -0,0 +1,273 @@
+package memstore.table;
+
+/**
+ * A k-d tree over two-dimensional int points, one per row, each carrying an
+ * int weight. It answers the quadrant query "sum of the weights of the
+ * points with x > t1 and y < t2" without visiting the rows of any node whose
+ * bounding box lies wholly inside or wholly outside the quadrant.
+ *
+ * The points live in primitive arrays in leaf order. The tree is built by
+ * recursive median splits on the dimension with the wider extent, down to
+ * leaves of at most LEAF_SIZE points, and each node keeps the bounding box
+ * and weight sum of its subtree.
+ *
+ * Changing a weight adds the difference to the sums on the path from its
+ * leaf to the root. Moving a point leaves it in its leaf and only widens the
+ * boxes on that path, which keeps every query exact but makes the boxes
+ * looser; the owner should rebuild the tree once needsRebuild() says enough
+ * points have moved.
+ */
+public class KdTree {
+    // points per leaf
+    static final int LEAF_SIZE = 32;
+    // the tree should be rebuilt once this fraction of the points have moved
+    static final double REBUILD_FRACTION = 0.0625;
+
+    private final int size;
+    // points in leaf order, and the row each came from
+    private final int[] xs;
+    private final int[] ys;
+    private final int[] weights;
+    private final int[] rowIds;
+    // position of each row's point, and the leaf holding each position
+    private final int[] positionOf;
+    private final int[] leafOf;
+
+    // nodes in preorder: the left child of node i is i + 1
+    private final int[] from;
+    private final int[] to;
+    private final int[] right;
+    private final int[] parent;
+    private final int[] minX;
+    private final int[] maxX;
+    private final int[] minY;
+    private final int[] maxY;
+    private final long[] sums;
+    private int numNodes;
+    private int moved;
+
+    /**
+     * Builds the tree over the points (xs[rowId], ys[rowId]) with weights
+     * weights[rowId]. The arrays are copied.
+     */
+    public KdTree(int[] xs, int[] ys, int[] weights) {
+        this.size = xs.length;
+        this.xs = xs.clone();
+        this.ys = ys.clone();
+        this.weights = weights.clone();
+        this.rowIds = new int[size];
+        this.positionOf = new int[size];
+        this.leafOf = new int[size];
+        for (int rowId = 0; rowId < size; rowId++) {
+            rowIds[rowId] = rowId;
+        }
+
+        // every leaf but a lone root holds at least LEAF_SIZE / 2 points
+        int maxNodes = 4 * size / LEAF_SIZE + 2;
+        this.from = new int[maxNodes];
+        this.to = new int[maxNodes];
+        this.right = new int[maxNodes];
+        this.parent = new int[maxNodes];
+        this.minX = new int[maxNodes];
+        this.maxX = new int[maxNodes];
+        this.minY = new int[maxNodes];
+        this.maxY = new int[maxNodes];
+        this.sums = new long[maxNodes];
+        build(0, size, -1);
+        for (int i = 0; i < size; i++) {
+            positionOf[rowIds[i]] = i;
+        }
+    }
+
+    /**
+     * Returns the number of points.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * HELPER METHOD
+     * Builds the subtree over positions [lo, hi) under `up`, and returns its
+     * node.
+     */
+    private int build(int lo, int hi, int up) {
+        int node = numNodes++;
+        from[node] = lo;
+        to[node] = hi;
+        parent[node] = up;
+        right[node] = -1;
+        if (hi - lo <= LEAF_SIZE) {
+            int x0 = Integer.MAX_VALUE, x1 = Integer.MIN_VALUE;
+            int y0 = Integer.MAX_VALUE, y1 = Integer.MIN_VALUE;
+            long sum = 0;
+            for (int i = lo; i < hi; i++) {
+                x0 = Math.min(x0, xs[i]);
+                x1 = Math.max(x1, xs[i]);
+                y0 = Math.min(y0, ys[i]);
+                y1 = Math.max(y1, ys[i]);
+                sum += weights[i];
+                leafOf[i] = node;
+            }
+            minX[node] = x0;
+            maxX[node] = x1;
+            minY[node] = y0;
+            maxY[node] = y1;
+            sums[node] = sum;
+            return node;
+        }
+
+        int[] coords = extent(xs, lo, hi) >= extent(ys, lo, hi) ? xs : ys;
+        int mid = (lo + hi) >>> 1;
+        select(coords, lo, hi, mid);
+        int left = build(lo, mid, node);
+        int other = build(mid, hi, node);
+        right[node] = other;
+        minX[node] = Math.min(minX[left], minX[other]);
+        maxX[node] = Math.max(maxX[left], maxX[other]);
+        minY[node] = Math.min(minY[left], minY[other]);
+        maxY[node] = Math.max(maxY[left], maxY[other]);
+        sums[node] = sums[left] + sums[other];
+        return node;
+    }
+
+    /**
+     * HELPER METHOD
+     * Returns max - min of coords[lo, hi), as a long so it cannot overflow.
+     */
+    private static long extent(int[] coords, int lo, int hi) {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int i = lo; i < hi; i++) {
+            min = Math.min(min, coords[i]);
+            max = Math.max(max, coords[i]);
+        }
+        return (long) max - min;
+    }
+
+    /**
+     * HELPER METHOD
+     * Reorders the points at positions [lo, hi) so that position k holds the
+     * one it would hold if they were sorted by `coords`, with no greater
+     * coordinate before it and no smaller one after it.
+     */
+    private void select(int[] coords, int lo, int hi, int k) {
+        while (hi - lo > 1) {
+            int a = coords[lo];
+            int b = coords[(lo + hi) >>> 1];
+            int c = coords[hi - 1];
+            int pivot = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+            int i = lo;
+            int j = hi - 1;
+            while (i <= j) {
+                while (coords[i] < pivot) {
+                    i++;
+                }
+                while (coords[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            // [lo, j] <= pivot, [i, hi) >= pivot, and anything between equals it
+            if (k <= j) {
+                hi = j + 1;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * HELPER METHOD
+     * Swaps the points at positions `i` and `j`.
+     */
+    private void swap(int i, int j) {
+        int x = xs[i];
+        xs[i] = xs[j];
+        xs[j] = x;
+        int y = ys[i];
+        ys[i] = ys[j];
+        ys[j] = y;
+        int weight = weights[i];
+        weights[i] = weights[j];
+        weights[j] = weight;
+        int rowId = rowIds[i];
+        rowIds[i] = rowIds[j];
+        rowIds[j] = rowId;
+    }
+
+    /**
+     * Returns the sum of the weights of the points with x > t1 and y < t2.
+     */
+    public long quadrantSum(int t1, int t2) {
+        return size == 0 ? 0 : quadrantSum(0, t1, t2);
+    }
+
+    /**
+     * HELPER METHOD
+     * Returns the quadrant sum over the subtree of `node`.
+     */
+    private long quadrantSum(int node, int t1, int t2) {
+        if (maxX[node] <= t1 || minY[node] >= t2) {
+            return 0;
+        }
+        if (minX[node] > t1 && maxY[node] < t2) {
+            return sums[node];
+        }
+        if (right[node] < 0) {
+            long sum = 0;
+            for (int i = from[node]; i < to[node]; i++) {
+                sum += (xs[i] > t1 & ys[i] < t2) ? weights[i] : 0;
+            }
+            return sum;
+        }
+        return quadrantSum(node + 1, t1, t2) + quadrantSum(right[node], t1, t2);
+    }
+
+    /**
+     * Sets the weight of the point of `rowId`.
+     */
+    public void setWeight(int rowId, int weight) {
+        int position = positionOf[rowId];
+        long delta = (long) weight - weights[position];
+        weights[position] = weight;
+        for (int node = leafOf[position]; node >= 0; node = parent[node]) {
+            sums[node] += delta;
+        }
+    }
+
+    /**
+     * Moves the point of `rowId` to (x, y), widening the boxes that do not
+     * contain it yet.
+     */
+    public void setPoint(int rowId, int x, int y) {
+        int position = positionOf[rowId];
+        if (xs[position] == x && ys[position] == y) {
+            return;
+        }
+        xs[position] = x;
+        ys[position] = y;
+        moved++;
+        for (int node = leafOf[position]; node >= 0; node = parent[node]) {
+            if (minX[node] <= x && x <= maxX[node] && minY[node] <= y && y <= maxY[node]) {
+                break;
+            }
+            minX[node] = Math.min(minX[node], x);
+            maxX[node] = Math.max(maxX[node], x);
+            minY[node] = Math.min(minY[node], y);
+            maxY[node] = Math.max(maxY[node], y);
+        }
+    }
+
+    /**
+     * Returns whether enough points have moved since the tree was built that
+     * it should be rebuilt.
+     */
+    public boolean needsRebuild() {
+        return moved > REBUILD_FRACTION * size;
+    }
+}
@@ -0,0 +1,151 @@
+package memstore.table;
+
+import memstore.data.ByteFormat;
+import memstore.data.DataLoader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * KdTreeTable, which stores data in column-major format like ArrayColumnTable
+ * and keeps a KdTree over the points (col1, col2) weighted by col0.
+ *
+ * predicatedColumnSum is a quadrant query on that tree: nodes whose box lies
+ * inside the quadrant contribute their col0 sum without a row visit, and only
+ * the leaves the quadrant's edges cut through are scanned. The other queries
+ * scan the columns as ArrayColumnTable does.
+ *
+ * putIntField keeps the tree up to date in place, and rebuilds it from the
+ * columns once enough points have moved that its boxes have grown loose.
+ */
+public class KdTreeTable implements Table {
+    int numCols;
+    int numRows;
+    private int[][] columns;
+    // scratch selection mask reused by predicatedAllColumnsSum: -1 if selected, 0 otherwise
+    private int[] mask;
+    private KdTree tree;
+
+    public KdTreeTable() { }
+
+    /**
+     * Loads data into the table through passed-in data loader. Is not timed.
+     *
+     * @param loader Loader to load data from.
+     * @throws IOException
+     */
+    @Override
+    public void load(DataLoader loader) throws IOException {
+        this.numCols = loader.getNumCols();
+        List<ByteBuffer> rows = loader.getRows();
+        numRows = rows.size();
+        this.columns = new int[numCols][numRows];
+        this.mask = new int[numRows];
+
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            ByteBuffer curRow = rows.get(rowId);
+            for (int colId = 0; colId < numCols; colId++) {
+                this.columns[colId][rowId] = curRow.getInt(ByteFormat.FIELD_LEN * colId);
+            }
+        }
+        this.tree = new KdTree(columns[1], columns[2], columns[0]);
+    }
+
+    /**
+     * Returns the int field at row `rowId` and column `colId`.
+     */
+    @Override
+    public int getIntField(int rowId, int colId) {
+        return columns[colId][rowId];
+    }
+
+    /**
+     * Inserts the passed-in int field at row `rowId` and column `colId`.
+     */
+    @Override
+    public void putIntField(int rowId, int colId, int field) {
+        columns[colId][rowId] = field;
+        if (colId == 0) {
+            tree.setWeight(rowId, field);
+        } else if (colId == 1 || colId == 2) {
+            tree.setPoint(rowId, columns[1][rowId], columns[2][rowId]);
+            if (tree.needsRebuild()) {
+                tree = new KdTree(columns[1], columns[2], columns[0]);
+            }
+        }
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) FROM table;
+     *
+     *  Returns the sum of all elements in the first column of the table.
+     */
+    @Override
+    public long columnSum() {
+        int[] col0 = columns[0];
+        long sum = 0;
+        for (int i = 0; i < col0.length; i++) {
+            sum += col0[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) FROM table WHERE col1 > threshold1 AND col2 < threshold2;
+     *
+     *  Returns the sum of all elements in the first column of the table,
+     *  subject to the passed-in predicates.
+     */
+    @Override
+    public long predicatedColumnSum(int threshold1, int threshold2) {
+        return tree.quadrantSum(threshold1, threshold2);
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) + SUM(col1) + ... + SUM(coln) FROM table WHERE col0 > threshold;
+     *
+     *  Returns the sum of all elements in the rows which pass the predicate.
+     *
+     *  Evaluates the predicate once into a mask, then adds up each column
+     *  under the mask.
+     */
+    @Override
+    public long predicatedAllColumnsSum(int threshold) {
+        int[] col0 = columns[0];
+        for (int i = 0; i < col0.length; i++) {
+            mask[i] = col0[i] > threshold ? -1 : 0;
+        }
+        long sum = 0;
+        for (int colId = 0; colId < numCols; colId++) {
+            int[] col = columns[colId];
+            for (int i = 0; i < col.length; i++) {
+                sum += col[i] & mask[i];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Implements the query
+     *   UPDATE(col3 = col3 + col2) WHERE col0 < threshold;
+     *
+     *   Returns the number of rows updated.
+     */
+    @Override
+    public int predicatedUpdate(int threshold) {
+        int[] col0 = columns[0];
+        int[] col2 = columns[2];
+        int[] col3 = columns[3];
+        int updatedRows = 0;
+        for (int i = 0; i < col0.length; i++) {
+            int selected = col0[i] < threshold ? -1 : 0;
+            col3[i] += col2[i] & selected;
+            updatedRows -= selected;
+        }
+        return updatedRows;
+    }
+}
@@ -0,0 +1,447 @@
+package memstore.table;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import memstore.data.ByteFormat;
+import memstore.data.DataLoader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * MainDeltaTable, which keeps a read-optimized main store of EncodedColumns,
+ * as CompressedColumnTable does, and sends writes to a write-optimized delta
+ * instead of into the encoded columns.
+ *
+ * The delta holds the written fields, and for each row written to, its col0,
+ * col1 and col2 before and after the writes and how much its sum changed;
+ * the sum of the row before is only read once col0 is written, since only
+ * then can the row move in or out of predicatedAllColumnsSum. Scans run on
+ * the main store and then correct the result row by row for the delta.
+ *
+ * The delta only beats writing into the encoded columns, as
+ * CompressedColumnTable does, when those writes usually do not fit in place
+ * and each would re-encode a column; merges then batch the re-encoding.
+ *
+ * Once the delta holds mergeRows rows it is frozen and handed to a
+ * background thread, which decodes the columns it wrote, applies its fields
+ * and encodes a fresh main store; new writes go to a fresh delta meanwhile.
+ * Until the merge is swapped in, reads and scans see the old main store
+ * corrected first by the frozen delta and then by the fresh one, whose
+ * before values were read from that merged view, so they stay correct
+ * throughout.
+ *
+ * predicatedUpdate changes many rows at once, so it folds both deltas into
+ * the main store first and updates the encoded columns in place.
+ */
+public class MainDeltaTable implements Table {
+    // rows the delta holds before it is merged, as a fraction of the table's rows,
+    // unless given to the constructor. Every merge re-encodes the columns the
+    // delta wrote, so on uniform writes smaller deltas lose sharply (see
+    // MainDeltaBench); half the table keeps merges rare while bounding the
+    // per-row corrections scans pay for the delta
+    public static final double MAX_DELTA_FRACTION = 0.5;
+
+    // shared by all tables, so that creating tables does not leave idle threads behind
+    private static final ExecutorService MERGER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "main-delta-merger");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Fields written since the main store they are based on was built.
+     */
+    private static final class Delta {
+        final int numRows;
+        // written fields, keyed by colId * numRows + rowId
+        final Long2IntOpenHashMap cellOf = new Long2IntOpenHashMap();
+        int numCells;
+        long[] cellKeys = new long[16];
+        int[] cellValues = new int[16];
+        // rows with a written field
+        final Int2IntOpenHashMap slotOf = new Int2IntOpenHashMap();
+        int size;
+        int[] rowIds = new int[16];
+        // col0, col1 and col2 of each row, before any write and now, at [3 * slot, 3 * slot + 3)
+        int[] base = new int[48];
+        int[] now = new int[48];
+        // sum of each row now minus before
+        long[] sumDeltas = new long[16];
+        // sum of each row before any write, known once col0 of the row has been written
+        long[] baseSums = new long[16];
+        // sum over the rows of col0 now minus col0 before
+        long col0Delta;
+        // columns written since the delta was started
+        final boolean[] dirty;
+
+        Delta(int numRows, int numCols) {
+            this.numRows = numRows;
+            this.dirty = new boolean[numCols];
+            cellOf.defaultReturnValue(-1);
+            slotOf.defaultReturnValue(-1);
+        }
+
+        /**
+         * Returns the index of the field at row `rowId` and column `colId`
+         * in cellValues, or -1 if it has not been written.
+         */
+        int cell(int rowId, int colId) {
+            return cellOf.get((long) colId * numRows + rowId);
+        }
+
+        /**
+         * Adds row `rowId`, whose col0, col1 and col2 are `col0`, `col1` and
+         * `col2`, and returns its slot.
+         */
+        int addRow(int rowId, int col0, int col1, int col2) {
+            if (size == rowIds.length) {
+                int capacity = 2 * size;
+                rowIds = Arrays.copyOf(rowIds, capacity);
+                base = Arrays.copyOf(base, 3 * capacity);
+                now = Arrays.copyOf(now, 3 * capacity);
+                sumDeltas = Arrays.copyOf(sumDeltas, capacity);
+                baseSums = Arrays.copyOf(baseSums, capacity);
+            }
+            int slot = size++;
+            rowIds[slot] = rowId;
+            base[3 * slot] = now[3 * slot] = col0;
+            base[3 * slot + 1] = now[3 * slot + 1] = col1;
+            base[3 * slot + 2] = now[3 * slot + 2] = col2;
+            slotOf.put(rowId, slot);
+            return slot;
+        }
+
+        /**
+         * Writes `field` over `old` at column `colId` of the row in `slot`.
+         */
+        void set(int slot, int colId, int field, int old) {
+            long key = (long) colId * numRows + rowIds[slot];
+            int cell = cellOf.get(key);
+            if (cell < 0) {
+                if (numCells == cellKeys.length) {
+                    cellKeys = Arrays.copyOf(cellKeys, 2 * numCells);
+                    cellValues = Arrays.copyOf(cellValues, 2 * numCells);
+                }
+                cell = numCells++;
+                cellKeys[cell] = key;
+                cellOf.put(key, cell);
+            }
+            cellValues[cell] = field;
+            dirty[colId] = true;
+            sumDeltas[slot] += (long) field - old;
+            if (colId < 3) {
+                now[3 * slot + colId] = field;
+            }
+            if (colId == 0) {
+                col0Delta += (long) field - old;
+            }
+        }
+
+        /**
+         * Returns the correction to SUM(col0) WHERE col1 > t1 AND col2 < t2.
+         */
+        long correctColumnSum(int threshold1, int threshold2) {
+            long sum = 0;
+            for (int i = 0; i < 3 * size; i += 3) {
+                if (base[i + 1] > threshold1 && base[i + 2] < threshold2) {
+                    sum -= base[i];
+                }
+                if (now[i + 1] > threshold1 && now[i + 2] < threshold2) {
+                    sum += now[i];
+                }
+            }
+            return sum;
+        }
+
+        /**
+         * Returns the correction to the sum of the rows with col0 > threshold.
+         */
+        long correctAllColumnsSum(int threshold) {
+            long sum = 0;
+            for (int slot = 0; slot < size; slot++) {
+                boolean before = base[3 * slot] > threshold;
+                boolean after = now[3 * slot] > threshold;
+                if (before && after) {
+                    sum += sumDeltas[slot];
+                } else if (before) {
+                    sum -= baseSums[slot];
+                } else if (after) {
+                    sum += baseSums[slot] + sumDeltas[slot];
+                }
+            }
+            return sum;
+        }
+    }
+
+    int numCols;
+    int numRows;
+    private final int maxDeltaRows;
+    private int mergeRows;
+    private EncodedColumn[] main;
+    // frozen delta being merged in the background, or null
+    private Delta merging;
+    private Future<EncodedColumn[]> merge;
+    private Delta delta;
+    // scratch selection bitmap, one bit per row
+    private long[] sel;
+
+    public MainDeltaTable() {
+        this(0);
+    }
+
+    /**
+     * @param maxDeltaRows number of rows the delta holds before it is merged,
+     *                     or 0 to size it by MAX_DELTA_FRACTION.
+     */
+    public MainDeltaTable(int maxDeltaRows) {
+        this.maxDeltaRows = maxDeltaRows;
+    }
+
+    /**
+     * Loads data into the table through passed-in data loader. Is not timed.
+     *
+     * @param loader Loader to load data from.
+     * @throws IOException
+     */
+    @Override
+    public void load(DataLoader loader) throws IOException {
+        if (merge != null) {
+            merge.cancel(true);
+            merge = null;
+            merging = null;
+        }
+        this.numCols = loader.getNumCols();
+        List<ByteBuffer> rows = loader.getRows();
+        numRows = rows.size();
+        this.mergeRows = maxDeltaRows > 0 ? maxDeltaRows : Math.max(1, (int) (MAX_DELTA_FRACTION * numRows));
+        this.main = new EncodedColumn[numCols];
+        this.sel = new long[(numRows + 63) >>> 6];
+        this.delta = new Delta(numRows, numCols);
+
+        int[] values = new int[numRows];
+        for (int colId = 0; colId < numCols; colId++) {
+            for (int rowId = 0; rowId < numRows; rowId++) {
+                values[rowId] = rows.get(rowId).getInt(ByteFormat.FIELD_LEN * colId);
+            }
+            main[colId] = EncodedColumn.encode(values);
+        }
+    }
+
+    /**
+     * HELPER METHOD
+     * Returns a fresh main store with the rows of `delta` applied to `base`.
+     * Columns the delta never wrote are shared with `base`.
+     */
+    private static EncodedColumn[] mergeDelta(EncodedColumn[] base, Delta delta) {
+        int numCols = base.length;
+        int numRows = delta.numRows;
+        // order the written fields by column
+        int[] starts = new int[numCols + 1];
+        for (int cell = 0; cell < delta.numCells; cell++) {
+            starts[(int) (delta.cellKeys[cell] / numRows) + 1]++;
+        }
+        for (int colId = 0; colId < numCols; colId++) {
+            starts[colId + 1] += starts[colId];
+        }
+        int[] order = new int[delta.numCells];
+        int[] next = Arrays.copyOf(starts, numCols);
+        for (int cell = 0; cell < delta.numCells; cell++) {
+            order[next[(int) (delta.cellKeys[cell] / numRows)]++] = cell;
+        }
+
+        EncodedColumn[] merged = new EncodedColumn[numCols];
+        for (int colId = 0; colId < numCols; colId++) {
+            if (!delta.dirty[colId]) {
+                merged[colId] = base[colId];
+                continue;
+            }
+            int[] values = base[colId].decode();
+            for (int i = starts[colId]; i < starts[colId + 1]; i++) {
+                int cell = order[i];
+                values[(int) (delta.cellKeys[cell] % numRows)] = delta.cellValues[cell];
+            }
+            merged[colId] = EncodedColumn.encode(values);
+        }
+        return merged;
+    }
+
+    /**
+     * HELPER METHOD
+     * Freezes the delta and hands it to a background merge.
+     */
+    private void startMerge() {
+        EncodedColumn[] base = main;
+        Delta frozen = delta;
+        merging = frozen;
+        delta = new Delta(numRows, numCols);
+        merge = MERGER.submit(() -> mergeDelta(base, frozen));
+    }
+
+    /**
+     * HELPER METHOD
+     * Swaps in the result of the background merge once it is done, or right
+     * away waiting for it if `wait` is set. If the merge failed, it is redone
+     * on the calling thread.
+     */
+    private void finishMerge(boolean wait) {
+        if (merge == null || (!wait && !merge.isDone())) {
+            return;
+        }
+        EncodedColumn[] next;
+        try {
+            next = merge.get();
+        } catch (InterruptedException | ExecutionException e) {
+            next = mergeDelta(main, merging);
+        }
+        main = next;
+        merging = null;
+        merge = null;
+    }
+
+    /**
+     * Returns the int field at row `rowId` and column `colId`.
+     */
+    @Override
+    public int getIntField(int rowId, int colId) {
+        int cell = delta.cell(rowId, colId);
+        if (cell >= 0) {
+            return delta.cellValues[cell];
+        }
+        if (merging != null) {
+            cell = merging.cell(rowId, colId);
+            if (cell >= 0) {
+                return merging.cellValues[cell];
+            }
+        }
+        return main[colId].get(rowId);
+    }
+
+    /**
+     * Inserts the passed-in int field at row `rowId` and column `colId`.
+     * The write goes to the delta, which is merged into the main store once
+     * it is full; if the previous merge is still running then, this waits
+     * for it.
+     */
+    @Override
+    public void putIntField(int rowId, int colId, int field) {
+        finishMerge(false);
+        int slot = delta.slotOf.get(rowId);
+        if (slot < 0) {
+            slot = delta.addRow(rowId, getIntField(rowId, 0), getIntField(rowId, 1), getIntField(rowId, 2));
+        }
+        if (colId == 0 && delta.base[3 * slot] == delta.now[3 * slot]) {
+            // the row may now move across a threshold, so its sum before is needed
+            long sum = 0;
+            for (int c = 0; c < numCols; c++) {
+                sum += getIntField(rowId, c);
+            }
+            delta.baseSums[slot] = sum - delta.sumDeltas[slot];
+        }
+        delta.set(slot, colId, field, getIntField(rowId, colId));
+        if (delta.size >= mergeRows) {
+            finishMerge(true);
+            startMerge();
+        }
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) FROM table;
+     *
+     *  Returns the sum of all elements in the first column of the table.
+     */
+    @Override
+    public long columnSum() {
+        finishMerge(false);
+        long sum = main[0].sum() + delta.col0Delta;
+        return merging == null ? sum : sum + merging.col0Delta;
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) FROM table WHERE col1 > threshold1 AND col2 < threshold2;
+     *
+     *  Returns the sum of all elements in the first column of the table,
+     *  subject to the passed-in predicates.
+     */
+    @Override
+    public long predicatedColumnSum(int threshold1, int threshold2) {
+        finishMerge(false);
+        main[1].selectAbove(threshold1, sel, false);
+        main[2].selectBelow(threshold2, sel, true);
+        long sum = main[0].sumSelected(sel);
+        if (merging != null) {
+            sum += merging.correctColumnSum(threshold1, threshold2);
+        }
+        return sum + delta.correctColumnSum(threshold1, threshold2);
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) + SUM(col1) + ... + SUM(coln) FROM table WHERE col0 > threshold;
+     *
+     *  Returns the sum of all elements in the rows which pass the predicate.
+     */
+    @Override
+    public long predicatedAllColumnsSum(int threshold) {
+        finishMerge(false);
+        main[0].selectAbove(threshold, sel, false);
+        long sum = 0;
+        for (int colId = 0; colId < numCols; colId++) {
+            sum += main[colId].sumSelected(sel);
+        }
+        if (merging != null) {
+            sum += merging.correctAllColumnsSum(threshold);
+        }
+        return sum + delta.correctAllColumnsSum(threshold);
+    }
+
+    /**
+     * Implements the query
+     *   UPDATE(col3 = col3 + col2) WHERE col0 < threshold;
+     *
+     *   Returns the number of rows updated.
+     *
+     *   Folds the deltas into the main store first, then updates it as
+     *   CompressedColumnTable does.
+     */
+    @Override
+    public int predicatedUpdate(int threshold) {
+        finishMerge(true);
+        if (delta.size > 0) {
+            main = mergeDelta(main, delta);
+            delta = new Delta(numRows, numCols);
+        }
+        EncodedColumn col2 = main[2];
+        EncodedColumn col3 = main[3];
+        main[0].selectBelow(threshold, sel, false);
+
+        int updatedRows = 0;
+        int[] decoded = null;
+        for (int i = 0; i < sel.length; i++) {
+            long bits = sel[i];
+            while (bits != 0) {
+                int rowId = (i << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                updatedRows += 1;
+                if (decoded != null) {
+                    decoded[rowId] += col2.get(rowId);
+                } else if (!col3.set(rowId, col3.get(rowId) + col2.get(rowId))) {
+                    decoded = col3.decode();
+                    decoded[rowId] += col2.get(rowId);
+                }
+            }
+        }
+        if (decoded != null) {
+            main[3] = EncodedColumn.reencode(decoded, 1);
+        }
+        return updatedRows;
+    }
+}
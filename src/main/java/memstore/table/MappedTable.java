@@ -0,0 +1,240 @@
+package memstore.table;
+
+import memstore.data.ByteFormat;
+import memstore.data.DataLoader;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+/**
+ * MappedTable, which stores data in column-major format inside a file
+ * mapped into memory through FileChannel.map. The file is laid out like
+ *   header | col 1 | col 2 | ... | col m,
+ * where the header records numRows and numCols.
+ *
+ * `load` writes a new file; `open` maps an existing one without reading it,
+ * so pages are only faulted in as queries touch them. putIntField writes
+ * straight into the mapping.
+ */
+public class MappedTable implements Table, Closeable {
+    public static final int MAGIC = 0x4d454d54; // "MEMT"
+    public static final int HEADER_LEN = 64;
+
+    int numCols;
+    int numRows;
+    private final File file;
+    private RandomAccessFile raf;
+    private MappedByteBuffer header;
+    private MappedByteBuffer[] mappings;
+    private IntBuffer[] columns;
+
+    public MappedTable(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Loads data into the table through passed-in data loader, overwriting
+     * the backing file. Is not timed.
+     *
+     * @param loader Loader to load data from.
+     * @throws IOException
+     */
+    @Override
+    public void load(DataLoader loader) throws IOException {
+        close();
+        int numCols = loader.getNumCols();
+        List<ByteBuffer> rows = loader.getRows();
+        int numRows = rows.size();
+
+        raf = new RandomAccessFile(file, "rw");
+        raf.setLength(0);
+        raf.setLength(HEADER_LEN + (long) ByteFormat.FIELD_LEN * numRows * numCols);
+        header = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, HEADER_LEN);
+        header.putInt(0, MAGIC);
+        header.putInt(4, numRows);
+        header.putInt(8, numCols);
+        header.putInt(12, ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN ? 1 : 0);
+        mapColumns(numRows, numCols);
+
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            ByteBuffer curRow = rows.get(rowId);
+            for (int colId = 0; colId < numCols; colId++) {
+                columns[colId].put(rowId, curRow.getInt(ByteFormat.FIELD_LEN * colId));
+            }
+        }
+    }
+
+    /**
+     * Reopens the table from an existing backing file. Only the header is read;
+     * column data is paged in lazily as it is accessed.
+     *
+     * @throws IOException if the file is missing or was not written by MappedTable
+     *                     on a machine with the same byte order.
+     */
+    public void open() throws IOException {
+        close();
+        if (!file.exists()) {
+            throw new IOException("no table file at " + file);
+        }
+        raf = new RandomAccessFile(file, "rw");
+        if (raf.length() < HEADER_LEN) {
+            close();
+            throw new IOException("truncated table file " + file);
+        }
+        header = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, HEADER_LEN);
+        int numRows = header.getInt(4);
+        int numCols = header.getInt(8);
+        boolean littleEndian = header.getInt(12) == 1;
+        if (header.getInt(0) != MAGIC
+                || raf.length() != HEADER_LEN + (long) ByteFormat.FIELD_LEN * numRows * numCols) {
+            close();
+            throw new IOException("not a table file: " + file);
+        }
+        if (littleEndian != (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN)) {
+            close();
+            throw new IOException("table file written with a different byte order: " + file);
+        }
+        mapColumns(numRows, numCols);
+    }
+
+    /**
+     * HELPER METHOD
+     * Maps each column of the backing file as its own native-order region.
+     */
+    private void mapColumns(int numRows, int numCols) throws IOException {
+        this.numRows = numRows;
+        this.numCols = numCols;
+        FileChannel channel = raf.getChannel();
+        long colLen = (long) ByteFormat.FIELD_LEN * numRows;
+        this.mappings = new MappedByteBuffer[numCols];
+        this.columns = new IntBuffer[numCols];
+        for (int colId = 0; colId < numCols; colId++) {
+            mappings[colId] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_LEN + colId * colLen, colLen);
+            columns[colId] = mappings[colId].order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+    }
+
+    /**
+     * Flushes all writes made through the mapping to the backing file,
+     * including the header written by load, so that the file reopens.
+     */
+    public void force() {
+        header.force();
+        for (MappedByteBuffer mapping : mappings) {
+            mapping.force();
+        }
+    }
+
+    /**
+     * Closes the backing file. Mappings stay valid until they are garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        if (raf != null) {
+            raf.close();
+            raf = null;
+        }
+    }
+
+    /**
+     * Returns the int field at row `rowId` and column `colId`.
+     */
+    @Override
+    public int getIntField(int rowId, int colId) {
+        return columns[colId].get(rowId);
+    }
+
+    /**
+     * Inserts the passed-in int field at row `rowId` and column `colId`.
+     */
+    @Override
+    public void putIntField(int rowId, int colId, int field) {
+        columns[colId].put(rowId, field);
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) FROM table;
+     *
+     *  Returns the sum of all elements in the first column of the table.
+     */
+    @Override
+    public long columnSum() {
+        IntBuffer col0 = columns[0];
+        long sum = 0;
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            sum += col0.get(rowId);
+        }
+        return sum;
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) FROM table WHERE col1 > threshold1 AND col2 < threshold2;
+     *
+     *  Returns the sum of all elements in the first column of the table,
+     *  subject to the passed-in predicates.
+     */
+    @Override
+    public long predicatedColumnSum(int threshold1, int threshold2) {
+        IntBuffer col0 = columns[0];
+        IntBuffer col1 = columns[1];
+        IntBuffer col2 = columns[2];
+        long sum = 0;
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            if (col1.get(rowId) > threshold1 && col2.get(rowId) < threshold2) {
+                sum += col0.get(rowId);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) + SUM(col1) + ... + SUM(coln) FROM table WHERE col0 > threshold;
+     *
+     *  Returns the sum of all elements in the rows which pass the predicate.
+     */
+    @Override
+    public long predicatedAllColumnsSum(int threshold) {
+        IntBuffer col0 = columns[0];
+        long runningSum = 0;
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            if (col0.get(rowId) > threshold) {
+                for (int colId = 0; colId < numCols; colId++) {
+                    runningSum += columns[colId].get(rowId);
+                }
+            }
+        }
+        return runningSum;
+    }
+
+    /**
+     * Implements the query
+     *   UPDATE(col3 = col3 + col2) WHERE col0 < threshold;
+     *
+     *   Returns the number of rows updated.
+     */
+    @Override
+    public int predicatedUpdate(int threshold) {
+        IntBuffer col0 = columns[0];
+        IntBuffer col2 = columns[2];
+        IntBuffer col3 = columns[3];
+        int updatedRows = 0;
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            if (col0.get(rowId) < threshold) {
+                updatedRows += 1;
+                col3.put(rowId, col3.get(rowId) + col2.get(rowId));
+            }
+        }
+        return updatedRows;
+    }
+}
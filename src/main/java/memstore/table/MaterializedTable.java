@@ -0,0 +1,186 @@
+package memstore.table;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import memstore.data.DataLoader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MaterializedTable, which wraps any Table and keeps a set of AggregateViews
+ * over it up to date on every write.
+ *
+ * Views may be registered and dropped at any time; a view registered after
+ * load is built from the current contents of the table. putIntField reads
+ * the value it replaces only if some view watches the column. predicatedUpdate
+ * is passed straight through unless a view watches col3; if one does, the
+ * rows it will change are found first by a scan of col0, so that each view
+ * can be told about every changed field.
+ *
+ * Queries are passed through to the wrapped table.
+ */
+public class MaterializedTable implements Table {
+    int numCols;
+    int numRows;
+    private final Table table;
+    private final List<AggregateView> views = new ArrayList<>();
+    private boolean loaded;
+
+    public MaterializedTable(Table table) {
+        this.table = table;
+    }
+
+    /**
+     * Loads data into the wrapped table through passed-in data loader, and
+     * builds the registered views. Is not timed.
+     *
+     * @param loader Loader to load data from.
+     * @throws IOException
+     */
+    @Override
+    public void load(DataLoader loader) throws IOException {
+        table.load(loader);
+        this.numCols = loader.getNumCols();
+        this.numRows = loader.getRows().size();
+        this.loaded = true;
+        for (AggregateView view : views) {
+            view.build(table, numRows, numCols);
+        }
+    }
+
+    /**
+     * Registers `view`, building it if the table is already loaded.
+     */
+    public void register(AggregateView view) {
+        if (loaded) {
+            view.build(table, numRows, numCols);
+        }
+        views.add(view);
+    }
+
+    /**
+     * Stops maintaining `view`.
+     *
+     * @return false if it was not registered.
+     */
+    public boolean drop(AggregateView view) {
+        return views.remove(view);
+    }
+
+    /**
+     * Returns the memory taken by the registered views.
+     */
+    public long sizeInBytes() {
+        long size = 0;
+        for (AggregateView view : views) {
+            size += view.sizeInBytes();
+        }
+        return size;
+    }
+
+    /**
+     * HELPER METHOD
+     * Returns whether any registered view watches column `colId`.
+     */
+    private boolean watched(int colId) {
+        for (AggregateView view : views) {
+            if (view.watches(colId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the int field at row `rowId` and column `colId`.
+     */
+    @Override
+    public int getIntField(int rowId, int colId) {
+        return table.getIntField(rowId, colId);
+    }
+
+    /**
+     * Inserts the passed-in int field at row `rowId` and column `colId`.
+     */
+    @Override
+    public void putIntField(int rowId, int colId, int field) {
+        if (!watched(colId)) {
+            table.putIntField(rowId, colId, field);
+            return;
+        }
+        int oldValue = table.getIntField(rowId, colId);
+        table.putIntField(rowId, colId, field);
+        for (AggregateView view : views) {
+            if (view.watches(colId)) {
+                view.update(rowId, colId, oldValue, field);
+            }
+        }
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) FROM table;
+     *
+     *  Returns the sum of all elements in the first column of the table.
+     */
+    @Override
+    public long columnSum() {
+        return table.columnSum();
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) FROM table WHERE col1 > threshold1 AND col2 < threshold2;
+     *
+     *  Returns the sum of all elements in the first column of the table,
+     *  subject to the passed-in predicates.
+     */
+    @Override
+    public long predicatedColumnSum(int threshold1, int threshold2) {
+        return table.predicatedColumnSum(threshold1, threshold2);
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) + SUM(col1) + ... + SUM(coln) FROM table WHERE col0 > threshold;
+     *
+     *  Returns the sum of all elements in the rows which pass the predicate.
+     */
+    @Override
+    public long predicatedAllColumnsSum(int threshold) {
+        return table.predicatedAllColumnsSum(threshold);
+    }
+
+    /**
+     * Implements the query
+     *   UPDATE(col3 = col3 + col2) WHERE col0 < threshold;
+     *
+     *   Returns the number of rows updated.
+     */
+    @Override
+    public int predicatedUpdate(int threshold) {
+        if (!watched(3)) {
+            return table.predicatedUpdate(threshold);
+        }
+        IntArrayList rowIds = new IntArrayList();
+        IntArrayList oldValues = new IntArrayList();
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            if (table.getIntField(rowId, 0) < threshold) {
+                rowIds.add(rowId);
+                oldValues.add(table.getIntField(rowId, 3));
+            }
+        }
+        int updatedRows = table.predicatedUpdate(threshold);
+        for (int i = 0; i < rowIds.size(); i++) {
+            int rowId = rowIds.getInt(i);
+            int newValue = table.getIntField(rowId, 3);
+            for (AggregateView view : views) {
+                if (view.watches(3)) {
+                    view.update(rowId, 3, oldValues.getInt(i), newValue);
+                }
+            }
+        }
+        return updatedRows;
+    }
+}
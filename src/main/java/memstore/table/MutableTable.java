@@ -0,0 +1,31 @@
+package memstore.table;
+
+/**
+ * A Table that rows can be inserted into and deleted from after it is loaded.
+ * Aggregate queries skip deleted rows.
+ */
+public interface MutableTable extends Table {
+    /**
+     * Appends a row and returns its row id. Row ids of deleted rows are never reused.
+     *
+     * @param row one value per column.
+     */
+    int insertRow(int[] row);
+
+    /**
+     * Deletes row `rowId`.
+     *
+     * @return false if there is no such row, or it was already deleted.
+     */
+    boolean deleteRow(int rowId);
+
+    /**
+     * Returns whether row `rowId` exists and has not been deleted.
+     */
+    boolean containsRow(int rowId);
+
+    /**
+     * Returns the number of rows that have not been deleted.
+     */
+    int getNumRows();
+}
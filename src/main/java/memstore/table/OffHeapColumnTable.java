@@ -0,0 +1,195 @@
+package memstore.table;
+
+import memstore.data.ByteFormat;
+import memstore.data.DataLoader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.List;
+
+/**
+ * OffHeapColumnTable, which stores data in column-major format outside of the Java heap.
+ * That is, data is laid out like
+ *   col 1 | col 2 | ... | col m
+ * across a sequence of direct, native-order chunks.
+ *
+ * Fields are addressed with a long index (colId * numRows + rowId), so the table
+ * is not limited to 2^31 bytes, and the chunks are never scanned by the GC.
+ */
+public class OffHeapColumnTable implements Table {
+    /** Default chunk size: 2^24 ints, i.e. 64MB per direct buffer. */
+    public static final int DEFAULT_CHUNK_SHIFT = 24;
+
+    int numCols;
+    int numRows;
+    private IntBuffer[] chunks;
+    private final int chunkShift;
+    private final long chunkMask;
+
+    public OffHeapColumnTable() {
+        this(DEFAULT_CHUNK_SHIFT);
+    }
+
+    /**
+     * @param chunkShift log2 of the number of ints stored in each off-heap chunk.
+     */
+    public OffHeapColumnTable(int chunkShift) {
+        this.chunkShift = chunkShift;
+        this.chunkMask = (1L << chunkShift) - 1;
+    }
+
+    /**
+     * Loads data into the table through passed-in data loader. Is not timed.
+     *
+     * @param loader Loader to load data from.
+     * @throws IOException
+     */
+    @Override
+    public void load(DataLoader loader) throws IOException {
+        this.numCols = loader.getNumCols();
+        List<ByteBuffer> rows = loader.getRows();
+        numRows = rows.size();
+
+        long numFields = (long) numRows * numCols;
+        int numChunks = (int) ((numFields + chunkMask) >>> chunkShift);
+        this.chunks = new IntBuffer[numChunks];
+        for (int chunkId = 0; chunkId < numChunks; chunkId++) {
+            long chunkFields = Math.min(1L << chunkShift, numFields - ((long) chunkId << chunkShift));
+            this.chunks[chunkId] = ByteBuffer
+                    .allocateDirect((int) (ByteFormat.FIELD_LEN * chunkFields))
+                    .order(ByteOrder.nativeOrder())
+                    .asIntBuffer();
+        }
+
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            ByteBuffer curRow = rows.get(rowId);
+            for (int colId = 0; colId < numCols; colId++) {
+                put(index(rowId, colId), curRow.getInt(ByteFormat.FIELD_LEN * colId));
+            }
+        }
+    }
+
+    /**
+     * HELPER METHOD
+     * Returns the long position of field (rowId, colId) in the column-major layout.
+     */
+    private long index(int rowId, int colId) {
+        return (long) colId * numRows + rowId;
+    }
+
+    private int get(long index) {
+        return chunks[(int) (index >>> chunkShift)].get((int) (index & chunkMask));
+    }
+
+    private void put(long index, int field) {
+        chunks[(int) (index >>> chunkShift)].put((int) (index & chunkMask), field);
+    }
+
+    /**
+     * HELPER METHOD
+     * Sums all fields in the half-open range [from, to), walking one chunk at a time.
+     */
+    private long sumRange(long from, long to) {
+        long sum = 0;
+        while (from < to) {
+            IntBuffer chunk = chunks[(int) (from >>> chunkShift)];
+            int start = (int) (from & chunkMask);
+            int end = (int) Math.min(chunk.limit(), start + (to - from));
+            for (int i = start; i < end; i++) {
+                sum += chunk.get(i);
+            }
+            from += end - start;
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the int field at row `rowId` and column `colId`.
+     */
+    @Override
+    public int getIntField(int rowId, int colId) {
+        return get(index(rowId, colId));
+    }
+
+    /**
+     * Inserts the passed-in int field at row `rowId` and column `colId`.
+     */
+    @Override
+    public void putIntField(int rowId, int colId, int field) {
+        put(index(rowId, colId), field);
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) FROM table;
+     *
+     *  Returns the sum of all elements in the first column of the table.
+     */
+    @Override
+    public long columnSum() {
+        return sumRange(0, numRows);
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) FROM table WHERE col1 > threshold1 AND col2 < threshold2;
+     *
+     *  Returns the sum of all elements in the first column of the table,
+     *  subject to the passed-in predicates.
+     */
+    @Override
+    public long predicatedColumnSum(int threshold1, int threshold2) {
+        long sum = 0;
+        long col1 = numRows;
+        long col2 = 2L * numRows;
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            if (get(col1 + rowId) > threshold1 && get(col2 + rowId) < threshold2) {
+                sum += get(rowId);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) + SUM(col1) + ... + SUM(coln) FROM table WHERE col0 > threshold;
+     *
+     *  Returns the sum of all elements in the rows which pass the predicate.
+     */
+    @Override
+    public long predicatedAllColumnsSum(int threshold) {
+        long runningSum = 0;
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            int col0_val = get(rowId);
+            if (col0_val > threshold) {
+                runningSum += col0_val;
+                for (int colId = 1; colId < numCols; colId++) {
+                    runningSum += get(index(rowId, colId));
+                }
+            }
+        }
+        return runningSum;
+    }
+
+    /**
+     * Implements the query
+     *   UPDATE(col3 = col3 + col2) WHERE col0 < threshold;
+     *
+     *   Returns the number of rows updated.
+     */
+    @Override
+    public int predicatedUpdate(int threshold) {
+        int updatedRows = 0;
+        long col2 = 2L * numRows;
+        long col3 = 3L * numRows;
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            if (get(rowId) < threshold) {
+                updatedRows += 1;
+                put(col3 + rowId, get(col3 + rowId) + get(col2 + rowId));
+            }
+        }
+        return updatedRows;
+    }
+}
@@ -0,0 +1,55 @@
+package memstore.table;
+
+import java.util.Iterator;
+
+/**
+ * An ordered map from int keys to values whose key ranges are read through a
+ * reusable cursor; see SortedIntIndex and AdaptiveRadixTree.
+ */
+public interface OrderedIntIndex<V> {
+    int size();
+
+    /**
+     * Returns the value of `key`, or null if it is absent.
+     */
+    V get(int key);
+
+    /**
+     * Maps `key` to `value`, replacing any previous value.
+     */
+    void put(int key, V value);
+
+    /**
+     * Removes `key`. Returns its value, or null if it was absent.
+     */
+    V remove(int key);
+
+    Cursor<V> cursor();
+
+    /**
+     * A reusable iterator over the entries of a key range, in ascending key
+     * order. Each seek positions it on a new range; iterator() rewinds it to
+     * the start of the range, so a range can be walked more than once.
+     */
+    interface Cursor<V> extends Iterable<V>, Iterator<V> {
+        /**
+         * Positions the cursor on every key.
+         */
+        Cursor<V> seekAll();
+
+        /**
+         * Positions the cursor on the keys > `key`.
+         */
+        Cursor<V> seekAbove(int key);
+
+        /**
+         * Positions the cursor on the keys < `key`.
+         */
+        Cursor<V> seekBelow(int key);
+
+        /**
+         * Returns the key of the entry last returned by next().
+         */
+        int key();
+    }
+}
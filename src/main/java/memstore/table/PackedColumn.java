@@ -0,0 +1,301 @@
+package memstore.table;
+
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+
+import java.util.Arrays;
+
+/**
+ * A column of ints stored as fixed-width codes packed into longs, with as many
+ * whole codes per long as fit (codes never straddle two longs).
+ *
+ * Codes are either frame-of-reference offsets (value = base + code) or indexes
+ * into a sorted dictionary of the column's distinct values. Both encodings are
+ * order-preserving, so range predicates on values translate to range
+ * predicates on codes and are evaluated without decoding.
+ */
+class PackedColumn implements EncodedColumn {
+    final int numRows;
+    final int width;
+    final int perWord;
+    final long mask;
+    final long[] words;
+    // frame-of-reference base; unused when dict != null
+    final long base;
+    // sorted distinct values, or null for frame-of-reference
+    final int[] dict;
+
+    private PackedColumn(int numRows, int width, long base, int[] dict) {
+        this.numRows = numRows;
+        this.width = width;
+        this.perWord = 64 / width;
+        this.mask = width == 64 ? -1L : (1L << width) - 1;
+        this.words = new long[(numRows + perWord - 1) / perWord];
+        this.base = base;
+        this.dict = dict;
+    }
+
+    /**
+     * HELPER METHOD
+     * Returns the number of bits needed to represent codes 0..maxCode (at least 1).
+     */
+    static int bitsFor(long maxCode) {
+        return Math.max(1, 64 - Long.numberOfLeadingZeros(maxCode));
+    }
+
+    /**
+     * Encodes `values`, picking whichever of frame-of-reference bit-packing or
+     * dictionary encoding takes less space (counting the dictionary itself).
+     */
+    static PackedColumn encode(int[] values) {
+        return encode(values, 0);
+    }
+
+    /**
+     * Encodes `values` for a column that overflowed its previous encoding: when
+     * `headroom` is positive, always uses frame-of-reference codes with `headroom`
+     * extra bits, so that the column can keep growing in place.
+     */
+    static PackedColumn encode(int[] values, int headroom) {
+        int numRows = values.length;
+        long min = Integer.MAX_VALUE;
+        long max = Integer.MIN_VALUE;
+        for (int v : values) {
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+        }
+        if (numRows == 0) {
+            min = max = 0;
+        }
+        int forWidth = Math.min(32, bitsFor(max - min) + headroom);
+        if (forWidth == 32) {
+            // full-width codes can hold any int, so later writes never overflow
+            min = Integer.MIN_VALUE;
+        }
+
+        // a dictionary only pays off if it saves at least one bit per code; it is
+        // skipped on re-encodes, since a column being written to would keep
+        // overflowing a dictionary with new values. Wide ranges cap the limit,
+        // as 1 << 31 would wrap negative
+        int limit = forWidth >= 31 ? Integer.MAX_VALUE : 1 << (forWidth - 1);
+        int[] distinct = headroom == 0 ? distinctValues(values, limit) : null;
+        PackedColumn col;
+        if (distinct != null
+                && bits(numRows, bitsFor(distinct.length - 1)) + 32L * distinct.length < bits(numRows, forWidth)) {
+            col = new PackedColumn(numRows, bitsFor(distinct.length - 1), 0, distinct);
+        } else {
+            col = new PackedColumn(numRows, forWidth, min, null);
+        }
+        for (int row = 0; row < numRows; row++) {
+            col.setCode(row, col.codeOf(values[row]));
+        }
+        return col;
+    }
+
+    /**
+     * HELPER METHOD
+     * Returns the sorted distinct values, or null as soon as there are more than `limit`.
+     */
+    private static int[] distinctValues(int[] values, int limit) {
+        IntOpenHashSet distinct = new IntOpenHashSet();
+        for (int v : values) {
+            if (distinct.add(v) && distinct.size() > limit) {
+                return null;
+            }
+        }
+        int[] sorted = distinct.toIntArray();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private static long bits(int numRows, int width) {
+        int perWord = 64 / width;
+        return 64L * ((numRows + perWord - 1) / perWord);
+    }
+
+    /**
+     * Returns the code for `value`, or -1 if it cannot be represented.
+     */
+    long codeOf(int value) {
+        if (dict != null) {
+            int idx = Arrays.binarySearch(dict, value);
+            return idx < 0 ? -1 : idx;
+        }
+        long code = value - base;
+        return code < 0 || code > mask ? -1 : code;
+    }
+
+    int valueOf(long code) {
+        return dict != null ? dict[(int) code] : (int) (base + code);
+    }
+
+    long code(int row) {
+        return (words[row / perWord] >>> ((row % perWord) * width)) & mask;
+    }
+
+    private void setCode(int row, long code) {
+        int shift = (row % perWord) * width;
+        int w = row / perWord;
+        words[w] = (words[w] & ~(mask << shift)) | (code << shift);
+    }
+
+    @Override
+    public int get(int row) {
+        return valueOf(code(row));
+    }
+
+    /**
+     * Overwrites the value at `row` if it fits the current encoding.
+     *
+     * @return false if the value overflows the encoding and the column must be re-encoded.
+     */
+    @Override
+    public boolean set(int row, int value) {
+        long code = codeOf(value);
+        if (code < 0) {
+            return false;
+        }
+        setCode(row, code);
+        return true;
+    }
+
+    @Override
+    public int[] decode() {
+        int[] values = new int[numRows];
+        for (int row = 0; row < numRows; row++) {
+            values[row] = get(row);
+        }
+        return values;
+    }
+
+    /**
+     * Returns the first code whose value is > threshold, so that
+     * value > threshold iff code >= codeAbove(threshold).
+     */
+    long codeAbove(int threshold) {
+        if (dict != null) {
+            int idx = Arrays.binarySearch(dict, threshold);
+            return idx >= 0 ? idx + 1 : -idx - 1;
+        }
+        return clamp((long) threshold - base + 1);
+    }
+
+    /**
+     * Returns the first code whose value is >= threshold, so that
+     * value < threshold iff code < codeBelow(threshold).
+     */
+    long codeBelow(int threshold) {
+        if (dict != null) {
+            int idx = Arrays.binarySearch(dict, threshold);
+            return idx >= 0 ? idx : -idx - 1;
+        }
+        return clamp((long) threshold - base);
+    }
+
+    private long clamp(long code) {
+        return Math.max(0, Math.min(code, mask + 1));
+    }
+
+    /**
+     * Marks in `sel` the rows whose code lies in [lo, hi). If `intersect` is set,
+     * only clears the bits of rows outside the range instead.
+     */
+    void select(long lo, long hi, long[] sel, boolean intersect) {
+        if (!intersect) {
+            Arrays.fill(sel, 0L);
+        }
+        int row = 0;
+        for (int w = 0; w < words.length; w++) {
+            long word = words[w];
+            int end = Math.min(numRows, row + perWord);
+            for (; row < end; row++) {
+                long code = word & mask;
+                word >>>= width;
+                boolean match = code >= lo && code < hi;
+                if (intersect) {
+                    if (!match) {
+                        sel[row >>> 6] &= ~(1L << row);
+                    }
+                } else if (match) {
+                    sel[row >>> 6] |= 1L << row;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void selectAbove(int threshold, long[] sel, boolean intersect) {
+        select(codeAbove(threshold), Long.MAX_VALUE, sel, intersect);
+    }
+
+    @Override
+    public void selectBelow(int threshold, long[] sel, boolean intersect) {
+        select(0, codeBelow(threshold), sel, intersect);
+    }
+
+    /**
+     * Decodes the values of rows [from, to) into `out`, walking the packed words sequentially.
+     */
+    void decodeRange(int from, int to, int[] out) {
+        int w = from / perWord;
+        int slot = from % perWord;
+        long word = w < words.length ? words[w] >>> (slot * width) : 0;
+        for (int row = from; row < to; row++) {
+            if (slot == perWord) {
+                word = words[++w];
+                slot = 0;
+            }
+            out[row - from] = valueOf(word & mask);
+            word >>>= width;
+            slot++;
+        }
+    }
+
+    /**
+     * Returns the sum of all values, summing codes directly for frame-of-reference.
+     */
+    @Override
+    public long sum() {
+        long sum = 0;
+        int row = 0;
+        for (int w = 0; w < words.length; w++) {
+            long word = words[w];
+            int end = Math.min(numRows, row + perWord);
+            for (; row < end; row++) {
+                sum += dict != null ? dict[(int) (word & mask)] : (word & mask);
+                word >>>= width;
+            }
+        }
+        return dict != null ? sum : sum + base * numRows;
+    }
+
+    /**
+     * Returns the sum of the values of rows selected in `sel`, walking the packed
+     * words sequentially and masking out unselected rows.
+     */
+    @Override
+    public long sumSelected(long[] sel) {
+        long sum = 0;
+        long count = 0;
+        int row = 0;
+        for (int w = 0; w < words.length; w++) {
+            long word = words[w];
+            int end = Math.min(numRows, row + perWord);
+            for (; row < end; row++) {
+                long selected = -((sel[row >>> 6] >>> row) & 1L);
+                long code = word & mask;
+                word >>>= width;
+                sum += (dict != null ? dict[(int) code] : code) & selected;
+                count -= selected;
+            }
+        }
+        return dict != null ? sum : sum + base * count;
+    }
+
+    /**
+     * Returns the size of the encoded column in bytes.
+     */
+    @Override
+    public long sizeInBytes() {
+        return 8L * words.length + (dict == null ? 0 : 4L * dict.length);
+    }
+}
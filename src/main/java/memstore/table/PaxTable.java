@@ -0,0 +1,197 @@
+package memstore.table;
+
+import memstore.data.ByteFormat;
+import memstore.data.DataLoader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * PaxTable, which stores data in the PAX (Partition Attributes Across) layout.
+ * Rows are split into fixed-size row groups; inside a group, each column is
+ * stored contiguously in its own minipage. That is, data is laid out like
+ *   [group 1: col 1 | col 2 | ... | col m] | [group 2: col 1 | ... | col m] | ...
+ *
+ * Single-column scans read each minipage sequentially, and reconstructing a
+ * whole row only touches the one group that holds it.
+ */
+public class PaxTable implements Table {
+    /** Default row group size, in bytes. */
+    public static final int GROUP_BYTES = 1 << 16;
+
+    int numCols;
+    int numRows;
+    // as passed to the constructor; 0 sizes groups to GROUP_BYTES on every load
+    private final int groupRows;
+    // rows per row group of the loaded table
+    private int rowsPerGroup;
+    private int[] groups;
+
+    public PaxTable() {
+        this(0);
+    }
+
+    /**
+     * @param rowsPerGroup number of rows per row group, or 0 to size groups to GROUP_BYTES.
+     */
+    public PaxTable(int rowsPerGroup) {
+        this.groupRows = rowsPerGroup;
+    }
+
+    /**
+     * Loads data into the table through passed-in data loader. Is not timed.
+     *
+     * @param loader Loader to load data from.
+     * @throws IOException
+     */
+    @Override
+    public void load(DataLoader loader) throws IOException {
+        this.numCols = loader.getNumCols();
+        List<ByteBuffer> rows = loader.getRows();
+        numRows = rows.size();
+        this.rowsPerGroup = groupRows > 0
+                ? groupRows
+                : Math.max(1, GROUP_BYTES / (ByteFormat.FIELD_LEN * numCols));
+        this.groups = new int[numRows * numCols];
+
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            ByteBuffer curRow = rows.get(rowId);
+            for (int colId = 0; colId < numCols; colId++) {
+                groups[offset(rowId, colId)] = curRow.getInt(ByteFormat.FIELD_LEN * colId);
+            }
+        }
+    }
+
+    /**
+     * HELPER METHOD
+     * Returns the number of rows stored in the row group starting at `firstRow`;
+     * only the last group can be partial.
+     */
+    private int groupSize(int firstRow) {
+        return Math.min(rowsPerGroup, numRows - firstRow);
+    }
+
+    /**
+     * HELPER METHOD
+     * Returns the position of field (rowId, colId): the group's base, plus the
+     * column's minipage, plus the row's position within the group.
+     */
+    private int offset(int rowId, int colId) {
+        int firstRow = rowId - rowId % rowsPerGroup;
+        return firstRow * numCols + colId * groupSize(firstRow) + (rowId - firstRow);
+    }
+
+    /**
+     * Returns the number of rows per row group of the loaded table.
+     */
+    int getRowsPerGroup() {
+        return rowsPerGroup;
+    }
+
+    /**
+     * Returns the int field at row `rowId` and column `colId`.
+     */
+    @Override
+    public int getIntField(int rowId, int colId) {
+        return groups[offset(rowId, colId)];
+    }
+
+    /**
+     * Inserts the passed-in int field at row `rowId` and column `colId`.
+     */
+    @Override
+    public void putIntField(int rowId, int colId, int field) {
+        groups[offset(rowId, colId)] = field;
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) FROM table;
+     *
+     *  Returns the sum of all elements in the first column of the table.
+     */
+    @Override
+    public long columnSum() {
+        long sum = 0;
+        for (int firstRow = 0; firstRow < numRows; firstRow += rowsPerGroup) {
+            int base = firstRow * numCols;
+            int end = base + groupSize(firstRow);
+            for (int i = base; i < end; i++) {
+                sum += groups[i];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) FROM table WHERE col1 > threshold1 AND col2 < threshold2;
+     *
+     *  Returns the sum of all elements in the first column of the table,
+     *  subject to the passed-in predicates.
+     */
+    @Override
+    public long predicatedColumnSum(int threshold1, int threshold2) {
+        long sum = 0;
+        for (int firstRow = 0; firstRow < numRows; firstRow += rowsPerGroup) {
+            int n = groupSize(firstRow);
+            int col0 = firstRow * numCols;
+            int col1 = col0 + n;
+            int col2 = col1 + n;
+            for (int r = 0; r < n; r++) {
+                if (groups[col1 + r] > threshold1 && groups[col2 + r] < threshold2) {
+                    sum += groups[col0 + r];
+                }
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) + SUM(col1) + ... + SUM(coln) FROM table WHERE col0 > threshold;
+     *
+     *  Returns the sum of all elements in the rows which pass the predicate.
+     */
+    @Override
+    public long predicatedAllColumnsSum(int threshold) {
+        long runningSum = 0;
+        for (int firstRow = 0; firstRow < numRows; firstRow += rowsPerGroup) {
+            int n = groupSize(firstRow);
+            int base = firstRow * numCols;
+            for (int r = 0; r < n; r++) {
+                if (groups[base + r] > threshold) {
+                    for (int pos = base + r; pos < base + numCols * n; pos += n) {
+                        runningSum += groups[pos];
+                    }
+                }
+            }
+        }
+        return runningSum;
+    }
+
+    /**
+     * Implements the query
+     *   UPDATE(col3 = col3 + col2) WHERE col0 < threshold;
+     *
+     *   Returns the number of rows updated.
+     */
+    @Override
+    public int predicatedUpdate(int threshold) {
+        int updatedRows = 0;
+        for (int firstRow = 0; firstRow < numRows; firstRow += rowsPerGroup) {
+            int n = groupSize(firstRow);
+            int col0 = firstRow * numCols;
+            int col2 = col0 + 2 * n;
+            int col3 = col0 + 3 * n;
+            for (int r = 0; r < n; r++) {
+                if (groups[col0 + r] < threshold) {
+                    updatedRows += 1;
+                    groups[col3 + r] += groups[col2 + r];
+                }
+            }
+        }
+        return updatedRows;
+    }
+}
@@ -0,0 +1,269 @@
+package memstore.table;
+
+import memstore.data.ByteFormat;
+import memstore.data.DataLoader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ProjectedTable, which stores data in column-major format like
+ * ArrayColumnTable, plus C-Store style projections: copies of some of the
+ * columns sorted on one of them (see Projection).
+ *
+ * Each query picks the projection whose sort column turns its predicate into
+ * the shortest contiguous range, and falls back to scanning the base columns
+ * if no projection helps. putIntField writes through to every projection
+ * holding the column.
+ */
+public class ProjectedTable implements Table {
+    /**
+     * Default projections, each listed as its columns with the sort column
+     * first: cols 0-2 sorted on col1 and on col2 for predicatedColumnSum, and
+     * cols 0, 2 and 3 sorted on col0 for predicatedUpdate and selective
+     * predicatedAllColumnsSums. Each holds three columns whatever the width
+     * of the table, so the defaults never copy a wide table in full.
+     */
+    static final int[][] DEFAULT_PROJECTIONS = {{1, 0, 2}, {2, 0, 1}, {0, 2, 3}};
+    // a projection that lacks some columns is only used to find rows when it
+    // selects at most this fraction of the table, since the rest are read by row id
+    static final double GATHER_FRACTION = 0.125;
+
+    int numCols;
+    int numRows;
+    private final int[][] projectionSpecs;
+    private int[][] columns;
+    private Projection[] projections;
+    // scratch selection mask reused by predicatedAllColumnsSum: -1 if selected, 0 otherwise
+    private int[] mask;
+
+    public ProjectedTable() {
+        this(DEFAULT_PROJECTIONS);
+    }
+
+    /**
+     * @param projectionSpecs column ids of each projection, sort column first.
+     *                        A spec with only the sort column projects every
+     *                        column. Specs whose sort column is past the end
+     *                        of the table are skipped.
+     */
+    public ProjectedTable(int[][] projectionSpecs) {
+        this.projectionSpecs = projectionSpecs;
+    }
+
+    /**
+     * Loads data into the table through passed-in data loader, then builds the
+     * projections. Is not timed.
+     *
+     * @param loader Loader to load data from.
+     * @throws IOException
+     */
+    @Override
+    public void load(DataLoader loader) throws IOException {
+        this.numCols = loader.getNumCols();
+        List<ByteBuffer> rows = loader.getRows();
+        numRows = rows.size();
+        this.columns = new int[numCols][numRows];
+        this.mask = new int[numRows];
+
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            ByteBuffer curRow = rows.get(rowId);
+            for (int colId = 0; colId < numCols; colId++) {
+                this.columns[colId][rowId] = curRow.getInt(ByteFormat.FIELD_LEN * colId);
+            }
+        }
+
+        List<Projection> built = new ArrayList<>();
+        for (int[] spec : projectionSpecs) {
+            if (spec[0] < numCols) {
+                built.add(new Projection(spec, columns, numRows));
+            }
+        }
+        this.projections = built.toArray(new Projection[0]);
+    }
+
+    /**
+     * HELPER METHOD
+     * Returns the projection sorted on `sortColumn` that holds all of `colIds`,
+     * or null if there is none.
+     */
+    private Projection projectionOn(int sortColumn, int... colIds) {
+        for (Projection p : projections) {
+            if (p.sortColumn != sortColumn) {
+                continue;
+            }
+            boolean covers = true;
+            for (int colId : colIds) {
+                covers &= colId < numCols && p.covers(colId);
+            }
+            if (covers) {
+                return p;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the int field at row `rowId` and column `colId`.
+     */
+    @Override
+    public int getIntField(int rowId, int colId) {
+        return columns[colId][rowId];
+    }
+
+    /**
+     * Inserts the passed-in int field at row `rowId` and column `colId`,
+     * and into every projection holding the column.
+     */
+    @Override
+    public void putIntField(int rowId, int colId, int field) {
+        columns[colId][rowId] = field;
+        for (Projection p : projections) {
+            if (p.covers(colId)) {
+                p.set(rowId, colId, field);
+            }
+        }
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) FROM table;
+     *
+     *  Returns the sum of all elements in the first column of the table.
+     */
+    @Override
+    public long columnSum() {
+        int[] col0 = columns[0];
+        long sum = 0;
+        for (int i = 0; i < col0.length; i++) {
+            sum += col0[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) FROM table WHERE col1 > threshold1 AND col2 < threshold2;
+     *
+     *  Returns the sum of all elements in the first column of the table,
+     *  subject to the passed-in predicates.
+     *
+     *  Scans whichever of the projections sorted on col1 or col2 leaves the
+     *  shorter range.
+     */
+    @Override
+    public long predicatedColumnSum(int threshold1, int threshold2) {
+        Projection by1 = projectionOn(1, 0, 2);
+        Projection by2 = projectionOn(2, 0, 1);
+        int from1 = by1 == null ? 0 : by1.upperBound(threshold1);
+        int to2 = by2 == null ? numRows : by2.lowerBound(threshold2);
+
+        long sum = 0;
+        if (by1 != null && numRows - from1 <= to2) {
+            int[] col0 = by1.column(0);
+            int[] col2 = by1.column(2);
+            for (int i = from1; i < numRows; i++) {
+                sum += col2[i] < threshold2 ? col0[i] : 0;
+            }
+            return sum;
+        }
+        if (by2 != null) {
+            int[] col0 = by2.column(0);
+            int[] col1 = by2.column(1);
+            for (int i = 0; i < to2; i++) {
+                sum += col1[i] > threshold1 ? col0[i] : 0;
+            }
+            return sum;
+        }
+        int[] col0 = columns[0];
+        int[] col1 = columns[1];
+        int[] col2 = columns[2];
+        for (int i = 0; i < numRows; i++) {
+            sum += (col1[i] > threshold1 & col2[i] < threshold2) ? col0[i] : 0;
+        }
+        return sum;
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) + SUM(col1) + ... + SUM(coln) FROM table WHERE col0 > threshold;
+     *
+     *  Returns the sum of all elements in the rows which pass the predicate.
+     *
+     *  With a projection sorted on col0, the matching rows are its tail: the
+     *  projected columns are summed over that range, and any others are read
+     *  from the base columns by row id if few enough rows match.
+     */
+    @Override
+    public long predicatedAllColumnsSum(int threshold) {
+        Projection by0 = projectionOn(0);
+        if (by0 != null) {
+            int from = by0.upperBound(threshold);
+            boolean covering = by0.colIds.length == numCols;
+            if (covering || numRows - from <= GATHER_FRACTION * numRows) {
+                long sum = 0;
+                for (int[] col : by0.columns) {
+                    for (int i = from; i < numRows; i++) {
+                        sum += col[i];
+                    }
+                }
+                for (int colId = 0; colId < numCols && !covering; colId++) {
+                    if (!by0.covers(colId)) {
+                        int[] col = columns[colId];
+                        for (int i = from; i < numRows; i++) {
+                            sum += col[by0.baseRow[i]];
+                        }
+                    }
+                }
+                return sum;
+            }
+        }
+        int[] col0 = columns[0];
+        for (int i = 0; i < numRows; i++) {
+            mask[i] = col0[i] > threshold ? -1 : 0;
+        }
+        long sum = 0;
+        for (int colId = 0; colId < numCols; colId++) {
+            int[] col = columns[colId];
+            for (int i = 0; i < numRows; i++) {
+                sum += col[i] & mask[i];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Implements the query
+     *   UPDATE(col3 = col3 + col2) WHERE col0 < threshold;
+     *
+     *   Returns the number of rows updated.
+     *
+     *   The matching rows are found from a projection sorted on col0 if there
+     *   is one; each new col3 value is then written through like putIntField.
+     */
+    @Override
+    public int predicatedUpdate(int threshold) {
+        int[] col2 = columns[2];
+        int[] col3 = columns[3];
+        Projection by0 = projectionOn(0);
+        if (by0 != null) {
+            int to = by0.lowerBound(threshold);
+            for (int i = 0; i < to; i++) {
+                int rowId = by0.baseRow[i];
+                putIntField(rowId, 3, col3[rowId] + col2[rowId]);
+            }
+            return to;
+        }
+        int[] col0 = columns[0];
+        int updatedRows = 0;
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            if (col0[rowId] < threshold) {
+                updatedRows += 1;
+                putIntField(rowId, 3, col3[rowId] + col2[rowId]);
+            }
+        }
+        return updatedRows;
+    }
+}
@@ -0,0 +1,181 @@
+package memstore.table;
+
+import java.util.Arrays;
+
+/**
+ * A C-Store style projection: a copy of some of a table's columns, stored
+ * column-major and sorted on one of them (the sort column), with a
+ * permutation back to the base table's row ids.
+ *
+ * Writes are applied in place; a write to the sort column moves the row to
+ * its new sorted position instead of re-sorting.
+ */
+class Projection {
+    final int sortColumn;
+    // base column ids held by the projection, sort column first
+    final int[] colIds;
+    // base column id -> index into colIds / columns, or -1 if not projected
+    final int[] slotOf;
+    // columns[slot][pos]; columns[0] holds the sorted keys
+    final int[][] columns;
+    // position -> base row id, and back
+    final int[] baseRow;
+    final int[] posOf;
+    final int numRows;
+
+    /**
+     * Builds the projection from a column-major base table.
+     *
+     * @param spec column ids to project, sorted on the first one. A spec with
+     *             only the sort column projects every column.
+     */
+    Projection(int[] spec, int[][] base, int numRows) {
+        int numCols = base.length;
+        this.sortColumn = spec[0];
+        this.numRows = numRows;
+        this.slotOf = new int[numCols];
+        Arrays.fill(slotOf, -1);
+        int[] ids = new int[numCols];
+        int width = 0;
+        for (int colId : spec.length == 1 ? allColumns(sortColumn, numCols) : spec) {
+            if (colId < numCols && slotOf[colId] == -1) {
+                slotOf[colId] = width;
+                ids[width++] = colId;
+            }
+        }
+        this.colIds = Arrays.copyOf(ids, width);
+
+        long[] order = new long[numRows];
+        int[] keys = base[sortColumn];
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            order[rowId] = ((long) keys[rowId] << 32) | rowId;
+        }
+        Arrays.sort(order);
+        this.baseRow = new int[numRows];
+        this.posOf = new int[numRows];
+        for (int pos = 0; pos < numRows; pos++) {
+            baseRow[pos] = (int) order[pos];
+            posOf[baseRow[pos]] = pos;
+        }
+        this.columns = new int[width][numRows];
+        for (int slot = 0; slot < width; slot++) {
+            int[] from = base[colIds[slot]];
+            int[] to = columns[slot];
+            for (int pos = 0; pos < numRows; pos++) {
+                to[pos] = from[baseRow[pos]];
+            }
+        }
+    }
+
+    private static int[] allColumns(int sortColumn, int numCols) {
+        int[] all = new int[numCols + 1];
+        all[0] = sortColumn;
+        for (int colId = 0; colId < numCols; colId++) {
+            all[colId + 1] = colId;
+        }
+        return all;
+    }
+
+    boolean covers(int colId) {
+        return slotOf[colId] != -1;
+    }
+
+    int[] column(int colId) {
+        return columns[slotOf[colId]];
+    }
+
+    /**
+     * Returns the first position whose key is > `key`.
+     */
+    int upperBound(int key) {
+        return upperBound(key, 0, numRows);
+    }
+
+    /**
+     * Returns the first position whose key is >= `key`.
+     */
+    int lowerBound(int key) {
+        return lowerBound(key, 0, numRows);
+    }
+
+    private int upperBound(int key, int from, int to) {
+        int[] keys = columns[0];
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (keys[mid] <= key) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    private int lowerBound(int key, int from, int to) {
+        int[] keys = columns[0];
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (keys[mid] < key) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Writes `field` to column `colId` of base row `rowId`, which must be projected.
+     */
+    void set(int rowId, int colId, int field) {
+        int pos = posOf[rowId];
+        if (colId != sortColumn) {
+            columns[slotOf[colId]][pos] = field;
+        } else if (columns[0][pos] != field) {
+            relocate(pos, field);
+        }
+    }
+
+    /**
+     * HELPER METHOD
+     * Gives the row at position `pos` the key `key` and moves it to where that
+     * key sorts. The row's slot is a hole that hops over whole runs of equal
+     * keys, so each distinct key passed costs one row move.
+     */
+    private void relocate(int pos, int key) {
+        int[] keys = columns[0];
+        int[] moved = new int[columns.length];
+        for (int slot = 0; slot < columns.length; slot++) {
+            moved[slot] = columns[slot][pos];
+        }
+        int rowId = baseRow[pos];
+        int hole = pos;
+        if (key > keys[pos]) {
+            while (hole + 1 < numRows && keys[hole + 1] < key) {
+                int end = upperBound(keys[hole + 1], hole + 1, numRows) - 1;
+                moveRow(end, hole);
+                hole = end;
+            }
+        } else {
+            while (hole > 0 && keys[hole - 1] > key) {
+                int start = lowerBound(keys[hole - 1], 0, hole);
+                moveRow(start, hole);
+                hole = start;
+            }
+        }
+        moved[0] = key;
+        for (int slot = 0; slot < columns.length; slot++) {
+            columns[slot][hole] = moved[slot];
+        }
+        baseRow[hole] = rowId;
+        posOf[rowId] = hole;
+    }
+
+    private void moveRow(int from, int to) {
+        for (int[] col : columns) {
+            col[to] = col[from];
+        }
+        baseRow[to] = baseRow[from];
+        posOf[baseRow[to]] = to;
+    }
+}
@@ -0,0 +1,570 @@
+package memstore.table;
+
+import java.util.Arrays;
+
+/**
+ * A compressed set of non-negative ints in the style of Roaring bitmaps.
+ *
+ * Values are split by their high 16 bits into chunks of up to 65536 values,
+ * and each chunk is held in whichever container suits its density:
+ *  - an array container, a sorted char[] of the low 16 bits, for chunks of
+ *    at most ARRAY_MAX values (2 bytes per value);
+ *  - a bitmap container, 1024 longs, for denser chunks (at most 8 KB);
+ *  - a run container, sorted (start, length - 1) pairs, after runOptimize()
+ *    when the chunk's values form few enough runs.
+ *
+ * Membership, insertion and removal touch a single container, found by binary
+ * search over the chunk keys. Unions accumulate each chunk into a bitmap and
+ * pick the container type once at the end, and intersections only visit the
+ * chunks both sides hold.
+ */
+class RoaringBitmap {
+    static final int ARRAY_MAX = 4096;
+    private static final int BITMAP_WORDS = 1024;
+
+    // sorted high 16 bits of each chunk, and the chunk's container
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size;
+
+    /**
+     * Adds `x` to the set.
+     */
+    void add(int x) {
+        char high = (char) (x >>> 16);
+        int i = find(high);
+        if (i >= 0) {
+            containers[i] = containers[i].add((char) x);
+        } else {
+            insertAt(-i - 1, high, new ArrayContainer().add((char) x));
+        }
+    }
+
+    /**
+     * Removes `x` from the set. Returns whether it was present.
+     */
+    boolean remove(int x) {
+        int i = find((char) (x >>> 16));
+        if (i < 0 || !containers[i].contains((char) x)) {
+            return false;
+        }
+        Container c = containers[i].remove((char) x);
+        if (c.cardinality() == 0) {
+            System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+            System.arraycopy(containers, i + 1, containers, i, size - i - 1);
+            containers[--size] = null;
+        } else {
+            containers[i] = c;
+        }
+        return true;
+    }
+
+    boolean contains(int x) {
+        int i = find((char) (x >>> 16));
+        return i >= 0 && containers[i].contains((char) x);
+    }
+
+    int cardinality() {
+        int card = 0;
+        for (int i = 0; i < size; i++) {
+            card += containers[i].cardinality();
+        }
+        return card;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Converts every container that would be smaller as runs into a run
+     * container. Later writes to a run container turn it back into an array
+     * or bitmap container.
+     */
+    void runOptimize() {
+        for (int i = 0; i < size; i++) {
+            Container c = containers[i];
+            int numRuns = c.numRuns();
+            if (!(c instanceof RunContainer) && RunContainer.bytesFor(numRuns) < c.payloadBytes()) {
+                containers[i] = new RunContainer(c, numRuns);
+            }
+        }
+    }
+
+    /**
+     * Returns the approximate heap footprint of the set in bytes.
+     */
+    long sizeInBytes() {
+        // the bitmap object plus its two arrays, and each container object
+        long bytes = 16 + 16 + 2L * keys.length + 16 + 4L * containers.length;
+        for (int i = 0; i < size; i++) {
+            bytes += 16 + 16 + containers[i].payloadBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes the values in ascending order to `out`, starting at `offset`,
+     * which must leave room for cardinality() values. Returns the number of
+     * values written.
+     */
+    int toArray(int[] out, int offset) {
+        int n = offset;
+        for (int i = 0; i < size; i++) {
+            n += containers[i].decode(out, n, keys[i] << 16);
+        }
+        return n - offset;
+    }
+
+    /**
+     * Returns the union of `bitmaps`.
+     */
+    static RoaringBitmap or(Iterable<RoaringBitmap> bitmaps) {
+        RoaringBitmap result = new RoaringBitmap();
+        // chunks are accumulated as raw bitmap words, parallel to result.keys
+        long[][] words = new long[4][];
+        for (RoaringBitmap bitmap : bitmaps) {
+            for (int j = 0; j < bitmap.size; j++) {
+                int i = result.find(bitmap.keys[j]);
+                if (i < 0) {
+                    i = -i - 1;
+                    result.insertAt(i, bitmap.keys[j], null);
+                    if (result.keys.length > words.length) {
+                        long[][] grown = new long[result.keys.length][];
+                        System.arraycopy(words, 0, grown, 0, words.length);
+                        words = grown;
+                    }
+                    System.arraycopy(words, i, words, i + 1, result.size - i - 1);
+                    words[i] = new long[BITMAP_WORDS];
+                }
+                bitmap.containers[j].orInto(words[i]);
+            }
+        }
+        for (int i = 0; i < result.size; i++) {
+            result.containers[i] = fromWords(words[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the intersection of `a` and `b`.
+     */
+    static RoaringBitmap and(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                Container c = a.containers[i].and(b.containers[j]);
+                if (c.cardinality() > 0) {
+                    result.insertAt(result.size, a.keys[i], c);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * HELPER METHOD
+     * Returns the index of chunk `high`, or -(insertion point) - 1 if absent.
+     */
+    private int find(char high) {
+        int from = 0;
+        int to = size - 1;
+        while (from <= to) {
+            int mid = (from + to) >>> 1;
+            if (keys[mid] < high) {
+                from = mid + 1;
+            } else if (keys[mid] > high) {
+                to = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -from - 1;
+    }
+
+    private void insertAt(int i, char high, Container c) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, 2 * size);
+            Container[] grown = new Container[2 * size];
+            System.arraycopy(containers, 0, grown, 0, size);
+            containers = grown;
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(containers, i, containers, i + 1, size - i);
+        keys[i] = high;
+        containers[i] = c;
+        size++;
+    }
+
+    /**
+     * HELPER METHOD
+     * Returns an array or bitmap container, whichever is smaller, holding the
+     * set bits of `words`, which is taken over.
+     */
+    private static Container fromWords(long[] words) {
+        int card = 0;
+        for (long w : words) {
+            card += Long.bitCount(w);
+        }
+        if (card > ARRAY_MAX) {
+            return new BitmapContainer(words, card);
+        }
+        ArrayContainer c = new ArrayContainer(card);
+        c.card = new BitmapContainer(words, card).decodeLow(c.values);
+        return c;
+    }
+
+    /**
+     * The low 16 bits of the values in one chunk. Writes return the container
+     * that holds the result, which may be a new one of another type.
+     */
+    private abstract static class Container {
+        abstract int cardinality();
+
+        abstract boolean contains(char x);
+
+        abstract Container add(char x);
+
+        abstract Container remove(char x);
+
+        /**
+         * Writes high | v for each value v, in ascending order, to `out`
+         * from `offset`. Returns the number of values written.
+         */
+        abstract int decode(int[] out, int offset, int high);
+
+        /**
+         * ORs the values into 1024 bitmap words.
+         */
+        abstract void orInto(long[] words);
+
+        abstract int numRuns();
+
+        abstract long payloadBytes();
+
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            long[] words = new long[BITMAP_WORDS];
+            orInto(words);
+            long[] otherWords = new long[BITMAP_WORDS];
+            other.orInto(otherWords);
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                words[w] &= otherWords[w];
+            }
+            return fromWords(words);
+        }
+    }
+
+    private static final class ArrayContainer extends Container {
+        char[] values;
+        int card;
+
+        ArrayContainer() {
+            this(4);
+        }
+
+        ArrayContainer(int capacity) {
+            this.values = new char[capacity];
+        }
+
+        @Override
+        int cardinality() {
+            return card;
+        }
+
+        @Override
+        boolean contains(char x) {
+            return Arrays.binarySearch(values, 0, card, x) >= 0;
+        }
+
+        @Override
+        Container add(char x) {
+            int i = Arrays.binarySearch(values, 0, card, x);
+            if (i >= 0) {
+                return this;
+            }
+            if (card == ARRAY_MAX) {
+                long[] words = new long[BITMAP_WORDS];
+                orInto(words);
+                return new BitmapContainer(words, card).add(x);
+            }
+            i = -i - 1;
+            if (card == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, 2 * card));
+            }
+            System.arraycopy(values, i, values, i + 1, card - i);
+            values[i] = x;
+            card++;
+            return this;
+        }
+
+        @Override
+        Container remove(char x) {
+            int i = Arrays.binarySearch(values, 0, card, x);
+            if (i >= 0) {
+                System.arraycopy(values, i + 1, values, i, card - i - 1);
+                card--;
+            }
+            return this;
+        }
+
+        @Override
+        int decode(int[] out, int offset, int high) {
+            for (int i = 0; i < card; i++) {
+                out[offset + i] = high | values[i];
+            }
+            return card;
+        }
+
+        @Override
+        void orInto(long[] words) {
+            char[] values = this.values;
+            for (int i = 0; i < card; i++) {
+                int v = values[i];
+                words[v >>> 6] |= 1L << v;
+            }
+        }
+
+        @Override
+        int numRuns() {
+            int numRuns = card == 0 ? 0 : 1;
+            for (int i = 1; i < card; i++) {
+                numRuns += values[i] != values[i - 1] + 1 ? 1 : 0;
+            }
+            return numRuns;
+        }
+
+        @Override
+        long payloadBytes() {
+            return 2L * values.length;
+        }
+
+        @Override
+        Container and(Container other) {
+            ArrayContainer result = new ArrayContainer(Math.max(1, card));
+            for (int i = 0; i < card; i++) {
+                if (other.contains(values[i])) {
+                    result.values[result.card++] = values[i];
+                }
+            }
+            return result;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        final long[] words;
+        int card;
+
+        BitmapContainer(long[] words, int card) {
+            this.words = words;
+            this.card = card;
+        }
+
+        @Override
+        int cardinality() {
+            return card;
+        }
+
+        @Override
+        boolean contains(char x) {
+            return (words[x >>> 6] & (1L << x)) != 0;
+        }
+
+        @Override
+        Container add(char x) {
+            card += (words[x >>> 6] & (1L << x)) == 0 ? 1 : 0;
+            words[x >>> 6] |= 1L << x;
+            return this;
+        }
+
+        @Override
+        Container remove(char x) {
+            if ((words[x >>> 6] & (1L << x)) == 0) {
+                return this;
+            }
+            words[x >>> 6] &= ~(1L << x);
+            card--;
+            if (card > ARRAY_MAX) {
+                return this;
+            }
+            ArrayContainer c = new ArrayContainer(card);
+            c.card = decodeLow(c.values);
+            return c;
+        }
+
+        /**
+         * Writes the low 16 bits of each value to `out`. Returns the count.
+         */
+        int decodeLow(char[] out) {
+            int n = 0;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    out[n++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return n;
+        }
+
+        @Override
+        int decode(int[] out, int offset, int high) {
+            int n = offset;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    out[n++] = high | ((w << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return n - offset;
+        }
+
+        @Override
+        void orInto(long[] words) {
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                words[w] |= this.words[w];
+            }
+        }
+
+        @Override
+        int numRuns() {
+            int numRuns = 0;
+            long carry = 0;
+            for (long word : words) {
+                // bits that are set but whose predecessor is not start a run
+                numRuns += Long.bitCount(word & ~((word << 1) | carry));
+                carry = word >>> 63;
+            }
+            return numRuns;
+        }
+
+        @Override
+        long payloadBytes() {
+            return 8L * BITMAP_WORDS;
+        }
+    }
+
+    private static final class RunContainer extends Container {
+        // runs[2k] is the start of run k and runs[2k + 1] its length - 1
+        final char[] runs;
+        final int numRuns;
+        final int card;
+
+        static long bytesFor(int numRuns) {
+            return 4L * numRuns;
+        }
+
+        RunContainer(Container from, int numRuns) {
+            this.numRuns = numRuns;
+            this.runs = new char[2 * numRuns];
+            this.card = from.cardinality();
+            int[] values = new int[card];
+            from.decode(values, 0, 0);
+            int k = -1;
+            for (int i = 0; i < card; i++) {
+                if (i == 0 || values[i] != values[i - 1] + 1) {
+                    k++;
+                    runs[2 * k] = (char) values[i];
+                } else {
+                    runs[2 * k + 1]++;
+                }
+            }
+        }
+
+        @Override
+        int cardinality() {
+            return card;
+        }
+
+        @Override
+        boolean contains(char x) {
+            // last run starting at or before x
+            int from = 0;
+            int to = numRuns - 1;
+            while (from <= to) {
+                int mid = (from + to) >>> 1;
+                if (runs[2 * mid] <= x) {
+                    from = mid + 1;
+                } else {
+                    to = mid - 1;
+                }
+            }
+            return to >= 0 && x - runs[2 * to] <= runs[2 * to + 1];
+        }
+
+        /**
+         * HELPER METHOD
+         * Returns the values as an array or bitmap container, for writing.
+         */
+        private Container expand() {
+            long[] words = new long[BITMAP_WORDS];
+            orInto(words);
+            return fromWords(words);
+        }
+
+        @Override
+        Container add(char x) {
+            return contains(x) ? this : expand().add(x);
+        }
+
+        @Override
+        Container remove(char x) {
+            return contains(x) ? expand().remove(x) : this;
+        }
+
+        @Override
+        int decode(int[] out, int offset, int high) {
+            int n = offset;
+            for (int k = 0; k < numRuns; k++) {
+                int start = high | runs[2 * k];
+                int end = start + runs[2 * k + 1];
+                for (int v = start; v <= end; v++) {
+                    out[n++] = v;
+                }
+            }
+            return n - offset;
+        }
+
+        @Override
+        void orInto(long[] words) {
+            for (int k = 0; k < numRuns; k++) {
+                int start = runs[2 * k];
+                int end = start + runs[2 * k + 1] + 1;
+                int first = start >>> 6;
+                int last = (end - 1) >>> 6;
+                long firstMask = -1L << start;
+                long lastMask = -1L >>> (-end & 63);
+                if (first == last) {
+                    words[first] |= firstMask & lastMask;
+                } else {
+                    words[first] |= firstMask;
+                    for (int w = first + 1; w < last; w++) {
+                        words[w] = -1L;
+                    }
+                    words[last] |= lastMask;
+                }
+            }
+        }
+
+        @Override
+        int numRuns() {
+            return numRuns;
+        }
+
+        @Override
+        long payloadBytes() {
+            return bytesFor(numRuns);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package memstore.table;
+
+/**
+ * The sum of all fields of each row, one long per row.
+ */
+public class RowSumView implements AggregateView {
+    private long[] sums = new long[0];
+
+    @Override
+    public void build(Table table, int numRows, int numCols) {
+        sums = new long[numRows];
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            long sum = 0;
+            for (int colId = 0; colId < numCols; colId++) {
+                sum += table.getIntField(rowId, colId);
+            }
+            sums[rowId] = sum;
+        }
+    }
+
+    @Override
+    public boolean watches(int colId) {
+        return true;
+    }
+
+    @Override
+    public void update(int rowId, int colId, int oldValue, int newValue) {
+        sums[rowId] += (long) newValue - oldValue;
+    }
+
+    /**
+     * Adds `delta` to the sum of row `rowId`.
+     */
+    public void add(int rowId, long delta) {
+        sums[rowId] += delta;
+    }
+
+    /**
+     * Returns the sum of the fields of row `rowId`.
+     */
+    public long get(int rowId) {
+        return sums[rowId];
+    }
+
+    @Override
+    public long sizeInBytes() {
+        return 8L * sums.length;
+    }
+}
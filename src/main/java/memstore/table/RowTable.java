@@ -12,11 +12,16 @@ import java.util.List;
  * RowTable, which stores data in row-major format.
  * That is, data is laid out like
  *   row 1 | row 2 | ... | row n.
+ *
+ * A ZoneMap keeps the min, max and sum of each column per block of rows, so
+ * scans skip blocks that cannot match and add up blocks that match entirely
+ * without reading them.
  */
 public class RowTable implements Table {
     protected int numCols;
     protected int numRows;
     protected ByteBuffer rows;
+    private ZoneMap zoneMap;
 
     public RowTable() { }
 
@@ -40,6 +45,8 @@ public class RowTable implements Table {
                 this.rows.putInt(offset, curRow.getInt(ByteFormat.FIELD_LEN * colId));
             }
         }
+        this.zoneMap = new ZoneMap(numRows, numCols);
+        zoneMap.build(this);
     }
 
     /**
@@ -63,7 +70,9 @@ public class RowTable implements Table {
     public void putIntField(int rowId, int colId, int field) {
         // TODO: Implement this!
         int offset = ByteFormat.FIELD_LEN * ((rowId * numCols) + colId);
+        int oldValue = this.rows.getInt(offset);
         this.rows.putInt(offset, field);
+        zoneMap.update(rowId, colId, oldValue, field);
     }
 
     /**
@@ -74,13 +83,7 @@ public class RowTable implements Table {
      */
     @Override
     public long columnSum() {
-        // TODO: Implement this!
-        long required_sum = 0;
-        for (int rowId = 0; rowId < numRows; rowId++) {
-            int offset = ByteFormat.FIELD_LEN*rowId*numCols;
-            required_sum+=this.rows.getInt(offset);
-        }
-        return required_sum;
+        return zoneMap.columnSum(0);
     }
 
     /**
@@ -92,14 +95,22 @@ public class RowTable implements Table {
      */
     @Override
     public long predicatedColumnSum(int threshold1, int threshold2) {
-        // TODO: Implement this!
         long required_sum = 0;
-        for (int rowId = 0; rowId < numRows; rowId++) {
-            int col1_val = getIntField(rowId, 1);
-            if (col1_val > threshold1) {
-                int col2_val = getIntField(rowId, 2);
-                if (col2_val < threshold2) {
-                    required_sum += getIntField(rowId, 0);
+        for (int block = 0; block < zoneMap.numBlocks; block++) {
+            if (zoneMap.max(1, block) <= threshold1 || zoneMap.min(2, block) >= threshold2) {
+                continue;
+            }
+            if (zoneMap.min(1, block) > threshold1 && zoneMap.max(2, block) < threshold2) {
+                required_sum += zoneMap.sum(0, block);
+                continue;
+            }
+            for (int rowId = zoneMap.blockStart(block); rowId < zoneMap.blockEnd(block); rowId++) {
+                int col1_val = getIntField(rowId, 1);
+                if (col1_val > threshold1) {
+                    int col2_val = getIntField(rowId, 2);
+                    if (col2_val < threshold2) {
+                        required_sum += getIntField(rowId, 0);
+                    }
                 }
             }
         }
@@ -114,13 +125,21 @@ public class RowTable implements Table {
      */
     @Override
     public long predicatedAllColumnsSum(int threshold) {
-        // TODO: Implement this!
         long runningSum = 0;
-        for (int rowId = 0; rowId < numRows; rowId++){
-            int col0_val = getIntField(rowId, 0);
-            if (col0_val > threshold){
-                for (int colId = 0; colId < numCols; colId++){
-                    runningSum += getIntField(rowId,colId);
+        for (int block = 0; block < zoneMap.numBlocks; block++) {
+            if (zoneMap.max(0, block) <= threshold) {
+                continue;
+            }
+            if (zoneMap.min(0, block) > threshold) {
+                runningSum += zoneMap.rowSum(block);
+                continue;
+            }
+            for (int rowId = zoneMap.blockStart(block); rowId < zoneMap.blockEnd(block); rowId++){
+                int col0_val = getIntField(rowId, 0);
+                if (col0_val > threshold){
+                    for (int colId = 0; colId < numCols; colId++){
+                        runningSum += getIntField(rowId,colId);
+                    }
                 }
             }
         }
@@ -135,16 +154,31 @@ public class RowTable implements Table {
      */
     @Override
     public int predicatedUpdate(int threshold) {
-        // TODO: Implement this!
         int updatedRows = 0;
-        for (int rowId = 0; rowId < numRows; rowId++) {
-            int row_offset = ByteFormat.FIELD_LEN * rowId * numCols;
-            int col0_val = this.rows.getInt(row_offset);
-            if (col0_val < threshold) {
-                updatedRows += 1;
-                int col3_val = this.rows.getInt(row_offset + ByteFormat.FIELD_LEN * 3);
-                int col2_val = this.rows.getInt(row_offset + ByteFormat.FIELD_LEN * 2);
-                this.rows.putInt(row_offset + ByteFormat.FIELD_LEN *3, col3_val + col2_val);
+        for (int block = 0; block < zoneMap.numBlocks; block++) {
+            if (zoneMap.min(0, block) >= threshold) {
+                continue;
+            }
+            // widen col3's block metadata by the rows that changed
+            int col3_min = Integer.MAX_VALUE;
+            int col3_max = Integer.MIN_VALUE;
+            long col3_delta = 0;
+            for (int rowId = zoneMap.blockStart(block); rowId < zoneMap.blockEnd(block); rowId++) {
+                int row_offset = ByteFormat.FIELD_LEN * rowId * numCols;
+                int col0_val = this.rows.getInt(row_offset);
+                if (col0_val < threshold) {
+                    updatedRows += 1;
+                    int col2_val = this.rows.getInt(row_offset + ByteFormat.FIELD_LEN * 2);
+                    int old_col3 = this.rows.getInt(row_offset + ByteFormat.FIELD_LEN * 3);
+                    int col3_val = old_col3 + col2_val;
+                    this.rows.putInt(row_offset + ByteFormat.FIELD_LEN *3, col3_val);
+                    col3_min = Math.min(col3_min, col3_val);
+                    col3_max = Math.max(col3_max, col3_val);
+                    col3_delta += (long) col3_val - old_col3;
+                }
+            }
+            if (col3_min <= col3_max) {
+                zoneMap.widen(3, block, col3_min, col3_max, col3_delta);
             }
         }
         return updatedRows;
@@ -0,0 +1,143 @@
+package memstore.table;
+
+import java.util.Arrays;
+
+/**
+ * A column of ints stored as runs of equal values: runValues[i] repeats
+ * from row runEnds[i-1] (or 0) up to, but excluding, row runEnds[i].
+ *
+ * Aggregates and predicates work one run at a time (value * length), so
+ * clustered columns are scanned in time proportional to their number of runs.
+ */
+class RunLengthColumn implements EncodedColumn {
+    final int numRows;
+    final int[] runValues;
+    final int[] runEnds;
+
+    private RunLengthColumn(int[] runValues, int[] runEnds) {
+        this.runValues = runValues;
+        this.runEnds = runEnds;
+        this.numRows = runEnds.length == 0 ? 0 : runEnds[runEnds.length - 1];
+    }
+
+    static int countRuns(int[] values) {
+        int numRuns = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (i == 0 || values[i] != values[i - 1]) {
+                numRuns++;
+            }
+        }
+        return numRuns;
+    }
+
+    static long sizeInBytes(int numRuns) {
+        return 8L * numRuns;
+    }
+
+    static RunLengthColumn encode(int[] values) {
+        int numRuns = countRuns(values);
+        int[] runValues = new int[numRuns];
+        int[] runEnds = new int[numRuns];
+        int run = -1;
+        for (int i = 0; i < values.length; i++) {
+            if (i == 0 || values[i] != values[i - 1]) {
+                runValues[++run] = values[i];
+            }
+            runEnds[run] = i + 1;
+        }
+        return new RunLengthColumn(runValues, runEnds);
+    }
+
+    /**
+     * HELPER METHOD
+     * Returns the index of the run containing `row`.
+     */
+    private int runOf(int row) {
+        int idx = Arrays.binarySearch(runEnds, row + 1);
+        return idx >= 0 ? idx : -idx - 1;
+    }
+
+    @Override
+    public int get(int row) {
+        return runValues[runOf(row)];
+    }
+
+    /**
+     * Only writes that do not change the value can be absorbed; anything else
+     * would split a run.
+     */
+    @Override
+    public boolean set(int row, int value) {
+        return runValues[runOf(row)] == value;
+    }
+
+    @Override
+    public int[] decode() {
+        int[] values = new int[numRows];
+        int start = 0;
+        for (int run = 0; run < runValues.length; run++) {
+            Arrays.fill(values, start, runEnds[run], runValues[run]);
+            start = runEnds[run];
+        }
+        return values;
+    }
+
+    @Override
+    public long sum() {
+        long sum = 0;
+        int start = 0;
+        for (int run = 0; run < runValues.length; run++) {
+            sum += (long) runValues[run] * (runEnds[run] - start);
+            start = runEnds[run];
+        }
+        return sum;
+    }
+
+    @Override
+    public void selectAbove(int threshold, long[] sel, boolean intersect) {
+        if (!intersect) {
+            Arrays.fill(sel, 0L);
+        }
+        int start = 0;
+        for (int run = 0; run < runValues.length; run++) {
+            mark(runValues[run] > threshold, start, runEnds[run], sel, intersect);
+            start = runEnds[run];
+        }
+    }
+
+    @Override
+    public void selectBelow(int threshold, long[] sel, boolean intersect) {
+        if (!intersect) {
+            Arrays.fill(sel, 0L);
+        }
+        int start = 0;
+        for (int run = 0; run < runValues.length; run++) {
+            mark(runValues[run] < threshold, start, runEnds[run], sel, intersect);
+            start = runEnds[run];
+        }
+    }
+
+    private static void mark(boolean match, int from, int to, long[] sel, boolean intersect) {
+        if (intersect && !match) {
+            Bits.clearRange(sel, from, to);
+        } else if (!intersect && match) {
+            Bits.setRange(sel, from, to);
+        }
+    }
+
+    @Override
+    public long sumSelected(long[] sel) {
+        long sum = 0;
+        int start = 0;
+        for (int run = 0; run < runValues.length; run++) {
+            sum += (long) runValues[run] * Bits.count(sel, start, runEnds[run]);
+            start = runEnds[run];
+        }
+        return sum;
+    }
+
+    @Override
+    public long sizeInBytes() {
+        return sizeInBytes(runValues.length);
+    }
+}
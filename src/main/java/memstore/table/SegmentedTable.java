@@ -0,0 +1,524 @@
+package memstore.table;
+
+import memstore.data.ByteFormat;
+import memstore.data.DataLoader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * SegmentedTable, which stores rows in fixed-size segments, each laid out in
+ * column-major format:
+ *   segment 0: [col 1 | ... | col m] | segment 1: [col 1 | ... | col m] | ...
+ * Row `rowId` lives in segment rowId >> segmentShift, so inserts append to the
+ * last segment and start a new one when it is full, never copying old rows.
+ *
+ * Deletes set a bit in the segment's tombstone bitmap. Queries scan all
+ * slots of a segment, then walk its tombstones to take deleted rows back out,
+ * which keeps the scan loops branch-free while deletes are sparse. Once more
+ * than compactFraction of a full segment is deleted, a background thread
+ * compacts it into a copy holding only the live rows, along with each
+ * row's offset in the segment so that row ids stay the same.
+ */
+public class SegmentedTable implements MutableTable {
+    public static final int DEFAULT_SEGMENT_SHIFT = 16;
+    // compact a full segment once more than this fraction of its rows is deleted
+    public static final double DEFAULT_COMPACT_FRACTION = 0.25;
+
+    // shared by all tables, so that creating tables does not leave idle threads behind
+    private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "segmented-table-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    int numCols;
+    int numRows;
+    private final int segmentShift;
+    private final int segmentRows;
+    private final double compactFraction;
+    private final List<Segment> segments = new ArrayList<>();
+    // scratch selection mask reused by predicatedAllColumnsSum: -1 if selected, 0 otherwise
+    private final int[] mask;
+
+    private final List<Compaction> compactions = new ArrayList<>();
+
+    public SegmentedTable() {
+        this(DEFAULT_SEGMENT_SHIFT);
+    }
+
+    /**
+     * @param segmentShift log2 of the number of rows per segment.
+     */
+    public SegmentedTable(int segmentShift) {
+        this(0, segmentShift, DEFAULT_COMPACT_FRACTION);
+    }
+
+    /**
+     * Creates an empty table with `numCols` columns, ready for insertRow
+     * without a load; load still replaces its contents.
+     *
+     * @param segmentShift    log2 of the number of rows per segment.
+     * @param compactFraction fraction of a full segment's rows that must be
+     *                        deleted before it is compacted in the background;
+     *                        1 never compacts in the background.
+     */
+    public SegmentedTable(int numCols, int segmentShift, double compactFraction) {
+        this.numCols = numCols;
+        this.segmentShift = segmentShift;
+        this.segmentRows = 1 << segmentShift;
+        this.compactFraction = compactFraction;
+        this.mask = new int[segmentRows];
+    }
+
+    /**
+     * One segment of rows. Slots [0, size) hold rows; the rows of an
+     * uncompacted segment sit at the slot equal to their offset in the segment.
+     */
+    private static final class Segment {
+        final int capacity;
+        final int[][] columns;
+        final long[] deleted;
+        // offset in the segment of the row in each slot, or null if slot == offset
+        final int[] offsets;
+        int size;
+        int numDeleted;
+        // bumped on every write, so that a compaction racing with writes is dropped
+        int modCount;
+        boolean compacting;
+
+        Segment(int numCols, int capacity, boolean compacted) {
+            this.capacity = capacity;
+            this.columns = new int[numCols][capacity];
+            this.deleted = new long[(capacity + 63) >>> 6];
+            this.offsets = compacted ? new int[capacity] : null;
+        }
+
+        boolean isFull() {
+            return size == capacity;
+        }
+
+        /**
+         * Returns the slot holding the live row at `offset`, or -1 if there is none.
+         */
+        int slotOf(int offset) {
+            int slot;
+            if (offsets == null) {
+                slot = offset < size ? offset : -1;
+            } else {
+                slot = Arrays.binarySearch(offsets, 0, size, offset);
+            }
+            return slot >= 0 && !Bits.get(deleted, slot) ? slot : -1;
+        }
+
+        int offsetOf(int slot) {
+            return offsets == null ? slot : offsets[slot];
+        }
+    }
+
+    private static final class Compaction {
+        final int segId;
+        final int modCount;
+        final Future<Segment> result;
+
+        Compaction(int segId, int modCount, Future<Segment> result) {
+            this.segId = segId;
+            this.modCount = modCount;
+            this.result = result;
+        }
+    }
+
+    /**
+     * Loads data into the table through passed-in data loader. Is not timed.
+     *
+     * @param loader Loader to load data from.
+     * @throws IOException
+     */
+    @Override
+    public void load(DataLoader loader) throws IOException {
+        for (Compaction c : compactions) {
+            c.result.cancel(true);
+        }
+        compactions.clear();
+        segments.clear();
+        this.numCols = loader.getNumCols();
+        List<ByteBuffer> rows = loader.getRows();
+        numRows = 0;
+
+        int[] row = new int[numCols];
+        for (ByteBuffer curRow : rows) {
+            for (int colId = 0; colId < numCols; colId++) {
+                row[colId] = curRow.getInt(ByteFormat.FIELD_LEN * colId);
+            }
+            insertRow(row);
+        }
+    }
+
+    /**
+     * Returns the number of segments.
+     */
+    public int getNumSegments() {
+        return segments.size();
+    }
+
+    /**
+     * Returns the number of rows that have not been deleted.
+     */
+    @Override
+    public int getNumRows() {
+        return numRows;
+    }
+
+    /**
+     * HELPER METHOD
+     * Returns the segment holding row `rowId`, or null if it was never inserted.
+     */
+    private Segment segmentOf(int rowId) {
+        int segId = rowId >>> segmentShift;
+        return rowId >= 0 && segId < segments.size() ? segments.get(segId) : null;
+    }
+
+    /**
+     * Returns whether row `rowId` exists and has not been deleted.
+     */
+    @Override
+    public boolean containsRow(int rowId) {
+        Segment seg = segmentOf(rowId);
+        return seg != null && seg.slotOf(rowId & (segmentRows - 1)) >= 0;
+    }
+
+    /**
+     * HELPER METHOD
+     * Returns the slot of row `rowId` in its segment.
+     *
+     * @throws IllegalArgumentException if the row does not exist or was deleted.
+     */
+    private int slotOf(Segment seg, int rowId) {
+        int slot = seg == null ? -1 : seg.slotOf(rowId & (segmentRows - 1));
+        if (slot < 0) {
+            throw new IllegalArgumentException("no row " + rowId);
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the int field at row `rowId` and column `colId`.
+     */
+    @Override
+    public int getIntField(int rowId, int colId) {
+        Segment seg = segmentOf(rowId);
+        int slot = slotOf(seg, rowId);
+        return seg.columns[colId][slot];
+    }
+
+    /**
+     * Inserts the passed-in int field at row `rowId` and column `colId`.
+     */
+    @Override
+    public void putIntField(int rowId, int colId, int field) {
+        finishCompactions();
+        Segment seg = segmentOf(rowId);
+        int slot = slotOf(seg, rowId);
+        seg.columns[colId][slot] = field;
+        seg.modCount++;
+    }
+
+    /**
+     * Appends a row and returns its row id. Row ids of deleted rows are never reused.
+     *
+     * @param row one value per column.
+     */
+    @Override
+    public int insertRow(int[] row) {
+        if (row.length != numCols) {
+            throw new IllegalArgumentException("expected " + numCols + " columns, got " + row.length);
+        }
+        finishCompactions();
+        Segment tail = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (tail == null || tail.offsets != null || tail.isFull()) {
+            tail = new Segment(numCols, segmentRows, false);
+            segments.add(tail);
+        }
+        int slot = tail.size++;
+        for (int colId = 0; colId < numCols; colId++) {
+            tail.columns[colId][slot] = row[colId];
+        }
+        tail.modCount++;
+        numRows++;
+        return ((segments.size() - 1) << segmentShift) + slot;
+    }
+
+    /**
+     * Deletes row `rowId`, compacting its segment in the background if it is
+     * full and enough of it has been deleted.
+     *
+     * @return false if there is no such row, or it was already deleted.
+     */
+    @Override
+    public boolean deleteRow(int rowId) {
+        finishCompactions();
+        Segment seg = segmentOf(rowId);
+        int slot = seg == null ? -1 : seg.slotOf(rowId & (segmentRows - 1));
+        if (slot < 0) {
+            return false;
+        }
+        seg.deleted[slot >>> 6] |= 1L << slot;
+        seg.numDeleted++;
+        seg.modCount++;
+        numRows--;
+        if (!seg.compacting && seg.isFull() && seg.numDeleted > compactFraction * seg.size) {
+            startCompaction(rowId >>> segmentShift);
+        }
+        return true;
+    }
+
+    /**
+     * Compacts every full segment with deleted rows on the calling thread,
+     * after waiting for background compactions to finish. The last segment
+     * is left as it is until it fills, since inserts append to its slots.
+     */
+    public void compact() {
+        awaitCompaction();
+        for (int segId = 0; segId < segments.size(); segId++) {
+            Segment seg = segments.get(segId);
+            if (seg.numDeleted > 0 && seg.isFull()) {
+                segments.set(segId, compacted(seg, seg.size - seg.numDeleted, numCols));
+            }
+        }
+    }
+
+    /**
+     * Blocks until all background compactions have finished and been swapped in.
+     */
+    public void awaitCompaction() {
+        while (!compactions.isEmpty()) {
+            for (Compaction c : compactions) {
+                try {
+                    c.result.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException e) {
+                    // handled by finishCompactions
+                }
+            }
+            finishCompactions();
+        }
+    }
+
+    /**
+     * HELPER METHOD
+     * Starts compacting segment `segId` on the background thread.
+     */
+    private void startCompaction(int segId) {
+        Segment seg = segments.get(segId);
+        int numCols = this.numCols;
+        int live = seg.size - seg.numDeleted;
+        seg.compacting = true;
+        compactions.add(new Compaction(segId, seg.modCount, COMPACTOR.submit(() -> compacted(seg, live, numCols))));
+    }
+
+    /**
+     * HELPER METHOD
+     * Swaps in finished compactions, unless their segment was written to while
+     * they ran; such segments are compacted again from their current state.
+     */
+    private void finishCompactions() {
+        if (compactions.isEmpty()) {
+            return;
+        }
+        List<Integer> retry = null;
+        Iterator<Compaction> it = compactions.iterator();
+        while (it.hasNext()) {
+            Compaction c = it.next();
+            if (!c.result.isDone()) {
+                continue;
+            }
+            it.remove();
+            Segment seg = segments.get(c.segId);
+            seg.compacting = false;
+            Segment next;
+            try {
+                next = c.result.get();
+            } catch (InterruptedException | ExecutionException e) {
+                // keep the uncompacted segment
+                continue;
+            }
+            if (seg.modCount == c.modCount) {
+                segments.set(c.segId, next);
+            } else {
+                if (retry == null) {
+                    retry = new ArrayList<>();
+                }
+                retry.add(c.segId);
+            }
+        }
+        if (retry != null) {
+            for (int segId : retry) {
+                startCompaction(segId);
+            }
+        }
+    }
+
+    /**
+     * HELPER METHOD
+     * Returns a copy of `seg` holding only its `live` live rows.
+     */
+    private static Segment compacted(Segment seg, int live, int numCols) {
+        Segment out = new Segment(numCols, live, true);
+        int slot = 0;
+        for (int s = 0; s < seg.size; s++) {
+            if (!Bits.get(seg.deleted, s)) {
+                out.offsets[slot++] = seg.offsetOf(s);
+            }
+        }
+        for (int colId = 0; colId < numCols; colId++) {
+            int[] from = seg.columns[colId];
+            int[] to = out.columns[colId];
+            slot = 0;
+            for (int s = 0; s < seg.size; s++) {
+                if (!Bits.get(seg.deleted, s)) {
+                    to[slot++] = from[s];
+                }
+            }
+        }
+        out.size = live;
+        return out;
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) FROM table;
+     *
+     *  Returns the sum of all elements in the first column of the table.
+     */
+    @Override
+    public long columnSum() {
+        long sum = 0;
+        for (Segment seg : segments) {
+            int[] col0 = seg.columns[0];
+            for (int i = 0; i < seg.size; i++) {
+                sum += col0[i];
+            }
+            if (seg.numDeleted > 0) {
+                for (int w = 0; w < seg.deleted.length; w++) {
+                    for (long bits = seg.deleted[w]; bits != 0; bits &= bits - 1) {
+                        sum -= col0[(w << 6) + Long.numberOfTrailingZeros(bits)];
+                    }
+                }
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) FROM table WHERE col1 > threshold1 AND col2 < threshold2;
+     *
+     *  Returns the sum of all elements in the first column of the table,
+     *  subject to the passed-in predicates.
+     */
+    @Override
+    public long predicatedColumnSum(int threshold1, int threshold2) {
+        long sum = 0;
+        for (Segment seg : segments) {
+            int[] col0 = seg.columns[0];
+            int[] col1 = seg.columns[1];
+            int[] col2 = seg.columns[2];
+            for (int i = 0; i < seg.size; i++) {
+                sum += (col1[i] > threshold1 & col2[i] < threshold2) ? col0[i] : 0;
+            }
+            if (seg.numDeleted > 0) {
+                for (int w = 0; w < seg.deleted.length; w++) {
+                    for (long bits = seg.deleted[w]; bits != 0; bits &= bits - 1) {
+                        int i = (w << 6) + Long.numberOfTrailingZeros(bits);
+                        sum -= (col1[i] > threshold1 & col2[i] < threshold2) ? col0[i] : 0;
+                    }
+                }
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Implements the query
+     *  SELECT SUM(col0) + SUM(col1) + ... + SUM(coln) FROM table WHERE col0 > threshold;
+     *
+     *  Returns the sum of all elements in the rows which pass the predicate.
+     *
+     *  Evaluates the predicate of each segment once into a mask, clears the
+     *  mask of deleted rows, then adds up each column under the mask.
+     */
+    @Override
+    public long predicatedAllColumnsSum(int threshold) {
+        long sum = 0;
+        for (Segment seg : segments) {
+            int[] col0 = seg.columns[0];
+            for (int i = 0; i < seg.size; i++) {
+                mask[i] = col0[i] > threshold ? -1 : 0;
+            }
+            if (seg.numDeleted > 0) {
+                for (int w = 0; w < seg.deleted.length; w++) {
+                    for (long bits = seg.deleted[w]; bits != 0; bits &= bits - 1) {
+                        mask[(w << 6) + Long.numberOfTrailingZeros(bits)] = 0;
+                    }
+                }
+            }
+            for (int colId = 0; colId < numCols; colId++) {
+                int[] col = seg.columns[colId];
+                for (int i = 0; i < seg.size; i++) {
+                    sum += col[i] & mask[i];
+                }
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Implements the query
+     *   UPDATE(col3 = col3 + col2) WHERE col0 < threshold;
+     *
+     *   Returns the number of rows updated.
+     *
+     *   Deleted rows are updated too, since their values are never read again,
+     *   but are not counted.
+     */
+    @Override
+    public int predicatedUpdate(int threshold) {
+        finishCompactions();
+        int updatedRows = 0;
+        for (Segment seg : segments) {
+            int[] col0 = seg.columns[0];
+            int[] col2 = seg.columns[2];
+            int[] col3 = seg.columns[3];
+            int segUpdated = 0;
+            for (int i = 0; i < seg.size; i++) {
+                int selected = col0[i] < threshold ? -1 : 0;
+                col3[i] += col2[i] & selected;
+                segUpdated -= selected;
+            }
+            if (seg.numDeleted > 0) {
+                for (int w = 0; w < seg.deleted.length; w++) {
+                    for (long bits = seg.deleted[w]; bits != 0; bits &= bits - 1) {
+                        if (col0[(w << 6) + Long.numberOfTrailingZeros(bits)] < threshold) {
+                            segUpdated--;
+                        }
+                    }
+                }
+            }
+            if (segUpdated > 0) {
+                seg.modCount++;
+                updatedRows += segUpdated;
+            }
+        }
+        return updatedRows;
+    }
+}
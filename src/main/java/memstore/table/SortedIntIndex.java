@@ -0,0 +1,197 @@
+package memstore.table;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An ordered map from int keys to values, stored as a sorted int[] of keys
+ * and a parallel array of values.
+ *
+ * A range is read through a Cursor: one binary search finds where the range
+ * starts, and the walk then steps through consecutive array slots, with no
+ * boxing and no further searches. Tables keep one cursor per index and reuse
+ * it, so queries allocate nothing.
+ *
+ * Inserting or removing a key shifts the keys after it, which is cheap for
+ * the few thousand distinct values of a typical indexed column.
+ */
+public class SortedIntIndex<V> implements OrderedIntIndex<V> {
+    private int[] keys = new int[16];
+    private Object[] values = new Object[16];
+    private int size;
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the value of `key`, or null if it is absent.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int pos = Arrays.binarySearch(keys, 0, size, key);
+        return pos >= 0 ? (V) values[pos] : null;
+    }
+
+    /**
+     * Maps `key` to `value`, replacing any previous value.
+     */
+    @Override
+    public void put(int key, V value) {
+        int pos = Arrays.binarySearch(keys, 0, size, key);
+        if (pos >= 0) {
+            values[pos] = value;
+            return;
+        }
+        pos = -pos - 1;
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, 2 * size);
+            values = Arrays.copyOf(values, 2 * size);
+        }
+        System.arraycopy(keys, pos, keys, pos + 1, size - pos);
+        System.arraycopy(values, pos, values, pos + 1, size - pos);
+        keys[pos] = key;
+        values[pos] = value;
+        size++;
+    }
+
+    /**
+     * Removes `key`. Returns its value, or null if it was absent.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int pos = Arrays.binarySearch(keys, 0, size, key);
+        if (pos < 0) {
+            return null;
+        }
+        V value = (V) values[pos];
+        System.arraycopy(keys, pos + 1, keys, pos, size - pos - 1);
+        System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+        values[--size] = null;
+        return value;
+    }
+
+    /**
+     * Returns the first position whose key is > `key`.
+     */
+    private int upperBound(int key) {
+        int from = 0;
+        int to = size;
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (keys[mid] <= key) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Returns the first position whose key is >= `key`.
+     */
+    private int lowerBound(int key) {
+        int from = 0;
+        int to = size;
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (keys[mid] < key) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    @Override
+    public Cursor<V> cursor() {
+        return new Cursor<>(this);
+    }
+
+    /**
+     * A reusable iterator over the entries of a key range, in ascending key
+     * order. Each seek positions it on a new range; iterator() rewinds it to
+     * the start of the range, so a range can be walked more than once.
+     *
+     * The index must not be modified while a range is being walked, except
+     * through the values themselves.
+     */
+    public static final class Cursor<V> implements OrderedIntIndex.Cursor<V> {
+        private final SortedIntIndex<V> index;
+        private int from;
+        private int to;
+        private int pos;
+
+        private Cursor(SortedIntIndex<V> index) {
+            this.index = index;
+        }
+
+        /**
+         * Positions the cursor on every key.
+         */
+        @Override
+        public Cursor<V> seekAll() {
+            return range(0, index.size);
+        }
+
+        /**
+         * Positions the cursor on the keys > `key`.
+         */
+        @Override
+        public Cursor<V> seekAbove(int key) {
+            return range(index.upperBound(key), index.size);
+        }
+
+        /**
+         * Positions the cursor on the keys < `key`.
+         */
+        @Override
+        public Cursor<V> seekBelow(int key) {
+            return range(0, index.lowerBound(key));
+        }
+
+        private Cursor<V> range(int from, int to) {
+            this.from = from;
+            this.to = to;
+            this.pos = from;
+            return this;
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            pos = from;
+            return this;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return pos < to;
+        }
+
+        /**
+         * Returns the value of the next entry; key() then returns its key.
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (pos >= to) {
+                throw new NoSuchElementException();
+            }
+            return (V) index.values[pos++];
+        }
+
+        /**
+         * Returns the key of the entry last returned by next().
+         */
+        @Override
+        public int key() {
+            return index.keys[pos - 1];
+        }
+    }
+}
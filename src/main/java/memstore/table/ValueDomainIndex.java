@@ -0,0 +1,185 @@
+package memstore.table;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+/**
+ * An index for a column whose values fall in a small range [lo, hi], laid
+ * out like a CSR matrix: one contiguous array of row ids grouped by value,
+ * and the start of each value's segment. It is built by a counting sort in
+ * two passes, and the rows with a range of values are read with sequential
+ * scans of their segments, without any search.
+ *
+ * Each segment has slack after its rows, so a write moves the row id into
+ * the new value's slack in O(1). A value that has used up its slack takes
+ * further rows in a per-value overflow list; the table rebuilds the index
+ * once the overflow lists hold a sizeable fraction of the rows. Within a
+ * segment rows are in row order after a build, and in no particular order
+ * after writes.
+ */
+class ValueDomainIndex {
+    // slack of each segment, as a fraction of its rows at build time (at least 1)
+    static final double SLACK_FRACTION = 0.125;
+    // the table should rebuild once the overflow lists hold this fraction of the rows
+    static final double REBUILD_FRACTION = 0.0625;
+
+    final int lo;
+    final int hi;
+    final int numRows;
+    // start[v - lo] is the first slot of value v's segment, start[hi - lo + 1] the end
+    private final int[] start;
+    // live rows at the head of each segment
+    private final int[] count;
+    private final int[] rowIds;
+    // row id -> its slot in rowIds, or -(i + 1) if it is entry i of its value's overflow list
+    private final int[] slotOf;
+    // per-value overflow lists, null until needed
+    private final IntArrayList[] overflow;
+    private int overflowRows;
+
+    /**
+     * Builds the index for `values`, which must all lie in [lo, hi].
+     */
+    ValueDomainIndex(int[] values, int lo, int hi) {
+        this.lo = lo;
+        this.hi = hi;
+        this.numRows = values.length;
+        int numValues = hi - lo + 1;
+        this.start = new int[numValues + 1];
+        this.count = new int[numValues];
+        this.overflow = new IntArrayList[numValues];
+        this.slotOf = new int[numRows];
+
+        for (int value : values) {
+            count[value - lo]++;
+        }
+        for (int v = 0; v < numValues; v++) {
+            int slack = Math.max(1, (int) (count[v] * SLACK_FRACTION));
+            start[v + 1] = start[v] + count[v] + slack;
+            count[v] = 0;
+        }
+        this.rowIds = new int[start[numValues]];
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            int v = values[rowId] - lo;
+            int slot = start[v] + count[v]++;
+            rowIds[slot] = rowId;
+            slotOf[rowId] = slot;
+        }
+    }
+
+    boolean covers(int value) {
+        return value >= lo && value <= hi;
+    }
+
+    /**
+     * Returns the array holding every segment.
+     */
+    int[] rowIds() {
+        return rowIds;
+    }
+
+    /**
+     * Returns the first slot of the rows with `value` in rowIds().
+     */
+    int start(int value) {
+        return start[value - lo];
+    }
+
+    /**
+     * Returns the number of rows with `value` in its segment.
+     */
+    int count(int value) {
+        return count[value - lo];
+    }
+
+    /**
+     * Returns the rows with `value` that did not fit in its segment, or null.
+     */
+    IntArrayList overflow(int value) {
+        return overflow[value - lo];
+    }
+
+    /**
+     * Returns the number of rows with a value in [from, to].
+     */
+    long countRange(int from, int to) {
+        long total = 0;
+        for (int v = from - lo; v <= to - lo; v++) {
+            total += count[v] + (overflow[v] == null ? 0 : overflow[v].size());
+        }
+        return total;
+    }
+
+    /**
+     * Moves `rowId` from `oldValue` to `newValue`, which must be covered.
+     */
+    void set(int rowId, int oldValue, int newValue) {
+        remove(rowId, oldValue - lo);
+        add(rowId, newValue - lo);
+    }
+
+    /**
+     * Returns whether the overflow lists have grown enough that the index
+     * should be rebuilt.
+     */
+    boolean needsRebuild() {
+        return overflowRows > REBUILD_FRACTION * numRows;
+    }
+
+    /**
+     * HELPER METHOD
+     * Removes `rowId` from value v (relative to lo). The last row of the
+     * segment or list fills its place, and a segment that lost a row takes
+     * one back from the overflow list if there is one.
+     */
+    private void remove(int rowId, int v) {
+        int slot = slotOf[rowId];
+        if (slot >= 0) {
+            int last = start[v] + --count[v];
+            rowIds[slot] = rowIds[last];
+            slotOf[rowIds[slot]] = slot;
+            IntArrayList list = overflow[v];
+            if (list != null && !list.isEmpty()) {
+                int moved = list.removeInt(list.size() - 1);
+                overflowRows--;
+                rowIds[last] = moved;
+                slotOf[moved] = last;
+                count[v]++;
+            }
+        } else {
+            IntArrayList list = overflow[v];
+            int i = -slot - 1;
+            int moved = list.removeInt(list.size() - 1);
+            overflowRows--;
+            if (i < list.size()) {
+                list.set(i, moved);
+                slotOf[moved] = slot;
+            }
+        }
+    }
+
+    private void add(int rowId, int v) {
+        if (start[v] + count[v] < start[v + 1]) {
+            int slot = start[v] + count[v]++;
+            rowIds[slot] = rowId;
+            slotOf[rowId] = slot;
+        } else {
+            if (overflow[v] == null) {
+                overflow[v] = new IntArrayList();
+            }
+            overflow[v].add(rowId);
+            overflowRows++;
+            slotOf[rowId] = -overflow[v].size();
+        }
+    }
+
+    /**
+     * Returns the size of the index in bytes, not counting object headers.
+     */
+    long sizeInBytes() {
+        long bytes = 4L * (start.length + count.length + rowIds.length + slotOf.length) + 4L * overflow.length;
+        for (IntArrayList list : overflow) {
+            bytes += list == null ? 0 : 4L * list.elements().length;
+        }
+        return bytes;
+    }
+}
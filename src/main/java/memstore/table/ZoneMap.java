@@ -0,0 +1,141 @@
+package memstore.table;
+
+/**
+ * Per-block metadata for a table: the min, max and sum of every column over
+ * each block of 2^blockShift consecutive rows, plus the block's row count.
+ *
+ * A scan with a range predicate can skip a block whose [min, max] lies
+ * outside the range, and add the stored sums of a block that lies entirely
+ * inside it without reading its rows.
+ *
+ * Sums are kept exact, while min and max are bounds: writes only widen them,
+ * so after a write removes a block's min or max they may be looser than its
+ * values. Skipping a block or adding its sums whole stays correct either way;
+ * a looser block is just read more often. load rebuilds them exactly.
+ */
+class ZoneMap {
+    static final int DEFAULT_BLOCK_SHIFT = 10;
+
+    final int blockShift;
+    final int numRows;
+    final int numCols;
+    final int numBlocks;
+    // indexed by colId * numBlocks + block
+    private final int[] min;
+    private final int[] max;
+    private final long[] sum;
+
+    ZoneMap(int numRows, int numCols) {
+        this(numRows, numCols, DEFAULT_BLOCK_SHIFT);
+    }
+
+    ZoneMap(int numRows, int numCols, int blockShift) {
+        this.blockShift = blockShift;
+        this.numRows = numRows;
+        this.numCols = numCols;
+        this.numBlocks = (numRows + (1 << blockShift) - 1) >>> blockShift;
+        this.min = new int[numCols * numBlocks];
+        this.max = new int[numCols * numBlocks];
+        this.sum = new long[numCols * numBlocks];
+    }
+
+    /**
+     * Computes the metadata of every block from the loaded table.
+     */
+    void build(Table table) {
+        for (int colId = 0; colId < numCols; colId++) {
+            for (int block = 0; block < numBlocks; block++) {
+                recompute(table, colId, block);
+            }
+        }
+    }
+
+    int blockStart(int block) {
+        return block << blockShift;
+    }
+
+    int blockEnd(int block) {
+        return Math.min(numRows, (block + 1) << blockShift);
+    }
+
+    /**
+     * Returns the number of rows in `block`.
+     */
+    int count(int block) {
+        return blockEnd(block) - blockStart(block);
+    }
+
+    int min(int colId, int block) {
+        return min[colId * numBlocks + block];
+    }
+
+    int max(int colId, int block) {
+        return max[colId * numBlocks + block];
+    }
+
+    long sum(int colId, int block) {
+        return sum[colId * numBlocks + block];
+    }
+
+    /**
+     * Returns the sum of column `colId` over the whole table.
+     */
+    long columnSum(int colId) {
+        long total = 0;
+        for (int i = colId * numBlocks; i < (colId + 1) * numBlocks; i++) {
+            total += sum[i];
+        }
+        return total;
+    }
+
+    /**
+     * Returns the sum of all columns of `block`.
+     */
+    long rowSum(int block) {
+        long total = 0;
+        for (int i = block; i < sum.length; i += numBlocks) {
+            total += sum[i];
+        }
+        return total;
+    }
+
+    /**
+     * Updates the metadata for a write of `newValue` over `oldValue` at row
+     * `rowId` and column `colId`.
+     */
+    void update(int rowId, int colId, int oldValue, int newValue) {
+        widen(colId, rowId >>> blockShift, newValue, newValue, (long) newValue - oldValue);
+    }
+
+    /**
+     * Updates the metadata of column `colId` in `block` after a scan rewrote
+     * some of its rows to values within [valuesMin, valuesMax], changing the
+     * block's sum by `sumDelta`.
+     */
+    void widen(int colId, int block, int valuesMin, int valuesMax, long sumDelta) {
+        int i = colId * numBlocks + block;
+        min[i] = Math.min(min[i], valuesMin);
+        max[i] = Math.max(max[i], valuesMax);
+        sum[i] += sumDelta;
+    }
+
+    /**
+     * HELPER METHOD
+     * Recomputes the metadata of column `colId` in `block` from the table.
+     */
+    private void recompute(Table table, int colId, int block) {
+        int blockMin = Integer.MAX_VALUE;
+        int blockMax = Integer.MIN_VALUE;
+        long blockSum = 0;
+        for (int rowId = blockStart(block); rowId < blockEnd(block); rowId++) {
+            int value = table.getIntField(rowId, colId);
+            blockMin = Math.min(blockMin, value);
+            blockMax = Math.max(blockMax, value);
+            blockSum += value;
+        }
+        int i = colId * numBlocks + block;
+        min[i] = blockMin;
+        max[i] = blockMax;
+        sum[i] = blockSum;
+    }
+}
@@ -0,0 +1,79 @@
+package memstore.workloadbench;
+
+import memstore.GraderConstants;
+import memstore.data.DataLoader;
+import memstore.data.RandomizedLoader;
+import memstore.table.AdaptiveTable;
+import memstore.table.ArrayColumnTable;
+import memstore.table.RowTable;
+import memstore.table.Table;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a query mix that changes phase halfway through: first whole-row sums
+ * that favor a row layout, then narrow scans and updates that favor a columnar
+ * one. Fixed layouts are fast in one phase only; the AdaptiveTable should
+ * reorganize when the mix shifts.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class PhaseShiftBench {
+    @Param({"RowTable", "ArrayColumnTable", "AdaptiveTable"})
+    String tableType;
+
+    int numQueriesPerPhase = 300;
+    int upperBoundColumnValue = 1024;
+    int numRows = 100_000;
+    DataLoader dl;
+    Table table;
+
+    public Table createTable() {
+        switch (tableType) {
+            case "RowTable":
+                return new RowTable();
+            case "ArrayColumnTable":
+                return new ArrayColumnTable();
+            case "AdaptiveTable":
+                return new AdaptiveTable();
+            default:
+                throw new IllegalArgumentException("unknown table type " + tableType);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void prepareLoader() {
+        dl = new RandomizedLoader(GraderConstants.getSeed(), numRows, 100);
+    }
+
+    @Setup(Level.Iteration)
+    public void prepare() throws IOException {
+        table = createTable();
+        table.load(dl);
+    }
+
+    @Benchmark
+    public long testQueries() {
+        Random random = new Random(GraderConstants.getSeed());
+        long finalResult = 0;
+        // phase 1: whole-row aggregates
+        for (int i = 0; i < numQueriesPerPhase; i++) {
+            finalResult += table.predicatedAllColumnsSum(random.nextInt(upperBoundColumnValue));
+            table.putIntField(random.nextInt(numRows), random.nextInt(100), random.nextInt(upperBoundColumnValue));
+        }
+        // phase 2: narrow scans and updates
+        for (int i = 0; i < numQueriesPerPhase; i++) {
+            finalResult += table.columnSum();
+            finalResult += table.predicatedColumnSum(
+                    random.nextInt(upperBoundColumnValue),
+                    random.nextInt(upperBoundColumnValue));
+            finalResult += table.predicatedUpdate(random.nextInt(upperBoundColumnValue));
+            table.putIntField(random.nextInt(numRows), random.nextInt(100), random.nextInt(upperBoundColumnValue));
+        }
+        return finalResult;
+    }
+}
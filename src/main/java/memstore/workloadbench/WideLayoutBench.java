@@ -0,0 +1,59 @@
+package memstore.workloadbench;
+
+import memstore.data.DataLoader;
+import memstore.data.RandomizedLoader;
+import memstore.table.ColumnGroupTable;
+import memstore.table.RowTable;
+import memstore.table.Table;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the wide custom workload (100 columns, 275,000 rows) against plain
+ * layouts instead of the CustomTable, to compare RowTable with the
+ * ColumnGroupTable's default {0, 1, 2, 3} + rest vertical partitioning.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class WideLayoutBench extends CustomTableBenchAbstract {
+    @Param({"RowTable", "ColumnGroupTable"})
+    String tableType;
+
+    public double getExpectedTime() {
+        return 1800.0;
+    }
+
+    @Override
+    public Table createTable() {
+        switch (tableType) {
+            case "RowTable":
+                return new RowTable();
+            case "ColumnGroupTable":
+                return new ColumnGroupTable();
+            default:
+                throw new IllegalArgumentException("unknown table type " + tableType);
+        }
+    }
+
+    @Override
+    public DataLoader getRandomLoader() {
+        int numCols = 100;
+        numRows = 27_500_000 / numCols;
+
+        numQueries = 100;
+        return new RandomizedLoader(seed, numRows, numCols);
+    }
+
+    @Setup
+    public void prepare() throws IOException {
+        super.prepare();
+    }
+
+    @Benchmark
+    public long testQueries() {
+        return super.testQueries();
+    }
+}
@@ -0,0 +1,85 @@
+package memstore.table;
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests AdaptiveRadixTree and its cursor against a TreeMap, with keys dense
+ * enough to grow nodes to Node256 and sparse enough to keep single-leaf
+ * subtrees, across the sign boundary and the extremes of the int range.
+ */
+public class AdaptiveRadixTreeTest {
+    private static void checkRange(AdaptiveRadixTree.Cursor<Integer> cursor, Map<Integer, Integer> expected) {
+        // walked twice, since iterator() rewinds the cursor
+        for (int pass = 0; pass < 2; pass++) {
+            int count = 0;
+            Integer previous = null;
+            for (int value : cursor) {
+                assertEquals(value, -cursor.key());
+                assertTrue(expected.containsKey(cursor.key()));
+                assertTrue(previous == null || previous < cursor.key());
+                previous = cursor.key();
+                count++;
+            }
+            assertEquals(expected.size(), count);
+        }
+    }
+
+    private static int randomKey(Random random) {
+        switch (random.nextInt(4)) {
+            case 0:
+                return random.nextInt(600) - 300;
+            case 1:
+                return random.nextInt();
+            case 2:
+                return (random.nextInt(64) << 16) + random.nextInt(8);
+            default:
+                return random.nextBoolean() ? Integer.MAX_VALUE - random.nextInt(4) : Integer.MIN_VALUE + random.nextInt(4);
+        }
+    }
+
+    @Test
+    public void testAgainstTreeMap() {
+        Random random = new Random(0);
+        AdaptiveRadixTree<Integer> tree = new AdaptiveRadixTree<>();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        AdaptiveRadixTree.Cursor<Integer> cursor = tree.cursor();
+        for (int i = 0; i < 100000; i++) {
+            int key = randomKey(random);
+            // grow for the first half, then mostly shrink
+            if (random.nextInt(i < 50000 ? 4 : 2) == 0) {
+                assertEquals(expected.remove(key), tree.remove(key));
+            } else {
+                expected.put(key, -key);
+                tree.put(key, -key);
+            }
+            assertEquals(expected.size(), tree.size());
+            assertEquals(expected.get(key), tree.get(key));
+
+            if (i % 2500 == 0) {
+                int threshold = randomKey(random);
+                checkRange(cursor.seekAbove(threshold), expected.tailMap(threshold, false));
+                checkRange(cursor.seekBelow(threshold), expected.headMap(threshold, false));
+                checkRange(cursor.seekAll(), expected);
+            }
+        }
+        checkRange(cursor.seekAbove(Integer.MAX_VALUE), new TreeMap<Integer, Integer>());
+        checkRange(cursor.seekBelow(Integer.MIN_VALUE), new TreeMap<Integer, Integer>());
+        checkRange(cursor.seekAbove(Integer.MIN_VALUE), expected.tailMap(Integer.MIN_VALUE, false));
+
+        for (int key : expected.keySet().toArray(new Integer[0])) {
+            assertEquals(expected.remove(key), tree.remove(key));
+        }
+        assertEquals(0, tree.size());
+        checkRange(cursor.seekAll(), expected);
+        tree.put(7, -7);
+        expected.put(7, -7);
+        checkRange(cursor.seekAbove(6), expected);
+        checkRange(cursor.seekAbove(7), new TreeMap<Integer, Integer>());
+    }
+}
@@ -0,0 +1,78 @@
+package memstore.table;
+
+import memstore.data.DataLoader;
+import memstore.data.RandomizedLoader;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that the AdaptiveTable answers correctly and moves between layouts
+ * as the query mix shifts, including writes made while it reorganizes.
+ */
+public class AdaptiveTableTest {
+    @Test
+    public void testAdaptsToPhases() throws IOException {
+        DataLoader wide = new RandomizedLoader(0, 2000, 20);
+        AdaptiveTable t = new AdaptiveTable(4);
+        RowTable rt = new RowTable();
+        t.load(wide);
+        rt.load(wide);
+        assertEquals(AdaptiveTable.Layout.ROW, t.getLayout());
+
+        // narrow phase: scans of a few columns favor a columnar layout
+        for (int i = 0; i < 4; i++) {
+            assertEquals(rt.columnSum(), t.columnSum());
+        }
+        for (int i = 0; i < 8; i++) {
+            t.putIntField(i, i % 5, 1000 + i);
+            rt.putIntField(i, i % 5, 1000 + i);
+            assertEquals(rt.predicatedUpdate(100 * i), t.predicatedUpdate(100 * i));
+            assertEquals(rt.predicatedColumnSum(100, 900), t.predicatedColumnSum(100, 900));
+        }
+        t.awaitReorganization();
+        assertEquals(AdaptiveTable.Layout.COLUMN, t.getLayout());
+        for (int rowId = 0; rowId < 2000; rowId += 13) {
+            for (int colId = 0; colId < 20; colId++) {
+                assertEquals(rt.getIntField(rowId, colId), t.getIntField(rowId, colId));
+            }
+        }
+
+        // mixed phase: some whole-row sums favor grouping the narrow columns
+        for (int i = 0; i < 8; i++) {
+            assertEquals(rt.predicatedUpdate(50), t.predicatedUpdate(50));
+            assertEquals(rt.columnSum(), t.columnSum());
+            assertEquals(rt.predicatedAllColumnsSum(500), t.predicatedAllColumnsSum(500));
+        }
+        t.awaitReorganization();
+        assertEquals(AdaptiveTable.Layout.GROUPED, t.getLayout());
+        assertEquals(rt.predicatedAllColumnsSum(-1), t.predicatedAllColumnsSum(-1));
+        assertEquals(rt.predicatedColumnSum(300, 600), t.predicatedColumnSum(300, 600));
+    }
+
+    @Test
+    public void testInterruptedUpdatesAreKept() throws IOException {
+        DataLoader wide = new RandomizedLoader(1, 20000, 20);
+        AdaptiveTable t = new AdaptiveTable(4);
+        RowTable rt = new RowTable();
+        t.load(wide);
+        rt.load(wide);
+        Thread.currentThread().interrupt();
+        try {
+            // the 4th columnSum starts a reorganization, which the update must wait out
+            for (int i = 0; i < 4; i++) {
+                assertEquals(rt.columnSum(), t.columnSum());
+            }
+            assertEquals(rt.predicatedUpdate(500), t.predicatedUpdate(500));
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+        t.awaitReorganization();
+        assertEquals(AdaptiveTable.Layout.COLUMN, t.getLayout());
+        assertEquals(rt.predicatedAllColumnsSum(-1), t.predicatedAllColumnsSum(-1));
+    }
+}
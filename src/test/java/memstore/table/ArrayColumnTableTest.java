@@ -0,0 +1,51 @@
+package memstore.table;
+
+import memstore.data.DataLoader;
+import memstore.data.RandomizedLoader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the ArrayColumnTable's branch-free query kernels against a RowTable,
+ * with a row count that leaves a tail after any unrolled loop and with
+ * fields at the ends of the int range, where the selection masks must not
+ * wrap.
+ */
+public class ArrayColumnTableTest {
+    @Test
+    public void testMatchesRowTable() throws IOException {
+        DataLoader rl = new RandomizedLoader(0, 1001, 5);
+        Table rt = new RowTable();
+        Table t = new ArrayColumnTable();
+        rt.load(rl);
+        t.load(rl);
+        int[] extremes = {Integer.MIN_VALUE, Integer.MIN_VALUE + 1, -1, 0, Integer.MAX_VALUE};
+        Random random = new Random(0);
+        for (int i = 0; i < 2000; i++) {
+            int rowId = random.nextInt(1001);
+            int colId = random.nextInt(5);
+            int field = random.nextInt(8) == 0 ? extremes[random.nextInt(extremes.length)] : random.nextInt(1024);
+            rt.putIntField(rowId, colId, field);
+            t.putIntField(rowId, colId, field);
+            if (i % 100 == 0) {
+                int threshold = extremes[random.nextInt(extremes.length)];
+                int threshold2 = random.nextInt(1024);
+                assertEquals(rt.columnSum(), t.columnSum());
+                assertEquals(rt.predicatedAllColumnsSum(threshold), t.predicatedAllColumnsSum(threshold));
+                assertEquals(rt.predicatedAllColumnsSum(threshold2), t.predicatedAllColumnsSum(threshold2));
+                assertEquals(rt.predicatedColumnSum(threshold, threshold2), t.predicatedColumnSum(threshold, threshold2));
+                assertEquals(rt.predicatedColumnSum(threshold2, threshold), t.predicatedColumnSum(threshold2, threshold));
+                assertEquals(rt.predicatedUpdate(threshold2 / 8), t.predicatedUpdate(threshold2 / 8));
+            }
+        }
+        for (int rowId = 0; rowId < 1001; rowId++) {
+            for (int colId = 0; colId < 5; colId++) {
+                assertEquals(rt.getIntField(rowId, colId), t.getIntField(rowId, colId));
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package memstore.table;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests BPlusTree and its cursor against a TreeSet of packed (key, row id)
+ * entries, on bulk-loaded and on incrementally built trees, and scans from
+ * several threads at once.
+ */
+public class BPlusTreeTest {
+    private static long entry(int key, int rowId) {
+        return ((long) key << 32) | rowId;
+    }
+
+    private static void checkRange(BPlusTree.Cursor cursor, NavigableSet<Long> expected) {
+        List<Long> actual = new ArrayList<>();
+        while (cursor.next()) {
+            for (int i = cursor.from(); i < cursor.to(); i++) {
+                actual.add(entry(cursor.keys()[i], cursor.rowIds()[i]));
+            }
+        }
+        assertEquals(new ArrayList<>(expected), actual);
+    }
+
+    private static void checkSeeks(BPlusTree tree, TreeSet<Long> expected, int threshold) {
+        BPlusTree.Cursor cursor = tree.cursor();
+        NavigableSet<Long> above = expected.tailSet(entry(threshold, Integer.MAX_VALUE), false);
+        NavigableSet<Long> below = expected.headSet(entry(threshold, 0), false);
+        assertEquals(Math.min(above.size(), 100), Math.min(cursor.seekAbove(threshold).count(100), 100));
+        checkRange(cursor.seekAbove(threshold), above);
+        assertEquals(below.size(), cursor.seekBelow(threshold).count(Long.MAX_VALUE));
+        checkRange(cursor.seekBelow(threshold), below);
+    }
+
+    private static void checkAgainstTreeSet(BPlusTree tree, TreeSet<Long> expected, Random random) {
+        for (int i = 0; i < 60000; i++) {
+            int key = random.nextInt(3000) - 1500;
+            int rowId = random.nextInt(20);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(entry(key, rowId)), tree.remove(key, rowId));
+            } else if (expected.add(entry(key, rowId))) {
+                tree.insert(key, rowId);
+            }
+            assertEquals(expected.size(), tree.size());
+            if (i % 5000 == 0) {
+                checkSeeks(tree, expected, random.nextInt(3200) - 1600);
+                checkRange(tree.cursor().seekAll(), expected);
+            }
+        }
+        checkRange(tree.cursor().seekAll(), expected);
+        checkSeeks(tree, expected, Integer.MAX_VALUE);
+        checkSeeks(tree, expected, Integer.MIN_VALUE);
+    }
+
+    @Test
+    public void testInsertRemove() {
+        checkAgainstTreeSet(new BPlusTree(), new TreeSet<Long>(), new Random(0));
+    }
+
+    @Test
+    public void testBulkLoad() {
+        Random random = new Random(1);
+        int[] values = new int[100_000];
+        TreeSet<Long> expected = new TreeSet<>();
+        for (int rowId = 0; rowId < values.length; rowId++) {
+            values[rowId] = random.nextInt(5000) - 2500;
+            expected.add(entry(values[rowId], rowId));
+        }
+        BPlusTree tree = new BPlusTree(values);
+        assertEquals(values.length, tree.size());
+        for (int i = 0; i < 20; i++) {
+            checkSeeks(tree, expected, random.nextInt(5200) - 2600);
+        }
+        // keep inserting and removing entries with row ids past the loaded ones
+        TreeSet<Long> wide = new TreeSet<>(expected);
+        for (int i = 0; i < 50000; i++) {
+            int key = random.nextInt(5000) - 2500;
+            int rowId = values.length + random.nextInt(1000);
+            if (random.nextBoolean()) {
+                assertEquals(wide.remove(entry(key, rowId)), tree.remove(key, rowId));
+            } else if (wide.add(entry(key, rowId))) {
+                tree.insert(key, rowId);
+            }
+        }
+        checkRange(tree.cursor().seekAll(), wide);
+        checkSeeks(tree, wide, 0);
+        checkAgainstTreeSet(new BPlusTree(new int[0]), new TreeSet<Long>(), random);
+    }
+
+    @Test
+    public void testConcurrentScans() throws Exception {
+        int[] values = new int[200_000];
+        long expectedSum = 0;
+        for (int rowId = 0; rowId < values.length; rowId++) {
+            values[rowId] = (rowId * 7919) % 10007;
+            if (values[rowId] > 5000) {
+                expectedSum += rowId;
+            }
+        }
+        BPlusTree tree = new BPlusTree(values);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Long>> sums = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                sums.add(pool.submit(() -> {
+                    BPlusTree.Cursor cursor = tree.cursor().seekAbove(5000);
+                    long sum = 0;
+                    while (cursor.next()) {
+                        for (int i = cursor.from(); i < cursor.to(); i++) {
+                            sum += cursor.rowIds()[i];
+                        }
+                    }
+                    return sum;
+                }));
+            }
+            for (Future<Long> sum : sums) {
+                assertEquals(expectedSum, (long) sum.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package memstore.table;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the range predicates and in-place maintenance of BitSlicedIndex
+ * against a brute-force scan.
+ */
+public class BitSlicedIndexTest {
+    private static void checkSelections(BitSlicedIndex index, int[] values, int threshold) {
+        long[] sel = new long[(values.length + 63) >>> 6];
+        index.selectAbove(threshold, sel, false);
+        for (int row = 0; row < values.length; row++) {
+            assertEquals(values[row] > threshold, Bits.get(sel, row));
+        }
+        assertEquals(0, Bits.count(sel, values.length, sel.length * 64));
+
+        index.selectBelow(threshold, sel, false);
+        for (int row = 0; row < values.length; row++) {
+            assertEquals(values[row] < threshold, Bits.get(sel, row));
+        }
+        assertEquals(0, Bits.count(sel, values.length, sel.length * 64));
+    }
+
+    @Test
+    public void testSelect() {
+        Random random = new Random(0);
+        int[] values = new int[1000];
+        for (int row = 0; row < values.length; row++) {
+            values[row] = random.nextInt(1024);
+        }
+        BitSlicedIndex index = new BitSlicedIndex(values);
+        assertEquals(8L * 10 * 16, index.sizeInBytes());
+        for (int threshold : new int[]{-1, 0, 1, 511, 512, 1022, 1023, 1024, Integer.MIN_VALUE, Integer.MAX_VALUE}) {
+            checkSelections(index, values, threshold);
+        }
+    }
+
+    @Test
+    public void testIntersect() {
+        int[] col1 = {5, 8, 1, 4, 0, 9, 1, 8, 6};
+        int[] col2 = {2, 2, 7, 3, 2, 9, 0, 5, 1};
+        long[] sel = new long[1];
+        new BitSlicedIndex(col1).selectAbove(3, sel, false);
+        new BitSlicedIndex(col2).selectBelow(5, sel, true);
+        assertEquals(0b100001011L, sel[0]);
+    }
+
+    @Test
+    public void testSet() {
+        Random random = new Random(1);
+        int[] values = new int[300];
+        for (int row = 0; row < values.length; row++) {
+            values[row] = random.nextInt(1024);
+        }
+        BitSlicedIndex index = new BitSlicedIndex(values);
+        for (int i = 0; i < 2000; i++) {
+            int row = random.nextInt(values.length);
+            // mostly in range, sometimes growing it in either direction
+            int value = i % 100 == 0 ? random.nextInt() : random.nextInt(1024);
+            values[row] = value;
+            index.set(row, value);
+            assertEquals(value, index.get(row));
+            if (i % 100 == 0) {
+                checkSelections(index, values, random.nextInt(1024));
+                checkSelections(index, values, values[random.nextInt(values.length)]);
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package memstore.table;
+
+import memstore.data.CSVLoader;
+import memstore.data.DataLoader;
+import memstore.data.RandomizedLoader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ *  * Tests the ClusteredRowTable's queries and row relocation.
+ */
+public class ClusteredRowTableTest {
+    DataLoader dl;
+
+    public ClusteredRowTableTest() {
+        dl = new CSVLoader(
+                "src/main/resources/test.csv",
+                5
+        );
+    }
+
+    @Test
+    public void testRelocate() throws IOException {
+        Table t = new ClusteredRowTable(0);
+        t.load(dl);
+        t.putIntField(4, 0, 0);
+        t.putIntField(0, 0, 9);
+        t.putIntField(11, 0, 2);
+        assertEquals(0, t.getIntField(4, 0));
+        assertEquals(4, t.getIntField(4, 1));
+        assertEquals(9, t.getIntField(0, 0));
+        assertEquals(2, t.getIntField(0, 1));
+        assertEquals(2, t.getIntField(11, 0));
+        assertEquals(7, t.getIntField(11, 1));
+        assertEquals(62, t.columnSum());
+        assertEquals(140, t.predicatedAllColumnsSum(3));
+    }
+
+    @Test
+    public void testMatchesRowTable() throws IOException {
+        DataLoader rl = new RandomizedLoader(0, 2000, 6);
+        for (int clusterColumn = 0; clusterColumn < 4; clusterColumn++) {
+            Table rt = new RowTable();
+            Table t = new ClusteredRowTable(clusterColumn);
+            rt.load(rl);
+            t.load(rl);
+            Random random = new Random(clusterColumn);
+            for (int i = 0; i < 5000; i++) {
+                int rowId = random.nextInt(2000);
+                int colId = random.nextInt(6);
+                int field = random.nextInt(1024);
+                rt.putIntField(rowId, colId, field);
+                t.putIntField(rowId, colId, field);
+                if (i % 500 == 0) {
+                    int threshold = random.nextInt(1024);
+                    assertEquals(rt.predicatedAllColumnsSum(threshold), t.predicatedAllColumnsSum(threshold));
+                    assertEquals(rt.predicatedColumnSum(threshold, 1023 - threshold),
+                            t.predicatedColumnSum(threshold, 1023 - threshold));
+                    assertEquals(rt.predicatedUpdate(threshold / 4), t.predicatedUpdate(threshold / 4));
+                }
+            }
+            assertEquals(rt.columnSum(), t.columnSum());
+            for (int rowId = 0; rowId < 2000; rowId++) {
+                for (int colId = 0; colId < 6; colId++) {
+                    assertEquals(rt.getIntField(rowId, colId), t.getIntField(rowId, colId));
+                }
+            }
+        }
+    }
+}
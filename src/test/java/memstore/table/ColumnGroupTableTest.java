@@ -0,0 +1,37 @@
+package memstore.table;
+
+import memstore.data.CSVLoader;
+import memstore.data.DataLoader;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the ColumnGroupTable with its default grouping and with a grouping
+ * that splits the columns read by each query.
+ */
+public class ColumnGroupTableTest {
+    DataLoader dl;
+
+    public ColumnGroupTableTest() {
+        dl = new CSVLoader(
+                "src/main/resources/test.csv",
+                5
+        );
+    }
+
+    @Test
+    public void testSplitGroups() throws IOException {
+        ColumnGroupTable t = new ColumnGroupTable(new int[][]{{3, 0}, {2}, {1}, {7}});
+        t.load(dl);
+        assertEquals(4, t.getNumGroups());
+        assertEquals(68, t.columnSum());
+        assertEquals(49, t.predicatedColumnSum(3, 5));
+        assertEquals(9, t.predicatedUpdate(3));
+        assertEquals(360, t.predicatedAllColumnsSum(-1));
+        assertEquals(8, t.getIntField(4, 0));
+        assertEquals(3, t.getIntField(4, 3));
+    }
+}
@@ -2,7 +2,9 @@ package memstore.table;
 
 import memstore.data.CSVLoader;
 import memstore.data.DataLoader;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
 
@@ -15,6 +17,9 @@ import static org.junit.Assert.assertEquals;
 public class ColumnSumTest {
     DataLoader dl;
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     public ColumnSumTest() {
         dl = new CSVLoader(
                 "src/main/resources/test.csv",
@@ -42,4 +47,110 @@ public class ColumnSumTest {
         it.load(dl);
         assertEquals(68, it.columnSum());
     }
+
+    @Test
+    public void testOffHeapColumnTable() throws IOException {
+        OffHeapColumnTable ot = new OffHeapColumnTable();
+        ot.load(dl);
+        assertEquals(68, ot.columnSum());
+    }
+
+    @Test
+    public void testArrayColumnTable() throws IOException {
+        ArrayColumnTable at = new ArrayColumnTable();
+        at.load(dl);
+        assertEquals(68, at.columnSum());
+    }
+
+    @Test
+    public void testPaxTable() throws IOException {
+        PaxTable pt = new PaxTable();
+        pt.load(dl);
+        assertEquals(68, pt.columnSum());
+    }
+
+    @Test
+    public void testCompressedColumnTable() throws IOException {
+        CompressedColumnTable zt = new CompressedColumnTable();
+        zt.load(dl);
+        assertEquals(68, zt.columnSum());
+    }
+
+    @Test
+    public void testColumnGroupTable() throws IOException {
+        ColumnGroupTable gt = new ColumnGroupTable();
+        gt.load(dl);
+        assertEquals(68, gt.columnSum());
+    }
+
+    @Test
+    public void testSegmentedTable() throws IOException {
+        SegmentedTable st = new SegmentedTable();
+        st.load(dl);
+        assertEquals(68, st.columnSum());
+    }
+
+    @Test
+    public void testClusteredRowTable() throws IOException {
+        ClusteredRowTable clt = new ClusteredRowTable();
+        clt.load(dl);
+        assertEquals(68, clt.columnSum());
+    }
+
+    @Test
+    public void testProjectedTable() throws IOException {
+        ProjectedTable pjt = new ProjectedTable();
+        pjt.load(dl);
+        assertEquals(68, pjt.columnSum());
+    }
+
+    @Test
+    public void testMaterializedTable() throws IOException {
+        MaterializedTable vt = new MaterializedTable(new RowTable());
+        vt.load(dl);
+        assertEquals(68, vt.columnSum());
+    }
+
+    @Test
+    public void testMappedTable() throws IOException {
+        try (MappedTable mpt = new MappedTable(folder.newFile())) {
+            mpt.load(dl);
+            assertEquals(68, mpt.columnSum());
+        }
+    }
+
+    @Test
+    public void testAdaptiveTable() throws IOException {
+        AdaptiveTable adt = new AdaptiveTable();
+        adt.load(dl);
+        assertEquals(68, adt.columnSum());
+    }
+
+    @Test
+    public void testCrackedColumnTable() throws IOException {
+        CrackedColumnTable crt = new CrackedColumnTable();
+        crt.load(dl);
+        assertEquals(68, crt.columnSum());
+    }
+
+    @Test
+    public void testKdTreeTable() throws IOException {
+        KdTreeTable kdt = new KdTreeTable();
+        kdt.load(dl);
+        assertEquals(68, kdt.columnSum());
+    }
+
+    @Test
+    public void testDeferredUpdateTable() throws IOException {
+        DeferredUpdateTable dt = new DeferredUpdateTable();
+        dt.load(dl);
+        assertEquals(68, dt.columnSum());
+    }
+
+    @Test
+    public void testMainDeltaTable() throws IOException {
+        MainDeltaTable mt = new MainDeltaTable();
+        mt.load(dl);
+        assertEquals(68, mt.columnSum());
+    }
 }
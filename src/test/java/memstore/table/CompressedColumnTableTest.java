@@ -0,0 +1,55 @@
+package memstore.table;
+
+import memstore.data.CSVLoader;
+import memstore.data.ClusteredLoader;
+import memstore.data.DataLoader;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the CompressedColumnTable's writes into, and queries over, packed codes.
+ */
+public class CompressedColumnTableTest {
+    DataLoader dl;
+
+    public CompressedColumnTableTest() {
+        dl = new CSVLoader(
+                "src/main/resources/test.csv",
+                5
+        );
+    }
+
+    @Test
+    public void testPutOverflowReencodes() throws IOException {
+        Table t = new CompressedColumnTable();
+        t.load(dl);
+        t.putIntField(4, 0, 1 << 20);
+        t.putIntField(5, 0, -7);
+        assertEquals(1 << 20, t.getIntField(4, 0));
+        assertEquals(-7, t.getIntField(5, 0));
+        assertEquals(9, t.getIntField(11, 0));
+        assertEquals(68 - 8 - 6 + (1 << 20) - 7, t.columnSum());
+    }
+
+    @Test
+    public void testClusteredMatchesRowTable() throws IOException {
+        for (int runLength : new int[]{0, 50}) {
+            DataLoader cl = new ClusteredLoader(0, 2000, 5, 0, runLength);
+            Table t = new CompressedColumnTable();
+            Table rt = new RowTable();
+            t.load(cl);
+            rt.load(cl);
+            assertEquals(rt.columnSum(), t.columnSum());
+            assertEquals(rt.predicatedAllColumnsSum(500), t.predicatedAllColumnsSum(500));
+            assertEquals(rt.predicatedColumnSum(300, 700), t.predicatedColumnSum(300, 700));
+            assertEquals(rt.predicatedUpdate(200), t.predicatedUpdate(200));
+            t.putIntField(7, 0, 1023);
+            rt.putIntField(7, 0, 1023);
+            assertEquals(rt.columnSum(), t.columnSum());
+            assertEquals(rt.predicatedAllColumnsSum(100), t.predicatedAllColumnsSum(100));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package memstore.table;
+
+import memstore.data.CSVLoader;
+import memstore.data.DataLoader;
+import memstore.data.RandomizedLoader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the CrackedColumnTable's cracks, and its pending col0 updates
+ * against an ArrayColumnTable under interleaved writes and cracks.
+ */
+public class CrackedColumnTableTest {
+    DataLoader dl;
+
+    public CrackedColumnTableTest() {
+        dl = new CSVLoader(
+                "src/main/resources/test.csv",
+                5
+        );
+    }
+
+    @Test
+    public void testEmptyRanges() throws IOException {
+        Table t = new CrackedColumnTable();
+        t.load(dl);
+        // cracks at the ends of the int range select no rows
+        assertEquals(0, t.predicatedAllColumnsSum(Integer.MAX_VALUE));
+        assertEquals(0, t.predicatedUpdate(Integer.MIN_VALUE));
+        assertEquals(342, t.predicatedAllColumnsSum(-1));
+    }
+
+    @Test
+    public void testPendingUpdates() throws IOException {
+        Table t = new CrackedColumnTable();
+        Table at = new ArrayColumnTable();
+        t.load(dl);
+        at.load(dl);
+        // crack first, then move rows across and within the cracks
+        assertEquals(at.predicatedAllColumnsSum(3), t.predicatedAllColumnsSum(3));
+        assertEquals(at.predicatedUpdate(6), t.predicatedUpdate(6));
+        int[][] writes = {{4, 0}, {0, 9}, {11, 2}, {4, 5}, {7, 3}};
+        for (int[] write : writes) {
+            t.putIntField(write[0], 0, write[1]);
+            at.putIntField(write[0], 0, write[1]);
+        }
+        for (int threshold = -1; threshold <= 10; threshold++) {
+            assertEquals(at.predicatedAllColumnsSum(threshold), t.predicatedAllColumnsSum(threshold));
+            assertEquals(at.predicatedUpdate(threshold), t.predicatedUpdate(threshold));
+        }
+        assertEquals(at.columnSum(), t.columnSum());
+    }
+
+    @Test
+    public void testMatchesArrayColumnTable() throws IOException {
+        DataLoader rl = new RandomizedLoader(0, 5000, 6);
+        Table at = new ArrayColumnTable();
+        Table t = new CrackedColumnTable();
+        at.load(rl);
+        t.load(rl);
+        Random random = new Random(0);
+        for (int i = 0; i < 20000; i++) {
+            int rowId = random.nextInt(5000);
+            // mostly col0, so that the pending updates pile up between cracks
+            int colId = random.nextInt(4) == 0 ? random.nextInt(6) : 0;
+            int field = random.nextInt(1100) - 50;
+            at.putIntField(rowId, colId, field);
+            t.putIntField(rowId, colId, field);
+            if (i % 100 == 0) {
+                int threshold = random.nextInt(1100) - 50;
+                assertEquals(at.predicatedAllColumnsSum(threshold), t.predicatedAllColumnsSum(threshold));
+                assertEquals(at.predicatedColumnSum(threshold, 1023 - threshold),
+                        t.predicatedColumnSum(threshold, 1023 - threshold));
+                assertEquals(at.predicatedUpdate(threshold / 8), t.predicatedUpdate(threshold / 8));
+            }
+        }
+        assertEquals(at.columnSum(), t.columnSum());
+        for (int rowId = 0; rowId < 5000; rowId++) {
+            for (int colId = 0; colId < 6; colId++) {
+                assertEquals(at.getIntField(rowId, colId), t.getIntField(rowId, colId));
+            }
+        }
+    }
+
+    @Test
+    public void testCol3OverflowMatchesRowTable() throws IOException {
+        DataLoader rl = new RandomizedLoader(61, 5000, 5);
+        Table rt = new RowTable();
+        Table t = new CrackedColumnTable();
+        rt.load(rl);
+        t.load(rl);
+        Random random = new Random(61);
+        // large col2 values push col3 past the int range within a few updates
+        for (int i = 0; i < 500; i++) {
+            int rowId = random.nextInt(5000);
+            int field = random.nextBoolean() ? Integer.MAX_VALUE - random.nextInt(1024) : Integer.MIN_VALUE + random.nextInt(1024);
+            rt.putIntField(rowId, 2, field);
+            t.putIntField(rowId, 2, field);
+        }
+        for (int i = 0; i < 40; i++) {
+            // low thresholds gather the rows in front of the crack, high ones scan
+            int threshold = i % 2 == 0 ? random.nextInt(64) : random.nextInt(1024);
+            assertEquals(rt.predicatedUpdate(threshold), t.predicatedUpdate(threshold));
+            threshold = random.nextInt(1100) - 50;
+            assertEquals(rt.predicatedAllColumnsSum(threshold), t.predicatedAllColumnsSum(threshold));
+        }
+        for (int rowId = 0; rowId < 5000; rowId++) {
+            assertEquals(rt.getIntField(rowId, 3), t.getIntField(rowId, 3));
+        }
+    }
+}
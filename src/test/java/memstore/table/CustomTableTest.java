@@ -2,9 +2,11 @@ package memstore.table;
 
 import memstore.data.CSVLoader;
 import memstore.data.DataLoader;
+import memstore.data.RandomizedLoader;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 
@@ -29,4 +31,77 @@ public class CustomTableTest {
         assertEquals(9, ct.predicatedUpdate(3));
         assertEquals(360, ct.predicatedAllColumnsSum(-1));
     }
-}
\ No newline at end of file
+
+    private static void checkAgainstArrayColumnTable(int seed, CustomTable ct) throws IOException {
+        DataLoader rl = new RandomizedLoader(seed, 3000, 5);
+        Table at = new ArrayColumnTable();
+        at.load(rl);
+        ct.load(rl);
+        Random random = new Random(seed);
+        for (int i = 0; i < 6000; i++) {
+            int rowId = random.nextInt(3000);
+            int colId = random.nextInt(5);
+            int field = random.nextInt(1024);
+            // late in the run, col0..col2 drift past their range and then far outside it
+            if (colId <= 2 && i > 3000 && random.nextInt(50) == 0) {
+                field = i < 4500 ? 1024 + random.nextInt(512) : random.nextInt();
+            }
+            at.putIntField(rowId, colId, field);
+            ct.putIntField(rowId, colId, field);
+            if (i % 200 == 0) {
+                int threshold = random.nextInt(1100) - 50;
+                assertEquals(at.predicatedAllColumnsSum(threshold), ct.predicatedAllColumnsSum(threshold));
+                assertEquals(at.predicatedUpdate(threshold / 8), ct.predicatedUpdate(threshold / 8));
+                assertEquals(at.predicatedColumnSum(threshold, 1023 - threshold),
+                        ct.predicatedColumnSum(threshold, 1023 - threshold));
+            }
+        }
+        assertEquals(at.columnSum(), ct.columnSum());
+        assertEquals(at.predicatedAllColumnsSum(Integer.MIN_VALUE), ct.predicatedAllColumnsSum(Integer.MIN_VALUE));
+        assertEquals(at.predicatedAllColumnsSum(Integer.MAX_VALUE), ct.predicatedAllColumnsSum(Integer.MAX_VALUE));
+        assertEquals(at.predicatedUpdate(Integer.MAX_VALUE), ct.predicatedUpdate(Integer.MAX_VALUE));
+        for (int rowId = 0; rowId < 3000; rowId++) {
+            for (int colId = 0; colId < 5; colId++) {
+                assertEquals(at.getIntField(rowId, colId), ct.getIntField(rowId, colId));
+            }
+        }
+    }
+
+    @Test
+    public void testMatchesArrayColumnTable() throws IOException {
+        // a bound loose enough for a full 1024 x 1024 grid over this small table
+        checkAgainstArrayColumnTable(0, new CustomTable(CustomTable.DEFAULT_MAX_DOMAIN_FRACTION, 100));
+        // without the FenwickTree and FenwickGrid, the queries walk the indexes
+        checkAgainstArrayColumnTable(1, new CustomTable(0, 0));
+    }
+
+    private static void checkCol3OverflowAgainstRowTable(int seed, CustomTable ct) throws IOException {
+        DataLoader rl = new RandomizedLoader(seed, 3000, 5);
+        Table rt = new RowTable();
+        rt.load(rl);
+        ct.load(rl);
+        Random random = new Random(seed);
+        // large col2 values push col3 past the int range within a few updates
+        for (int i = 0; i < 300; i++) {
+            int rowId = random.nextInt(3000);
+            int field = random.nextBoolean() ? Integer.MAX_VALUE - random.nextInt(1024) : Integer.MIN_VALUE + random.nextInt(1024);
+            rt.putIntField(rowId, 2, field);
+            ct.putIntField(rowId, 2, field);
+        }
+        for (int i = 0; i < 20; i++) {
+            int threshold = random.nextInt(1100) - 50;
+            assertEquals(rt.predicatedUpdate(threshold), ct.predicatedUpdate(threshold));
+            assertEquals(rt.predicatedAllColumnsSum(threshold), ct.predicatedAllColumnsSum(threshold));
+            assertEquals(rt.predicatedAllColumnsSum(-994), ct.predicatedAllColumnsSum(-994));
+        }
+        for (int rowId = 0; rowId < 3000; rowId++) {
+            assertEquals(rt.getIntField(rowId, 3), ct.getIntField(rowId, 3));
+        }
+    }
+
+    @Test
+    public void testCol3OverflowMatchesRowTable() throws IOException {
+        checkCol3OverflowAgainstRowTable(2, new CustomTable());
+        checkCol3OverflowAgainstRowTable(3, new CustomTable(0, 0));
+    }
+}
@@ -0,0 +1,62 @@
+package memstore.table;
+
+import memstore.data.DataLoader;
+import memstore.data.RandomizedLoader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the DeferredUpdateTable's update log against an
+ * ArrayColumnTable while runs of predicatedUpdates start background
+ * compactions and writes to col0, col2 and col3 land before they finish.
+ */
+public class DeferredUpdateTableTest {
+
+    private static void checkAgainstArrayColumnTable(int seed, DeferredUpdateTable t) throws IOException {
+        DataLoader rl = new RandomizedLoader(seed, 5000, 5);
+        Table at = new ArrayColumnTable();
+        at.load(rl);
+        t.load(rl);
+        Random random = new Random(seed);
+        for (int i = 0; i < 3000; i++) {
+            int threshold = random.nextInt(1100) - 50;
+            assertEquals(at.predicatedUpdate(threshold), t.predicatedUpdate(threshold));
+            // a few writes and reads between updates, sometimes far outside col0's range
+            for (int j = random.nextInt(4); j > 0; j--) {
+                int rowId = random.nextInt(5000);
+                int colId = random.nextInt(5);
+                int field = random.nextInt(50) == 0 ? random.nextInt() : random.nextInt(1024);
+                at.putIntField(rowId, colId, field);
+                t.putIntField(rowId, colId, field);
+                rowId = random.nextInt(5000);
+                assertEquals(at.getIntField(rowId, 3), t.getIntField(rowId, 3));
+            }
+            if (i % 250 == 0) {
+                assertEquals(at.predicatedAllColumnsSum(threshold), t.predicatedAllColumnsSum(threshold));
+            }
+            if (i % 50 == 0) {
+                assertEquals(at.columnSum(), t.columnSum());
+                assertEquals(at.predicatedColumnSum(threshold, 1023 - threshold),
+                        t.predicatedColumnSum(threshold, 1023 - threshold));
+            }
+        }
+        for (int rowId = 0; rowId < 5000; rowId++) {
+            for (int colId = 0; colId < 5; colId++) {
+                assertEquals(at.getIntField(rowId, colId), t.getIntField(rowId, colId));
+            }
+        }
+        assertEquals(at.predicatedAllColumnsSum(-1), t.predicatedAllColumnsSum(-1));
+    }
+
+    @Test
+    public void testMatchesArrayColumnTable() throws IOException {
+        checkAgainstArrayColumnTable(0, new DeferredUpdateTable());
+        // without the FenwickTree, predicatedUpdate counts with a scan
+        checkAgainstArrayColumnTable(1, new DeferredUpdateTable(
+                DeferredUpdateTable.DEFAULT_COMPACT_ENTRIES, DeferredUpdateTable.DEFAULT_MAX_LOG_ENTRIES, 0));
+    }
+}
@@ -0,0 +1,96 @@
+package memstore.table;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the run-length and delta column encodings, and that EncodedColumn
+ * picks them for clustered and sorted data.
+ */
+public class EncodedColumnTest {
+    private static int[] sortedValues(int n, int bound) {
+        Random random = new Random(0);
+        int[] values = new int[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = random.nextInt(bound);
+        }
+        java.util.Arrays.sort(values);
+        return values;
+    }
+
+    private static void checkAgainstPlain(int[] values, EncodedColumn col) {
+        assertArrayEquals(values, col.decode());
+        long sum = 0;
+        for (int v : values) {
+            sum += v;
+        }
+        assertEquals(sum, col.sum());
+        long[] sel = new long[(values.length + 63) >>> 6];
+        for (int t : new int[]{-1, 0, values[values.length / 3], values[values.length / 2], Integer.MAX_VALUE}) {
+            col.selectAbove(t, sel, false);
+            long expected = 0;
+            for (int v : values) {
+                expected += v > t ? v : 0;
+            }
+            assertEquals(expected, col.sumSelected(sel));
+
+            col.selectBelow(t, sel, false);
+            expected = 0;
+            for (int v : values) {
+                expected += v < t ? v : 0;
+            }
+            assertEquals(expected, col.sumSelected(sel));
+        }
+        for (int row = 0; row < values.length; row += 7) {
+            assertEquals(values[row], col.get(row));
+        }
+    }
+
+    @Test
+    public void testRunLength() {
+        int[] values = sortedValues(1000, 20);
+        EncodedColumn col = EncodedColumn.encode(values);
+        assertTrue(col instanceof RunLengthColumn);
+        checkAgainstPlain(values, col);
+        assertTrue(col.set(5, values[5]));
+        assertFalse(col.set(5, values[5] + 1));
+    }
+
+    @Test
+    public void testDelta() {
+        int[] values = sortedValues(10_000, 100_000_000);
+        EncodedColumn col = EncodedColumn.encode(values);
+        assertTrue(col instanceof DeltaColumn);
+        checkAgainstPlain(values, col);
+        assertFalse(col.set(500, values[500] + 1));
+    }
+
+    @Test
+    public void testIntersect() {
+        int[] values = sortedValues(300, 20);
+        EncodedColumn col = RunLengthColumn.encode(values);
+        long[] sel = new long[5];
+        col.selectAbove(5, sel, false);
+        col.selectBelow(10, sel, true);
+        long expected = 0;
+        for (int v : values) {
+            expected += v > 5 && v < 10 ? v : 0;
+        }
+        assertEquals(expected, col.sumSelected(sel));
+    }
+
+    @Test
+    public void testBits() {
+        long[] bits = new long[3];
+        Bits.setRange(bits, 10, 140);
+        assertEquals(130, Bits.count(bits, 0, 192));
+        Bits.clearRange(bits, 60, 70);
+        assertEquals(120, Bits.count(bits, 0, 192));
+        assertFalse(Bits.get(bits, 65));
+        assertTrue(Bits.get(bits, 139));
+        assertFalse(Bits.get(bits, 140));
+    }
+}
@@ -0,0 +1,60 @@
+package memstore.table;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests FenwickGrid's quadrant sums against a scan of the pairs and weights
+ * it was built from, as rows move between cells and change weight.
+ */
+public class FenwickGridTest {
+    private static void checkQuadrant(FenwickGrid grid, int[] values1, int[] values2, int[] weights,
+                                      int t1, int t2) {
+        long expected = 0;
+        for (int rowId = 0; rowId < values1.length; rowId++) {
+            if (values1[rowId] > t1 && values2[rowId] < t2) {
+                expected += weights[rowId];
+            }
+        }
+        assertEquals(expected, grid.quadrantSum(t1, t2));
+    }
+
+    @Test
+    public void testAgainstScan() {
+        Random random = new Random(0);
+        int[] values1 = new int[4000];
+        int[] values2 = new int[values1.length];
+        int[] weights = new int[values1.length];
+        for (int rowId = 0; rowId < values1.length; rowId++) {
+            values1[rowId] = random.nextInt(100);
+            values2[rowId] = -50 + random.nextInt(70);
+            weights[rowId] = random.nextInt();
+        }
+        FenwickGrid grid = new FenwickGrid(values1, values2, weights, -5, 104, -60, 19);
+        assertTrue(grid.covers(-5, -60) && grid.covers(104, 19));
+        assertFalse(grid.covers(-6, 0) || grid.covers(0, 20));
+        for (int i = 0; i < 20000; i++) {
+            int rowId = random.nextInt(values1.length);
+            int value1 = -5 + random.nextInt(110);
+            int value2 = -60 + random.nextInt(80);
+            int weight = random.nextInt();
+            grid.add(values1[rowId], values2[rowId], -weights[rowId]);
+            grid.add(value1, value2, weight);
+            values1[rowId] = value1;
+            values2[rowId] = value2;
+            weights[rowId] = weight;
+            if (i % 1000 == 0) {
+                checkQuadrant(grid, values1, values2, weights, -10 + random.nextInt(120), -65 + random.nextInt(90));
+            }
+        }
+        int[] thresholds = {Integer.MIN_VALUE, -60, -5, 0, 19, 104, 105, Integer.MAX_VALUE};
+        for (int t1 : thresholds) {
+            for (int t2 : thresholds) {
+                checkQuadrant(grid, values1, values2, weights, t1, t2);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package memstore.table;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests FenwickTree's threshold counts and weights against a scan of the
+ * values and weights it was built from, as rows change value and weight.
+ */
+public class FenwickTreeTest {
+    private static void checkThreshold(FenwickTree tree, int[] values, long[] weights, int threshold) {
+        int countBelow = 0;
+        long weightBelow = 0;
+        long weightAbove = 0;
+        for (int rowId = 0; rowId < values.length; rowId++) {
+            if (values[rowId] < threshold) {
+                countBelow++;
+                weightBelow += weights[rowId];
+            } else if (values[rowId] > threshold) {
+                weightAbove += weights[rowId];
+            }
+        }
+        assertEquals(countBelow, tree.countBelow(threshold));
+        assertEquals(weightBelow, tree.weightBelow(threshold));
+        assertEquals(weightAbove, tree.weightAbove(threshold));
+    }
+
+    @Test
+    public void testAgainstScan() {
+        Random random = new Random(0);
+        int[] values = new int[5000];
+        long[] weights = new long[values.length];
+        for (int rowId = 0; rowId < values.length; rowId++) {
+            values[rowId] = -100 + random.nextInt(300);
+            weights[rowId] = random.nextInt(1 << 20);
+        }
+        FenwickTree tree = new FenwickTree(values, weights, -110, 210);
+        assertEquals(values.length, tree.count());
+        assertTrue(tree.covers(-110) && tree.covers(210));
+        assertFalse(tree.covers(-111) || tree.covers(211));
+        for (int i = 0; i < 20000; i++) {
+            int rowId = random.nextInt(values.length);
+            int value = -110 + random.nextInt(321);
+            long weight = random.nextInt(1 << 20);
+            tree.add(values[rowId], -1, -weights[rowId]);
+            tree.add(value, 1, weight);
+            values[rowId] = value;
+            weights[rowId] = weight;
+            if (i % 1000 == 0) {
+                checkThreshold(tree, values, weights, -120 + random.nextInt(340));
+            }
+        }
+        assertEquals(values.length, tree.count());
+        int[] thresholds = {Integer.MIN_VALUE, -110, -109, 0, 209, 210, 211, Integer.MAX_VALUE};
+        for (int threshold : thresholds) {
+            checkThreshold(tree, values, weights, threshold);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package memstore.table;
+
+import memstore.data.DataLoader;
+import memstore.data.RandomizedLoader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the KdTreeTable's k-d tree against an
+ * ArrayColumnTable while points move and weights change, across rebuilds.
+ */
+public class KdTreeTableTest {
+    @Test
+    public void testMatchesArrayColumnTable() throws IOException {
+        DataLoader rl = new RandomizedLoader(0, 20000, 4);
+        Table at = new ArrayColumnTable();
+        Table t = new KdTreeTable();
+        at.load(rl);
+        t.load(rl);
+        Random random = new Random(0);
+        for (int i = 0; i < 40000; i++) {
+            int rowId = random.nextInt(20000);
+            int colId = random.nextInt(4);
+            // mostly within the loaded range, sometimes far outside it
+            int field = random.nextInt(16) == 0 ? random.nextInt() : random.nextInt(1024);
+            at.putIntField(rowId, colId, field);
+            t.putIntField(rowId, colId, field);
+            if (i % 1000 == 0) {
+                int threshold1 = random.nextInt(1100) - 50;
+                int threshold2 = random.nextInt(1100) - 50;
+                assertEquals(at.predicatedColumnSum(threshold1, threshold2),
+                        t.predicatedColumnSum(threshold1, threshold2));
+                assertEquals(at.predicatedAllColumnsSum(threshold1), t.predicatedAllColumnsSum(threshold1));
+            }
+        }
+        int[] extremes = {Integer.MIN_VALUE, -1, 0, 512, 1023, Integer.MAX_VALUE};
+        for (int threshold1 : extremes) {
+            for (int threshold2 : extremes) {
+                assertEquals(at.predicatedColumnSum(threshold1, threshold2),
+                        t.predicatedColumnSum(threshold1, threshold2));
+            }
+        }
+        assertEquals(at.predicatedUpdate(100), t.predicatedUpdate(100));
+        assertEquals(at.predicatedColumnSum(100, 900), t.predicatedColumnSum(100, 900));
+    }
+}
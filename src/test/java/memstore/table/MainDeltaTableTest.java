@@ -0,0 +1,60 @@
+package memstore.table;
+
+import memstore.data.DataLoader;
+import memstore.data.RandomizedLoader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the MainDeltaTable's delta against an
+ * ArrayColumnTable while runs of writes fill it, start background merges and
+ * land in a fresh delta before they finish.
+ */
+public class MainDeltaTableTest {
+
+    private static void checkAgainstArrayColumnTable(int seed, int maxDeltaRows) throws IOException {
+        DataLoader rl = new RandomizedLoader(seed, 5000, 5);
+        Table at = new ArrayColumnTable();
+        Table t = new MainDeltaTable(maxDeltaRows);
+        at.load(rl);
+        t.load(rl);
+        Random random = new Random(seed);
+        for (int i = 0; i < 20000; i++) {
+            int rowId = random.nextInt(5000);
+            int colId = random.nextInt(5);
+            int field = random.nextInt(50) == 0 ? random.nextInt() : random.nextInt(1024);
+            at.putIntField(rowId, colId, field);
+            t.putIntField(rowId, colId, field);
+            rowId = random.nextInt(5000);
+            assertEquals(at.getIntField(rowId, colId), t.getIntField(rowId, colId));
+            int threshold = random.nextInt(1100) - 50;
+            // scans right after the delta fills run against a merge in progress
+            if (i % 97 == 0) {
+                assertEquals(at.columnSum(), t.columnSum());
+                assertEquals(at.predicatedAllColumnsSum(threshold), t.predicatedAllColumnsSum(threshold));
+                assertEquals(at.predicatedColumnSum(threshold, 1023 - threshold),
+                        t.predicatedColumnSum(threshold, 1023 - threshold));
+            }
+            if (i % 2000 == 0) {
+                assertEquals(at.predicatedUpdate(threshold), t.predicatedUpdate(threshold));
+            }
+        }
+        for (int rowId = 0; rowId < 5000; rowId++) {
+            for (int colId = 0; colId < 5; colId++) {
+                assertEquals(at.getIntField(rowId, colId), t.getIntField(rowId, colId));
+            }
+        }
+        assertEquals(at.predicatedAllColumnsSum(-1), t.predicatedAllColumnsSum(-1));
+    }
+
+    @Test
+    public void testMatchesArrayColumnTable() throws IOException {
+        checkAgainstArrayColumnTable(0, 64);
+        checkAgainstArrayColumnTable(1, 8);
+        checkAgainstArrayColumnTable(2, 100000);
+    }
+}
@@ -0,0 +1,56 @@
+package memstore.table;
+
+import memstore.data.CSVLoader;
+import memstore.data.DataLoader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the MappedTable, including reopening a table from its backing file.
+ */
+public class MappedTableTest {
+    DataLoader dl;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    public MappedTableTest() {
+        dl = new CSVLoader(
+                "src/main/resources/test.csv",
+                5
+        );
+    }
+
+    @Test
+    public void testReopen() throws IOException {
+        File file = folder.newFile();
+        try (MappedTable t = new MappedTable(file)) {
+            t.load(dl);
+            t.putIntField(4, 0, 10);
+            t.force();
+        }
+        try (MappedTable t = new MappedTable(file)) {
+            t.open();
+            assertEquals(10, t.getIntField(4, 0));
+            assertEquals(5, t.getIntField(1, 1));
+            assertEquals(70, t.columnSum());
+            assertEquals(51, t.predicatedColumnSum(3, 5));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testOpenRejectsForeignFile() throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), new byte[MappedTable.HEADER_LEN]);
+        try (MappedTable t = new MappedTable(file)) {
+            t.open();
+        }
+    }
+}
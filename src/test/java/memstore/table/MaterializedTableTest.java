@@ -0,0 +1,86 @@
+package memstore.table;
+
+import memstore.data.CSVLoader;
+import memstore.data.DataLoader;
+import memstore.data.RandomizedLoader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that MaterializedTable's views follow its writes, against
+ * views rebuilt from scratch after puts and predicatedUpdates, including
+ * views registered and dropped part way through.
+ */
+public class MaterializedTableTest {
+    DataLoader dl;
+
+    public MaterializedTableTest() {
+        dl = new CSVLoader(
+                "src/main/resources/test.csv",
+                5
+        );
+    }
+
+    @Test
+    public void testViewFollowsPredicatedUpdate() throws IOException {
+        MaterializedTable t = new MaterializedTable(new RowTable());
+        ColumnSumView sum3 = new ColumnSumView(3);
+        t.register(sum3);
+        t.load(dl);
+        long before = sum3.sum();
+        assertEquals(9, t.predicatedUpdate(3));
+        assertEquals(before + 18, sum3.sum());
+    }
+
+    private static void checkViews(MaterializedTable t, ColumnSumView sum, RowSumView rowSums,
+                                   FilteredCountView count, int numRows, int numCols) {
+        ColumnSumView expectedSum = new ColumnSumView(3);
+        RowSumView expectedRowSums = new RowSumView();
+        FilteredCountView expectedCount = new FilteredCountView(3, value -> value > 1000);
+        expectedSum.build(t, numRows, numCols);
+        expectedRowSums.build(t, numRows, numCols);
+        expectedCount.build(t, numRows, numCols);
+        assertEquals(expectedSum.sum(), sum.sum());
+        assertEquals(expectedCount.count(), count.count());
+        for (int rowId = 0; rowId < numRows; rowId++) {
+            assertEquals(expectedRowSums.get(rowId), rowSums.get(rowId));
+        }
+    }
+
+    @Test
+    public void testViews() throws IOException {
+        DataLoader rl = new RandomizedLoader(0, 2000, 6);
+        MaterializedTable t = new MaterializedTable(new ArrayColumnTable());
+        ColumnSumView sum = new ColumnSumView(3);
+        RowSumView rowSums = new RowSumView();
+        FilteredCountView count = new FilteredCountView(3, value -> value > 1000);
+        t.register(sum);
+        t.load(rl);
+        assertEquals(8, t.sizeInBytes());
+        t.register(rowSums);
+        t.register(count);
+        assertEquals(8 + 8 * 2000 + 4, t.sizeInBytes());
+
+        Random random = new Random(0);
+        for (int i = 0; i < 5000; i++) {
+            t.putIntField(random.nextInt(2000), random.nextInt(6), random.nextInt(1024));
+            if (i % 500 == 0) {
+                t.predicatedUpdate(random.nextInt(1024));
+                checkViews(t, sum, rowSums, count, 2000, 6);
+            }
+        }
+        checkViews(t, sum, rowSums, count, 2000, 6);
+
+        // a dropped view is no longer maintained or counted
+        assertTrue(t.drop(rowSums));
+        assertFalse(t.drop(rowSums));
+        assertEquals(8 + 4, t.sizeInBytes());
+        long stale = rowSums.get(0);
+        t.putIntField(0, 1, t.getIntField(0, 1) + 1);
+        assertEquals(stale, rowSums.get(0));
+    }
+}
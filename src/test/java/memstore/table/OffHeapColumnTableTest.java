@@ -0,0 +1,52 @@
+package memstore.table;
+
+import memstore.data.DataLoader;
+import memstore.data.RandomizedLoader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the OffHeapColumnTable with chunks small enough that columns
+ * straddle chunk boundaries.
+ */
+public class OffHeapColumnTableTest {
+    private static void checkAgainstRowTable(int chunkShift) throws IOException {
+        DataLoader rl = new RandomizedLoader(chunkShift, 1000, 6);
+        Table rt = new RowTable();
+        Table t = new OffHeapColumnTable(chunkShift);
+        rt.load(rl);
+        t.load(rl);
+        Random random = new Random(chunkShift);
+        for (int i = 0; i < 1000; i++) {
+            int rowId = random.nextInt(1000);
+            int colId = random.nextInt(6);
+            int field = random.nextInt(1024);
+            rt.putIntField(rowId, colId, field);
+            t.putIntField(rowId, colId, field);
+            if (i % 100 == 0) {
+                int threshold = random.nextInt(1024);
+                int threshold2 = random.nextInt(1024);
+                assertEquals(rt.columnSum(), t.columnSum());
+                assertEquals(rt.predicatedAllColumnsSum(threshold), t.predicatedAllColumnsSum(threshold));
+                assertEquals(rt.predicatedColumnSum(threshold, threshold2), t.predicatedColumnSum(threshold, threshold2));
+                assertEquals(rt.predicatedUpdate(threshold / 8), t.predicatedUpdate(threshold / 8));
+            }
+        }
+        for (int rowId = 0; rowId < 1000; rowId++) {
+            for (int colId = 0; colId < 6; colId++) {
+                assertEquals(rt.getIntField(rowId, colId), t.getIntField(rowId, colId));
+            }
+        }
+    }
+
+    @Test
+    public void testChunkBoundaries() throws IOException {
+        for (int chunkShift : new int[]{2, 3, 7}) {
+            checkAgainstRowTable(chunkShift);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package memstore.table;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the encodings and code-range predicates of PackedColumn.
+ */
+public class PackedColumnTest {
+    @Test
+    public void testFrameOfReference() {
+        int[] values = {100, 103, 101, 107, 100, 105, 102};
+        PackedColumn col = PackedColumn.encode(values);
+        assertNull(col.dict);
+        assertEquals(3, col.width);
+        assertArrayEquals(values, col.decode());
+        assertEquals(718, col.sum());
+
+        long[] sel = new long[1];
+        col.select(col.codeAbove(101), Long.MAX_VALUE, sel, false);
+        col.select(0, col.codeBelow(107), sel, true);
+        assertEquals(103 + 105 + 102, col.sumSelected(sel));
+    }
+
+    @Test
+    public void testDictionary() {
+        int[] values = new int[200];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (i % 3) * 1_000_000 - 5;
+        }
+        PackedColumn col = PackedColumn.encode(values);
+        assertNotNull(col.dict);
+        assertEquals(2, col.width);
+        assertArrayEquals(values, col.decode());
+
+        long[] sel = new long[4];
+        col.select(col.codeAbove(0), Long.MAX_VALUE, sel, false);
+        long expected = 0;
+        for (int v : values) {
+            expected += v > 0 ? v : 0;
+        }
+        assertEquals(expected, col.sumSelected(sel));
+
+        assertTrue(col.set(3, 1_999_995));
+        assertFalse(col.set(3, 7));
+        assertEquals(1_999_995, col.get(3));
+    }
+
+    @Test
+    public void testDictionaryOverFullRange() {
+        // few distinct values spread over the whole int range need 32-bit
+        // frame-of-reference codes, but only 2 bits in a dictionary
+        int[] spread = {Integer.MIN_VALUE, -7, 1 << 30, Integer.MAX_VALUE};
+        int[] values = new int[500];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = spread[(i * 7) % spread.length];
+        }
+        PackedColumn col = PackedColumn.encode(values);
+        assertNotNull(col.dict);
+        assertEquals(2, col.width);
+        assertArrayEquals(values, col.decode());
+
+        long expected = 0;
+        for (int v : values) {
+            expected += v;
+        }
+        assertEquals(expected, col.sum());
+        long[] sel = new long[8];
+        col.select(col.codeAbove(-7), Long.MAX_VALUE, sel, false);
+        expected = 0;
+        for (int v : values) {
+            expected += v > -7 ? v : 0;
+        }
+        assertEquals(expected, col.sumSelected(sel));
+    }
+
+    @Test
+    public void testOverflow() {
+        PackedColumn col = PackedColumn.encode(new int[]{0, 1, 2, 3});
+        assertFalse(col.set(0, 4));
+        assertFalse(col.set(0, -1));
+        assertTrue(col.set(0, 3));
+        assertEquals(3, col.get(0));
+    }
+}
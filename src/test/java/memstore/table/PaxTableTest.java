@@ -0,0 +1,66 @@
+package memstore.table;
+
+import memstore.data.ByteFormat;
+import memstore.data.DataLoader;
+import memstore.data.RandomizedLoader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the PaxTable with row groups small enough that the data spans
+ * many groups, with and without a partial last group.
+ */
+public class PaxTableTest {
+    private static void checkAgainstRowTable(int rowsPerGroup) throws IOException {
+        DataLoader rl = new RandomizedLoader(rowsPerGroup, 1000, 6);
+        Table rt = new RowTable();
+        Table t = new PaxTable(rowsPerGroup);
+        rt.load(rl);
+        t.load(rl);
+        Random random = new Random(rowsPerGroup);
+        for (int i = 0; i < 1000; i++) {
+            int rowId = random.nextInt(1000);
+            int colId = random.nextInt(6);
+            int field = random.nextInt(1024);
+            rt.putIntField(rowId, colId, field);
+            t.putIntField(rowId, colId, field);
+            if (i % 100 == 0) {
+                int threshold = random.nextInt(1024);
+                int threshold2 = random.nextInt(1024);
+                assertEquals(rt.columnSum(), t.columnSum());
+                assertEquals(rt.predicatedAllColumnsSum(threshold), t.predicatedAllColumnsSum(threshold));
+                assertEquals(rt.predicatedColumnSum(threshold, threshold2), t.predicatedColumnSum(threshold, threshold2));
+                assertEquals(rt.predicatedUpdate(threshold / 8), t.predicatedUpdate(threshold / 8));
+            }
+        }
+        for (int rowId = 0; rowId < 1000; rowId++) {
+            for (int colId = 0; colId < 6; colId++) {
+                assertEquals(rt.getIntField(rowId, colId), t.getIntField(rowId, colId));
+            }
+        }
+    }
+
+    @Test
+    public void testReloadResizesGroups() throws IOException {
+        PaxTable t = new PaxTable();
+        t.load(new RandomizedLoader(0, 1000, 100));
+        assertEquals(PaxTable.GROUP_BYTES / (ByteFormat.FIELD_LEN * 100), t.getRowsPerGroup());
+        t.load(new RandomizedLoader(0, 1000, 4));
+        assertEquals(PaxTable.GROUP_BYTES / (ByteFormat.FIELD_LEN * 4), t.getRowsPerGroup());
+        PaxTable fixed = new PaxTable(3);
+        fixed.load(new RandomizedLoader(0, 1000, 100));
+        fixed.load(new RandomizedLoader(0, 1000, 4));
+        assertEquals(3, fixed.getRowsPerGroup());
+    }
+
+    @Test
+    public void testRowGroupBoundaries() throws IOException {
+        for (int rowsPerGroup : new int[]{1, 3, 7, 64}) {
+            checkAgainstRowTable(rowsPerGroup);
+        }
+    }
+}
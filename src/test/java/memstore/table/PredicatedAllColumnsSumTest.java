@@ -2,7 +2,9 @@ package memstore.table;
 
 import memstore.data.CSVLoader;
 import memstore.data.DataLoader;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
 
@@ -15,6 +17,9 @@ import static org.junit.Assert.assertEquals;
 public class PredicatedAllColumnsSumTest {
     DataLoader dl;
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     public PredicatedAllColumnsSumTest() {
         dl = new CSVLoader(
                 "src/main/resources/test.csv",
@@ -27,6 +32,7 @@ public class PredicatedAllColumnsSumTest {
         RowTable rt = new RowTable();
         rt.load(dl);
         assertEquals(166, rt.predicatedAllColumnsSum(3));
+        assertEquals(342, rt.predicatedAllColumnsSum(-1));
     }
 
     @Test
@@ -34,6 +40,7 @@ public class PredicatedAllColumnsSumTest {
         ColumnTable ct = new ColumnTable();
         ct.load(dl);
         assertEquals(166, ct.predicatedAllColumnsSum(3));
+        assertEquals(342, ct.predicatedAllColumnsSum(-1));
     }
 
     @Test
@@ -41,5 +48,127 @@ public class PredicatedAllColumnsSumTest {
         IndexedRowTable it = new IndexedRowTable(0);
         it.load(dl);
         assertEquals(166, it.predicatedAllColumnsSum(3));
+        assertEquals(342, it.predicatedAllColumnsSum(-1));
+    }
+
+    @Test
+    public void testOffHeapColumnTable() throws IOException {
+        OffHeapColumnTable ot = new OffHeapColumnTable();
+        ot.load(dl);
+        assertEquals(166, ot.predicatedAllColumnsSum(3));
+        assertEquals(342, ot.predicatedAllColumnsSum(-1));
+    }
+
+    @Test
+    public void testArrayColumnTable() throws IOException {
+        ArrayColumnTable at = new ArrayColumnTable();
+        at.load(dl);
+        assertEquals(166, at.predicatedAllColumnsSum(3));
+        assertEquals(342, at.predicatedAllColumnsSum(-1));
+    }
+
+    @Test
+    public void testPaxTable() throws IOException {
+        PaxTable pt = new PaxTable();
+        pt.load(dl);
+        assertEquals(166, pt.predicatedAllColumnsSum(3));
+        assertEquals(342, pt.predicatedAllColumnsSum(-1));
+    }
+
+    @Test
+    public void testCompressedColumnTable() throws IOException {
+        CompressedColumnTable zt = new CompressedColumnTable();
+        zt.load(dl);
+        assertEquals(166, zt.predicatedAllColumnsSum(3));
+        assertEquals(342, zt.predicatedAllColumnsSum(-1));
+    }
+
+    @Test
+    public void testColumnGroupTable() throws IOException {
+        ColumnGroupTable gt = new ColumnGroupTable();
+        gt.load(dl);
+        assertEquals(166, gt.predicatedAllColumnsSum(3));
+        assertEquals(342, gt.predicatedAllColumnsSum(-1));
+    }
+
+    @Test
+    public void testSegmentedTable() throws IOException {
+        SegmentedTable st = new SegmentedTable();
+        st.load(dl);
+        assertEquals(166, st.predicatedAllColumnsSum(3));
+        assertEquals(342, st.predicatedAllColumnsSum(-1));
+    }
+
+    @Test
+    public void testClusteredRowTable() throws IOException {
+        ClusteredRowTable clt = new ClusteredRowTable();
+        clt.load(dl);
+        assertEquals(166, clt.predicatedAllColumnsSum(3));
+        assertEquals(342, clt.predicatedAllColumnsSum(-1));
+    }
+
+    @Test
+    public void testProjectedTable() throws IOException {
+        ProjectedTable pjt = new ProjectedTable();
+        pjt.load(dl);
+        assertEquals(166, pjt.predicatedAllColumnsSum(3));
+        assertEquals(342, pjt.predicatedAllColumnsSum(-1));
+    }
+
+    @Test
+    public void testMaterializedTable() throws IOException {
+        MaterializedTable vt = new MaterializedTable(new RowTable());
+        vt.load(dl);
+        assertEquals(166, vt.predicatedAllColumnsSum(3));
+        assertEquals(342, vt.predicatedAllColumnsSum(-1));
+    }
+
+    @Test
+    public void testMappedTable() throws IOException {
+        try (MappedTable mpt = new MappedTable(folder.newFile())) {
+            mpt.load(dl);
+            assertEquals(166, mpt.predicatedAllColumnsSum(3));
+            assertEquals(342, mpt.predicatedAllColumnsSum(-1));
+        }
+    }
+
+    @Test
+    public void testAdaptiveTable() throws IOException {
+        AdaptiveTable adt = new AdaptiveTable();
+        adt.load(dl);
+        assertEquals(166, adt.predicatedAllColumnsSum(3));
+        assertEquals(342, adt.predicatedAllColumnsSum(-1));
+    }
+
+    @Test
+    public void testCrackedColumnTable() throws IOException {
+        CrackedColumnTable crt = new CrackedColumnTable();
+        crt.load(dl);
+        assertEquals(166, crt.predicatedAllColumnsSum(3));
+        assertEquals(342, crt.predicatedAllColumnsSum(-1));
+    }
+
+    @Test
+    public void testKdTreeTable() throws IOException {
+        KdTreeTable kdt = new KdTreeTable();
+        kdt.load(dl);
+        assertEquals(166, kdt.predicatedAllColumnsSum(3));
+        assertEquals(342, kdt.predicatedAllColumnsSum(-1));
+    }
+
+    @Test
+    public void testDeferredUpdateTable() throws IOException {
+        DeferredUpdateTable dt = new DeferredUpdateTable();
+        dt.load(dl);
+        assertEquals(166, dt.predicatedAllColumnsSum(3));
+        assertEquals(342, dt.predicatedAllColumnsSum(-1));
+    }
+
+    @Test
+    public void testMainDeltaTable() throws IOException {
+        MainDeltaTable mt = new MainDeltaTable();
+        mt.load(dl);
+        assertEquals(166, mt.predicatedAllColumnsSum(3));
+        assertEquals(342, mt.predicatedAllColumnsSum(-1));
     }
 }
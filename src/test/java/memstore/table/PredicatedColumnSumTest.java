@@ -2,7 +2,9 @@ package memstore.table;
 
 import memstore.data.CSVLoader;
 import memstore.data.DataLoader;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
 
@@ -15,6 +17,9 @@ import static org.junit.Assert.assertEquals;
 public class PredicatedColumnSumTest {
     DataLoader dl;
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     public PredicatedColumnSumTest() {
         dl = new CSVLoader(
                 "src/main/resources/test.csv",
@@ -42,4 +47,110 @@ public class PredicatedColumnSumTest {
         it.load(dl);
         assertEquals(49, it.predicatedColumnSum(3, 5));
     }
+
+    @Test
+    public void testOffHeapColumnTable() throws IOException {
+        OffHeapColumnTable ot = new OffHeapColumnTable();
+        ot.load(dl);
+        assertEquals(49, ot.predicatedColumnSum(3, 5));
+    }
+
+    @Test
+    public void testArrayColumnTable() throws IOException {
+        ArrayColumnTable at = new ArrayColumnTable();
+        at.load(dl);
+        assertEquals(49, at.predicatedColumnSum(3, 5));
+    }
+
+    @Test
+    public void testPaxTable() throws IOException {
+        PaxTable pt = new PaxTable();
+        pt.load(dl);
+        assertEquals(49, pt.predicatedColumnSum(3, 5));
+    }
+
+    @Test
+    public void testCompressedColumnTable() throws IOException {
+        CompressedColumnTable zt = new CompressedColumnTable();
+        zt.load(dl);
+        assertEquals(49, zt.predicatedColumnSum(3, 5));
+    }
+
+    @Test
+    public void testColumnGroupTable() throws IOException {
+        ColumnGroupTable gt = new ColumnGroupTable();
+        gt.load(dl);
+        assertEquals(49, gt.predicatedColumnSum(3, 5));
+    }
+
+    @Test
+    public void testSegmentedTable() throws IOException {
+        SegmentedTable st = new SegmentedTable();
+        st.load(dl);
+        assertEquals(49, st.predicatedColumnSum(3, 5));
+    }
+
+    @Test
+    public void testClusteredRowTable() throws IOException {
+        ClusteredRowTable clt = new ClusteredRowTable();
+        clt.load(dl);
+        assertEquals(49, clt.predicatedColumnSum(3, 5));
+    }
+
+    @Test
+    public void testProjectedTable() throws IOException {
+        ProjectedTable pjt = new ProjectedTable();
+        pjt.load(dl);
+        assertEquals(49, pjt.predicatedColumnSum(3, 5));
+    }
+
+    @Test
+    public void testMaterializedTable() throws IOException {
+        MaterializedTable vt = new MaterializedTable(new RowTable());
+        vt.load(dl);
+        assertEquals(49, vt.predicatedColumnSum(3, 5));
+    }
+
+    @Test
+    public void testMappedTable() throws IOException {
+        try (MappedTable mpt = new MappedTable(folder.newFile())) {
+            mpt.load(dl);
+            assertEquals(49, mpt.predicatedColumnSum(3, 5));
+        }
+    }
+
+    @Test
+    public void testAdaptiveTable() throws IOException {
+        AdaptiveTable adt = new AdaptiveTable();
+        adt.load(dl);
+        assertEquals(49, adt.predicatedColumnSum(3, 5));
+    }
+
+    @Test
+    public void testCrackedColumnTable() throws IOException {
+        CrackedColumnTable crt = new CrackedColumnTable();
+        crt.load(dl);
+        assertEquals(49, crt.predicatedColumnSum(3, 5));
+    }
+
+    @Test
+    public void testKdTreeTable() throws IOException {
+        KdTreeTable kdt = new KdTreeTable();
+        kdt.load(dl);
+        assertEquals(49, kdt.predicatedColumnSum(3, 5));
+    }
+
+    @Test
+    public void testDeferredUpdateTable() throws IOException {
+        DeferredUpdateTable dt = new DeferredUpdateTable();
+        dt.load(dl);
+        assertEquals(49, dt.predicatedColumnSum(3, 5));
+    }
+
+    @Test
+    public void testMainDeltaTable() throws IOException {
+        MainDeltaTable mt = new MainDeltaTable();
+        mt.load(dl);
+        assertEquals(49, mt.predicatedColumnSum(3, 5));
+    }
 }
@@ -2,7 +2,9 @@ package memstore.table;
 
 import memstore.data.CSVLoader;
 import memstore.data.DataLoader;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
 
@@ -15,6 +17,9 @@ import static org.junit.Assert.assertEquals;
 public class PredicatedUpdateTest {
     DataLoader dl;
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     public PredicatedUpdateTest() {
         dl = new CSVLoader(
                 "src/main/resources/test.csv",
@@ -27,6 +32,7 @@ public class PredicatedUpdateTest {
         RowTable rt = new RowTable();
         rt.load(dl);
         assertEquals(9, rt.predicatedUpdate(3));
+        assertEquals(360, rt.predicatedAllColumnsSum(-1));
     }
 
     @Test
@@ -34,6 +40,7 @@ public class PredicatedUpdateTest {
         ColumnTable ct = new ColumnTable();
         ct.load(dl);
         assertEquals(9, ct.predicatedUpdate(3));
+        assertEquals(360, ct.predicatedAllColumnsSum(-1));
     }
 
     @Test
@@ -41,5 +48,127 @@ public class PredicatedUpdateTest {
         IndexedRowTable it = new IndexedRowTable(0);
         it.load(dl);
         assertEquals(9, it.predicatedUpdate(3));
+        assertEquals(360, it.predicatedAllColumnsSum(-1));
+    }
+
+    @Test
+    public void testOffHeapColumnTable() throws IOException {
+        OffHeapColumnTable ot = new OffHeapColumnTable();
+        ot.load(dl);
+        assertEquals(9, ot.predicatedUpdate(3));
+        assertEquals(360, ot.predicatedAllColumnsSum(-1));
+    }
+
+    @Test
+    public void testArrayColumnTable() throws IOException {
+        ArrayColumnTable at = new ArrayColumnTable();
+        at.load(dl);
+        assertEquals(9, at.predicatedUpdate(3));
+        assertEquals(360, at.predicatedAllColumnsSum(-1));
+    }
+
+    @Test
+    public void testPaxTable() throws IOException {
+        PaxTable pt = new PaxTable();
+        pt.load(dl);
+        assertEquals(9, pt.predicatedUpdate(3));
+        assertEquals(360, pt.predicatedAllColumnsSum(-1));
+    }
+
+    @Test
+    public void testCompressedColumnTable() throws IOException {
+        CompressedColumnTable zt = new CompressedColumnTable();
+        zt.load(dl);
+        assertEquals(9, zt.predicatedUpdate(3));
+        assertEquals(360, zt.predicatedAllColumnsSum(-1));
+    }
+
+    @Test
+    public void testColumnGroupTable() throws IOException {
+        ColumnGroupTable gt = new ColumnGroupTable();
+        gt.load(dl);
+        assertEquals(9, gt.predicatedUpdate(3));
+        assertEquals(360, gt.predicatedAllColumnsSum(-1));
+    }
+
+    @Test
+    public void testSegmentedTable() throws IOException {
+        SegmentedTable st = new SegmentedTable();
+        st.load(dl);
+        assertEquals(9, st.predicatedUpdate(3));
+        assertEquals(360, st.predicatedAllColumnsSum(-1));
+    }
+
+    @Test
+    public void testClusteredRowTable() throws IOException {
+        ClusteredRowTable clt = new ClusteredRowTable();
+        clt.load(dl);
+        assertEquals(9, clt.predicatedUpdate(3));
+        assertEquals(360, clt.predicatedAllColumnsSum(-1));
+    }
+
+    @Test
+    public void testProjectedTable() throws IOException {
+        ProjectedTable pjt = new ProjectedTable();
+        pjt.load(dl);
+        assertEquals(9, pjt.predicatedUpdate(3));
+        assertEquals(360, pjt.predicatedAllColumnsSum(-1));
+    }
+
+    @Test
+    public void testMaterializedTable() throws IOException {
+        MaterializedTable vt = new MaterializedTable(new RowTable());
+        vt.load(dl);
+        assertEquals(9, vt.predicatedUpdate(3));
+        assertEquals(360, vt.predicatedAllColumnsSum(-1));
+    }
+
+    @Test
+    public void testMappedTable() throws IOException {
+        try (MappedTable mpt = new MappedTable(folder.newFile())) {
+            mpt.load(dl);
+            assertEquals(9, mpt.predicatedUpdate(3));
+            assertEquals(360, mpt.predicatedAllColumnsSum(-1));
+        }
+    }
+
+    @Test
+    public void testAdaptiveTable() throws IOException {
+        AdaptiveTable adt = new AdaptiveTable();
+        adt.load(dl);
+        assertEquals(9, adt.predicatedUpdate(3));
+        assertEquals(360, adt.predicatedAllColumnsSum(-1));
+    }
+
+    @Test
+    public void testCrackedColumnTable() throws IOException {
+        CrackedColumnTable crt = new CrackedColumnTable();
+        crt.load(dl);
+        assertEquals(9, crt.predicatedUpdate(3));
+        assertEquals(360, crt.predicatedAllColumnsSum(-1));
+    }
+
+    @Test
+    public void testKdTreeTable() throws IOException {
+        KdTreeTable kdt = new KdTreeTable();
+        kdt.load(dl);
+        assertEquals(9, kdt.predicatedUpdate(3));
+        assertEquals(360, kdt.predicatedAllColumnsSum(-1));
+    }
+
+    @Test
+    public void testDeferredUpdateTable() throws IOException {
+        DeferredUpdateTable dt = new DeferredUpdateTable();
+        dt.load(dl);
+        assertEquals(9, dt.predicatedUpdate(3));
+        assertEquals(360, dt.predicatedAllColumnsSum(-1));
+    }
+
+    @Test
+    public void testMainDeltaTable() throws IOException {
+        MainDeltaTable mt = new MainDeltaTable();
+        mt.load(dl);
+        assertEquals(9, mt.predicatedUpdate(3));
+        assertEquals(360, mt.predicatedAllColumnsSum(-1));
     }
 }
@@ -0,0 +1,53 @@
+package memstore.table;
+
+import memstore.data.DataLoader;
+import memstore.data.RandomizedLoader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ *  * Tests the ProjectedTable's projection-based query plans and write-through.
+ */
+public class ProjectedTableTest {
+    @Test
+    public void testMatchesRowTable() throws IOException {
+        DataLoader rl = new RandomizedLoader(0, 2000, 6);
+        int[][][] specs = {
+                ProjectedTable.DEFAULT_PROJECTIONS,
+                {{0, 2, 3}, {3, 0, 1, 2}},
+                {{0}},
+                {}
+        };
+        for (int[][] spec : specs) {
+            Table rt = new RowTable();
+            Table t = new ProjectedTable(spec);
+            rt.load(rl);
+            t.load(rl);
+            Random random = new Random(spec.length);
+            for (int i = 0; i < 5000; i++) {
+                int rowId = random.nextInt(2000);
+                int colId = random.nextInt(6);
+                int field = random.nextInt(1024);
+                rt.putIntField(rowId, colId, field);
+                t.putIntField(rowId, colId, field);
+                if (i % 250 == 0) {
+                    int threshold = random.nextInt(1024);
+                    assertEquals(rt.predicatedAllColumnsSum(threshold), t.predicatedAllColumnsSum(threshold));
+                    int threshold2 = random.nextInt(1024);
+                    assertEquals(rt.predicatedColumnSum(threshold, threshold2), t.predicatedColumnSum(threshold, threshold2));
+                    assertEquals(rt.predicatedUpdate(threshold / 4), t.predicatedUpdate(threshold / 4));
+                }
+            }
+            assertEquals(rt.columnSum(), t.columnSum());
+            for (int threshold = 0; threshold < 1024; threshold += 64) {
+                assertEquals(rt.predicatedAllColumnsSum(threshold), t.predicatedAllColumnsSum(threshold));
+                assertEquals(rt.predicatedColumnSum(threshold, 1023 - threshold),
+                        t.predicatedColumnSum(threshold, 1023 - threshold));
+            }
+        }
+    }
+}
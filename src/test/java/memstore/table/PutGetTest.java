@@ -2,7 +2,9 @@ package memstore.table;
 
 import memstore.data.CSVLoader;
 import memstore.data.DataLoader;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
 
@@ -15,6 +17,9 @@ import static org.junit.Assert.assertEquals;
 public class PutGetTest {
     DataLoader dl;
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     public PutGetTest() {
         dl = new CSVLoader(
                 "src/main/resources/test.csv",
@@ -31,6 +36,7 @@ public class PutGetTest {
         assertEquals(8, rt.getIntField(rowId, colId));
         rt.putIntField(rowId, colId, 10);
         assertEquals(10, rt.getIntField(rowId, colId));
+        assertEquals(70, rt.columnSum());
     }
 
     @Test
@@ -42,6 +48,7 @@ public class PutGetTest {
         assertEquals(8, ct.getIntField(rowId, colId));
         ct.putIntField(rowId, colId, 10);
         assertEquals(10, ct.getIntField(rowId, colId));
+        assertEquals(70, ct.columnSum());
     }
 
     @Test
@@ -53,5 +60,187 @@ public class PutGetTest {
         assertEquals(8, it.getIntField(rowId, colId));
         it.putIntField(rowId, colId, 10);
         assertEquals(10, it.getIntField(rowId, colId));
+        assertEquals(70, it.columnSum());
+    }
+
+    @Test
+    public void testOffHeapColumnTable() throws IOException {
+        OffHeapColumnTable ot = new OffHeapColumnTable();
+        ot.load(dl);
+        int rowId = 4;
+        int colId = 0;
+        assertEquals(8, ot.getIntField(rowId, colId));
+        ot.putIntField(rowId, colId, 10);
+        assertEquals(10, ot.getIntField(rowId, colId));
+        assertEquals(70, ot.columnSum());
+    }
+
+    @Test
+    public void testArrayColumnTable() throws IOException {
+        ArrayColumnTable at = new ArrayColumnTable();
+        at.load(dl);
+        int rowId = 4;
+        int colId = 0;
+        assertEquals(8, at.getIntField(rowId, colId));
+        at.putIntField(rowId, colId, 10);
+        assertEquals(10, at.getIntField(rowId, colId));
+        assertEquals(70, at.columnSum());
+    }
+
+    @Test
+    public void testPaxTable() throws IOException {
+        PaxTable pt = new PaxTable();
+        pt.load(dl);
+        int rowId = 4;
+        int colId = 0;
+        assertEquals(8, pt.getIntField(rowId, colId));
+        pt.putIntField(rowId, colId, 10);
+        assertEquals(10, pt.getIntField(rowId, colId));
+        assertEquals(70, pt.columnSum());
+    }
+
+    @Test
+    public void testCompressedColumnTable() throws IOException {
+        CompressedColumnTable zt = new CompressedColumnTable();
+        zt.load(dl);
+        int rowId = 4;
+        int colId = 0;
+        assertEquals(8, zt.getIntField(rowId, colId));
+        zt.putIntField(rowId, colId, 10);
+        assertEquals(10, zt.getIntField(rowId, colId));
+        assertEquals(70, zt.columnSum());
+    }
+
+    @Test
+    public void testColumnGroupTable() throws IOException {
+        ColumnGroupTable gt = new ColumnGroupTable();
+        gt.load(dl);
+        int rowId = 4;
+        int colId = 0;
+        assertEquals(8, gt.getIntField(rowId, colId));
+        gt.putIntField(rowId, colId, 10);
+        assertEquals(10, gt.getIntField(rowId, colId));
+        assertEquals(70, gt.columnSum());
+    }
+
+    @Test
+    public void testSegmentedTable() throws IOException {
+        SegmentedTable st = new SegmentedTable();
+        st.load(dl);
+        int rowId = 4;
+        int colId = 0;
+        assertEquals(8, st.getIntField(rowId, colId));
+        st.putIntField(rowId, colId, 10);
+        assertEquals(10, st.getIntField(rowId, colId));
+        assertEquals(70, st.columnSum());
+    }
+
+    @Test
+    public void testClusteredRowTable() throws IOException {
+        ClusteredRowTable clt = new ClusteredRowTable();
+        clt.load(dl);
+        int rowId = 4;
+        int colId = 0;
+        assertEquals(8, clt.getIntField(rowId, colId));
+        clt.putIntField(rowId, colId, 10);
+        assertEquals(10, clt.getIntField(rowId, colId));
+        assertEquals(70, clt.columnSum());
+    }
+
+    @Test
+    public void testProjectedTable() throws IOException {
+        ProjectedTable pjt = new ProjectedTable();
+        pjt.load(dl);
+        int rowId = 4;
+        int colId = 0;
+        assertEquals(8, pjt.getIntField(rowId, colId));
+        pjt.putIntField(rowId, colId, 10);
+        assertEquals(10, pjt.getIntField(rowId, colId));
+        assertEquals(70, pjt.columnSum());
+    }
+
+    @Test
+    public void testMaterializedTable() throws IOException {
+        MaterializedTable vt = new MaterializedTable(new RowTable());
+        vt.load(dl);
+        int rowId = 4;
+        int colId = 0;
+        assertEquals(8, vt.getIntField(rowId, colId));
+        vt.putIntField(rowId, colId, 10);
+        assertEquals(10, vt.getIntField(rowId, colId));
+        assertEquals(70, vt.columnSum());
+    }
+
+    @Test
+    public void testMappedTable() throws IOException {
+        try (MappedTable mpt = new MappedTable(folder.newFile())) {
+            mpt.load(dl);
+            int rowId = 4;
+            int colId = 0;
+            assertEquals(8, mpt.getIntField(rowId, colId));
+            mpt.putIntField(rowId, colId, 10);
+            assertEquals(10, mpt.getIntField(rowId, colId));
+            assertEquals(70, mpt.columnSum());
+        }
+    }
+
+    @Test
+    public void testAdaptiveTable() throws IOException {
+        AdaptiveTable adt = new AdaptiveTable();
+        adt.load(dl);
+        int rowId = 4;
+        int colId = 0;
+        assertEquals(8, adt.getIntField(rowId, colId));
+        adt.putIntField(rowId, colId, 10);
+        assertEquals(10, adt.getIntField(rowId, colId));
+        assertEquals(70, adt.columnSum());
+    }
+
+    @Test
+    public void testCrackedColumnTable() throws IOException {
+        CrackedColumnTable crt = new CrackedColumnTable();
+        crt.load(dl);
+        int rowId = 4;
+        int colId = 0;
+        assertEquals(8, crt.getIntField(rowId, colId));
+        crt.putIntField(rowId, colId, 10);
+        assertEquals(10, crt.getIntField(rowId, colId));
+        assertEquals(70, crt.columnSum());
+    }
+
+    @Test
+    public void testKdTreeTable() throws IOException {
+        KdTreeTable kdt = new KdTreeTable();
+        kdt.load(dl);
+        int rowId = 4;
+        int colId = 0;
+        assertEquals(8, kdt.getIntField(rowId, colId));
+        kdt.putIntField(rowId, colId, 10);
+        assertEquals(10, kdt.getIntField(rowId, colId));
+        assertEquals(70, kdt.columnSum());
+    }
+
+    @Test
+    public void testDeferredUpdateTable() throws IOException {
+        DeferredUpdateTable dt = new DeferredUpdateTable();
+        dt.load(dl);
+        int rowId = 4;
+        int colId = 0;
+        assertEquals(8, dt.getIntField(rowId, colId));
+        dt.putIntField(rowId, colId, 10);
+        assertEquals(10, dt.getIntField(rowId, colId));
+        assertEquals(70, dt.columnSum());
+    }
+
+    @Test
+    public void testMainDeltaTable() throws IOException {
+        MainDeltaTable mt = new MainDeltaTable();
+        mt.load(dl);
+        int rowId = 4;
+        int colId = 0;
+        assertEquals(8, mt.getIntField(rowId, colId));
+        mt.putIntField(rowId, colId, 10);
+        assertEquals(10, mt.getIntField(rowId, colId));
+        assertEquals(70, mt.columnSum());
     }
 }
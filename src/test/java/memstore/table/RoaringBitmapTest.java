@@ -0,0 +1,150 @@
+package memstore.table;
+
+import memstore.data.DataLoader;
+import memstore.data.RandomizedLoader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests RoaringBitmap's containers, set operations and run compression
+ * against java.util.BitSet.
+ */
+public class RoaringBitmapTest {
+    private static void checkEquals(BitSet expected, RoaringBitmap bitmap) {
+        assertEquals(expected.cardinality(), bitmap.cardinality());
+        int[] values = new int[bitmap.cardinality() + 1];
+        assertEquals(bitmap.cardinality(), bitmap.toArray(values, 1));
+        assertArrayEquals(expected.stream().toArray(), Arrays.copyOfRange(values, 1, values.length));
+    }
+
+    /**
+     * Fills chunk 0 sparsely, chunk 1 densely and chunk 3 with long runs, so
+     * that each container type appears.
+     */
+    private static BitSet randomSet(Random random) {
+        BitSet set = new BitSet();
+        for (int i = 0; i < 1000; i++) {
+            set.set(random.nextInt(1 << 16));
+        }
+        for (int i = 0; i < 30000; i++) {
+            set.set((1 << 16) + random.nextInt(1 << 16));
+        }
+        for (int run = 0; run < 20; run++) {
+            int start = (3 << 16) + random.nextInt(60000);
+            set.set(start, start + random.nextInt(5000));
+        }
+        return set;
+    }
+
+    private static RoaringBitmap toBitmap(BitSet set) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int v = set.nextSetBit(0); v >= 0; v = set.nextSetBit(v + 1)) {
+            bitmap.add(v);
+        }
+        return bitmap;
+    }
+
+    @Test
+    public void testAddRemove() {
+        Random random = new Random(0);
+        BitSet expected = randomSet(random);
+        RoaringBitmap bitmap = toBitmap(expected);
+        checkEquals(expected, bitmap);
+        for (boolean optimized : new boolean[]{false, true}) {
+            if (optimized) {
+                bitmap.runOptimize();
+                checkEquals(expected, bitmap);
+            }
+            for (int i = 0; i < 50000; i++) {
+                int v = random.nextInt(5 << 16);
+                if (random.nextBoolean()) {
+                    bitmap.add(v);
+                    expected.set(v);
+                } else {
+                    assertEquals(expected.get(v), bitmap.remove(v));
+                    expected.clear(v);
+                }
+                assertEquals(expected.get(v), bitmap.contains(v));
+            }
+            checkEquals(expected, bitmap);
+        }
+        // removing everything drops every chunk
+        for (int v = expected.nextSetBit(0); v >= 0; v = expected.nextSetBit(v + 1)) {
+            assertTrue(bitmap.remove(v));
+        }
+        assertTrue(bitmap.isEmpty());
+    }
+
+    @Test
+    public void testRunOptimize() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        BitSet expected = new BitSet();
+        for (int v = 100; v < 200_000; v++) {
+            bitmap.add(v);
+            expected.set(v);
+        }
+        long before = bitmap.sizeInBytes();
+        bitmap.runOptimize();
+        assertTrue(bitmap.sizeInBytes() < before / 100);
+        checkEquals(expected, bitmap);
+        for (int v = 0; v < 210_000; v += 997) {
+            assertEquals(expected.get(v), bitmap.contains(v));
+        }
+    }
+
+    @Test
+    public void testOrAnd() {
+        Random random = new Random(1);
+        List<BitSet> sets = new ArrayList<>();
+        List<RoaringBitmap> bitmaps = new ArrayList<>();
+        BitSet union = new BitSet();
+        for (int i = 0; i < 5; i++) {
+            BitSet set = randomSet(random);
+            RoaringBitmap bitmap = toBitmap(set);
+            if (i % 2 == 0) {
+                bitmap.runOptimize();
+            }
+            sets.add(set);
+            bitmaps.add(bitmap);
+            union.or(set);
+        }
+        checkEquals(union, RoaringBitmap.or(bitmaps));
+        for (int i = 0; i < 5; i++) {
+            for (int j = 0; j < 5; j++) {
+                BitSet intersection = (BitSet) sets.get(i).clone();
+                intersection.and(sets.get(j));
+                checkEquals(intersection, RoaringBitmap.and(bitmaps.get(i), bitmaps.get(j)));
+            }
+        }
+        checkEquals(new BitSet(), RoaringBitmap.or(new ArrayList<RoaringBitmap>()));
+    }
+
+    @Test
+    public void testIndexIntersection() throws IOException {
+        DataLoader dl = new RandomizedLoader(0, 100_000, 4);
+        IndexedRowTable by1 = new IndexedRowTable(1);
+        IndexedRowTable by2 = new IndexedRowTable(2);
+        by1.load(dl);
+        by2.load(dl);
+        for (int rowId = 0; rowId < 100_000; rowId += 101) {
+            by1.putIntField(rowId, 1, rowId % 1024);
+            by2.putIntField(rowId, 1, rowId % 1024);
+        }
+
+        BitSet expected = new BitSet();
+        for (int rowId = 0; rowId < 100_000; rowId++) {
+            if (by1.getIntField(rowId, 1) > 300 && by1.getIntField(rowId, 2) < 40) {
+                expected.set(rowId);
+            }
+        }
+        checkEquals(expected, RoaringBitmap.and(by1.rowsAbove(300), by2.rowsBelow(40)));
+    }
+}
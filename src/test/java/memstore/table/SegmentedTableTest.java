@@ -0,0 +1,91 @@
+package memstore.table;
+
+import memstore.data.CSVLoader;
+import memstore.data.DataLoader;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the SegmentedTable's inserts, deletes and compaction.
+ */
+public class SegmentedTableTest {
+    DataLoader dl;
+
+    public SegmentedTableTest() {
+        dl = new CSVLoader(
+                "src/main/resources/test.csv",
+                5
+        );
+    }
+
+    @Test
+    public void testInsertDelete() throws IOException {
+        SegmentedTable t = new SegmentedTable(2);
+        t.load(dl);
+        assertEquals(5, t.getNumSegments());
+        assertTrue(t.deleteRow(4));
+        assertTrue(t.deleteRow(11));
+        assertFalse(t.deleteRow(11));
+        assertFalse(t.deleteRow(20));
+        assertEquals(20, t.insertRow(new int[]{5, 5, 5, 5, 5}));
+        assertEquals(6, t.getNumSegments());
+        assertEquals(19, t.getNumRows());
+        assertFalse(t.containsRow(4));
+        assertTrue(t.containsRow(20));
+        assertEquals(56, t.columnSum());
+        assertEquals(321, t.predicatedAllColumnsSum(-1));
+        assertEquals(32, t.predicatedColumnSum(3, 5));
+        assertEquals(9, t.predicatedUpdate(3));
+    }
+
+    @Test
+    public void testCompaction() throws IOException {
+        SegmentedTable t = new SegmentedTable(2);
+        t.load(dl);
+        t.deleteRow(4);
+        t.deleteRow(5);
+        t.awaitCompaction();
+        assertFalse(t.containsRow(5));
+        assertEquals(4, t.getIntField(6, 0));
+        assertEquals(1, t.getIntField(7, 1));
+        assertEquals(54, t.columnSum());
+        t.putIntField(7, 0, 10);
+        assertEquals(63, t.columnSum());
+        assertTrue(t.deleteRow(6));
+        assertFalse(t.deleteRow(4));
+        t.compact();
+        assertEquals(10, t.getIntField(7, 0));
+        assertEquals(59, t.columnSum());
+        assertEquals(20, t.insertRow(new int[]{1, 1, 1, 1, 1}));
+    }
+
+    @Test
+    public void testInsertIntoEmptyTable() {
+        SegmentedTable t = new SegmentedTable(5, 2, 1.0);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, t.insertRow(new int[]{i, 1, 2, 3, 4}));
+        }
+        assertEquals(3, t.getNumSegments());
+        assertEquals(45, t.columnSum());
+        // background compaction is off, so the deleted rows stay tombstones
+        t.deleteRow(0);
+        t.deleteRow(1);
+        t.deleteRow(2);
+        t.awaitCompaction();
+        assertEquals(42, t.columnSum());
+        assertEquals(7, t.getNumRows());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetDeleted() throws IOException {
+        SegmentedTable t = new SegmentedTable(2);
+        t.load(dl);
+        t.deleteRow(3);
+        t.getIntField(3, 0);
+    }
+}
@@ -0,0 +1,55 @@
+package memstore.table;
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests SortedIntIndex and its cursor against a TreeMap.
+ */
+public class SortedIntIndexTest {
+    private static void checkRange(SortedIntIndex.Cursor<Integer> cursor, Map<Integer, Integer> expected) {
+        // walked twice, since iterator() rewinds the cursor
+        for (int pass = 0; pass < 2; pass++) {
+            int count = 0;
+            for (int value : cursor) {
+                assertEquals(value, -cursor.key());
+                assertTrue(expected.containsKey(cursor.key()));
+                count++;
+            }
+            assertEquals(expected.size(), count);
+        }
+    }
+
+    @Test
+    public void testAgainstTreeMap() {
+        Random random = new Random(0);
+        SortedIntIndex<Integer> index = new SortedIntIndex<>();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        SortedIntIndex.Cursor<Integer> cursor = index.cursor();
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(2000) - 1000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), index.remove(key));
+            } else {
+                expected.put(key, -key);
+                index.put(key, -key);
+            }
+            assertEquals(expected.size(), index.size());
+            assertEquals(expected.get(key), index.get(key));
+
+            if (i % 500 == 0) {
+                int threshold = random.nextInt(2200) - 1100;
+                checkRange(cursor.seekAbove(threshold), expected.tailMap(threshold, false));
+                checkRange(cursor.seekBelow(threshold), expected.headMap(threshold, false));
+                checkRange(cursor.seekAll(), expected);
+            }
+        }
+        checkRange(cursor.seekAbove(Integer.MAX_VALUE), new TreeMap<Integer, Integer>());
+        checkRange(cursor.seekBelow(Integer.MIN_VALUE), new TreeMap<Integer, Integer>());
+    }
+}
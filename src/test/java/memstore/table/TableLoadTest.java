@@ -3,7 +3,9 @@ package memstore.table;
 import memstore.data.CSVLoader;
 import memstore.data.DataLoader;
 import memstore.data.RandomizedLoader;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
 import java.util.Arrays;
@@ -18,12 +20,30 @@ import static org.junit.Assert.assertEquals;
  */
 
 public class TableLoadTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     public void testLoadCSV() throws IOException {
         DataLoader dl = new CSVLoader("src/main/resources/test.csv", 3);
         List<Table> tables = Arrays.asList(
                 new ColumnTable(),
-                new RowTable()
+                new RowTable(),
+                new OffHeapColumnTable(),
+                new ArrayColumnTable(),
+                new PaxTable(),
+                new CompressedColumnTable(),
+                new ColumnGroupTable(),
+                new SegmentedTable(),
+                new ClusteredRowTable(),
+                new ProjectedTable(),
+                new MappedTable(folder.newFile()),
+                new MaterializedTable(new RowTable()),
+                new AdaptiveTable(),
+                new CrackedColumnTable(),
+                new KdTreeTable(),
+                new DeferredUpdateTable(),
+                new MainDeltaTable()
         );
         for (Table t : tables) {
             String tableType = t.getClass().getSimpleName();
@@ -40,7 +60,22 @@ public class TableLoadTest {
 
         List<Table> tables = Arrays.asList(
                 new ColumnTable(),
-                new RowTable()
+                new RowTable(),
+                new OffHeapColumnTable(),
+                new ArrayColumnTable(),
+                new PaxTable(),
+                new CompressedColumnTable(),
+                new ColumnGroupTable(),
+                new SegmentedTable(),
+                new ClusteredRowTable(),
+                new ProjectedTable(),
+                new MappedTable(folder.newFile()),
+                new MaterializedTable(new RowTable()),
+                new AdaptiveTable(),
+                new CrackedColumnTable(),
+                new KdTreeTable(),
+                new DeferredUpdateTable(),
+                new MainDeltaTable()
         );
         for (Table t : tables) {
             String tableType = t.getClass().getSimpleName();
@@ -0,0 +1,111 @@
+package memstore.table;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import memstore.data.RandomizedLoader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests ValueDomainIndex against the values it indexes, and IndexedRowTable
+ * on it and on its other index types against a plain table, while writes fill
+ * the slack, spill into the overflow lists and leave the value range.
+ */
+public class ValueDomainIndexTest {
+    private static void checkValue(ValueDomainIndex index, int[] values, int value) {
+        BitSet expected = new BitSet();
+        for (int rowId = 0; rowId < values.length; rowId++) {
+            if (values[rowId] == value) {
+                expected.set(rowId);
+            }
+        }
+        BitSet actual = new BitSet();
+        int start = index.start(value);
+        for (int i = start; i < start + index.count(value); i++) {
+            assertFalse(actual.get(index.rowIds()[i]));
+            actual.set(index.rowIds()[i]);
+        }
+        IntArrayList overflow = index.overflow(value);
+        for (int i = 0; overflow != null && i < overflow.size(); i++) {
+            assertFalse(actual.get(overflow.getInt(i)));
+            actual.set(overflow.getInt(i));
+        }
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testSetAndOverflow() {
+        Random random = new Random(0);
+        int[] values = new int[2000];
+        for (int rowId = 0; rowId < values.length; rowId++) {
+            values[rowId] = 10 + random.nextInt(40);
+        }
+        ValueDomainIndex index = new ValueDomainIndex(values, 5, 60);
+        for (int i = 0; i < 3000; i++) {
+            int rowId = random.nextInt(values.length);
+            // a third of the writes go to one value, which overflows its segment
+            int value = random.nextInt(3) == 0 ? 7 : 5 + random.nextInt(56);
+            assertTrue(index.covers(value));
+            index.set(rowId, values[rowId], value);
+            values[rowId] = value;
+            if (i % 100 == 0) {
+                for (int v = 5; v <= 60; v++) {
+                    checkValue(index, values, v);
+                }
+            }
+        }
+        assertNotNull(index.overflow(7));
+        assertTrue(index.needsRebuild());
+        assertEquals(values.length, index.countRange(5, 60));
+        assertFalse(index.covers(61));
+    }
+
+    @Test
+    public void testIndexedRowTable() throws IOException {
+        for (IndexedRowTable.IndexType indexType : IndexedRowTable.IndexType.values()) {
+            checkAgainstArrayColumnTable(indexType, IndexedRowTable.DEFAULT_MAX_DOMAIN_FRACTION);
+        }
+        // VALUE_DOMAIN on a B+-tree from the start
+        checkAgainstArrayColumnTable(IndexedRowTable.IndexType.VALUE_DOMAIN, 0);
+    }
+
+    private void checkAgainstArrayColumnTable(IndexedRowTable.IndexType indexType,
+                                              double maxDomainFraction) throws IOException {
+        RandomizedLoader dl = new RandomizedLoader(0, 5000, 4);
+        for (int indexColumn = 0; indexColumn < 3; indexColumn++) {
+            Table expected = new ArrayColumnTable();
+            IndexedRowTable t = new IndexedRowTable(indexColumn, indexType, maxDomainFraction);
+            expected.load(dl);
+            t.load(dl);
+            Random random = new Random(indexColumn);
+            for (int i = 0; i < 6000; i++) {
+                int rowId = random.nextInt(5000);
+                int colId = random.nextInt(4);
+                // mostly in range, with a hot value, and rarely far outside it
+                int field = random.nextInt(4) == 0 ? 3 : random.nextInt(1024);
+                if (i % 1500 == 1499) {
+                    field = 1024 + 1000 * i;
+                }
+                expected.putIntField(rowId, colId, field);
+                t.putIntField(rowId, colId, field);
+                if (i % 250 == 0) {
+                    int threshold = random.nextInt(1100) - 50;
+                    int threshold2 = random.nextInt(1100) - 50;
+                    assertEquals(expected.predicatedAllColumnsSum(threshold), t.predicatedAllColumnsSum(threshold));
+                    assertEquals(expected.predicatedColumnSum(threshold, threshold2),
+                            t.predicatedColumnSum(threshold, threshold2));
+                    assertEquals(expected.predicatedColumnSum(threshold, 20), t.predicatedColumnSum(threshold, 20));
+                    assertEquals(expected.predicatedColumnSum(1000, threshold2), t.predicatedColumnSum(1000, threshold2));
+                    assertEquals(expected.predicatedUpdate(threshold / 8), t.predicatedUpdate(threshold / 8));
+                    assertEquals(expected.predicatedUpdate(Integer.MIN_VALUE), t.predicatedUpdate(Integer.MIN_VALUE));
+                    assertEquals(expected.predicatedAllColumnsSum(Integer.MAX_VALUE),
+                            t.predicatedAllColumnsSum(Integer.MAX_VALUE));
+                }
+            }
+        }
+    }
+}
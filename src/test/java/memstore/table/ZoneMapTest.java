@@ -0,0 +1,92 @@
+package memstore.table;
+
+import memstore.data.ClusteredLoader;
+import memstore.data.DataLoader;
+import memstore.data.RandomizedLoader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that the zone-map pruned scans of RowTable, ColumnTable and
+ * IndexedRowTable agree with a plain scan, on uniform and on clustered data,
+ * while putIntField and predicatedUpdate keep changing the block metadata.
+ */
+public class ZoneMapTest {
+    private void checkAgainstArrayColumnTable(DataLoader dl) throws IOException {
+        List<Table> tables = Arrays.asList(
+                new RowTable(),
+                new ColumnTable(),
+                new IndexedRowTable(1),
+                new IndexedRowTable(3)
+        );
+        for (Table t : tables) {
+            String tableType = t.getClass().getSimpleName();
+            Table expected = new ArrayColumnTable();
+            expected.load(dl);
+            t.load(dl);
+            Random random = new Random(0);
+            for (int i = 0; i < 4000; i++) {
+                int rowId = random.nextInt(5000);
+                int colId = random.nextInt(5);
+                int field = random.nextInt(1024);
+                expected.putIntField(rowId, colId, field);
+                t.putIntField(rowId, colId, field);
+                if (i % 200 == 0) {
+                    int threshold = random.nextInt(1024);
+                    int threshold2 = random.nextInt(1024);
+                    assertEquals(tableType, expected.columnSum(), t.columnSum());
+                    assertEquals(tableType, expected.predicatedAllColumnsSum(threshold),
+                            t.predicatedAllColumnsSum(threshold));
+                    assertEquals(tableType, expected.predicatedColumnSum(threshold, threshold2),
+                            t.predicatedColumnSum(threshold, threshold2));
+                    assertEquals(tableType, expected.predicatedUpdate(threshold / 8),
+                            t.predicatedUpdate(threshold / 8));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testUniform() throws IOException {
+        checkAgainstArrayColumnTable(new RandomizedLoader(0, 5000, 5));
+    }
+
+    @Test
+    public void testClustered() throws IOException {
+        checkAgainstArrayColumnTable(new ClusteredLoader(0, 5000, 5, 0, 0));
+        checkAgainstArrayColumnTable(new ClusteredLoader(0, 5000, 5, 1, 700));
+    }
+
+    @Test
+    public void testBlockMetadata() throws IOException {
+        Table t = new RowTable();
+        t.load(new ClusteredLoader(0, 3000, 2, 0, 0));
+        ZoneMap zm = new ZoneMap(3000, 2, 10);
+        zm.build(t);
+        assertEquals(3, zm.numBlocks);
+        assertEquals(952, zm.count(2));
+        for (int block = 0; block < zm.numBlocks - 1; block++) {
+            assertEquals(true, zm.max(0, block) <= zm.min(0, block + 1));
+        }
+        int oldValue = t.getIntField(0, 0);
+        int oldMin = zm.min(0, 0);
+        long oldSum = zm.sum(0, 0);
+        t.putIntField(0, 0, -5);
+        zm.update(0, 0, oldValue, -5);
+        assertEquals(-5, zm.min(0, 0));
+        assertEquals(oldSum - 5 - oldValue, zm.sum(0, 0));
+        // writing the old value back keeps the widened bound, but an exact sum
+        t.putIntField(0, 0, oldValue);
+        zm.update(0, 0, -5, oldValue);
+        assertEquals(-5, zm.min(0, 0));
+        assertEquals(oldSum, zm.sum(0, 0));
+        zm.build(t);
+        assertEquals(oldMin, zm.min(0, 0));
+    }
+}